@@ -0,0 +1,87 @@
+package org.sagebionetworks.bridge;
+
+import static org.sagebionetworks.bridge.AuthEvaluatorField.ORG_ID;
+import static org.sagebionetworks.bridge.AuthEvaluatorField.STUDY_ID;
+import static org.sagebionetworks.bridge.AuthEvaluatorField.USER_ID;
+import static org.sagebionetworks.bridge.AuthUtils.CAN_EDIT_STUDY_PARTICIPANTS;
+import static org.sagebionetworks.bridge.AuthUtils.CAN_READ_PARTICIPANTS;
+import static org.sagebionetworks.bridge.AuthUtils.CAN_READ_STUDIES;
+import static org.sagebionetworks.bridge.AuthUtils.CANNOT_ACCESS_PARTICIPANTS;
+import static org.sagebionetworks.bridge.Roles.ADMIN;
+import static org.sagebionetworks.bridge.Roles.STUDY_COORDINATOR;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The AuthUtils evaluators that run several times on participant and study API calls, evaluated
+ * for a study coordinator (who falls through to the study-sponsorship rules) and for an admin.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AuthEvaluatorBenchmark {
+    
+    private static final String CALLER_ID = "callerId";
+    private static final String USER_ID_VALUE = "userId";
+    private static final String ORG_ID_VALUE = "orgId";
+    private static final String STUDY_ID_VALUE = "study5";
+
+    @Param({"STUDY_COORDINATOR", "ADMIN"})
+    public String callerRole;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        Roles role = Roles.valueOf(callerRole);
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerAppId("api")
+                .withCallerUserId(CALLER_ID)
+                .withCallerOrgMembership(ORG_ID_VALUE)
+                .withCallerRoles((role == STUDY_COORDINATOR) ? ImmutableSet.of(STUDY_COORDINATOR) : ImmutableSet.of(ADMIN))
+                .withOrgSponsoredStudies(ImmutableSet.of("study1", "study2", "study3", "study4", STUDY_ID_VALUE))
+                .build());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContext.set(null);
+    }
+    
+    @Benchmark
+    public boolean canReadParticipants() {
+        return CAN_READ_PARTICIPANTS.check(USER_ID, USER_ID_VALUE, ORG_ID, ORG_ID_VALUE, STUDY_ID, STUDY_ID_VALUE);
+    }
+    
+    @Benchmark
+    public boolean canEditStudyParticipants() {
+        return CAN_EDIT_STUDY_PARTICIPANTS.check(STUDY_ID, STUDY_ID_VALUE, USER_ID, USER_ID_VALUE);
+    }
+    
+    @Benchmark
+    public boolean canReadStudies() {
+        return CAN_READ_STUDIES.check(STUDY_ID, STUDY_ID_VALUE);
+    }
+    
+    @Benchmark
+    public boolean cannotAccessParticipants() {
+        return CANNOT_ACCESS_PARTICIPANTS.check(USER_ID, USER_ID_VALUE);
+    }
+}
@@ -0,0 +1,41 @@
+package org.sagebionetworks.bridge.models;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing User-Agent headers (bypassing the cache in ClientInfo.fromUserAgentCache). The strings are
+ * the formats sent by the Bridge SDKs, an older app, and browsers using the web clients.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientInfoBenchmark {
+    
+    @Param({
+        "Asthma/26 (Unknown iPhone; iPhone OS/9.1) BridgeSDK/4",
+        "mPower/2.1.3 (iPhone12,1; iOS/15.4.1) BridgeSDK/71",
+        "MyStudy/105 (samsung SM-G991U; Android/12) BridgeAndroidSDK/4.4.20",
+        "Cardio Health/21 BridgeSDK/10",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/15.4 Safari/605.1.15"
+    })
+    public String userAgent;
+    
+    @Benchmark
+    public ClientInfo parseUserAgentString() {
+        return ClientInfo.parseUserAgentString(userAgent);
+    }
+}
@@ -0,0 +1,120 @@
+package org.sagebionetworks.bridge.models;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.sagebionetworks.bridge.models.appconfig.AppConfig;
+
+/**
+ * Compares filtering an app's app configs with {@link CriteriaUtils#filterByCriteria} against a precompiled
+ * {@link CriteriaIndex}, for apps with few and with hundreds of data groups. The "checked" variant includes the
+ * key comparison AppConfigService does against freshly loaded configs before reusing its index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CriteriaIndexBenchmark {
+    private static final List<String> STUDY_IDS = ImmutableList.of("study1", "study2", "study3", "study4");
+    private static final Comparator<AppConfig> CREATED_ON = Comparator.comparingLong(AppConfig::getCreatedOn);
+
+    @Param({"10", "300"})
+    public int dataGroupCount;
+
+    @Param({"100", "500"})
+    public int configCount;
+
+    private List<AppConfig> appConfigs;
+    private CriteriaIndex<AppConfig> index;
+    private CriteriaContext context;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+        List<String> dataGroups = new ArrayList<>();
+        for (int i = 0; i < dataGroupCount; i++) {
+            dataGroups.add("data_group_" + i);
+        }
+
+        appConfigs = new ArrayList<>();
+        for (int i = 0; i < configCount; i++) {
+            Criteria criteria = Criteria.create();
+            criteria.setAllOfGroups(randomSubset(random, dataGroups, 3));
+            criteria.setNoneOfGroups(randomSubset(random, dataGroups, 3));
+            criteria.setAllOfStudyIds(randomSubset(random, STUDY_IDS, 1));
+            criteria.setMinAppVersion(OperatingSystem.IOS, i % 10);
+            criteria.setMaxAppVersion(OperatingSystem.IOS, 20 + (i % 10));
+
+            AppConfig appConfig = AppConfig.create();
+            appConfig.setGuid("config" + i);
+            appConfig.setVersion(1L);
+            appConfig.setCreatedOn(1600000000000L + i);
+            appConfig.setCriteria(criteria);
+            appConfigs.add(appConfig);
+        }
+        index = CriteriaIndex.create(appConfigs, AppConfig::getGuid, AppConfig::getVersion);
+
+        ClientInfo clientInfo = new ClientInfo.Builder().withAppName("mPower").withAppVersion(12)
+                .withOsName(OperatingSystem.IOS).withSdkName("BridgeSDK").withSdkVersion(71).build();
+        context = new CriteriaContext.Builder()
+                .withAppId("benchmark-app")
+                .withClientInfo(clientInfo)
+                .withUserDataGroups(randomSubset(random, dataGroups, dataGroupCount / 3))
+                .withUserStudyIds(ImmutableSet.of("study1", "study3"))
+                .withLanguages(ImmutableList.of("en", "fr"))
+                .build();
+    }
+
+    @Benchmark
+    public List<AppConfig> filterByCriteria() {
+        return CriteriaUtils.filterByCriteria(context, appConfigs, CREATED_ON);
+    }
+
+    @Benchmark
+    public List<AppConfig> filterWithIndex() {
+        return index.filter(context, appConfigs, CREATED_ON);
+    }
+
+    @Benchmark
+    public List<AppConfig> filterWithCheckedIndex() {
+        if (!index.isIndexOf(appConfigs)) {
+            throw new IllegalStateException("Index should match the configs");
+        }
+        return index.filter(context, appConfigs, CREATED_ON);
+    }
+
+    @Benchmark
+    public CriteriaIndex<AppConfig> createIndex() {
+        return CriteriaIndex.create(appConfigs, AppConfig::getGuid, AppConfig::getVersion);
+    }
+
+    private static Set<String> randomSubset(Random random, List<String> values, int maxSize) {
+        Set<String> subset = new HashSet<>();
+        int size = random.nextInt(maxSize + 1);
+        for (int i = 0; i < size; i++) {
+            subset.add(values.get(random.nextInt(values.size())));
+        }
+        return subset;
+    }
+}
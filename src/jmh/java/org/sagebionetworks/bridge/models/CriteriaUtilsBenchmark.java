@@ -0,0 +1,87 @@
+package org.sagebionetworks.bridge.models;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.sagebionetworks.bridge.models.appconfig.AppConfig;
+
+/**
+ * Filtering an app's app configs by the criteria of a request, as is done for every call to retrieve 
+ * the app config. Configs use a mix of data group, study, app version and language criteria.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CriteriaUtilsBenchmark {
+    private static final List<String> DATA_GROUPS = ImmutableList.of("control", "treatment", "test_user",
+            "sdk-int-1", "sdk-int-2", "group_a", "group_b", "group_c");
+    private static final List<String> STUDY_IDS = ImmutableList.of("study1", "study2", "study3", "study4");
+    private static final List<String> LANGUAGES = ImmutableList.of("en", "fr", "de", "es");
+    private static final Comparator<AppConfig> CREATED_ON = Comparator.comparingLong(AppConfig::getCreatedOn);
+    
+    @Param({"10", "100", "500"})
+    public int configCount;
+    
+    private List<AppConfig> appConfigs;
+    private CriteriaContext context;
+    
+    @Setup
+    public void setup() {
+        appConfigs = new ArrayList<>();
+        for (int i = 0; i < configCount; i++) {
+            Criteria criteria = Criteria.create();
+            criteria.setAllOfGroups(ImmutableSet.of(DATA_GROUPS.get(i % DATA_GROUPS.size())));
+            criteria.setNoneOfGroups(ImmutableSet.of(DATA_GROUPS.get((i + 3) % DATA_GROUPS.size())));
+            if (i % 2 == 0) {
+                criteria.setAllOfStudyIds(ImmutableSet.of(STUDY_IDS.get(i % STUDY_IDS.size())));
+            }
+            criteria.setMinAppVersion(OperatingSystem.IOS, i % 10);
+            criteria.setMaxAppVersion(OperatingSystem.IOS, 20 + (i % 10));
+            criteria.setMinAppVersion(OperatingSystem.ANDROID, i % 5);
+            if (i % 4 == 0) {
+                criteria.setLanguage(LANGUAGES.get(i % LANGUAGES.size()));
+            }
+            
+            AppConfig appConfig = AppConfig.create();
+            appConfig.setGuid("config" + i);
+            appConfig.setLabel("Config " + i);
+            appConfig.setCreatedOn(1600000000000L + i);
+            appConfig.setCriteria(criteria);
+            appConfigs.add(appConfig);
+        }
+        
+        ClientInfo clientInfo = new ClientInfo.Builder().withAppName("mPower").withAppVersion(12)
+                .withOsName(OperatingSystem.IOS).withSdkName("BridgeSDK").withSdkVersion(71).build();
+        context = new CriteriaContext.Builder()
+                .withAppId("benchmark-app")
+                .withClientInfo(clientInfo)
+                .withUserDataGroups(ImmutableSet.of("control", "group_a", "sdk-int-1"))
+                .withUserStudyIds(ImmutableSet.of("study1", "study3"))
+                .withLanguages(ImmutableList.of("en", "fr"))
+                .build();
+    }
+    
+    @Benchmark
+    public List<AppConfig> filterByCriteria() {
+        return CriteriaUtils.filterByCriteria(context, appConfigs, CREATED_ON);
+    }
+}
@@ -0,0 +1,198 @@
+package org.sagebionetworks.bridge.models.schedules2;
+
+import static java.util.stream.Collectors.toList;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.STUDY_BURST;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.IMMUTABLE;
+import static org.sagebionetworks.bridge.models.schedules2.PerformanceOrder.SEQUENTIAL;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalTime;
+import org.joda.time.Period;
+
+import org.sagebionetworks.bridge.models.activities.ActivityEventObjectType;
+import org.sagebionetworks.bridge.models.activities.StudyActivityEvent;
+import org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceRecord;
+import org.sagebionetworks.bridge.models.schedules2.timelines.Timeline;
+import org.sagebionetworks.bridge.models.schedules2.timelines.TimelineMetadata;
+
+/**
+ * Schedules and participant state shaped like a long-running study with several study bursts: a
+ * year-long schedule with twice-daily check-ins, a weekly survey, and a number of bursts of a week
+ * of daily tasks. A participant is enrolled half-way through the study and has done most of the 
+ * work that is due.
+ */
+public final class ScheduleFixtures {
+    
+    public static final String APP_ID = "benchmark-app";
+    public static final String ENROLLMENT = "enrollment";
+    public static final DateTime ENROLLED_ON = DateTime.parse("2022-01-03T09:00:00.000-08:00");
+    public static final DateTime NOW = ENROLLED_ON.plusWeeks(26);
+    
+    private static final Period BURST_DELAY = Period.parse("P2W");
+    private static final Period BURST_INTERVAL = Period.parse("P4W");
+    
+    private ScheduleFixtures() {
+    }
+    
+    public static Schedule2 createMultiBurstSchedule(int burstCount, int burstOccurrences) {
+        List<Session> sessions = new ArrayList<>();
+        
+        Session checkIn = createSession("checkIn", "Daily Check-In", 2);
+        checkIn.setStartEventIds(ImmutableList.of(ENROLLMENT));
+        checkIn.setInterval(Period.parse("P1D"));
+        checkIn.setTimeWindows(ImmutableList.of(
+                createWindow("checkInMorning", "08:00", "PT6H"),
+                createWindow("checkInEvening", "18:00", "PT6H")));
+        sessions.add(checkIn);
+        
+        Session weekly = createSession("weekly", "Weekly Survey", 3);
+        weekly.setStartEventIds(ImmutableList.of(ENROLLMENT));
+        weekly.setDelay(Period.parse("P1D"));
+        weekly.setInterval(Period.parse("P1W"));
+        weekly.setTimeWindows(ImmutableList.of(createWindow("weeklyWindow", "00:00", "P3D")));
+        sessions.add(weekly);
+        
+        List<StudyBurst> bursts = new ArrayList<>();
+        for (int i=0; i < burstCount; i++) {
+            StudyBurst burst = new StudyBurst();
+            burst.setIdentifier("burst" + i);
+            burst.setOriginEventId(ENROLLMENT);
+            burst.setUpdateType(IMMUTABLE);
+            burst.setDelay(BURST_DELAY.plusDays(i));
+            burst.setInterval(BURST_INTERVAL);
+            burst.setOccurrences(burstOccurrences);
+            bursts.add(burst);
+            
+            Session burstSession = createSession("burstSession" + i, "Burst Tasks " + i, 4);
+            burstSession.setStudyBurstIds(ImmutableList.of(burst.getIdentifier()));
+            burstSession.setInterval(Period.parse("P1D"));
+            burstSession.setOccurrences(7);
+            burstSession.setTimeWindows(ImmutableList.of(createWindow("burstWindow" + i, "00:00", "P1D")));
+            sessions.add(burstSession);
+        }
+        
+        Schedule2 schedule = new Schedule2();
+        schedule.setAppId(APP_ID);
+        schedule.setGuid("benchmarkScheduleGuid");
+        schedule.setName("Benchmark Schedule");
+        schedule.setOwnerId("benchmark-org");
+        schedule.setDuration(Period.parse("P52W"));
+        schedule.setStudyBursts(bursts);
+        schedule.setSessions(sessions);
+        return schedule;
+    }
+
+    /** 
+     * The session rows of the timeline metadata, which is what the adherence reports are generated from
+     * (see HibernateSchedule2Dao.getScheduleMetadata).
+     */
+    public static List<TimelineMetadata> getSessionMetadata(Timeline timeline) {
+        return timeline.getMetadata().stream()
+                .filter(meta -> meta.getAssessmentInstanceGuid() == null)
+                .collect(toList());
+    }
+    
+    /** The enrollment event and every study burst event that has been generated from it. */
+    public static List<StudyActivityEvent> createEvents(Schedule2 schedule) {
+        List<StudyActivityEvent> events = new ArrayList<>();
+        events.add(new StudyActivityEvent.Builder().withEventId(ENROLLMENT).withTimestamp(ENROLLED_ON)
+                .withObjectType(ActivityEventObjectType.ENROLLMENT).build());
+        
+        for (StudyBurst burst : schedule.getStudyBursts()) {
+            DateTime timestamp = ENROLLED_ON.plus(burst.getDelay());
+            for (int i=0; i < burst.getOccurrences(); i++) {
+                String iteration = Strings.padStart(Integer.toString(i+1), 2, '0');
+                events.add(new StudyActivityEvent.Builder()
+                        .withEventId(STUDY_BURST.getEventId(burst.getIdentifier(), null, iteration))
+                        .withTimestamp(timestamp)
+                        .withObjectType(STUDY_BURST).build());
+                timestamp = timestamp.plus(burst.getInterval());
+            }
+        }
+        return events;
+    }
+    
+    /**
+     * Adherence records for the sessions that have started by NOW: most are finished, some are only 
+     * started, and a few have been declined.
+     */
+    public static List<AdherenceRecord> createAdherenceRecords(List<TimelineMetadata> metadata,
+            List<StudyActivityEvent> events) {
+        List<AdherenceRecord> records = new ArrayList<>();
+        int i = 0;
+        for (TimelineMetadata meta : metadata) {
+            if (meta.getSessionInstanceGuid() == null) {
+                continue;
+            }
+            DateTime eventTimestamp = findEventTimestamp(events, meta.getSessionStartEventId());
+            if (eventTimestamp == null) {
+                continue;
+            }
+            DateTime startedOn = eventTimestamp.plusDays(meta.getSessionInstanceStartDay()).plusHours(2);
+            if (startedOn.isAfter(NOW)) {
+                continue;
+            }
+            AdherenceRecord record = new AdherenceRecord();
+            record.setAppId(APP_ID);
+            record.setUserId("benchmarkUserId");
+            record.setStudyId("benchmarkStudyId");
+            record.setInstanceGuid(meta.getSessionInstanceGuid());
+            record.setEventTimestamp(eventTimestamp);
+            
+            int bucket = (i++) % 20;
+            if (bucket == 0) {
+                record.setDeclined(true);
+            } else if (bucket < 3) {
+                record.setStartedOn(startedOn);
+            } else if (bucket < 17) {
+                record.setStartedOn(startedOn);
+                record.setFinishedOn(startedOn.plusMinutes(10));
+            }
+            // remaining buckets have not been done
+            if (bucket < 17) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+    
+    private static DateTime findEventTimestamp(List<StudyActivityEvent> events, String eventId) {
+        for (StudyActivityEvent event : events) {
+            if (event.getEventId().equals(eventId)) {
+                return event.getTimestamp();
+            }
+        }
+        return null;
+    }
+    
+    private static Session createSession(String guid, String name, int assessmentCount) {
+        List<AssessmentReference> refs = new ArrayList<>();
+        for (int i=0; i < assessmentCount; i++) {
+            AssessmentReference ref = new AssessmentReference();
+            ref.setGuid(guid + "Assessment" + i);
+            ref.setAppId(APP_ID);
+            ref.setIdentifier(guid + "Assessment" + i);
+            refs.add(ref);
+        }
+        Session session = new Session();
+        session.setGuid(guid);
+        session.setName(name);
+        session.setPerformanceOrder(SEQUENTIAL);
+        session.setAssessments(refs);
+        return session;
+    }
+    
+    private static TimeWindow createWindow(String guid, String startTime, String expiration) {
+        TimeWindow window = new TimeWindow();
+        window.setGuid(guid);
+        window.setStartTime(LocalTime.parse(startTime));
+        window.setExpiration(Period.parse(expiration));
+        return window;
+    }
+}
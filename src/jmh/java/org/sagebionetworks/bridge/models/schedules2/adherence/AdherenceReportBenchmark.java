@@ -0,0 +1,76 @@
+package org.sagebionetworks.bridge.models.schedules2.adherence;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.sagebionetworks.bridge.models.activities.StudyActivityEvent;
+import org.sagebionetworks.bridge.models.schedules2.Schedule2;
+import org.sagebionetworks.bridge.models.schedules2.ScheduleFixtures;
+import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventStreamAdherenceReport;
+import org.sagebionetworks.bridge.models.schedules2.adherence.eventstream.EventStreamAdherenceReportGenerator;
+import org.sagebionetworks.bridge.models.schedules2.adherence.study.StudyAdherenceReport;
+import org.sagebionetworks.bridge.models.schedules2.adherence.study.StudyAdherenceReportGenerator;
+import org.sagebionetworks.bridge.models.schedules2.timelines.Scheduler;
+import org.sagebionetworks.bridge.models.schedules2.timelines.TimelineMetadata;
+
+/**
+ * Generating the event stream and study adherence reports for one participant, half-way through a 
+ * year-long, multi-burst schedule with thousands of adherence records. The AdherenceState caches 
+ * the streams it builds, so a new state is built for each invocation (as it is for each request).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdherenceReportBenchmark {
+
+    @Param({"1", "4", "8"})
+    public int burstCount;
+    
+    @Param({"12"})
+    public int burstOccurrences;
+    
+    private Schedule2 schedule;
+    private AdherenceState.Builder stateBuilder;
+    
+    @Setup
+    public void setup() {
+        schedule = ScheduleFixtures.createMultiBurstSchedule(burstCount, burstOccurrences);
+        List<TimelineMetadata> metadata = ScheduleFixtures.getSessionMetadata(
+                Scheduler.INSTANCE.calculateTimeline(schedule));
+        List<StudyActivityEvent> events = ScheduleFixtures.createEvents(schedule);
+        List<AdherenceRecord> records = ScheduleFixtures.createAdherenceRecords(metadata, events);
+        
+        stateBuilder = new AdherenceState.Builder()
+                .withStudyStartEventId(ScheduleFixtures.ENROLLMENT)
+                .withMetadata(metadata)
+                .withEvents(events)
+                .withAdherenceRecords(records)
+                .withClientTimeZone("America/Los_Angeles")
+                .withNow(ScheduleFixtures.NOW);
+    }
+    
+    @Benchmark
+    public EventStreamAdherenceReport eventStreamReport() {
+        return EventStreamAdherenceReportGenerator.INSTANCE.generate(stateBuilder.build(), schedule);
+    }
+    
+    @Benchmark
+    public StudyAdherenceReport studyReport() {
+        return StudyAdherenceReportGenerator.INSTANCE.generate(stateBuilder.build(), schedule);
+    }
+}
@@ -0,0 +1,46 @@
+package org.sagebionetworks.bridge.models.schedules2.timelines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.sagebionetworks.bridge.models.schedules2.Schedule2;
+import org.sagebionetworks.bridge.models.schedules2.ScheduleFixtures;
+
+/** Calculating the timeline of a year-long schedule with a varying number of study bursts. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulerBenchmark {
+    
+    @Param({"1", "4", "8"})
+    public int burstCount;
+    
+    @Param({"12"})
+    public int burstOccurrences;
+    
+    private Schedule2 schedule;
+    
+    @Setup
+    public void setup() {
+        schedule = ScheduleFixtures.createMultiBurstSchedule(burstCount, burstOccurrences);
+    }
+    
+    @Benchmark
+    public Timeline calculateTimeline() {
+        return Scheduler.INSTANCE.calculateTimeline(schedule);
+    }
+}
@@ -0,0 +1,85 @@
+package org.sagebionetworks.bridge.upload;
+
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.upload.UploadFieldType;
+
+/**
+ * Canonicalizing upload field values of each of the commonly used field types, in the raw forms sent by the 
+ * iOS and Android SDKs (numbers and booleans as strings, iOS timestamps, multi-choice answers as mixed arrays).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UploadUtilBenchmark {
+    
+    @Param({"BOOLEAN", "CALENDAR_DATE", "FLOAT", "INT", "MULTI_CHOICE", "STRING", "TIME_V2"})
+    public UploadFieldType fieldType;
+    
+    @Param({"50"})
+    public int multiChoiceAnswers;
+    
+    private JsonNode valueNode;
+    
+    @Setup
+    public void setup() {
+        switch (fieldType) {
+            case BOOLEAN:
+                valueNode = TextNode.valueOf("TRUE");
+                break;
+            case CALENDAR_DATE:
+                valueNode = TextNode.valueOf("2022-04-15T10:41:08.123-0700");
+                break;
+            case FLOAT:
+                valueNode = TextNode.valueOf("98.6");
+                break;
+            case INT:
+                valueNode = new DoubleNode(42.7);
+                break;
+            case MULTI_CHOICE:
+                ArrayNode array = BridgeObjectMapper.get().createArrayNode();
+                for (int i = 0; i < multiChoiceAnswers; i++) {
+                    if (i % 3 == 0) {
+                        array.add(i);
+                    } else {
+                        array.add("Answer Choice #" + i + " (other)");
+                    }
+                }
+                valueNode = array;
+                break;
+            case STRING:
+                valueNode = new DoubleNode(3.14159);
+                break;
+            case TIME_V2:
+                valueNode = TextNode.valueOf("2022-04-15T10:41:08.123-0700");
+                break;
+            default:
+                throw new IllegalArgumentException("No fixture for " + fieldType);
+        }
+    }
+    
+    @Benchmark
+    public CanonicalizationResult canonicalize() {
+        return UploadUtil.canonicalize(valueNode, fieldType);
+    }
+}
@@ -7,27 +7,35 @@ import static org.sagebionetworks.bridge.AuthEvaluatorField.OWNER_ID;
 import static org.sagebionetworks.bridge.AuthEvaluatorField.STUDY_ID;
 import static org.sagebionetworks.bridge.AuthEvaluatorField.USER_ID;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.function.Predicate;
-
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 
 /**
  * Utility for creating rules that can evaluate authorization for a caller. Currently referenced
  * by the AuthUtils class, but could be used elsewhere.
+ * 
+ * Rules are evaluated in the order they are declared, against a single lookup of the RequestContext. 
+ * Role requirements are converted to bitmasks when the evaluator is constructed and tested against the 
+ * bitmasks cached in the RequestContext, and facts are passed in a fixed-size array indexed by the 
+ * ordinal of the AuthEvaluatorField, so checks do not allocate collections.
  */
 public class AuthEvaluator {
     
-    private final Set<Predicate<Map<AuthEvaluatorField,String>>> predicates;
+    private static final int FACT_COUNT = AuthEvaluatorField.values().length;
+    
+    private static final String[] NO_FACTS = new String[FACT_COUNT];
+    
+    @FunctionalInterface
+    private interface Rule {
+        boolean test(RequestContext context, String[] facts);
+    }
+    
+    private final List<Rule> rules;
     
     public AuthEvaluator() {
-        predicates = new HashSet<>();
+        rules = new ArrayList<>();
     }
     
     /**
@@ -36,13 +44,13 @@ public class AuthEvaluator {
      * false.
      */
     public AuthEvaluator hasOnlyRoles(Roles... roles) {
-        predicates.add((factMap) -> {
-            Set<Roles> callerRoles = RequestContext.get().getCallerRoles();
-            if (callerRoles.isEmpty() && roles.length > 0) {
+        int requiredRoles = Roles.toBitmask(roles);
+        rules.add((context, facts) -> {
+            int callerRoles = context.getCallerRolesBitmask();
+            if (callerRoles == 0 && roles.length > 0) {
                 return false;
             }
-            Set<Roles> requiredRoles = ImmutableSet.copyOf(roles);
-            return requiredRoles.containsAll(callerRoles);
+            return (callerRoles & ~requiredRoles) == 0;
         });
         return this;
     }
@@ -52,11 +60,11 @@ public class AuthEvaluator {
      * have any role (they must be an administrative account).
      */
     public AuthEvaluator hasAnyRole(Roles...roles) {
-        predicates.add((factMap) -> {
-            RequestContext context = RequestContext.get();
+        int requiredRoles = Roles.toBitmask(roles);
+        rules.add((context, facts) -> {
             return (roles.length == 0) ?
                     context.isAdministrator() :
-                    context.isInRole(ImmutableSet.copyOf(roles));
+                    (context.getCallerPassesAsRolesBitmask() & requiredRoles) != 0;
         });
         return this;
     }
@@ -64,9 +72,9 @@ public class AuthEvaluator {
      * 
      */
     public AuthEvaluator hasNoRole(Roles... roles) {
-        predicates.add((factMap) -> {
-            RequestContext context = RequestContext.get();
-            return (roles.length == 0) ? true : !context.isInRole(ImmutableSet.copyOf(roles));
+        int excludedRoles = Roles.toBitmask(roles);
+        rules.add((context, facts) -> {
+            return (roles.length == 0) ? true : (context.getCallerPassesAsRolesBitmask() & excludedRoles) == 0;
         });
         return this;
     }
@@ -74,9 +82,9 @@ public class AuthEvaluator {
      * The caller is a member of an organization that sponsors the target study.
      */
     public AuthEvaluator canAccessStudy() {
-        predicates.add((factMap) -> {
-            String studyId = factMap.get(STUDY_ID);
-            return RequestContext.get().getOrgSponsoredStudies().contains(studyId);
+        rules.add((context, facts) -> {
+            String studyId = facts[STUDY_ID.ordinal()];
+            return context.getOrgSponsoredStudies().contains(studyId);
         });
         return this;
     }
@@ -85,9 +93,9 @@ public class AuthEvaluator {
      * The caller has been enrolled in the target study.
      */
     public AuthEvaluator isEnrolledInStudy() {
-        predicates.add((factMap) -> {
-            String studyId = factMap.get(STUDY_ID);
-            return RequestContext.get().getCallerEnrolledStudies().contains(studyId);
+        rules.add((context, facts) -> {
+            String studyId = facts[STUDY_ID.ordinal()];
+            return context.getCallerEnrolledStudies().contains(studyId);
         });
         return this;
     }
@@ -96,9 +104,9 @@ public class AuthEvaluator {
      * The caller’s session is bound to the target app.
      */
     public AuthEvaluator isInApp() {
-        predicates.add((factMap) -> {
-            String appId = factMap.get(APP_ID);
-            return appId != null && appId.equals(RequestContext.get().getCallerAppId());
+        rules.add((context, facts) -> {
+            String appId = facts[APP_ID.ordinal()];
+            return appId != null && appId.equals(context.getCallerAppId());
         });
         return this;
     }
@@ -106,9 +114,9 @@ public class AuthEvaluator {
      * The caller is a member of the target organization.
      */
     public AuthEvaluator isInOrg() {
-        predicates.add((factMap) -> {
-            String orgId = factMap.get(ORG_ID);
-            return orgId != null && orgId.equals(RequestContext.get().getCallerOrgMembership());
+        rules.add((context, facts) -> {
+            String orgId = facts[ORG_ID.ordinal()];
+            return orgId != null && orgId.equals(context.getCallerOrgMembership());
         });
         return this;
     }
@@ -122,9 +130,9 @@ public class AuthEvaluator {
      * operation is allowed. 
      */
     public AuthEvaluator isSelf() {
-        predicates.add((factMap) -> {
-            String userId = factMap.get(USER_ID);
-            String callerUserId = RequestContext.get().getCallerUserId();
+        rules.add((context, facts) -> {
+            String userId = facts[USER_ID.ordinal()];
+            String callerUserId = context.getCallerUserId();
             // Calls like signUp happen without a session so there is no caller user ID in the 
             // request context. In this case, we allow this test to pass. This removes some 
             // special case code elsewhere in the system that ultimately isn’t verifying anything.
@@ -134,17 +142,17 @@ public class AuthEvaluator {
     }
 
     public AuthEvaluator isNotSelf() {
-        predicates.add((factMap) -> {
-            String userId = factMap.get(USER_ID);
-            String callerUserId = RequestContext.get().getCallerUserId();
+        rules.add((context, facts) -> {
+            String userId = facts[USER_ID.ordinal()];
+            String callerUserId = context.getCallerUserId();
             return callerUserId != null && !callerUserId.equals(userId);
         });
         return this;
     }
     
     public AuthEvaluator isSharedOwner() {
-        predicates.add((factMap) -> {
-            String ownerId = factMap.get(OWNER_ID);
+        rules.add((context, facts) -> {
+            String ownerId = facts[OWNER_ID.ordinal()];
             if (ownerId == null) {
                 return false;
             }
@@ -154,8 +162,8 @@ public class AuthEvaluator {
             }
             String appId = parts[0];
             String orgId = parts[1];
-            return appId.equals(RequestContext.get().getCallerAppId()) &&
-                orgId.equals(RequestContext.get().getCallerOrgMembership());
+            return appId.equals(context.getCallerAppId()) &&
+                orgId.equals(context.getCallerOrgMembership());
         });
         return this;
     }
@@ -203,7 +211,7 @@ public class AuthEvaluator {
      * null values fail authorization tests.
      */
     public boolean check() {
-        return checkInternal(ImmutableMap.of());
+        return checkInternal(RequestContext.get(), NO_FACTS);
     }
     /**
      * Return true if the authorization rule passes, false otherwise. Missing, blank, and 
@@ -211,9 +219,9 @@ public class AuthEvaluator {
      */
     public boolean check(AuthEvaluatorField arg1, String val1) {
         checkNotNull(arg1);
-        Map<AuthEvaluatorField,String> factMap = new HashMap<>(); // can contain nulls
-        factMap.put(arg1, val1);
-        return checkInternal(factMap);
+        String[] facts = new String[FACT_COUNT]; // can contain nulls
+        facts[arg1.ordinal()] = val1;
+        return checkInternal(RequestContext.get(), facts);
     }
     /**
      * Return true if the authorization rule passes, false otherwise. Missing, blank, and 
@@ -222,25 +230,25 @@ public class AuthEvaluator {
     public boolean check(AuthEvaluatorField arg1, String val1, AuthEvaluatorField arg2, String val2) {
         checkNotNull(arg1);
         checkNotNull(arg2);
-        Map<AuthEvaluatorField,String> factMap = new HashMap<>(); // can contain nulls
-        factMap.put(arg1, val1);
-        factMap.put(arg2, val2);
-        return checkInternal(factMap);
+        String[] facts = new String[FACT_COUNT]; // can contain nulls
+        facts[arg1.ordinal()] = val1;
+        facts[arg2.ordinal()] = val2;
+        return checkInternal(RequestContext.get(), facts);
     }
     public boolean check(AuthEvaluatorField arg1, String val1, AuthEvaluatorField arg2, String val2, AuthEvaluatorField arg3, String val3) {
         checkNotNull(arg1);
         checkNotNull(arg2);
         checkNotNull(arg3);
-        Map<AuthEvaluatorField,String> factMap = new HashMap<>(); // can contain nulls
-        factMap.put(arg1, val1);
-        factMap.put(arg2, val2);
-        factMap.put(arg3, val3);
-        return checkInternal(factMap);
+        String[] facts = new String[FACT_COUNT]; // can contain nulls
+        facts[arg1.ordinal()] = val1;
+        facts[arg2.ordinal()] = val2;
+        facts[arg3.ordinal()] = val3;
+        return checkInternal(RequestContext.get(), facts);
     }
-    protected boolean checkInternal(Map<AuthEvaluatorField,String> factMap) {
+    protected boolean checkInternal(RequestContext context, String[] facts) {
         // this happens on the stack and should be thread-safe. 
-        for (Predicate<Map<AuthEvaluatorField,String>> predicate : predicates) {
-            if (!predicate.test(factMap)) {
+        for (int i=0, len=rules.size(); i < len; i++) {
+            if (!rules.get(i).test(context, facts)) {
                 return false;
             }
         }
@@ -254,8 +262,8 @@ public class AuthEvaluator {
             this.evaluator = evaluator;
         }
         @Override
-        protected boolean checkInternal(Map<AuthEvaluatorField, String> factMap) {
-            return super.checkInternal(factMap) || evaluator.checkInternal(factMap);
+        protected boolean checkInternal(RequestContext context, String[] facts) {
+            return super.checkInternal(context, facts) || evaluator.checkInternal(context, facts);
         }
     }
 }
\ No newline at end of file
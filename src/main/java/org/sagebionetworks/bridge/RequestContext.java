@@ -5,7 +5,6 @@ import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.Metrics;
@@ -65,6 +64,8 @@ public class RequestContext {
     private final Set<String> callerEnrolledStudies;
     private final Set<String> orgSponsoredStudies;
     private final Set<Roles> callerRoles;
+    private final int callerRolesBitmask;
+    private final int callerPassesAsRolesBitmask;
     private final String callerUserId;
     private final ClientInfo callerClientInfo;
     private final List<String> callerLanguages;    
@@ -81,6 +82,8 @@ public class RequestContext {
         this.callerEnrolledStudies = callerEnrolledStudies;
         this.orgSponsoredStudies = orgSponsoredStudies;
         this.callerRoles = callerRoles;
+        this.callerRolesBitmask = Roles.toBitmask(callerRoles);
+        this.callerPassesAsRolesBitmask = Roles.toPassesAsRoleBitmask(callerRoles);
         this.callerUserId = callerUserId;
         this.callerClientInfo = ClientInfo.fromUserAgentCache(userAgent);
         this.callerLanguages = callerLanguages;
@@ -111,14 +114,22 @@ public class RequestContext {
     Set<Roles> getCallerRoles() {
         return callerRoles;
     }
+    /** The caller's roles as a bitmask (see Roles.toBitmask). */
+    int getCallerRolesBitmask() {
+        return callerRolesBitmask;
+    }
+    /** The roles the caller passes as (including the caller's own roles), as a bitmask. */
+    int getCallerPassesAsRolesBitmask() {
+        return callerPassesAsRolesBitmask;
+    }
     public boolean isAdministrator() { 
-        return !callerRoles.isEmpty();
+        return callerRolesBitmask != 0;
     }
     public boolean isInRole(Roles... roles) {
-        return AuthUtils.isInRole(callerRoles, Sets.newHashSet(roles));
+        return (callerPassesAsRolesBitmask & Roles.toBitmask(roles)) != 0;
     }
     public boolean isInRole(Set<Roles> roleSet) {
-        return AuthUtils.isInRole(callerRoles, roleSet);
+        return (callerPassesAsRolesBitmask & Roles.toBitmask(roleSet)) != 0;
     }
     public String getCallerUserId() { 
         return callerUserId;
@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge;
 
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.Set;
@@ -52,4 +53,60 @@ public enum Roles {
             .put(STUDY_DESIGNER, EnumSet.of(STUDY_DESIGNER))
             .put(WORKER, EnumSet.of(WORKER))
             .build();
+    
+    /**
+     * PASSES_AS_ROLE expressed as bitmasks (see {@link #toBitmask(Collection)}), indexed by the ordinal
+     * of the role.
+     */
+    private static final int[] PASSES_AS_ROLE_BITMASKS = new int[values().length];
+    static {
+        for (Map.Entry<Roles, EnumSet<Roles>> entry : PASSES_AS_ROLE.entrySet()) {
+            PASSES_AS_ROLE_BITMASKS[entry.getKey().ordinal()] = toBitmask(entry.getValue());
+        }
+    }
+    
+    /** The bit representing this role in a roles bitmask. */
+    public int bit() {
+        return 1 << ordinal();
+    }
+    
+    /** A bitmask with one bit set for each of the roles, so set operations become integer operations. */
+    public static int toBitmask(Roles... roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (Roles role : roles) {
+                if (role != null) {
+                    mask |= role.bit();
+                }
+            }
+        }
+        return mask;
+    }
+    
+    /** A bitmask with one bit set for each of the roles, so set operations become integer operations. */
+    public static int toBitmask(Collection<Roles> roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (Roles role : roles) {
+                if (role != null) {
+                    mask |= role.bit();
+                }
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * A bitmask of all the roles that the given roles pass as (see PASSES_AS_ROLE). Testing this 
+     * mask against a mask of required roles is equivalent to AuthUtils.isInRole(Set, Set).
+     */
+    public static int toPassesAsRoleBitmask(Collection<Roles> roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (Roles role : roles) {
+                mask |= PASSES_AS_ROLE_BITMASKS[role.ordinal()];
+            }
+        }
+        return mask;
+    }
 }
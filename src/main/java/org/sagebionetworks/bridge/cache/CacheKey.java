@@ -6,6 +6,7 @@ import java.util.Objects;
 import org.sagebionetworks.bridge.models.ThrottleRequestType;
 import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessageType;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 
 import com.google.common.base.Joiner;
@@ -36,6 +37,18 @@ public final class CacheKey {
     public static final CacheKey publicStudy(String appId, String studyId) {
         return new CacheKey(appId, studyId, "PublicStudy");
     }
+    public static final CacheKey study(String appId, String studyId) {
+        return new CacheKey(studyId, appId, "Study");
+    }
+    public static final CacheKey studyIds(String appId) {
+        return new CacheKey(appId, "StudyIds");
+    }
+    public static final CacheKey studyVersion(String appId, String studyId) {
+        return new CacheKey(studyId, appId, "StudyVersion");
+    }
+    public static final CacheKey studyIdsVersion(String appId) {
+        return new CacheKey(appId, "StudyIdsVersion");
+    }
     public static final CacheKey scheduleModificationTimestamp(String appId, String studyId) {
         return new CacheKey(studyId, appId, "ScheduleModifiedOnByStudy");
     }
@@ -51,6 +64,32 @@ public final class CacheKey {
     public static final CacheKey shortenUrl(String token) {
         return new CacheKey(token, "ShortenedUrl");
     }
+    public static final CacheKey notificationFanOutJob(String appId, String jobId) {
+        return new CacheKey(jobId, appId, "NotificationFanOutJob");
+    }
+    /** Sorted set of outbound email and SMS messages, scored by when they are next due to be sent. */
+    public static final CacheKey outboxQueue() {
+        return new CacheKey("OutboxQueue");
+    }
+    public static final CacheKey outboxDelivery(String messageId) {
+        return new CacheKey(messageId, "OutboxDelivery");
+    }
+    public static final CacheKey outboxRate(OutboxMessageType type, long epochSecond) {
+        return new CacheKey(Long.toString(epochSecond), type.name().toLowerCase(), "OutboxRate");
+    }
+    /** The number of accounts in an app, maintained as accounts are created and deleted. */
+    public static final CacheKey accountCount(String appId) {
+        return new CacheKey(appId, "AccountCount");
+    }
+    public static final CacheKey accountDeletion(String userId) {
+        return new CacheKey(userId, "AccountDeletion");
+    }
+    public static final CacheKey accountSearchTermsBackfill() {
+        return new CacheKey("AccountSearchTermsBackfill");
+    }
+    public static final CacheKey accountSummaryTotal(String appId, String searchSignature) {
+        return new CacheKey(appId, searchSignature, "AccountSummaryTotal");
+    }
     public static final CacheKey appConfigList(String appId) {
         return new CacheKey(appId, "AppConfigList");
     }
@@ -19,10 +19,13 @@ import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
 
 import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
 
 /**
  * A wrapper around our use of Redis.
@@ -30,7 +33,32 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 @Component
 public class CacheProvider {
     private static final String LOCAL_SERVICE_ERROR = "Cannot find cache service, have you started Redis? (original message: %s)";
+    
+    // Counts a request against a limit in one round trip. The count is stored as a plain integer (the same 
+    // serialization as setObject() of an Integer), and the expiration is reset each time a request is counted. 
+    // Requests over the limit are not counted and do not extend the expiration.
+    static final String INCREMENT_IF_BELOW_LIMIT_SCRIPT = 
+            "local count = tonumber(redis.call('GET', KEYS[1]) or '0') " +
+            "if count >= tonumber(ARGV[1]) then return 0 end " +
+            "redis.call('SETEX', KEYS[1], ARGV[2], count + 1) " +
+            "return 1";
+    
+    // Adjusts a count only if it has been cached, so a count that has expired or been removed is not restarted 
+    // from zero. INCRBY retains the key's expiration.
+    static final String INCREMENT_IF_PRESENT_SCRIPT = 
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return redis.call('INCRBY', KEYS[1], ARGV[1]) end " +
+            "return nil";
+    
+    // Sets an object with an expiration only if a version counter still has the value that was read before the 
+    // object was loaded. A missing counter has the value 0. The counter is incremented whenever the object changes, 
+    // so a copy loaded before a change is never cached after it.
+    static final String SET_IF_VERSION_SCRIPT = 
+            "if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[3] then return 0 end " +
+            "redis.call('SETEX', KEYS[1], ARGV[2], ARGV[1]) " +
+            "return 1";
+    
     private JedisOps jedisOps;
+    private JedisPool jedisPool;
     private int sessionExpireInSeconds;
 
     @Resource(name = "jedisOps")
@@ -38,6 +66,11 @@ public class CacheProvider {
         this.jedisOps = jedisOps;
     }
 
+    @Resource(name = "jedisPool")
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
     @Resource(name = "sessionExpireInSeconds")
     final void setSessionExpireInSeconds(@SuppressWarnings("SameParameterValue") int sessionExpireInSeconds) {
         this.sessionExpireInSeconds = sessionExpireInSeconds;
@@ -365,6 +398,86 @@ public class CacheProvider {
         }        
     }
     
+    /**
+     * Atomically count a request against a limit: if fewer than maxRequests have been counted under this key, the 
+     * count is incremented, its expiration is reset to expireInSeconds, and this returns true. Otherwise the request 
+     * is not counted and this returns false. Unlike a get followed by a set, concurrent requests cannot all pass the 
+     * limit.
+     */
+    public boolean incrementIfBelowLimit(CacheKey cacheKey, int maxRequests, int expireInSeconds) {
+        checkNotNull(cacheKey);
+        try (Jedis jedis = jedisPool.getResource()) {
+            Object result = jedis.eval(INCREMENT_IF_BELOW_LIMIT_SCRIPT, ImmutableList.of(cacheKey.toString()),
+                    ImmutableList.of(Integer.toString(maxRequests), Integer.toString(expireInSeconds)));
+            return Long.valueOf(1L).equals(result);
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    /**
+     * Atomically add delta (which can be negative) to a count cached as a plain integer (the same serialization 
+     * as setObject() of an Integer), if the count is in the cache. Returns the new count, or null if the count 
+     * was not cached and nothing was changed.
+     */
+    public Long incrementIfPresent(CacheKey cacheKey, long delta) {
+        checkNotNull(cacheKey);
+        try (Jedis jedis = jedisPool.getResource()) {
+            return (Long)jedis.eval(INCREMENT_IF_PRESENT_SCRIPT, ImmutableList.of(cacheKey.toString()),
+                    ImmutableList.of(Long.toString(delta)));
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    /**
+     * Returns the value of a version counter, or 0 if it has never been incremented (or has been evicted). Read 
+     * the version before loading an object that will be cached with {@link #setObjectIfVersion}.
+     */
+    public long getVersion(CacheKey versionKey) {
+        Long version = getObject(versionKey, Long.class);
+        return (version == null) ? 0L : version;
+    }
+    
+    /**
+     * Increment a version counter. This does not expire, so that a version that is read cannot silently reset 
+     * to an earlier value.
+     */
+    public void incrementVersion(CacheKey versionKey) {
+        checkNotNull(versionKey);
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.incr(versionKey.toString());
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
+    /**
+     * Atomically set an object in the cache with an expiration in seconds, if the version counter has not 
+     * changed from the given version (which was read before the object was loaded). Returns true if the object 
+     * was cached. Unlike a check followed by a set, a read that overlaps a change cannot put a stale copy of the 
+     * object back into the cache after the change has removed it.
+     */
+    public boolean setObjectIfVersion(CacheKey cacheKey, Object object, int expireInSeconds, CacheKey versionKey,
+            long version) {
+        checkNotNull(cacheKey);
+        checkNotNull(object);
+        checkNotNull(versionKey);
+        try (Jedis jedis = jedisPool.getResource()) {
+            String ser = BridgeObjectMapper.get().writeValueAsString(object);
+            Object result = jedis.eval(SET_IF_VERSION_SCRIPT, 
+                    ImmutableList.of(cacheKey.toString(), versionKey.toString()),
+                    ImmutableList.of(ser, Integer.toString(expireInSeconds), Long.toString(version)));
+            return Long.valueOf(1L).equals(result);
+        } catch (Throwable e) {
+            promptToStartRedisIfLocal(e);
+            throw new BridgeServiceException(e);
+        }
+    }
+    
     public void addCacheKeyToSet(CacheKey cacheKeyOfSet, String cacheKeyInSet) {
         checkNotNull(cacheKeyOfSet);
         checkNotNull(cacheKeyInSet);
@@ -289,6 +289,18 @@ public class SpringConfig {
         return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("async.worker.thread.count"));
     }
 
+    @Bean(name = "notificationFanOutExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService notificationFanOutExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("notification.fanout.thread.count"));
+    }
+
+    @Bean(name = "accountDeletionExecutorService")
+    @Resource(name = "bridgeConfig")
+    public ExecutorService accountDeletionExecutorService(BridgeConfig bridgeConfig) {
+        return Executors.newFixedThreadPool(bridgeConfig.getPropertyAsInt("account.deletion.thread.count"));
+    }
+
     @Bean(name = "supportEmail")
     @Resource(name = "bridgeConfig")
     public String supportEmail(BridgeConfig bridgeConfig) {
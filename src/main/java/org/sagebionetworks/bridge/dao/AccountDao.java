@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.dao;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
@@ -59,6 +60,29 @@ public interface AccountDao {
      */
     PagedResourceList<AccountSummary> getPagedAccountSummaries(String appId, AccountSummarySearch search);
     
+    /**
+     * Count all the accounts in an app (participants and administrative accounts). This is a single count 
+     * query that does not apply any of the filters of an account search.
+     */
+    int getAccountCount(String appId);
+    
+    /**
+     * Pass the health codes of every account that matches the search to the consumer, a page (of the search's 
+     * pageSize) at a time, in order of account ID. Each page seeks past the last account ID of the page before it 
+     * (the search's offsetBy is ignored), so accounts created or deleted during the run do not cause other 
+     * accounts to be skipped or repeated. Pages load no other account fields and the matching accounts are not 
+     * counted, for jobs that need to process every account that matches a search.
+     */
+    void streamHealthCodes(String appId, AccountSummarySearch search, Consumer<List<String>> consumer);
+    
+    /**
+     * Pass a summary of every account that matches the search to the consumer, in order of account ID. Accounts 
+     * are read in chunks of the search's pageSize, each chunk seeking past the last account ID of the one before 
+     * it (the search's offsetBy is ignored), so reading deep into a large app costs no more than reading the first 
+     * chunk, and only one chunk is held in memory at a time.
+     */
+    void streamAccountSummaries(String appId, AccountSummarySearch search, Consumer<AccountSummary> consumer);
+    
     /**
      * Get a page of external IDs associated to the indicated study. These are really accounts, but 
      * older APIs continue to view these as paged external ID records.  
@@ -67,4 +91,11 @@ public interface AccountDao {
             Integer offsetBy, Integer pageSize);
     
     void deleteAllAccounts(String appId);
+    
+    /**
+     * Write the search terms of the next chunk of accounts (in any app) after the given account ID, in order of 
+     * account ID, for accounts created before search terms were maintained. Pass an empty string to start with 
+     * the first account. Returns the ID of the last account in the chunk, or null if there are no more accounts.
+     */
+    String backfillSearchTerms(String afterId, int chunkSize);
 }    
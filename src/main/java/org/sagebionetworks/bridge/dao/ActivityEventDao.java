@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.List;
 import java.util.Map;
 
 import org.joda.time.DateTime;
@@ -18,6 +19,12 @@ public interface ActivityEventDao {
      */
     boolean publishEvent(ActivityEvent event);
     
+    /**
+     * Publish a set of events into this user's event stream, with the same rules for 
+     * each event as publishEvent(). Mutable events are written in batches.
+     */
+    void publishEvents(List<ActivityEvent> events);
+    
     /**
      * Get a map of events, where the string key is an event identifier, and the value 
      * is the timestamp of the event. If studyId is null, only events that are not scoped
@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.dao;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 
@@ -46,6 +47,18 @@ public interface HealthDataDao {
      */
     List<HealthDataRecord> getRecordsForUploadDate(@Nonnull String uploadDate);
 
+    /**
+     * DAO method used by worker apps to export all health data records uploaded for a specific date. Records are 
+     * passed to the consumer as the upload date index is paged through, so only a small batch of records is held 
+     * in memory at once.
+     *
+     * @param uploadDate
+     *         upload date in YYYY-MM-DD format, must be non-null, non-empty, and must represent a valid date
+     * @param consumer
+     *         receives each health record uploaded on that date
+     */
+    void streamRecordsForUploadDate(@Nonnull String uploadDate, @Nonnull Consumer<HealthDataRecord> consumer);
+
     /** Gets a list of records for the given healthCode between the specified createdOn times (inclusive). */
     List<HealthDataRecord> getRecordsByHealthCodeCreatedOn(String healthCode, long createdOnStart, long createdOnEnd);
 }
@@ -1,5 +1,7 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.List;
+
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 
@@ -38,6 +40,16 @@ public interface ReportDataDao {
      */
     void saveReportData(ReportData reportData);
     
+    /**
+     * Writes a list of report data records to the backing store in batch writes. Records that the backing store 
+     * does not process (because of throttling) are retried; if they still cannot be written, an exception is 
+     * thrown. The list should not contain two records with the same key and date.
+     *
+     * @param reportDataList
+     *         report data objects
+     */
+    void batchSaveReportData(List<ReportData> reportDataList);
+    
     /***
      * Delete all records regardless of date for a report. This can be used as part of testing, 
      * and in development, but there will be too many records in production to do a deletion.
@@ -18,6 +18,13 @@ public interface StudyActivityEventDao {
      */
     void publishEvent(StudyActivityEvent event);
     
+    /**
+     * Publish a set of events into this user’s event stream in one batch. As with 
+     * publishEvent(), an event with the same ID and timestamp as an existing record 
+     * replaces that record.
+     */
+    void publishEvents(List<StudyActivityEvent> events);
+    
     /**
      * Return the most recently persisted study event record (the record with the most 
      * recent `createdOn` timestamp, not necessarily the record with the most recent 
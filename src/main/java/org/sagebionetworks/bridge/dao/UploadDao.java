@@ -1,6 +1,8 @@
 package org.sagebionetworks.bridge.dao;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -29,6 +31,29 @@ public interface UploadDao {
     Upload createUpload(@Nonnull UploadRequest uploadRequest, @Nonnull String appId,
             @Nonnull String healthCode, @Nullable String originalUploadId);
 
+    /**
+     * Creates a batch of new uploads in a single batch write. Each upload is written with the given client info and
+     * user agent, so they do not need to be updated after they are created.
+     *
+     * @param appId
+     *         the app of the user account
+     * @param healthCode
+     *         user's health code
+     * @param uploadRequests
+     *         upload requests from user
+     * @param originalUploadIds
+     *         for each upload request (in the same order), the upload ID it is a duplicate of, or null if it's not a
+     *         dupe
+     * @param clientInfo
+     *         client info of the request, as JSON text
+     * @param userAgent
+     *         user agent of the request
+     * @return upload metadata of created uploads, in the order of the upload requests
+     */
+    List<Upload> createUploads(@Nonnull String appId, @Nonnull String healthCode,
+            @Nonnull List<UploadRequest> uploadRequests, @Nonnull List<String> originalUploadIds,
+            @Nullable String clientInfo, @Nullable String userAgent);
+
     /**
      * Gets the upload metadata associated with this upload.
      *
@@ -41,6 +66,12 @@ public interface UploadDao {
     /** Get upload. Returns null if the upload doesn't exist. */
     Upload getUploadNoThrow(String uploadId);
 
+    /**
+     * Gets the uploads with the given upload IDs in a single batch read, mapped by upload ID. Uploads that don't exist
+     * are not included in the map.
+     */
+    Map<String, Upload> getUploadsById(@Nonnull Set<String> uploadIds);
+
     /**
      * Get the uploads for an indicated time range.
      */
@@ -80,6 +111,14 @@ public interface UploadDao {
     void writeValidationStatus(@Nonnull Upload upload, @Nonnull UploadStatus status,
             @Nonnull List<String> validationMessageList, String recordId);
     
+    /**
+     * Get the IDs of all the upload records for a given health code. 
+     * @param healthCode
+     *      the health code of the user
+     * @return a list of upload IDs
+     */
+    List<String> getUploadIdsForHealthCode(@Nonnull String healthCode);
+    
     /**
      * Delete all the upload records for a given health code. This is used to clean up records when a user is deleted, 
      * typically as part of testing. 
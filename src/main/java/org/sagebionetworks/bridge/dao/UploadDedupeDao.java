@@ -1,5 +1,8 @@
 package org.sagebionetworks.bridge.dao;
 
+import java.util.Map;
+import java.util.Set;
+
 import org.joda.time.DateTime;
 
 /** DAO to answer the simple question: Given some upload attributes, is this upload a duplicate? */
@@ -40,4 +43,19 @@ public interface UploadDedupeDao {
      *         upload ID to register in the dedupe table
      */
     void registerUpload(String healthCode, String uploadMd5, DateTime uploadRequestedOn, String originalUploadId);
+
+    /**
+     * Batch form of {@link #getDuplicate}, for several uploads from the same user requested at the same time.
+     *
+     * @return a map of upload MD5 to the upload ID of the previous upload, for each MD5 that is a dupe
+     */
+    Map<String, String> getDuplicates(String healthCode, Set<String> uploadMd5s, DateTime uploadRequestedOn);
+
+    /**
+     * Batch form of {@link #registerUpload}, writing all registrations in a single batch write.
+     *
+     * @param uploadIdsByMd5
+     *         map of upload MD5 to the upload ID to register for it
+     */
+    void registerUploads(String healthCode, Map<String, String> uploadIdsByMd5, DateTime uploadRequestedOn);
 }
@@ -1,6 +1,12 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.LT;
+import static com.amazonaws.services.dynamodbv2.model.ComparisonOperator.NE;
+import static com.amazonaws.services.dynamodbv2.model.ConditionalOperator.OR;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.FUTURE_ONLY;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.IMMUTABLE;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.MUTABLE;
 
 import java.util.List;
 import java.util.Map;
@@ -19,8 +25,13 @@ import org.springframework.stereotype.Component;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.Lists;
@@ -30,6 +41,12 @@ public class DynamoActivityEventDao implements ActivityEventDao {
 
     private static final String ANSWERED_EVENT_POSTFIX = ":"+ActivityEventType.ANSWERED.name().toLowerCase();
     
+    // Events are saved with a condition, so checking the saved event and writing the new one is a single call.
+    // An event can always be written if it does not exist yet.
+    static final String EVENT_ID_FIELD = "eventId";
+    static final String TIMESTAMP_FIELD = "timestamp";
+    static final ExpectedAttributeValue EVENT_DOES_NOT_EXIST = new ExpectedAttributeValue(false);
+    
     private DynamoDBMapper mapper;
 
     @Resource(name = "activityEventDdbMapper")
@@ -57,16 +74,51 @@ public class DynamoActivityEventDao implements ActivityEventDao {
     public boolean publishEvent(ActivityEvent event) {
         checkNotNull(event);
         
-        DynamoActivityEvent hashKey = new DynamoActivityEvent();
-        hashKey.setHealthCode(event.getHealthCode());
-        hashKey.setEventId(event.getEventId());
-        
-        ActivityEvent savedEvent = mapper.load(hashKey);
-        if (event.getUpdateType().canUpdate(savedEvent, event)) {
-            mapper.save(event);
+        try {
+            mapper.save(event, getSaveExpression(event));
             return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
         }
-        return false;
+    }
+    
+    @Override
+    public void publishEvents(List<ActivityEvent> events) {
+        checkNotNull(events);
+        
+        // A batch write cannot be conditional. Writing a mutable event again with the same timestamp 
+        // changes nothing, so these can be batched; any other events are written one at a time.
+        List<ActivityEvent> mutableEvents = Lists.newArrayList();
+        for (ActivityEvent event : events) {
+            if (event.getUpdateType() == MUTABLE) {
+                mutableEvents.add(event);
+            } else {
+                publishEvent(event);
+            }
+        }
+        if (!mutableEvents.isEmpty()) {
+            List<FailedBatch> failures = mapper.batchSave(mutableEvents);
+            BridgeUtils.ifFailuresThrowException(failures);
+        }
+    }
+    
+    /**
+     * The condition under which an event can be written, which matches 
+     * ActivityEventUpdateType.canUpdate() for the event’s update type.
+     */
+    static DynamoDBSaveExpression getSaveExpression(ActivityEvent event) {
+        DynamoDBSaveExpression expression = new DynamoDBSaveExpression()
+                .withExpectedEntry(EVENT_ID_FIELD, EVENT_DOES_NOT_EXIST);
+        if (event.getUpdateType() == IMMUTABLE) {
+            return expression;
+        }
+        // Mutable events are written if the timestamp changes, future-only events if it is later.
+        ComparisonOperator operator = (event.getUpdateType() == FUTURE_ONLY) ? LT : NE;
+        AttributeValue timestamp = new AttributeValue().withN(Long.toString(event.getTimestamp().getMillis()));
+        return expression
+                .withExpectedEntry(TIMESTAMP_FIELD, new ExpectedAttributeValue()
+                        .withComparisonOperator(operator).withAttributeValueList(timestamp))
+                .withConditionalOperator(OR);
     }
 
     @Override
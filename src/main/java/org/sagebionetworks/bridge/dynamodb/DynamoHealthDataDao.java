@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.dynamodb;
 import javax.annotation.Nonnull;
 import javax.annotation.Resource;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
@@ -26,6 +27,9 @@ import org.springframework.stereotype.Component;
 /** DynamoDB implementation of {@link org.sagebionetworks.bridge.dao.HealthDataDao}. */
 @Component
 public class DynamoHealthDataDao implements HealthDataDao {
+    // Records are loaded from the table this many at a time, the most DynamoDB returns from one batch get.
+    static final int UPLOAD_DATE_BATCH_SIZE = 100;
+    
     private DynamoDBMapper mapper;
     private DynamoIndexHelper healthCodeIndex;
     private DynamoIndexHelper uploadDateIndex;
@@ -104,6 +108,13 @@ public class DynamoHealthDataDao implements HealthDataDao {
         return uploadDateIndex.query(HealthDataRecord.class, "uploadDate", uploadDate, null);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void streamRecordsForUploadDate(@Nonnull String uploadDate, @Nonnull Consumer<HealthDataRecord> consumer) {
+        uploadDateIndex.<HealthDataRecord>queryInBatches(HealthDataRecord.class, "uploadDate", uploadDate, null,
+                UPLOAD_DATE_BATCH_SIZE, batch -> batch.forEach(consumer));
+    }
+
     /** {@inheritDoc} */
     @Override
     public List<HealthDataRecord> getRecordsByHealthCodeCreatedOn(String healthCode, long createdOnStart,
@@ -1,9 +1,12 @@
 package org.sagebionetworks.bridge.dynamodb;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -141,7 +144,6 @@ public class DynamoIndexHelper {
      *         expected result type
      * @return list of query results
      */
-    @SuppressWarnings("unchecked")
     public <T> List<T> query(@Nonnull Class<? extends T> clazz, @Nonnull String indexKeyName,
             @Nonnull Object indexKeyValue, RangeKeyCondition rangeKeyCondition) {
         // In general, we only project keys onto global secondary indices, to save storage space. This means the
@@ -151,8 +153,52 @@ public class DynamoIndexHelper {
         // First step is to query the index to get these "key objects".
         List<T> recordKeyList = queryKeys(clazz, indexKeyName, indexKeyValue, rangeKeyCondition);
 
-        // Using the "key objects", batch query DDB to get full records. For some reason, batchLoad() returns a map.
-        // Flatten that map into a list.
+        // Using the "key objects", batch query DDB to get full records.
+        return batchLoad(clazz, recordKeyList);
+    }
+
+    /**
+     * Like {@link #query}, but passes the full rows to the consumer in batches of at most batchSize, loading each 
+     * batch as the index is paged through, rather than returning all the results at once. Only one batch of rows 
+     * is held in memory at a time, so this can be used for queries with more results than fit in memory.
+     *
+     * @param clazz
+     *         expected result class
+     * @param indexKeyName
+     *         index key name to query on
+     * @param indexKeyValue
+     *         index key value to query on
+     * @param rangeKeyCondition
+     *         condition for query on range portion of key (optional)
+     * @param batchSize
+     *         maximum number of rows passed to the consumer at once
+     * @param consumer
+     *         receives each batch of query results
+     * @param <T>
+     *         expected result type
+     */
+    public <T> void queryInBatches(@Nonnull Class<? extends T> clazz, @Nonnull String indexKeyName,
+            @Nonnull Object indexKeyValue, RangeKeyCondition rangeKeyCondition, int batchSize,
+            @Nonnull Consumer<List<T>> consumer) {
+        checkArgument(batchSize > 0);
+        
+        // The item collection fetches the next page of the index only when the previous page has been consumed.
+        List<T> recordKeyList = new ArrayList<>(batchSize);
+        for (Item oneItem : queryHelper(indexKeyName, indexKeyValue, rangeKeyCondition)) {
+            recordKeyList.add(BridgeObjectMapper.get().convertValue(oneItem.asMap(), clazz));
+            if (recordKeyList.size() == batchSize) {
+                consumer.accept(batchLoad(clazz, recordKeyList));
+                recordKeyList = new ArrayList<>(batchSize);
+            }
+        }
+        if (!recordKeyList.isEmpty()) {
+            consumer.accept(batchLoad(clazz, recordKeyList));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> batchLoad(Class<? extends T> clazz, List<T> recordKeyList) {
+        // For some reason, batchLoad() returns a map. Flatten that map into a list.
         //
         // Also, for some reason, batchLoad() takes a List<Object>, not a List<T> or List<?>. Fortunately, Java type
         // erasure means we can safely cast this to a List<Object>.
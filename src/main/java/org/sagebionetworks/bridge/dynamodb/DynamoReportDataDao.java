@@ -9,13 +9,18 @@ import static org.sagebionetworks.bridge.models.ResourceList.END_DATE;
 import static org.sagebionetworks.bridge.models.ResourceList.START_TIME;
 import static org.sagebionetworks.bridge.models.ResourceList.END_TIME;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeUtils;
@@ -31,19 +36,34 @@ import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 @Component
 public class DynamoReportDataDao implements ReportDataDao {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DynamoReportDataDao.class);
+    
+    static final int MAX_BATCH_SAVE_ATTEMPTS = 4;
+    static final String KEY_ATTRIBUTE = "key";
+    static final String DATE_ATTRIBUTE = "date";
+
     private DynamoDBMapper mapper;
+    
+    private long batchSaveRetryDelayMillis = 250;
 
     @Resource(name = "reportDataMapper")
     final void setReportDataMapper(DynamoDBMapper reportDataMapper) {
         this.mapper = reportDataMapper;
     }
     
+    /** Base delay before resubmitting unprocessed records; the delay grows with each attempt. */
+    final void setBatchSaveRetryDelayMillis(long batchSaveRetryDelayMillis) {
+        this.batchSaveRetryDelayMillis = batchSaveRetryDelayMillis;
+    }
+    
     @Override
     public DateRangeResourceList<? extends ReportData> getReportData(ReportDataKey key, LocalDate startDate, LocalDate endDate) {
         checkNotNull(key);
@@ -136,6 +156,73 @@ public class DynamoReportDataDao implements ReportDataDao {
         mapper.save(reportData);
     }
 
+    @Override
+    public void batchSaveReportData(List<ReportData> reportDataList) {
+        checkNotNull(reportDataList);
+        
+        List<ReportData> toSave = new ArrayList<>(reportDataList.size());
+        for (ReportData reportData : reportDataList) {
+            DateTime dateTime = reportData.getDateTime();
+            if (dateTime != null) {
+                reportData.setDateTime(dateTime.withZone(DateTimeZone.UTC));
+            }
+            toSave.add(reportData);
+        }
+        // The mapper retries unprocessed items a few times itself, but under sustained throttling it gives up and 
+        // returns them as failed batches. Resubmit just those records, with a backoff, before giving up.
+        List<FailedBatch> failures = ImmutableList.of();
+        for (int attempt = 1; !toSave.isEmpty(); attempt++) {
+            failures = mapper.batchSave(toSave);
+            if (failures.isEmpty() || attempt >= MAX_BATCH_SAVE_ATTEMPTS) {
+                break;
+            }
+            toSave = getUnprocessedReportData(failures, toSave);
+            if (!toSave.isEmpty()) {
+                LOG.warn("Retrying " + toSave.size() + " unprocessed report data records, attempt " + attempt);
+                sleep(batchSaveRetryDelayMillis * attempt);
+            }
+        }
+        BridgeUtils.ifFailuresThrowException(failures);
+    }
+    
+    // Matches the put requests that were not processed back to the records that were submitted. If a failed batch
+    // failed without reporting unprocessed items, nothing can be retried and the failure is thrown as is.
+    private static List<ReportData> getUnprocessedReportData(List<FailedBatch> failures, List<ReportData> submitted) {
+        Map<String, ReportData> submittedByKey = new HashMap<>();
+        for (ReportData reportData : submitted) {
+            submittedByKey.put(reportData.getKey() + ":" + reportData.getDate(), reportData);
+        }
+        List<ReportData> unprocessed = new ArrayList<>();
+        for (FailedBatch failure : failures) {
+            if (failure.getUnprocessedItems() == null || failure.getUnprocessedItems().isEmpty()) {
+                return ImmutableList.of();
+            }
+            for (List<WriteRequest> requests : failure.getUnprocessedItems().values()) {
+                for (WriteRequest request : requests) {
+                    if (request.getPutRequest() == null) {
+                        return ImmutableList.of();
+                    }
+                    Map<String, AttributeValue> item = request.getPutRequest().getItem();
+                    ReportData reportData = submittedByKey.get(item.get(KEY_ATTRIBUTE).getS() + ":" + 
+                            item.get(DATE_ATTRIBUTE).getS());
+                    if (reportData == null) {
+                        return ImmutableList.of();
+                    }
+                    unprocessed.add(reportData);
+                }
+            }
+        }
+        return unprocessed;
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Override
     public void deleteReportData(ReportDataKey key) {
         checkNotNull(key);
@@ -10,6 +10,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
@@ -116,6 +117,42 @@ public class DynamoUploadDao implements UploadDao {
         return upload;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public List<Upload> createUploads(@Nonnull String appId, @Nonnull String healthCode,
+            @Nonnull List<UploadRequest> uploadRequests, @Nonnull List<String> originalUploadIds,
+            @Nullable String clientInfo, @Nullable String userAgent) {
+        checkNotNull(appId, "App ID is null");
+        checkArgument(StringUtils.isNotBlank(healthCode), "Health code is null or blank");
+        checkNotNull(uploadRequests, "Upload requests are null");
+        checkArgument(uploadRequests.size() == originalUploadIds.size(),
+                "Upload requests and original upload IDs must be the same size");
+
+        long requestedOn = DateUtils.getCurrentMillisFromEpoch();
+        List<Upload> uploads = new ArrayList<>(uploadRequests.size());
+        for (int i = 0; i < uploadRequests.size(); i++) {
+            DynamoUpload2 upload = new DynamoUpload2(uploadRequests.get(i), healthCode);
+            upload.setAppId(appId);
+            upload.setRequestedOn(requestedOn);
+            upload.setClientInfo(clientInfo);
+            upload.setUserAgent(userAgent);
+
+            String originalUploadId = originalUploadIds.get(i);
+            if (originalUploadId != null) {
+                // This is a dupe. Tag it as such.
+                upload.setDuplicateUploadId(originalUploadId);
+                upload.setStatus(UploadStatus.DUPLICATE);
+            }
+            uploads.add(upload);
+        }
+
+        if (!uploads.isEmpty()) {
+            List<FailedBatch> failures = mapper.batchSave(uploads);
+            BridgeUtils.ifFailuresThrowException(failures);
+        }
+        return uploads;
+    }
+
     // TODO: Cache this, or make it so that calling getUpload() and uploadComplete() in sequence don't cause duplicate
     // calls to DynamoDB.
     /** {@inheritDoc} */
@@ -149,6 +186,31 @@ public class DynamoUploadDao implements UploadDao {
         return upload;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, Upload> getUploadsById(@Nonnull Set<String> uploadIds) {
+        checkNotNull(uploadIds);
+
+        Map<String, Upload> uploadsById = new HashMap<>();
+        if (uploadIds.isEmpty()) {
+            return uploadsById;
+        }
+        List<DynamoUpload2> keys = new ArrayList<>(uploadIds.size());
+        for (String uploadId : uploadIds) {
+            DynamoUpload2 key = new DynamoUpload2();
+            key.setUploadId(uploadId);
+            keys.add(key);
+        }
+        Map<String, List<Object>> resultMap = mapper.batchLoad(keys);
+        for (List<Object> resultList : resultMap.values()) {
+            for (Object oneResult : resultList) {
+                Upload upload = (Upload) oneResult;
+                uploadsById.put(upload.getUploadId(), upload);
+            }
+        }
+        return uploadsById;
+    }
+
     /** {@inheritDoc} */
     @Override
     public ForwardCursorPagedResourceList<Upload> getUploads(String healthCode, DateTime startTime, DateTime endTime,
@@ -319,6 +381,12 @@ public class DynamoUploadDao implements UploadDao {
         mapper.save(upload2);
     }
     
+    @Override
+    public List<String> getUploadIdsForHealthCode(@Nonnull String healthCode) {
+        return healthCodeRequestedOnIndex.queryKeys(DynamoUpload2.class, HEALTH_CODE, healthCode, null).stream()
+                .map(Upload::getUploadId).collect(Collectors.toList());
+    }
+    
     @Override
     public List<String> deleteUploadsForHealthCode(@Nonnull String healthCode) {
         List<? extends Upload> uploadsToDelete = healthCodeRequestedOnIndex.queryKeys(
@@ -1,9 +1,14 @@
 package org.sagebionetworks.bridge.dynamodb;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.Resource;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
@@ -12,6 +17,7 @@ import org.joda.time.DateTime;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.BridgeConstants;
+import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.dao.UploadDedupeDao;
 
 /** DDB implementation of UploadDedupeDao. */
@@ -55,16 +61,49 @@ public class DynamoUploadDedupeDao implements UploadDedupeDao {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, String> getDuplicates(String healthCode, Set<String> uploadMd5s, DateTime uploadRequestedOn) {
+        // Dupes are found with a range query on each MD5, and DynamoDB can't batch queries. The batch saves a lookup
+        // for each MD5 that is repeated in the batch.
+        Map<String, String> duplicates = new HashMap<>();
+        for (String uploadMd5 : uploadMd5s) {
+            String originalUploadId = getDuplicate(healthCode, uploadMd5, uploadRequestedOn);
+            if (originalUploadId != null) {
+                duplicates.put(uploadMd5, originalUploadId);
+            }
+        }
+        return duplicates;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void registerUpload(String healthCode, String uploadMd5, DateTime uploadRequestedOn,
             String originalUploadId) {
+        mapper.save(makeDedupe(healthCode, uploadMd5, uploadRequestedOn, originalUploadId));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void registerUploads(String healthCode, Map<String, String> uploadIdsByMd5, DateTime uploadRequestedOn) {
+        if (uploadIdsByMd5.isEmpty()) {
+            return;
+        }
+        List<DynamoUploadDedupe> dedupeList = uploadIdsByMd5.entrySet().stream()
+                .map(entry -> makeDedupe(healthCode, entry.getKey(), uploadRequestedOn, entry.getValue()))
+                .collect(Collectors.toList());
+        List<FailedBatch> failures = mapper.batchSave(dedupeList);
+        BridgeUtils.ifFailuresThrowException(failures);
+    }
+
+    private static DynamoUploadDedupe makeDedupe(String healthCode, String uploadMd5, DateTime uploadRequestedOn,
+            String originalUploadId) {
         DynamoUploadDedupe dedupe = new DynamoUploadDedupe();
         dedupe.setHealthCode(healthCode);
         dedupe.setOriginalUploadId(originalUploadId);
         dedupe.setUploadMd5(uploadMd5);
         dedupe.setUploadRequestedDate(uploadRequestedOn.withZone(BridgeConstants.LOCAL_TIME_ZONE).toLocalDate());
         dedupe.setUploadRequestedOn(uploadRequestedOn.getMillis());
-        mapper.save(dedupe);
+        return dedupe;
     }
 }
@@ -0,0 +1,112 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.apache.commons.lang3.StringUtils.stripEnd;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.sagebionetworks.bridge.models.studies.Enrollment;
+
+/**
+ * Infix searches on an account's email address, phone number, or external IDs (LIKE '%value%') cannot use an
+ * index on those columns, so they scan every account in the app. Instead, each account stores every suffix of
+ * these values in the AccountSearchTerms table, prefixed by the kind of value. A value contains the search
+ * string if and only if one of its suffixes starts with the search string, and that prefix search can use the
+ * index on the terms.
+ * 
+ * The accounts tables compare characters with the utf8_unicode_ci collation, which ignores case and accents 
+ * ("E", "e" and "é" all match "e"). Terms are folded in the same way before they are stored (see 
+ * {@link #normalize(String)}), as are the searches on them, and are stored with a binary collation so that terms 
+ * from different values never collide. Folding only ever makes more characters equal, so the terms can find 
+ * more accounts than the column, but never fewer.
+ */
+final class AccountSearchTerms {
+
+    static final String EMAIL = "email|";
+    static final String PHONE = "phone|";
+    static final String EXTERNAL_ID = "externalId|";
+
+    /**
+     * Selects the accounts with a term that matches the parameter (named by the format argument). The original
+     * filter on the column is still applied to these accounts, so the terms only need to find a superset of
+     * the matching accounts.
+     */
+    static final String SEARCH_PHRASE = "acct.id IN (SELECT termAcct.id FROM HibernateAccount AS termAcct "
+            + "JOIN termAcct.searchTerms AS term WHERE term LIKE :%s)";
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private AccountSearchTerms() {
+    }
+
+    /** All the search terms for the account's current email address, phone number, and external IDs. */
+    static Set<String> create(HibernateAccount account) {
+        Set<String> terms = new HashSet<>();
+        addSuffixes(terms, EMAIL, account.getEmail());
+        if (account.getPhone() != null) {
+            // Phone searches are on the digits of the number only.
+            addSuffixes(terms, PHONE, digitsOnly(account.getPhone().getNumber()));
+        }
+        for (Enrollment enrollment : account.getEnrollments()) {
+            addSuffixes(terms, EXTERNAL_ID, enrollment.getExternalId());
+        }
+        return terms;
+    }
+
+    /**
+     * The values that the account's terms are made from, in a fixed order. Accounts with equal sources have the
+     * same terms.
+     */
+    static List<String> sources(HibernateAccount account) {
+        List<String> sources = new ArrayList<>();
+        sources.add(account.getEmail());
+        sources.add((account.getPhone() == null) ? null : account.getPhone().getNumber());
+        sources.addAll(account.getEnrollments().stream().map(Enrollment::getExternalId)
+                .sorted(Comparator.nullsFirst(Comparator.naturalOrder())).collect(Collectors.toList()));
+        return sources;
+    }
+
+    static String digitsOnly(String value) {
+        return (value == null) ? null : value.replaceAll("\\D*", "");
+    }
+
+    /** The term for a search on the given kind of value (without any wildcards). */
+    static String term(String kind, String value) {
+        // MySQL ignores trailing spaces when comparing strings, so they are removed to keep terms distinct.
+        return kind + stripEnd(normalize(value), " ");
+    }
+
+    /**
+     * Folds the value one character at a time, so that a character equal to another in the accounts' collation
+     * has the same folded form: the value is lower-cased, compatibility characters (such as full-width letters)
+     * are decomposed, and accents and other combining marks are removed. A folded substring of a value is 
+     * therefore always a substring of the folded value.
+     */
+    static String normalize(String value) {
+        // Java lower-cases a final capital sigma to "ς", which the collation treats as "σ".
+        String lowerCase = value.toLowerCase(Locale.ROOT).replace('\u03C2', '\u03C3');
+        String decomposed = Normalizer.normalize(lowerCase, Normalizer.Form.NFKD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("");
+    }
+
+    private static void addSuffixes(Set<String> terms, String kind, String value) {
+        if (isNotBlank(value)) {
+            String normalized = normalize(value);
+            // Stepping by code point keeps surrogate pairs together.
+            for (int i=0; i < normalized.length(); i = normalized.offsetByCodePoints(i, 1)) {
+                String suffix = stripEnd(normalized.substring(i), " ");
+                if (isNotBlank(suffix)) {
+                    terms.add(kind + suffix);
+                }
+            }
+        }
+    }
+}
@@ -35,6 +35,7 @@ import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.persistence.Version;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import org.joda.time.DateTime;
@@ -87,6 +88,8 @@ public class HibernateAccount implements Account {
     private List<String> languages;
     private int migrationVersion;
     private Set<Enrollment> enrollments;
+    private Set<String> searchTerms;
+    private List<String> searchTermSources;
     private String note;
     private String clientTimeZone;
     private Boolean admin;
@@ -232,6 +235,7 @@ public class HibernateAccount implements Account {
             referencedColumnName = "id"))
     @Column(name = "attributeValue")
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @MapKeyColumn(name = "attributeKey")
     public Map<String, String> getAttributes() {
         if (attributes == null) {
@@ -250,6 +254,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountConsents", joinColumns = @JoinColumn(name = "accountId",
             referencedColumnName = "id"))
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @MapKeyClass(HibernateAccountConsentKey.class)
     @JsonIgnore
     public Map<HibernateAccountConsentKey, HibernateAccountConsent> getConsents() {
@@ -366,6 +371,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountRoles", joinColumns = @JoinColumn(name = "accountId", referencedColumnName = "id"))
     @Column(name = "role")
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @Enumerated(EnumType.STRING)
     public Set<Roles> getRoles() {
         if (roles == null) {
@@ -471,6 +477,7 @@ public class HibernateAccount implements Account {
     @CollectionTable(name = "AccountDataGroups", joinColumns = @JoinColumn(name = "accountId", referencedColumnName = "id"))
     @Column(name = "dataGroup")
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     public Set<String> getDataGroups() {
         if (dataGroups == null) {
             dataGroups = new HashSet<>();
@@ -489,6 +496,7 @@ public class HibernateAccount implements Account {
     @Column(name = "language")
     @OrderColumn(name="order_index", insertable=true, updatable=true)
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     public List<String> getLanguages() {
         if (languages == null) {
             languages = new ArrayList<>();
@@ -524,6 +532,7 @@ public class HibernateAccount implements Account {
     
     @OneToMany(mappedBy = "accountId", cascade = CascadeType.ALL, orphanRemoval = true, 
         fetch = FetchType.EAGER, targetEntity=HibernateEnrollment.class)
+    @BatchSize(size = 100)
     @OnDelete(action=OnDeleteAction.CASCADE)
     @JsonIgnore
     @Override
@@ -539,6 +548,42 @@ public class HibernateAccount implements Account {
         this.enrollments = enrollments;
     }
     
+    /**
+     * Terms for infix searches on the account's email, phone, and external IDs (see AccountSearchTerms). These 
+     * are maintained by HibernateAccountDao when the account is saved, and are only loaded to be updated.
+     */
+    @CollectionTable(name = "AccountSearchTerms", joinColumns = @JoinColumn(name = "accountId",
+            referencedColumnName = "id"))
+    @Column(name = "term")
+    @ElementCollection(fetch = FetchType.LAZY)
+    @JsonIgnore
+    public Set<String> getSearchTerms() {
+        if (searchTerms == null) {
+            searchTerms = new HashSet<>();
+        }
+        return searchTerms;
+    }
+
+    /** @see #getSearchTerms */
+    public void setSearchTerms(Set<String> searchTerms) {
+        this.searchTerms = searchTerms;
+    }
+    
+    /**
+     * The values that the account's search terms were made from when HibernateAccountDao last read or saved the 
+     * account, so the terms are only rebuilt if these change. Null if they are not known.
+     */
+    @Transient
+    @JsonIgnore
+    public List<String> getSearchTermSources() {
+        return searchTermSources;
+    }
+    
+    /** @see #getSearchTermSources */
+    public void setSearchTermSources(List<String> searchTermSources) {
+        this.searchTermSources = searchTermSources;
+    }
+    
     @Transient
     @JsonIgnore
     public Set<Enrollment> getActiveEnrollments() {
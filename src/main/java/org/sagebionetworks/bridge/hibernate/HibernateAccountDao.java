@@ -1,7 +1,10 @@
 package org.sagebionetworks.bridge.hibernate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Boolean.FALSE;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.sagebionetworks.bridge.BridgeUtils.ENCODER;
 import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.RESEARCHER;
@@ -19,6 +22,7 @@ import static org.sagebionetworks.bridge.models.ResourceList.IN_USE;
 import static org.sagebionetworks.bridge.models.ResourceList.LANGUAGE;
 import static org.sagebionetworks.bridge.models.ResourceList.NONE_OF_GROUPS;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
+import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_KEY;
 import static org.sagebionetworks.bridge.models.ResourceList.ORG_MEMBERSHIP;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
 import static org.sagebionetworks.bridge.models.ResourceList.PHONE_FILTER;
@@ -28,25 +32,41 @@ import static org.sagebionetworks.bridge.models.ResourceList.STATUS;
 import static org.sagebionetworks.bridge.models.ResourceList.STRING_SEARCH_POSITION;
 import static org.sagebionetworks.bridge.models.SearchTermPredicate.AND;
 
+import java.sql.PreparedStatement;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.jdbc.Work;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.BridgeUtils.StudyAssociations;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.AccountDao;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.hibernate.QueryBuilder.WhereClauseBuilder;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
@@ -64,17 +84,41 @@ public class HibernateAccountDao implements AccountDao {
 
     static final String ID_QUERY = "SELECT acct.id FROM HibernateAccount AS acct";
     static final String FULL_QUERY = "SELECT acct FROM HibernateAccount AS acct";
+    static final String ID_AND_HEALTH_CODE_QUERY = "SELECT acct.id, acct.healthCode FROM HibernateAccount AS acct";
+    static final String ACCOUNTS_BY_ID_QUERY = "SELECT acct FROM HibernateAccount AS acct WHERE acct.id IN (:ids)";
     static final String COUNT_QUERY = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct";
+    static final String APP_COUNT_QUERY = "SELECT COUNT(*) FROM HibernateAccount AS acct WHERE acct.appId = :appId";
     static final String DELETE_ALL_ACCOUNTS_QUERY = "DELETE FROM Accounts WHERE studyId = :appId";
     static final String APP_IDS_FOR_USER_QUERY = "SELECT DISTINCT acct.appId FROM HibernateAccount AS acct WHERE synapseUserId = :synapseUserId";
     
+    static final String SEARCH_TERMS_BACKFILL_QUERY = "SELECT acct FROM HibernateAccount AS acct "
+            + "WHERE acct.id > :afterId ORDER BY acct.id";
+    static final String INSERT_SEARCH_TERM_SQL = "INSERT IGNORE INTO AccountSearchTerms (accountId, term) VALUES (?, ?)";
+    static final String CONFIG_KEY_SEARCH_TERMS_ENABLED = "account.search.terms.enabled";
+    
     static final String EXTID_BASE_QUERY = "from HibernateEnrollment as en "
             + "WHERE en.appId = :appId AND en.studyId = :studyId "
             + "AND en.externalId IS NOT NULL";
     static final String EXTID_FILTER_QUERY = "AND en.externalId LIKE :idFilter";
     static final String EXTID_ORDER_QUERY = "ORDER BY en.externalId";
     
+    // Pages of account summaries are ordered by createdOn and then ID, so that there is a total order and paging 
+    // by key neither skips nor repeats accounts that were created at the same time.
+    static final String ORDER_BY_CREATED_ON = "ORDER BY acct.createdOn, acct.id";
+    static final String ORDER_BY_ID = "ORDER BY acct.id";
+    static final String SEEK_BY_CREATED_ON = "(acct.createdOn > :keyCreatedOn OR "
+            + "(acct.createdOn = :keyCreatedOn AND acct.id > :keyId))";
+    static final String SEEK_BY_ID = "acct.id > :afterId";
+    static final String INVALID_OFFSET_KEY_ERROR = "offsetKey is not valid";
+    // Long enough to page through a large study without recounting, short enough that totals do not go stale.
+    static final int ACCOUNT_SUMMARY_TOTAL_EXPIRE_IN_SECONDS = 5*60;
+    
+    private static final Joiner KEY_JOINER = Joiner.on("|");
+    private static final Splitter KEY_SPLITTER = Splitter.on("|");
+    
     private HibernateHelper hibernateHelper;
+    private CacheProvider cacheProvider;
+    private boolean searchTermsEnabled;
 
     /** This makes interfacing with Hibernate easier. */
     @Resource(name = "accountHibernateHelper")
@@ -82,6 +126,24 @@ public class HibernateAccountDao implements AccountDao {
         this.hibernateHelper = hibernateHelper;
     }
     
+    @Autowired
+    public final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+    
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        setSearchTermsEnabled(Boolean.parseBoolean(config.get(CONFIG_KEY_SEARCH_TERMS_ENABLED)));
+    }
+    
+    /**
+     * Infix searches only use the search terms once every account has them (see 
+     * {@link #backfillSearchTerms(String, int)}); until then they search the columns directly. 
+     */
+    final void setSearchTermsEnabled(boolean searchTermsEnabled) {
+        this.searchTermsEnabled = searchTermsEnabled;
+    }
+    
     // Provided to override in tests
     protected String generateGUID() {
         return BridgeUtils.generateGuid();
@@ -100,13 +162,33 @@ public class HibernateAccountDao implements AccountDao {
     /** {@inheritDoc} */
     @Override
     public void createAccount(Account account) {
+        HibernateAccount hibernateAccount = (HibernateAccount)account;
+        hibernateAccount.setSearchTerms(AccountSearchTerms.create(hibernateAccount));
         hibernateHelper.create(account);
+        hibernateAccount.setSearchTermSources(AccountSearchTerms.sources(hibernateAccount));
     }
 
     /** {@inheritDoc} */
     @Override
     public void updateAccount(Account account) {
-        hibernateHelper.update(account);
+        HibernateAccount hibernateAccount = (HibernateAccount)account;
+        // Most updates do not change the email, phone, or external IDs, and then the search terms are left alone
+        // (and are never loaded).
+        List<String> searchTermSources = AccountSearchTerms.sources(hibernateAccount);
+        boolean searchTermsChanged = !searchTermSources.equals(hibernateAccount.getSearchTermSources());
+        hibernateHelper.executeWithExceptionHandling(account, session -> {
+            session.update(hibernateAccount);
+            if (searchTermsChanged) {
+                // The account's search terms are loaded here, once the account is part of the session, and changed
+                // in place, so only the terms that have changed are written.
+                Set<String> searchTerms = AccountSearchTerms.create(hibernateAccount);
+                Set<String> persistedTerms = hibernateAccount.getSearchTerms();
+                persistedTerms.retainAll(searchTerms);
+                persistedTerms.addAll(searchTerms);
+            }
+            return account;
+        });
+        hibernateAccount.setSearchTermSources(searchTermSources);
     }
     
     /** {@inheritDoc} */
@@ -138,10 +220,34 @@ public class HibernateAccountDao implements AccountDao {
             Account updated = hibernateHelper.update(account);
             account.setVersion(updated.getVersion());
         }
+        account.setSearchTermSources(AccountSearchTerms.sources(account));
         return Optional.of(account);
     }
     
     QueryBuilder makeQuery(String prefix, String appId, AccountId accountId, AccountSummarySearch search, boolean isCount) {
+        return makeQuery(prefix, appId, accountId, search, isCount, null);
+    }
+    
+    /**
+     * If afterId is provided, only accounts with a greater ID are returned, in order of ID; this allows callers to 
+     * read through all matching accounts a chunk at a time, seeking past the last ID of the prior chunk.
+     */
+    QueryBuilder makeQuery(String prefix, String appId, AccountId accountId, AccountSummarySearch search,
+            boolean isCount, String afterId) {
+        if (afterId == null) {
+            return makeQuery(prefix, appId, accountId, search, isCount, null, null, null);
+        }
+        return makeQuery(prefix, appId, accountId, search, isCount, SEEK_BY_ID, ImmutableMap.of("afterId", afterId),
+                ORDER_BY_ID);
+    }
+    
+    /**
+     * The seek phrase limits the query to accounts after the last account of a prior page or chunk, and is only 
+     * applied when its parameters are provided. The orderBy phrase must order accounts in the same way as the 
+     * seek. Neither is applied to a count query.
+     */
+    QueryBuilder makeQuery(String prefix, String appId, AccountId accountId, AccountSummarySearch search,
+            boolean isCount, String seek, Map<String, Object> seekParams, String orderBy) {
         RequestContext context = RequestContext.get();
         Set<String> callerStudies = context.getOrgSponsoredStudies();
         
@@ -154,8 +260,11 @@ public class HibernateAccountDao implements AccountDao {
             builder.append("WITH acct.id = ri.userId");
         }
         SearchTermPredicate predicate = (search != null) ? search.getPredicate() : AND;
-        WhereClauseBuilder where = builder.startWhere(predicate);
+        WhereClauseBuilder where = builder.startWhere(predicate, searchTermsEnabled);
         where.appendRequired("acct.appId = :appId", "appId", appId);
+        if (seekParams != null && !isCount) {
+            where.appendRequired(seek, seekParams);
+        }
         
         if (accountId != null) {
             AccountId unguarded = accountId.getUnguardedAccountId();
@@ -173,12 +282,14 @@ public class HibernateAccountDao implements AccountDao {
             }
         }
         if (search != null) {
-            where.like(search.getStringSearchPosition(), "acct.email LIKE :email", "email", search.getEmailFilter());
+            where.searchTermLike(search.getStringSearchPosition(), AccountSearchTerms.EMAIL, "acct.email LIKE :email",
+                    "email", search.getEmailFilter());
             where.phone(search.getStringSearchPosition(), search.getPhoneFilter());
             where.append("acct.createdOn >= :startTime", "startTime", search.getStartTime());
             where.append("acct.createdOn <= :endTime", "endTime", search.getEndTime());
             where.append(":language IN ELEMENTS(acct.languages)", "language", search.getLanguage());
-            where.like(search.getStringSearchPosition(), "enrollment.externalId LIKE :extId", "extId", search.getExternalIdFilter());
+            where.searchTermLike(search.getStringSearchPosition(), AccountSearchTerms.EXTERNAL_ID,
+                    "enrollment.externalId LIKE :extId", "extId", search.getExternalIdFilter());
             where.append("acct.status = :status", "status", search.getStatus());
             where.appendBoolean("admin", search.isAdminOnly());
             where.dataGroups(search.getAllOfGroups(), "IN");
@@ -210,6 +321,9 @@ public class HibernateAccountDao implements AccountDao {
         }
         if (!isCount) {
             builder.append("GROUP BY acct.id");
+            if (orderBy != null) {
+                builder.append(orderBy);
+            }
         }
         return builder;
     }
@@ -220,6 +334,14 @@ public class HibernateAccountDao implements AccountDao {
         hibernateHelper.deleteById(HibernateAccount.class, userId);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public int getAccountCount(String appId) {
+        checkNotNull(appId);
+        
+        return hibernateHelper.queryCount(APP_COUNT_QUERY, ImmutableMap.of("appId", appId));
+    }
+    
     /** {@inheritDoc} */
     @Override
     public PagedResourceList<AccountSummary> getPagedAccountSummaries(String appId, AccountSummarySearch search) {
@@ -228,22 +350,42 @@ public class HibernateAccountDao implements AccountDao {
         // (N*Y)+1 queries as we must load each collection individually... Y=1 in the prior code to load
         // studies, and Y=2 once we add attributes. On the downside, this approach loads all 
         // HibernateAccount fields, like clientData, though it is not returned.
-        QueryBuilder builder = makeQuery(ID_QUERY, appId, null, search, false);
+        //
+        // When paging by key, the query seeks past the last account of the prior page, and there is nothing 
+        // to skip.
+        Map<String, Object> seekParams = null;
+        int offsetBy = search.getOffsetBy();
+        if (search.getOffsetKey() != null) {
+            seekParams = decodeOffsetKey(search.getOffsetKey());
+            offsetBy = 0;
+        }
+        QueryBuilder builder = makeQuery(ID_QUERY, appId, null, search, false, SEEK_BY_CREATED_ON, seekParams,
+                ORDER_BY_CREATED_ON);
         
         List<String> ids = hibernateHelper.queryGet(builder.getQuery(), builder.getParameters(),
-                search.getOffsetBy(), search.getPageSize(), String.class);
+                offsetBy, search.getPageSize(), String.class);
         
-        List<AccountSummary>accountSummaryList = ids.stream()
+        List<HibernateAccount> accounts = ids.stream()
                 .map(id -> hibernateHelper.getById(HibernateAccount.class, id))
+                .collect(Collectors.toList());
+        List<AccountSummary>accountSummaryList = accounts.stream()
                 .map(this::unmarshallAccountSummary)
                 .collect(Collectors.toList());
 
-        // Get count of accounts.
-        builder = makeQuery(COUNT_QUERY, appId, null, search, true);
-        int count = hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+        // Get count of accounts, unless the caller has asked us not to.
+        Integer count = null;
+        if (!FALSE.equals(search.getIncludeTotal())) {
+            count = getAccountSummaryTotal(appId, search);
+        }
+        
+        // A full page may be followed by more accounts; a short page is the last one.
+        String nextPageOffsetKey = null;
+        if (!accounts.isEmpty() && accounts.size() == search.getPageSize()) {
+            nextPageOffsetKey = encodeOffsetKey(accounts.get(accounts.size()-1));
+        }
         
         // Package results and return.
-        return new PagedResourceList<>(accountSummaryList, count)
+        return new PagedResourceList<>(accountSummaryList, count, nextPageOffsetKey, false)
                 .withRequestParam(ADMIN_ONLY, search.isAdminOnly())
                 .withRequestParam(ALL_OF_GROUPS, search.getAllOfGroups())
                 .withRequestParam(EMAIL_FILTER, search.getEmailFilter())
@@ -251,6 +393,7 @@ public class HibernateAccountDao implements AccountDao {
                 .withRequestParam(LANGUAGE, search.getLanguage())
                 .withRequestParam(NONE_OF_GROUPS, search.getNoneOfGroups())
                 .withRequestParam(OFFSET_BY, search.getOffsetBy())
+                .withRequestParam(OFFSET_KEY, search.getOffsetKey())
                 .withRequestParam(ORG_MEMBERSHIP, search.getOrgMembership())
                 .withRequestParam(PAGE_SIZE, search.getPageSize())
                 .withRequestParam(PHONE_FILTER, search.getPhoneFilter())
@@ -266,6 +409,108 @@ public class HibernateAccountDao implements AccountDao {
                 .withRequestParam(IN_USE, search.isInUse());
     }
     
+    /**
+     * The total is counted over all pages, so it is the same for every page of a search. The first page of a 
+     * search is always counted; later pages (those retrieved by key) reuse that count for a few minutes. The 
+     * count is cached under a hash of the query and its parameters, which include the caller's study scope.
+     */
+    private int getAccountSummaryTotal(String appId, AccountSummarySearch search) {
+        QueryBuilder builder = makeQuery(COUNT_QUERY, appId, null, search, true);
+        String signature = DigestUtils.sha256Hex(builder.getQuery() + new TreeMap<>(builder.getParameters()));
+        CacheKey cacheKey = CacheKey.accountSummaryTotal(appId, signature);
+        
+        if (search.getOffsetKey() != null) {
+            Integer total = cacheProvider.getObject(cacheKey, Integer.class);
+            if (total != null) {
+                return total;
+            }
+        }
+        int total = hibernateHelper.queryCount(builder.getQuery(), builder.getParameters());
+        cacheProvider.setObject(cacheKey, total, ACCOUNT_SUMMARY_TOTAL_EXPIRE_IN_SECONDS);
+        return total;
+    }
+    
+    /**
+     * The offset key is the sort key of the last account on a page (its createdOn timestamp and ID), URL-safe 
+     * Base64 encoded. It is opaque to callers. The createdOn column is not nullable, so every persisted account 
+     * has a sort key.
+     */
+    static String encodeOffsetKey(HibernateAccount account) {
+        if (account.getCreatedOn() == null) {
+            throw new IllegalStateException("Account " + account.getId() + " has no createdOn timestamp to page by");
+        }
+        String key = KEY_JOINER.join(account.getCreatedOn().getMillis(), account.getId());
+        return ENCODER.encodeToString(key.getBytes(UTF_8));
+    }
+    
+    static Map<String, Object> decodeOffsetKey(String offsetKey) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(offsetKey), UTF_8);
+            List<String> parts = KEY_SPLITTER.limit(2).splitToList(key);
+            if (parts.size() != 2 || parts.get(1).isEmpty()) {
+                throw new BadRequestException(INVALID_OFFSET_KEY_ERROR);
+            }
+            return ImmutableMap.of("keyCreatedOn", new DateTime(Long.parseLong(parts.get(0))), 
+                    "keyId", parts.get(1));
+        } catch (IllegalArgumentException e) {
+            // Also catches NumberFormatException
+            throw new BadRequestException(INVALID_OFFSET_KEY_ERROR);
+        }
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void streamHealthCodes(String appId, AccountSummarySearch search, Consumer<List<String>> consumer) {
+        checkNotNull(appId);
+        checkNotNull(search);
+        checkNotNull(consumer);
+        
+        // Account IDs are never empty, so every ID sorts after the empty string.
+        String afterId = "";
+        List<Object[]> rows;
+        do {
+            QueryBuilder builder = makeQuery(ID_AND_HEALTH_CODE_QUERY, appId, null, search, false, afterId);
+            rows = hibernateHelper.queryGet(builder.getQuery(), builder.getParameters(), null,
+                    search.getPageSize(), Object[].class);
+            if (!rows.isEmpty()) {
+                consumer.accept(rows.stream().map(row -> (String)row[1]).collect(Collectors.toList()));
+                afterId = (String)rows.get(rows.size() - 1)[0];
+            }
+        } while (rows.size() == search.getPageSize());
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    public void streamAccountSummaries(String appId, AccountSummarySearch search, Consumer<AccountSummary> consumer) {
+        checkNotNull(appId);
+        checkNotNull(search);
+        checkNotNull(consumer);
+        
+        // Account IDs are never empty, so every ID sorts after the empty string.
+        String afterId = "";
+        List<String> ids;
+        do {
+            QueryBuilder builder = makeQuery(ID_QUERY, appId, null, search, false, afterId);
+            ids = hibernateHelper.queryGet(builder.getQuery(), builder.getParameters(), null,
+                    search.getPageSize(), String.class);
+            if (!ids.isEmpty()) {
+                // Load the chunk in one query. The account's collections are then loaded for many accounts at a 
+                // time (see the @BatchSize annotations on HibernateAccount), rather than a query per account.
+                Map<String, HibernateAccount> accountsById = hibernateHelper.queryGet(ACCOUNTS_BY_ID_QUERY,
+                        ImmutableMap.of("ids", ids), null, null, HibernateAccount.class).stream()
+                        .collect(Collectors.toMap(HibernateAccount::getId, Function.identity()));
+                for (String id : ids) {
+                    HibernateAccount account = accountsById.get(id);
+                    // The account may have been deleted since the chunk of IDs was read.
+                    if (account != null) {
+                        consumer.accept(unmarshallAccountSummary(account));
+                    }
+                }
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == search.getPageSize());
+    }
+    
     // Callers of AccountDao assume that an Account will always a health code and health ID. All accounts created
     // through the DAO will automatically have health code and ID populated, but accounts created in the DB directly
     // are left in a bad state. This method validates the health code mapping on a HibernateAccount and updates it as
@@ -338,6 +583,40 @@ public class HibernateAccountDao implements AccountDao {
         return new PagedResourceList<>(infos, count, true);
     }
     
+    /** {@inheritDoc} */
+    @Override
+    public String backfillSearchTerms(String afterId, int chunkSize) {
+        checkNotNull(afterId);
+        
+        List<HibernateAccount> accounts = hibernateHelper.queryGet(SEARCH_TERMS_BACKFILL_QUERY,
+                ImmutableMap.of("afterId", afterId), null, chunkSize, HibernateAccount.class);
+        if (accounts.isEmpty()) {
+            return null;
+        }
+        hibernateHelper.doWork(insertSearchTerms(accounts));
+        return accounts.get(accounts.size()-1).getId();
+    }
+    
+    /**
+     * Terms that already exist are ignored, so a chunk can be written again when the backfill is resumed. If an 
+     * account's identifiers change while its chunk is written, it can be left with some terms for its old values 
+     * as well as its new ones; these can only match extra accounts, which the column filter then removes.
+     */
+    protected Work insertSearchTerms(List<HibernateAccount> accounts) {
+        return (connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SEARCH_TERM_SQL)) {
+                for (HibernateAccount account : accounts) {
+                    for (String term : AccountSearchTerms.create(account)) {
+                        ps.setString(1, account.getId());
+                        ps.setString(2, term);
+                        ps.addBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+        };
+    }
+    
     @Override
     public void deleteAllAccounts(String appId) {
         checkNotNull(appId);
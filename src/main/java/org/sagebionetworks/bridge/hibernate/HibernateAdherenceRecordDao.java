@@ -2,13 +2,21 @@ package org.sagebionetworks.bridge.hibernate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Boolean.FALSE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.sagebionetworks.bridge.BridgeUtils.ENCODER;
 import static org.sagebionetworks.bridge.models.SearchTermPredicate.AND;
+import static org.sagebionetworks.bridge.models.schedules2.adherence.SortOrder.ASC;
 
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import org.joda.time.DateTime;
 import org.springframework.stereotype.Component;
 
@@ -36,6 +44,26 @@ public class HibernateAdherenceRecordDao implements AdherenceRecordDao {
             "AND ar.eventTimestamp = au.eventTimestamp AND ar.instanceTimestamp = au.instanceTimestamp)";
     static final String WHERE_HAS_MULTIPLE_UPLOAD_IDS = UPLOAD_ID_SUBQUERY + " > 1";
     static final String WHERE_HAS_NO_UPLOAD_IDS = UPLOAD_ID_SUBQUERY + " = 0";
+    
+    // Records are ordered by startedOn, then by the rest of the primary key, so that there is a total order and 
+    // paging by key neither skips nor repeats records that were started at the same time.
+    static final String ORDER_BY = "ORDER BY ar.startedOn %1$s, ar.instanceGuid %1$s, ar.userId %1$s, "
+            + "ar.eventTimestamp %1$s, ar.instanceTimestamp %1$s";
+    static final String KEY_COLUMNS = "(ar.instanceGuid, ar.userId, ar.eventTimestamp, ar.instanceTimestamp)";
+    static final String KEY_PARAMS = "(:keyInstanceGuid, :keyUserId, :keyEventTimestamp, :keyInstanceTimestamp)";
+    // MySQL sorts null startedOn values first in ascending order and last in descending order. Records that 
+    // were declined without being started have no startedOn value.
+    static final String SEEK_ASC = "(ar.startedOn > :keyStartedOn OR (ar.startedOn = :keyStartedOn AND "
+            + KEY_COLUMNS + " > " + KEY_PARAMS + "))";
+    static final String SEEK_ASC_NOT_STARTED = "(ar.startedOn IS NOT NULL OR (ar.startedOn IS NULL AND "
+            + KEY_COLUMNS + " > " + KEY_PARAMS + "))";
+    static final String SEEK_DESC = "(ar.startedOn < :keyStartedOn OR ar.startedOn IS NULL OR "
+            + "(ar.startedOn = :keyStartedOn AND " + KEY_COLUMNS + " < " + KEY_PARAMS + "))";
+    static final String SEEK_DESC_NOT_STARTED = "(ar.startedOn IS NULL AND " + KEY_COLUMNS + " < " + KEY_PARAMS + ")";
+    
+    private static final Joiner KEY_JOINER = Joiner.on("|");
+    private static final Splitter KEY_SPLITTER = Splitter.on("|");
+    static final String INVALID_OFFSET_KEY_ERROR = "offsetKey is not valid";
 
     private HibernateHelper hibernateHelper;
 
@@ -107,19 +135,35 @@ public class HibernateAdherenceRecordDao implements AdherenceRecordDao {
     public PagedResourceList<AdherenceRecord> getAdherenceRecords(AdherenceRecordsSearch search) {
         checkNotNull(search);
         
-        QueryBuilder builder = createQuery(search);
+        QueryBuilder builder = createQuery(search, true);
         
+        // When paging by key, the key marks the start of the page and there is nothing to skip.
+        int offsetBy = (search.getOffsetKey() != null) ? 0 : search.getOffsetBy();
         List<AdherenceRecord> records = hibernateHelper.nativeQueryGet(
                 "SELECT * " + builder.getQuery(), builder.getParameters(), 
-                search.getOffsetBy(), search.getPageSize(), AdherenceRecord.class);
-
-        int total = hibernateHelper.nativeQueryCount(
-                "SELECT count(*) " + builder.getQuery(), builder.getParameters());
+                offsetBy, search.getPageSize(), AdherenceRecord.class);
 
-        return new PagedResourceList<>(records, total, true);
+        Integer total = null;
+        if (!FALSE.equals(search.getIncludeTotal())) {
+            // The total is for all pages, so it is counted without the offset key.
+            QueryBuilder countBuilder = (search.getOffsetKey() != null) ? createQuery(search, false) : builder;
+            total = hibernateHelper.nativeQueryCount(
+                    "SELECT count(*) " + countBuilder.getQuery(), countBuilder.getParameters());
+        }
+        
+        // A full page may be followed by more records; a short page is the last one.
+        String nextPageOffsetKey = null;
+        if (!records.isEmpty() && records.size() == search.getPageSize()) {
+            nextPageOffsetKey = encodeOffsetKey(records.get(records.size()-1));
+        }
+        return new PagedResourceList<>(records, total, nextPageOffsetKey, true);
     }
 
     protected QueryBuilder createQuery(AdherenceRecordsSearch search) {
+        return createQuery(search, true);
+    }
+    
+    protected QueryBuilder createQuery(AdherenceRecordsSearch search, boolean seekToOffsetKey) {
         QueryBuilder builder = new QueryBuilder();
 
         // Special query for upload IDs.
@@ -206,11 +250,54 @@ public class HibernateAdherenceRecordDao implements AdherenceRecordDao {
             where.append(WHERE_HAS_NO_UPLOAD_IDS);
         }
 
+        if (seekToOffsetKey && search.getOffsetKey() != null) {
+            Map<String, Object> keyParams = decodeOffsetKey(search.getOffsetKey());
+            boolean started = keyParams.containsKey("keyStartedOn");
+            if (search.getSortOrder() == ASC) {
+                where.appendRequired(started ? SEEK_ASC : SEEK_ASC_NOT_STARTED, keyParams);
+            } else {
+                where.appendRequired(started ? SEEK_DESC : SEEK_DESC_NOT_STARTED, keyParams);
+            }
+        }
+
         // Note: This needs to be last, because any call to builder.append() will close out the where clause.
-        builder.append("ORDER BY ar.startedOn " + search.getSortOrder().name());
+        builder.append(String.format(ORDER_BY, search.getSortOrder().name()));
 
         return builder;
     }
+    
+    /**
+     * The offset key is the sort key of the last record on a page (its startedOn timestamp and primary key), 
+     * URL-safe Base64 encoded. It is opaque to callers.
+     */
+    static String encodeOffsetKey(AdherenceRecord record) {
+        String startedOn = (record.getStartedOn() == null) ? "" : Long.toString(record.getStartedOn().getMillis());
+        String key = KEY_JOINER.join(startedOn, record.getInstanceGuid(), record.getUserId(),
+                record.getEventTimestamp().getMillis(), record.getInstanceTimestamp().getMillis());
+        return ENCODER.encodeToString(key.getBytes(UTF_8));
+    }
+    
+    static Map<String, Object> decodeOffsetKey(String offsetKey) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(offsetKey), UTF_8);
+            List<String> parts = KEY_SPLITTER.splitToList(key);
+            if (parts.size() != 5) {
+                throw new BadRequestException(INVALID_OFFSET_KEY_ERROR);
+            }
+            Map<String, Object> params = new HashMap<>();
+            if (!parts.get(0).isEmpty()) {
+                params.put("keyStartedOn", Long.parseLong(parts.get(0)));
+            }
+            params.put("keyInstanceGuid", parts.get(1));
+            params.put("keyUserId", parts.get(2));
+            params.put("keyEventTimestamp", Long.parseLong(parts.get(3)));
+            params.put("keyInstanceTimestamp", Long.parseLong(parts.get(4)));
+            return params;
+        } catch (IllegalArgumentException e) {
+            // Also catches NumberFormatException
+            throw new BadRequestException(INVALID_OFFSET_KEY_ERROR);
+        }
+    }
 
     @Override
     public void deleteAdherenceRecordPermanently(AdherenceRecord record) {
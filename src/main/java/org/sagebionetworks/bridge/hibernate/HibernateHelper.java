@@ -13,6 +13,7 @@ import javax.persistence.RollbackException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.jdbc.Work;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
@@ -227,6 +228,14 @@ public class HibernateHelper {
         });
     }
     
+    /** Executes JDBC work (for example, a batch of statements) in a single transaction. */
+    public void doWork(Work work) {
+        executeWithExceptionHandling(null, session -> {
+            session.doWork(work);
+            return null;
+        });
+    }
+    
     /** Updates a single object. */
     public <T> T update(T obj) {
         return executeWithExceptionHandling(obj, session -> {
@@ -6,11 +6,14 @@ import static java.util.stream.Collectors.toMap;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 
 import javax.annotation.Resource;
 
+import org.hibernate.jdbc.Work;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.dao.StudyActivityEventDao;
@@ -27,14 +30,27 @@ public class HibernateStudyActivityEventDao implements StudyActivityEventDao {
     static final String DELETE_SQL = "DELETE FROM StudyActivityEvents " +
             "WHERE userId = :userId AND studyId = :studyId AND eventId = :eventId";
     
-    // Is there a better way to get this than two subselects? Apparently not in MySQL
-    static final String GET_RECENT_SQL = "SELECT *, (SELECT count(*) as total FROM " +
-            "StudyActivityEvents WHERE eventId = sae.eventId AND studyId = :studyId " +
-            "AND userId = :userId GROUP BY eventId) FROM StudyActivityEvents AS sae " +
-            "WHERE userId = :userId AND studyId = :studyId AND eventTimestamp = (SELECT " +
-            "eventTimestamp FROM StudyActivityEvents WHERE userId = :userId AND studyId = " +
-            ":studyId AND eventId = sae.eventId ORDER BY createdOn DESC LIMIT 1) " +
-            "ORDER BY eventId";
+    // The latest record of each event, with a count of that event’s records. The grouped subselects are read 
+    // once (rather than once per row) and the join finds each latest row through the createdOn index. Records 
+    // of an event can have the same createdOn, so the latest record is the one with the latest eventTimestamp 
+    // of those, which (as part of the primary key) selects exactly one record per event.
+    static final String GET_RECENT_SQL = "SELECT sae.*, latest.total FROM StudyActivityEvents AS sae " +
+            "INNER JOIN (SELECT e.eventId, max(e.eventTimestamp) AS eventTimestamp, c.total FROM " +
+            "StudyActivityEvents AS e INNER JOIN (SELECT eventId, max(createdOn) AS createdOn, count(*) AS total " +
+            "FROM StudyActivityEvents WHERE userId = :userId AND studyId = :studyId GROUP BY eventId) AS c " +
+            "ON e.eventId = c.eventId AND e.createdOn = c.createdOn WHERE e.userId = :userId AND " +
+            "e.studyId = :studyId GROUP BY e.eventId, c.total) AS latest " +
+            "ON sae.eventId = latest.eventId AND sae.eventTimestamp = latest.eventTimestamp " +
+            "WHERE sae.userId = :userId AND sae.studyId = :studyId ORDER BY sae.eventId";
+    
+    // Matches session.saveOrUpdate(), which replaces a record with the same primary key.
+    static final String INSERT_SQL = "INSERT INTO StudyActivityEvents (appId, userId, studyId, eventId, " +
+            "eventTimestamp, answerValue, clientTimeZone, createdOn, studyBurstId, originEventId, " +
+            "periodFromOrigin, updateType) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY " +
+            "UPDATE appId = VALUES(appId), answerValue = VALUES(answerValue), clientTimeZone = " +
+            "VALUES(clientTimeZone), createdOn = VALUES(createdOn), studyBurstId = VALUES(studyBurstId), " +
+            "originEventId = VALUES(originEventId), periodFromOrigin = VALUES(periodFromOrigin), " +
+            "updateType = VALUES(updateType)";
 
     static final String HISTORY_SQL = "FROM StudyActivityEvents WHERE " +
             "userId = :userId AND studyId = :studyId AND eventId = :eventId " +
@@ -64,6 +80,43 @@ public class HibernateStudyActivityEventDao implements StudyActivityEventDao {
         
         helper.saveOrUpdate(event);
     }
+    
+    @Override
+    public void publishEvents(List<StudyActivityEvent> events) {
+        checkNotNull(events);
+        
+        if (!events.isEmpty()) {
+            helper.doWork(persistEventsInBatch(events));
+        }
+    }
+    
+    protected Work persistEventsInBatch(List<StudyActivityEvent> events) {
+        return (connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+                for (StudyActivityEvent event : events) {
+                    updatePreparedStatement(ps, event);
+                }
+                ps.executeBatch();
+            }
+        };
+    }
+    
+    // For testability, removing this to a separate method
+    protected void updatePreparedStatement(PreparedStatement ps, StudyActivityEvent event) throws SQLException {
+        ps.setString(1, event.getAppId());
+        ps.setString(2, event.getUserId());
+        ps.setString(3, event.getStudyId());
+        ps.setString(4, event.getEventId());
+        ps.setLong(5, event.getTimestamp().getMillis());
+        ps.setString(6, event.getAnswerValue());
+        ps.setString(7, event.getClientTimeZone());
+        ps.setLong(8, event.getCreatedOn().getMillis());
+        ps.setString(9, event.getStudyBurstId());
+        ps.setString(10, event.getOriginEventId());
+        ps.setString(11, (event.getPeriodFromOrigin() == null) ? null : event.getPeriodFromOrigin().toString());
+        ps.setString(12, (event.getUpdateType() == null) ? null : event.getUpdateType().name());
+        ps.addBatch();
+    }
 
     @Override
     public List<StudyActivityEvent> getRecentStudyActivityEvents(String userId, String studyId) {
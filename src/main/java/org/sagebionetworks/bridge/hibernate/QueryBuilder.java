@@ -41,7 +41,15 @@ class QueryBuilder {
     private WhereClauseBuilder whereClause;
     
     public WhereClauseBuilder startWhere(SearchTermPredicate predicate) {
-        whereClause = new WhereClauseBuilder(predicate);
+        return startWhere(predicate, false);
+    }
+    
+    /**
+     * If useSearchTerms is false, searchTermLike() searches are plain like() searches on the column (for use 
+     * until every account has search terms).
+     */
+    public WhereClauseBuilder startWhere(SearchTermPredicate predicate, boolean useSearchTerms) {
+        whereClause = new WhereClauseBuilder(predicate, useSearchTerms);
         return whereClause;
     }
     
@@ -94,9 +102,11 @@ class QueryBuilder {
         private final List<String> required = new ArrayList<>();
         private final List<String> predicated = new ArrayList<>();
         private final Map<String,Object> whereParams = new HashMap<>();
+        private final boolean useSearchTerms;
         
-        private WhereClauseBuilder(SearchTermPredicate predicate) {
+        private WhereClauseBuilder(SearchTermPredicate predicate, boolean useSearchTerms) {
             this.predicate = predicate;
+            this.useSearchTerms = useSearchTerms;
         }
         public void appendRequired(String phrase) { 
             required.add(phrase);
@@ -107,6 +117,10 @@ class QueryBuilder {
                 whereParams.put(key, value);
             }
         }
+        public void appendRequired(String phrase, Map<String, ?> params) {
+            required.add(phrase);
+            whereParams.putAll(params);
+        }
         public void appendBoolean(String fieldName, Boolean value) {
             if (value != null) {
                 if (TRUE.equals(value)) {
@@ -144,6 +158,22 @@ class QueryBuilder {
                 whereParams.put(key, searchString);
             }
         }
+        /**
+         * A like() search on an account column that has search terms (see AccountSearchTerms). Infix and postfix 
+         * searches cannot use an index on the column, so they first find accounts through their search terms, 
+         * which can, and the column is only checked for those accounts.
+         */
+        public void searchTermLike(StringSearchPosition pos, String termKind, String phrase, String key,
+                String value) {
+            if (useSearchTerms && isNotBlank(value) && (pos == INFIX || pos == POSTFIX)) {
+                String termKey = key + "Term";
+                like(pos, "(" + format(AccountSearchTerms.SEARCH_PHRASE, termKey) + " AND " + phrase + ")",
+                        key, value);
+                whereParams.put(termKey, AccountSearchTerms.term(termKind, value) + ((pos == INFIX) ? "%" : ""));
+            } else {
+                like(pos, phrase, key, value);
+            }
+        }
         public void labels(Collection<String> labelFilters) {
             List<String> phrases = new ArrayList<>();
             int i=0;
@@ -157,7 +187,8 @@ class QueryBuilder {
         public void phone(StringSearchPosition pos, String phoneFilter) {
             if (isNotBlank(phoneFilter)) {
                 String phoneString = phoneFilter.replaceAll("\\D*", "");
-                like(pos, "acct.phone.number LIKE :number", "number", phoneString);
+                searchTermLike(pos, AccountSearchTerms.PHONE, "acct.phone.number LIKE :number", "number",
+                        phoneString);
             }
         }
         public void dataGroups(Set<String> dataGroups, String operator) {
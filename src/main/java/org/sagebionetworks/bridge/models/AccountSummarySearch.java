@@ -22,6 +22,8 @@ public final class AccountSummarySearch implements BridgeEntity {
     
     public static final AccountSummarySearch EMPTY_SEARCH = new AccountSummarySearch.Builder().build();
     private final int offsetBy;
+    private final String offsetKey;
+    private final Boolean includeTotal;
     private final int pageSize;
     private final String emailFilter;
     private final String phoneFilter;
@@ -44,6 +46,8 @@ public final class AccountSummarySearch implements BridgeEntity {
 
     private AccountSummarySearch(AccountSummarySearch.Builder builder) {
         this.offsetBy = builder.offsetBy;
+        this.offsetKey = builder.offsetKey;
+        this.includeTotal = builder.includeTotal;
         this.pageSize = builder.pageSize;
         this.emailFilter = builder.emailFilter;
         this.phoneFilter = builder.phoneFilter;
@@ -68,6 +72,22 @@ public final class AccountSummarySearch implements BridgeEntity {
     public int getOffsetBy() {
         return offsetBy;
     }
+    /**
+     * The key returned as nextPageOffsetKey with the prior page of summaries. When provided, the next 
+     * page is retrieved by seeking past the last account of the prior page (in order of createdOn and 
+     * then ID), rather than by skipping offsetBy accounts, which gets slower as paging proceeds. The 
+     * search criteria must be the same as the search that returned the key.
+     */
+    public String getOffsetKey() {
+        return offsetKey;
+    }
+    /**
+     * Calculate the total number of accounts that match the search? Counting requires a second query 
+     * over all matching accounts, which callers paging by key do not usually need. The default is true.
+     */
+    public Boolean getIncludeTotal() {
+        return includeTotal;
+    }
     public int getPageSize() {
         return pageSize;
     }
@@ -151,6 +171,8 @@ public final class AccountSummarySearch implements BridgeEntity {
     public AccountSummarySearch.Builder toBuilder() {
         return new AccountSummarySearch.Builder()
             .withOffsetBy(offsetBy)
+            .withOffsetKey(offsetKey)
+            .withIncludeTotal(includeTotal)
             .withPageSize(pageSize)
             .withEmailFilter(emailFilter)
             .withPhoneFilter(phoneFilter)
@@ -181,7 +203,7 @@ public final class AccountSummarySearch implements BridgeEntity {
         return Objects.hash(allOfGroups, emailFilter, nullsafeDateString(endTime), language, noneOfGroups, offsetBy,
                 pageSize, phoneFilter, nullsafeDateString(startTime), orgMembership, adminOnly, enrolledInStudyId,
                 externalIdFilter, status, enrollment, attributeKey, attributeValueFilter, predicate,
-                stringSearchPosition, inUse);
+                stringSearchPosition, inUse, offsetKey, includeTotal);
     }
 
     @Override
@@ -211,7 +233,9 @@ public final class AccountSummarySearch implements BridgeEntity {
                 && Objects.equals(attributeValueFilter, other.attributeValueFilter)
                 && Objects.equals(predicate, other.predicate)
                 && Objects.equals(stringSearchPosition, other.stringSearchPosition)
-                && Objects.equals(inUse, other.inUse);
+                && Objects.equals(inUse, other.inUse)
+                && Objects.equals(offsetKey, other.offsetKey)
+                && Objects.equals(includeTotal, other.includeTotal);
     }
     
     private String nullsafeDateString(DateTime dateTime) {
@@ -220,7 +244,8 @@ public final class AccountSummarySearch implements BridgeEntity {
 
     @Override
     public String toString() {
-        return "AccountSummarySearch [offsetBy=" + offsetBy + ", pageSize=" + pageSize + ", emailFilter=" + emailFilter
+        return "AccountSummarySearch [offsetBy=" + offsetBy + ", offsetKey=" + offsetKey + ", includeTotal="
+                + includeTotal + ", pageSize=" + pageSize + ", emailFilter=" + emailFilter
                 + ", phoneFilter=" + phoneFilter + ", allOfGroups=" + allOfGroups + ", noneOfGroups=" + noneOfGroups
                 + ", language=" + language + ", startTime=" + startTime + ", endTime=" + endTime + ", orgMembership="
                 + orgMembership + ", adminOnly=" + adminOnly + ", enrolledInStudyId=" + enrolledInStudyId
@@ -231,6 +256,8 @@ public final class AccountSummarySearch implements BridgeEntity {
 
     public static class Builder {
         private Integer offsetBy;
+        private String offsetKey;
+        private Boolean includeTotal;
         private Integer pageSize;
         private String emailFilter;
         private String phoneFilter;
@@ -255,6 +282,14 @@ public final class AccountSummarySearch implements BridgeEntity {
             this.offsetBy = offsetBy;
             return this;
         }
+        public Builder withOffsetKey(String offsetKey) {
+            this.offsetKey = offsetKey;
+            return this;
+        }
+        public Builder withIncludeTotal(Boolean includeTotal) {
+            this.includeTotal = includeTotal;
+            return this;
+        }
         public Builder withPageSize(Integer pageSize) {
             this.pageSize = pageSize;
             return this;
@@ -341,6 +376,9 @@ public final class AccountSummarySearch implements BridgeEntity {
             if (offsetBy == null) {
                 offsetBy = 0;
             }
+            if (includeTotal == null) {
+                includeTotal = Boolean.TRUE;
+            }
             if (pageSize == null) {
                 pageSize = API_DEFAULT_PAGE_SIZE;
             }
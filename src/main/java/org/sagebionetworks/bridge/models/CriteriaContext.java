@@ -5,6 +5,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.sagebionetworks.bridge.models.accounts.AccountId;
 
@@ -75,6 +76,18 @@ public final class CriteriaContext {
         return languages;
     }
 
+    /**
+     * A key for the parts of this context that criteria are matched against: the app, the client's app version 
+     * and OS, the user's data groups and studies, and their languages (in order of preference). Contexts with the 
+     * same key match the same criteria, so anything calculated from criteria for one of them (like consent 
+     * statuses) is also correct for the other.
+     */
+    public String getCriteriaKey() {
+        return appId + ":" + clientInfo.getAppVersion() + ":" + clientInfo.getOsName() + ":"
+                + new TreeSet<>(userDataGroups) + ":"
+                + new TreeSet<>(userStudyIds) + ":" + languages;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(appId, healthCode, userId, clientInfo, userDataGroups, userStudyIds, languages);
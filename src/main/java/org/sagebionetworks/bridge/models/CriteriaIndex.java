@@ -0,0 +1,263 @@
+package org.sagebionetworks.bridge.models;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A compiled form of a set of HasCriteria entities (e.g. all of an app's app configs), for matching the same
+ * candidates against many CriteriaContexts. Every data group and study ID named in the candidates' criteria is
+ * assigned a bit position, and each criteria object is compiled into bitmasks of its required and prohibited
+ * groups and studies. Matching a context is then a few word-wise AND operations per candidate, rather than set
+ * containment checks over strings.
+ *
+ * The index is immutable and does not retain the candidates, only their compiled criteria. It remembers the ID and
+ * version of each candidate (e.g. its GUID and version or modification timestamp), so a caller holding an index can
+ * cheaply tell whether a freshly loaded candidate list has changed and the index needs to be rebuilt (see
+ * {@link #isIndexOf(List)}). Results are identical to {@link CriteriaUtils#filterByCriteria}, including the ordering
+ * by the context's language preferences.
+ */
+public final class CriteriaIndex<T extends HasCriteria> {
+
+    private final Map<String, Integer> dataGroupBits;
+    private final Map<String, Integer> studyIdBits;
+    private final int words;
+    private final List<Entry> entries;
+    private final Function<? super T, String> idFunction;
+    private final ToLongFunction<? super T> versionFunction;
+    private final String[] ids;
+    private final long[] versions;
+
+    /**
+     * Compile an index of the candidates. The ID function returns the identity of a candidate (e.g. its GUID), and 
+     * the version function returns a value that changes whenever a candidate's criteria change (e.g. its version or
+     * modification timestamp).
+     */
+    public static <T extends HasCriteria> CriteriaIndex<T> create(Collection<T> candidates,
+            Function<? super T, String> idFunction, ToLongFunction<? super T> versionFunction) {
+        checkNotNull(candidates);
+        checkNotNull(idFunction);
+        checkNotNull(versionFunction);
+        return new CriteriaIndex<>(candidates, idFunction, versionFunction);
+    }
+
+    private CriteriaIndex(Collection<T> candidates, Function<? super T, String> idFunction,
+            ToLongFunction<? super T> versionFunction) {
+        Map<String, Integer> groupBits = new HashMap<>();
+        Map<String, Integer> studyBits = new HashMap<>();
+        for (T candidate : candidates) {
+            Criteria criteria = checkNotNull(candidate.getCriteria());
+            intern(groupBits, criteria.getAllOfGroups());
+            intern(groupBits, criteria.getNoneOfGroups());
+            intern(studyBits, criteria.getAllOfStudyIds());
+            intern(studyBits, criteria.getNoneOfStudyIds());
+        }
+        this.dataGroupBits = ImmutableMap.copyOf(groupBits);
+        this.studyIdBits = ImmutableMap.copyOf(studyBits);
+        this.words = wordsFor(Math.max(groupBits.size(), studyBits.size()));
+
+        ImmutableList.Builder<Entry> entryBuilder = ImmutableList.builder();
+        this.ids = new String[candidates.size()];
+        this.versions = new long[candidates.size()];
+        int position = 0;
+        for (T candidate : candidates) {
+            Criteria criteria = candidate.getCriteria();
+            entryBuilder.add(new Entry(position, criteria.getLanguage(),
+                    mask(dataGroupBits, criteria.getAllOfGroups()), mask(dataGroupBits, criteria.getNoneOfGroups()),
+                    mask(studyIdBits, criteria.getAllOfStudyIds()), mask(studyIdBits, criteria.getNoneOfStudyIds()),
+                    versionRanges(criteria)));
+            ids[position] = checkNotNull(idFunction.apply(candidate));
+            versions[position] = versionFunction.applyAsLong(candidate);
+            position++;
+        }
+        this.entries = entryBuilder.build();
+        this.idFunction = idFunction;
+        this.versionFunction = versionFunction;
+    }
+
+    /** The number of candidates in the index. */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * True if the index was compiled from these candidates (as identified by their IDs and versions, in the same 
+     * order), and can be used instead of compiling a new index. The IDs and versions of the index are computed once, 
+     * when it is compiled, and this check compares them in place, without building a key for each candidate.
+     */
+    public boolean isIndexOf(List<T> candidates) {
+        checkNotNull(candidates);
+
+        if (candidates.size() != ids.length) {
+            return false;
+        }
+        int i = 0;
+        for (T candidate : candidates) {
+            if (versions[i] != versionFunction.applyAsLong(candidate) || !ids[i].equals(idFunction.apply(candidate))) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the candidates that match the context, sorted by the position of their language in the context's
+     * languages, and then by the second comparator, if it is provided. The candidates must be the list this index 
+     * was compiled from (or one for which {@link #isIndexOf(List)} is true).
+     */
+    public List<T> filter(CriteriaContext context, List<T> candidates, Comparator<T> secondComparator) {
+        return select(candidates, match(context, candidates, secondComparator));
+    }
+
+    /**
+     * Returns the positions in the candidate list of the candidates that match the context, in the order that 
+     * {@link #filter} would return them. If the second comparator is null, the positions only depend on the index, 
+     * so they can be kept and applied to any list for which {@link #isIndexOf(List)} is true (see 
+     * {@link #select(List, int[])}).
+     */
+    public int[] match(CriteriaContext context, List<T> candidates, Comparator<T> secondComparator) {
+        checkNotNull(context);
+        checkNotNull(candidates);
+        checkArgument(candidates.size() == entries.size(), "Candidates do not match the index");
+        checkNotNull(context.getLanguages());
+        checkNotNull(context.getClientInfo());
+        checkNotNull(context.getUserDataGroups());
+
+        long[] userGroups = mask(dataGroupBits, context.getUserDataGroups());
+        long[] userStudies = mask(studyIdBits, context.getUserStudyIds());
+        Integer appVersion = context.getClientInfo().getAppVersion();
+        String appOs = context.getClientInfo().getOsName();
+        List<String> langs = context.getLanguages();
+
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.matches(userGroups, userStudies, appVersion, appOs, langs)) {
+                matches.add(entry);
+            }
+        }
+        // List.sort is stable, as is the stream sort used by CriteriaUtils, so ties keep their candidate order.
+        Comparator<Entry> comparator = Comparator.comparingInt(entry -> langs.indexOf(entry.language));
+        if (secondComparator != null) {
+            comparator = comparator.thenComparing(entry -> candidates.get(entry.position), secondComparator);
+        }
+        matches.sort(comparator);
+
+        int[] positions = new int[matches.size()];
+        for (int i=0; i < positions.length; i++) {
+            positions[i] = matches.get(i).position;
+        }
+        return positions;
+    }
+
+    /** Returns the candidates at the given positions, in order. */
+    public List<T> select(List<T> candidates, int[] positions) {
+        checkNotNull(candidates);
+        checkNotNull(positions);
+        checkArgument(candidates.size() == entries.size(), "Candidates do not match the index");
+
+        List<T> results = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            results.add(candidates.get(position));
+        }
+        return results;
+    }
+
+    private static void intern(Map<String, Integer> bits, Set<String> values) {
+        checkNotNull(values);
+        for (String value : values) {
+            bits.putIfAbsent(value, bits.size());
+        }
+    }
+
+    private static int wordsFor(int bitCount) {
+        return (bitCount + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /** Values that were never interned are dropped; no criteria in the index refers to them. */
+    private long[] mask(Map<String, Integer> bits, Set<String> values) {
+        long[] mask = new long[words];
+        if (values != null) {
+            for (String value : values) {
+                Integer bit = bits.get(value);
+                if (bit != null) {
+                    mask[bit / Long.SIZE] |= (1L << (bit % Long.SIZE));
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static Map<String, int[]> versionRanges(Criteria criteria) {
+        Set<String> osNames = criteria.getAppVersionOperatingSystems();
+        if (osNames.isEmpty()) {
+            return ImmutableMap.of();
+        }
+        ImmutableMap.Builder<String, int[]> builder = ImmutableMap.builder();
+        for (String osName : osNames) {
+            Integer min = criteria.getMinAppVersion(osName);
+            Integer max = criteria.getMaxAppVersion(osName);
+            builder.put(osName, new int[] { (min == null) ? Integer.MIN_VALUE : min,
+                    (max == null) ? Integer.MAX_VALUE : max });
+        }
+        return builder.build();
+    }
+
+    private static final class Entry {
+        private final int position;
+        private final String language;
+        private final long[] allOfGroups;
+        private final long[] noneOfGroups;
+        private final long[] allOfStudies;
+        private final long[] noneOfStudies;
+        private final Map<String, int[]> versionRanges;
+
+        private Entry(int position, String language, long[] allOfGroups, long[] noneOfGroups, long[] allOfStudies,
+                long[] noneOfStudies, Map<String, int[]> versionRanges) {
+            this.position = position;
+            this.language = language;
+            this.allOfGroups = allOfGroups;
+            this.noneOfGroups = noneOfGroups;
+            this.allOfStudies = allOfStudies;
+            this.noneOfStudies = noneOfStudies;
+            this.versionRanges = versionRanges;
+        }
+
+        private boolean matches(long[] userGroups, long[] userStudies, Integer appVersion, String appOs,
+                List<String> langs) {
+            if (appVersion != null && appOs != null) {
+                int[] range = versionRanges.get(appOs);
+                if (range != null && (appVersion < range[0] || appVersion > range[1])) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < allOfGroups.length; i++) {
+                if ((allOfGroups[i] & ~userGroups[i]) != 0L || (noneOfGroups[i] & userGroups[i]) != 0L
+                        || (allOfStudies[i] & ~userStudies[i]) != 0L || (noneOfStudies[i] & userStudies[i]) != 0L) {
+                    return false;
+                }
+            }
+            if (language != null) {
+                for (String lang : langs) {
+                    if (language.equalsIgnoreCase(lang)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -121,6 +121,19 @@ public class Metrics {
         json.put("upload_size", uploadSize);
     }
 
+    /**
+     * Record a call to a storage backend (e.g. "db", "dynamo", "redis"). The number of calls and the total 
+     * elapsed time are accumulated per backend as &lt;type&gt;Calls and &lt;type&gt;Millis, which makes 
+     * N+1 access patterns visible in the request log.
+     */
+    public synchronized void recordStorageCall(String storageType, long elapsedMillis) {
+        checkArgument(isNotBlank(storageType), "Storage type cannot be blank.");
+        String callsField = storageType + "Calls";
+        String millisField = storageType + "Millis";
+        json.put(callsField, json.path(callsField).asLong() + 1);
+        json.put(millisField, json.path(millisField).asLong() + elapsedMillis);
+    }
+
     /**
      * Set the query params from the url request to json.
      *
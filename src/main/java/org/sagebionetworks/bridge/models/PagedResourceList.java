@@ -4,6 +4,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import org.joda.time.DateTime;
 
 import org.sagebionetworks.bridge.json.DateTimeSerializer;
@@ -15,7 +17,8 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 /**
  * This list represents one page of a larger list, for which we know the total number of items in the list 
  * (not just the size of the page). Request parameters are specifically modeled for this form of paging 
- * (offsetBy and total).
+ * (offsetBy and total). Some searches can also be paged by key, in which case the list carries a 
+ * <code>nextPageOffsetKey</code> and the total may be omitted when the caller did not ask for it.
  *  
  * Due to this issue: https://github.com/FasterXML/jackson-databind/issues/921 you cannot deserialize a list 
  * with a generic type and also use a builder. Not fixed as of Jackson v2.7.3. We're using a pattern here 
@@ -25,7 +28,8 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
  */
 public class PagedResourceList<T> extends ResourceList<T> {
     
-    private final Integer total;
+    private final @Nullable Integer total;
+    private final @Nullable String nextPageOffsetKey;
 
     // This could have a nextPageOffsetBy, but it's trivial to calculate client-side
     @JsonCreator
@@ -35,12 +39,24 @@ public class PagedResourceList<T> extends ResourceList<T> {
         super(items, false);
         checkNotNull(total);
         this.total = total;
+        this.nextPageOffsetKey = null;
     }
 
     public PagedResourceList(List<T> items, Integer total, boolean suppressDeprecated) {
         super(items, suppressDeprecated);
         checkNotNull(total);
         this.total = total;
+        this.nextPageOffsetKey = null;
+    }
+
+    /**
+     * A page retrieved by key. The total is null if it was not calculated, and the nextPageOffsetKey is null 
+     * if there are no further pages.
+     */
+    public PagedResourceList(List<T> items, Integer total, String nextPageOffsetKey, boolean suppressDeprecated) {
+        super(items, suppressDeprecated);
+        this.total = total;
+        this.nextPageOffsetKey = nextPageOffsetKey;
     }
     
     @Deprecated
@@ -68,6 +84,9 @@ public class PagedResourceList<T> extends ResourceList<T> {
     public Integer getTotal() {
         return total;
     }
+    public String getNextPageOffsetKey() {
+        return nextPageOffsetKey;
+    }
     public PagedResourceList<T> withRequestParam(String key, Object value) {
         super.withRequestParam(key, value);
         return this;
@@ -27,6 +27,7 @@ public class UserSession {
     private String appId;
     private StudyParticipant participant;
     private Map<SubpopulationGuid,ConsentStatus> consentStatuses = ImmutableMap.of();
+    private String consentCriteriaKey;
 
     public UserSession() {
         this.participant = EMPTY_PARTICIPANT;
@@ -120,4 +121,15 @@ public class UserSession {
     public void setConsentStatuses(Map<SubpopulationGuid,ConsentStatus> consentStatuses) {
         this.consentStatuses = ImmutableMap.copyOf(consentStatuses);
     }
+    /**
+     * The criteria key (see {@link org.sagebionetworks.bridge.models.CriteriaContext#getCriteriaKey()}) of the 
+     * context the consent statuses were calculated for, or null if unknown. The statuses do not need to be 
+     * recalculated for a context with the same key.
+     */
+    public String getConsentCriteriaKey() {
+        return consentCriteriaKey;
+    }
+    public void setConsentCriteriaKey(String consentCriteriaKey) {
+        this.consentCriteriaKey = consentCriteriaKey;
+    }
 }
@@ -0,0 +1,110 @@
+package org.sagebionetworks.bridge.models.notifications;
+
+import java.util.List;
+
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.json.DateTimeSerializer;
+import org.sagebionetworks.bridge.models.BridgeEntity;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Progress of a job that sends a push notification to every participant matching an account search. The 
+ * counts are updated as the job runs, so callers can poll the job until its status is no longer RUNNING.
+ */
+public final class NotificationFanOutJob implements BridgeEntity {
+    private String jobId;
+    private String appId;
+    private String studyId;
+    private NotificationFanOutStatus status;
+    private int accountCount;
+    private int registrationCount;
+    private int sentCount;
+    private int failedCount;
+    private List<String> failedRegistrations = ImmutableList.of();
+    private String errorMessage;
+    private DateTime startedOn;
+    private DateTime finishedOn;
+
+    public String getJobId() {
+        return jobId;
+    }
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+    public String getAppId() {
+        return appId;
+    }
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+    /** If the job was started for a study, the study ID. */
+    public String getStudyId() {
+        return studyId;
+    }
+    public void setStudyId(String studyId) {
+        this.studyId = studyId;
+    }
+    public NotificationFanOutStatus getStatus() {
+        return status;
+    }
+    public void setStatus(NotificationFanOutStatus status) {
+        this.status = status;
+    }
+    /** Number of matching accounts processed so far. */
+    public int getAccountCount() {
+        return accountCount;
+    }
+    public void setAccountCount(int accountCount) {
+        this.accountCount = accountCount;
+    }
+    /** Number of push notification registrations found for those accounts. */
+    public int getRegistrationCount() {
+        return registrationCount;
+    }
+    public void setRegistrationCount(int registrationCount) {
+        this.registrationCount = registrationCount;
+    }
+    public int getSentCount() {
+        return sentCount;
+    }
+    public void setSentCount(int sentCount) {
+        this.sentCount = sentCount;
+    }
+    public int getFailedCount() {
+        return failedCount;
+    }
+    public void setFailedCount(int failedCount) {
+        this.failedCount = failedCount;
+    }
+    /** GUIDs of registrations that could not be sent a notification (this list is truncated for large jobs). */
+    public List<String> getFailedRegistrations() {
+        return failedRegistrations;
+    }
+    public void setFailedRegistrations(List<String> failedRegistrations) {
+        this.failedRegistrations = (failedRegistrations == null) ? ImmutableList.of() : failedRegistrations;
+    }
+    /** If the job failed, the reason it failed. */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+    @JsonSerialize(using = DateTimeSerializer.class)
+    public DateTime getStartedOn() {
+        return startedOn;
+    }
+    public void setStartedOn(DateTime startedOn) {
+        this.startedOn = startedOn;
+    }
+    @JsonSerialize(using = DateTimeSerializer.class)
+    public DateTime getFinishedOn() {
+        return finishedOn;
+    }
+    public void setFinishedOn(DateTime finishedOn) {
+        this.finishedOn = finishedOn;
+    }
+}
@@ -0,0 +1,31 @@
+package org.sagebionetworks.bridge.models.notifications;
+
+import org.sagebionetworks.bridge.models.AccountSummarySearch;
+import org.sagebionetworks.bridge.models.BridgeEntity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Request to send a push notification message to every participant that matches an account search. If 
+ * the search is not provided, the notification is sent to all participants visible to the caller.
+ */
+public final class NotificationFanOutRequest implements BridgeEntity {
+    private final NotificationMessage message;
+    private final AccountSummarySearch search;
+
+    @JsonCreator
+    public NotificationFanOutRequest(@JsonProperty("message") NotificationMessage message,
+            @JsonProperty("search") AccountSummarySearch search) {
+        this.message = message;
+        this.search = search;
+    }
+
+    public NotificationMessage getMessage() {
+        return message;
+    }
+
+    public AccountSummarySearch getSearch() {
+        return search;
+    }
+}
@@ -0,0 +1,11 @@
+package org.sagebionetworks.bridge.models.notifications;
+
+/** The state of a job that sends a push notification to many participants. */
+public enum NotificationFanOutStatus {
+    /** Accounts are still being found and notifications sent. */
+    RUNNING,
+    /** Every matching account was processed. Individual registrations may still have failed. */
+    COMPLETED,
+    /** The job stopped before all matching accounts were processed. */
+    FAILED;
+}
@@ -0,0 +1,68 @@
+package org.sagebionetworks.bridge.models.outbox;
+
+import org.joda.time.DateTime;
+
+import org.sagebionetworks.bridge.json.DateTimeSerializer;
+import org.sagebionetworks.bridge.models.BridgeEntity;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * The delivery status of an outbox message. This is updated by the dispatcher each time it tries to send the 
+ * message, and kept for a day after the last update.
+ */
+public final class OutboxDelivery implements BridgeEntity {
+    private String messageId;
+    private OutboxMessageType type;
+    private String appId;
+    private OutboxDeliveryStatus status;
+    private int attempts;
+    private String errorMessage;
+    private DateTime modifiedOn;
+
+    public String getMessageId() {
+        return messageId;
+    }
+    public void setMessageId(String messageId) {
+        this.messageId = messageId;
+    }
+    public OutboxMessageType getType() {
+        return type;
+    }
+    public void setType(OutboxMessageType type) {
+        this.type = type;
+    }
+    public String getAppId() {
+        return appId;
+    }
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+    public OutboxDeliveryStatus getStatus() {
+        return status;
+    }
+    public void setStatus(OutboxDeliveryStatus status) {
+        this.status = status;
+    }
+    /** The number of attempts made to send the message so far. */
+    public int getAttempts() {
+        return attempts;
+    }
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    /** The error from the most recent failed attempt, if any. */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+    @JsonSerialize(using = DateTimeSerializer.class)
+    public DateTime getModifiedOn() {
+        return modifiedOn;
+    }
+    public void setModifiedOn(DateTime modifiedOn) {
+        this.modifiedOn = modifiedOn;
+    }
+}
@@ -0,0 +1,13 @@
+package org.sagebionetworks.bridge.models.outbox;
+
+/** The delivery state of a message in the outbox. */
+public enum OutboxDeliveryStatus {
+    /** The message is waiting to be sent. */
+    QUEUED,
+    /** An attempt to send the message failed, and it will be tried again. */
+    RETRYING,
+    /** The provider accepted the message. */
+    SENT,
+    /** The message could not be sent, and will not be tried again. */
+    FAILED;
+}
@@ -0,0 +1,147 @@
+package org.sagebionetworks.bridge.models.outbox;
+
+import java.util.Map;
+
+import org.sagebionetworks.bridge.models.BridgeEntity;
+import org.sagebionetworks.bridge.models.sms.SmsType;
+import org.sagebionetworks.bridge.services.email.EmailType;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * An email or SMS message, fully rendered, that is waiting in the outbox to be sent. Emails are stored as the raw
+ * MIME message for a single recipient. SMS messages carry the health code and time zone of the recipient (looked
+ * up when the message was queued), so the sent message can be logged without reloading the participant.
+ */
+public final class OutboxMessage implements BridgeEntity {
+    private String id;
+    private OutboxMessageType type;
+    private String appId;
+    private String requestId;
+    private long createdOn;
+    private int attempts;
+
+    // Email
+    private EmailType emailType;
+    private String sender;
+    private String recipient;
+    private byte[] rawMessage;
+
+    // SMS
+    private String userId;
+    private String healthCode;
+    private String timeZone;
+    private String phoneNumber;
+    private String message;
+    private SmsType smsType;
+    private Map<String, String> messageAttributes = ImmutableMap.of();
+
+    public String getId() {
+        return id;
+    }
+    public void setId(String id) {
+        this.id = id;
+    }
+    public OutboxMessageType getType() {
+        return type;
+    }
+    public void setType(OutboxMessageType type) {
+        this.type = type;
+    }
+    public String getAppId() {
+        return appId;
+    }
+    public void setAppId(String appId) {
+        this.appId = appId;
+    }
+    /** The ID of the request that queued the message, for logging. */
+    public String getRequestId() {
+        return requestId;
+    }
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+    public long getCreatedOn() {
+        return createdOn;
+    }
+    public void setCreatedOn(long createdOn) {
+        this.createdOn = createdOn;
+    }
+    /** The number of failed attempts to send this message. */
+    public int getAttempts() {
+        return attempts;
+    }
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    public EmailType getEmailType() {
+        return emailType;
+    }
+    public void setEmailType(EmailType emailType) {
+        this.emailType = emailType;
+    }
+    /** The full sender address of an email (which may include a display name). */
+    public String getSender() {
+        return sender;
+    }
+    public void setSender(String sender) {
+        this.sender = sender;
+    }
+    public String getRecipient() {
+        return recipient;
+    }
+    public void setRecipient(String recipient) {
+        this.recipient = recipient;
+    }
+    /** The email as a raw MIME message, ready to send to SES. */
+    public byte[] getRawMessage() {
+        return rawMessage;
+    }
+    public void setRawMessage(byte[] rawMessage) {
+        this.rawMessage = rawMessage;
+    }
+    public String getUserId() {
+        return userId;
+    }
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+    public String getHealthCode() {
+        return healthCode;
+    }
+    public void setHealthCode(String healthCode) {
+        this.healthCode = healthCode;
+    }
+    /** The recipient's time zone ID, if the recipient is a participant with a time zone. */
+    public String getTimeZone() {
+        return timeZone;
+    }
+    public void setTimeZone(String timeZone) {
+        this.timeZone = timeZone;
+    }
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+    public void setPhoneNumber(String phoneNumber) {
+        this.phoneNumber = phoneNumber;
+    }
+    public String getMessage() {
+        return message;
+    }
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    public SmsType getSmsType() {
+        return smsType;
+    }
+    public void setSmsType(SmsType smsType) {
+        this.smsType = smsType;
+    }
+    /** The string-valued SNS message attributes of an SMS message (SMS type and sender ID). */
+    public Map<String, String> getMessageAttributes() {
+        return messageAttributes;
+    }
+    public void setMessageAttributes(Map<String, String> messageAttributes) {
+        this.messageAttributes = (messageAttributes == null) ? ImmutableMap.of() : messageAttributes;
+    }
+}
@@ -0,0 +1,9 @@
+package org.sagebionetworks.bridge.models.outbox;
+
+/** The kind of outbound message, which determines the provider it is delivered through. */
+public enum OutboxMessageType {
+    /** An email, sent through SES. */
+    EMAIL,
+    /** An SMS message, sent through SNS. */
+    SMS;
+}
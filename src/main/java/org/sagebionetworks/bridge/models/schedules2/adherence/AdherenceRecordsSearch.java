@@ -111,13 +111,29 @@ public class AdherenceRecordsSearch implements BridgeEntity {
      * The offset index (this API is paged).
      */
     private final Integer offsetBy;
+    /**
+     * The key returned as `nextPageOffsetKey` with the prior page of records. When 
+     * provided, the next page is retrieved by seeking past the last record of the
+     * prior page, rather than by skipping `offsetBy` records (which gets slower as 
+     * paging proceeds). The search criteria, including the sort order, must be the 
+     * same as the search that returned the key.
+     */
+    private final String offsetKey;
+    /**
+     * Calculate the total number of records that match the search? Counting 
+     * requires a second query over all matching records, which callers paging 
+     * by key do not usually need. The default is true.
+     */
+    private final Boolean includeTotal;
     /**
      * The page size (this API is paged). The default is 250 records.
      */
     private final Integer pageSize;
     /**
      * Sort by the `startedOn` timestamp in either ascending or descending 
-     * order. The default is ascending order.
+     * order. The default is ascending order. Records with the same `startedOn`
+     * timestamp are ordered by their instance GUID (and then by the rest of their
+     * key), so the order is stable from page to page.
      */
     private final SortOrder sortOrder;
     /**
@@ -161,6 +177,8 @@ public class AdherenceRecordsSearch implements BridgeEntity {
         this.startTime = builder.startTime;
         this.endTime = builder.endTime;
         this.offsetBy = builder.offsetBy;
+        this.offsetKey = builder.offsetKey;
+        this.includeTotal = builder.includeTotal;
         this.pageSize = builder.pageSize;
         this.sortOrder = builder.sortOrder;
         this.predicate = builder.predicate;
@@ -239,6 +257,14 @@ public class AdherenceRecordsSearch implements BridgeEntity {
         return offsetBy;
     }
 
+    public String getOffsetKey() {
+        return offsetKey;
+    }
+
+    public Boolean getIncludeTotal() {
+        return includeTotal;
+    }
+
     public Integer getPageSize() {
         return pageSize;
     }
@@ -292,6 +318,8 @@ public class AdherenceRecordsSearch implements BridgeEntity {
                 .withStartTime(startTime)
                 .withEndTime(endTime)
                 .withOffsetBy(offsetBy)
+                .withOffsetKey(offsetKey)
+                .withIncludeTotal(includeTotal)
                 .withPageSize(pageSize)
                 .withSortOrder(sortOrder)
                 .withPredicate(predicate)
@@ -320,6 +348,8 @@ public class AdherenceRecordsSearch implements BridgeEntity {
         private DateTime startTime;
         private DateTime endTime;
         private Integer offsetBy;
+        private String offsetKey;
+        private Boolean includeTotal;
         private Integer pageSize;
         private SortOrder sortOrder;
         private SearchTermPredicate predicate;
@@ -401,6 +431,14 @@ public class AdherenceRecordsSearch implements BridgeEntity {
             this.offsetBy = offsetBy;
             return this;
         }
+        public Builder withOffsetKey(String offsetKey) {
+            this.offsetKey = offsetKey;
+            return this;
+        }
+        public Builder withIncludeTotal(Boolean includeTotal) {
+            this.includeTotal = includeTotal;
+            return this;
+        }
         public Builder withPageSize(Integer pageSize) {
             this.pageSize = pageSize;
             return this;
@@ -468,6 +506,9 @@ public class AdherenceRecordsSearch implements BridgeEntity {
             if (offsetBy == null) {
                 offsetBy = Integer.valueOf(0);
             }
+            if (includeTotal == null) {
+                includeTotal = Boolean.TRUE;
+            }
             if (sortOrder == null) {
                 sortOrder = SortOrder.ASC;
             }
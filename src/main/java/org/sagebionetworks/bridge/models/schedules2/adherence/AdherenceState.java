@@ -6,6 +6,7 @@ import static java.util.stream.Collectors.toMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -33,6 +34,7 @@ public final class AdherenceState {
     private final Map<String, AdherenceRecord> adherenceByGuid;
     private final Map<String, Integer> daysSinceEventByEventId;
     private final Map<String, DateTime> eventTimestampByEventId;
+    private final Map<String, LocalDate> eventLocalDateByEventId;
     private final DateTimeZone zone;
     
     public AdherenceState(AdherenceState.Builder builder) {
@@ -53,7 +55,10 @@ public final class AdherenceState {
         streamsByEventId = new HashMap<>();
         daysSinceEventByEventId = new HashMap<>();
         eventTimestampByEventId = new HashMap<>();
-        streamsByStreamKey = new HashMap<>();
+        eventLocalDateByEventId = new HashMap<>();
+        // Event stream days are created concurrently when a report is generated in parallel (each 
+        // partition only creates the days of its own event stream, so the keys never collide).
+        streamsByStreamKey = new ConcurrentHashMap<>();
         
         adherenceByGuid = new HashMap<>();
 
@@ -63,10 +68,12 @@ public final class AdherenceState {
         
         for (StudyActivityEvent event : builder.events) {
             DateTime eventTimestamp = event.getTimestamp().withZone(zone);
-            int daysSince = Days.daysBetween(eventTimestamp.toLocalDate(), localNow).getDays();
+            LocalDate eventLocalDate = eventTimestamp.toLocalDate();
+            int daysSince = Days.daysBetween(eventLocalDate, localNow).getDays();
             
             daysSinceEventByEventId.put(event.getEventId(), daysSince);
             eventTimestampByEventId.put(event.getEventId(), eventTimestamp);
+            eventLocalDateByEventId.put(event.getEventId(), eventLocalDate);
         }
     }
 
@@ -142,6 +149,10 @@ public final class AdherenceState {
     public DateTime getEventTimestampById(String eventId) {
         return eventTimestampByEventId.get(eventId);
     }
+    /** The local date of the event in the participant’s time zone, computed once per event. */
+    public LocalDate getEventLocalDateById(String eventId) {
+        return eventLocalDateByEventId.get(eventId);
+    }
     public DateTimeZone getTimeZone() {
         return zone;
     }
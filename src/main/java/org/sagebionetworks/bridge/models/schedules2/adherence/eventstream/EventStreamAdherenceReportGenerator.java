@@ -1,9 +1,9 @@
 package org.sagebionetworks.bridge.models.schedules2.adherence.eventstream;
 
+import static java.util.stream.Collectors.toList;
 import static org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceUtils.calculateProgress;
 import static org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceUtils.calculateSessionState;
 
-import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.joda.time.LocalTime;
 import org.joda.time.Period;
@@ -19,8 +19,12 @@ import org.sagebionetworks.bridge.models.schedules2.timelines.TimelineMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public class EventStreamAdherenceReportGenerator {
     private static final Logger LOG = LoggerFactory.getLogger(EventStreamAdherenceReportGenerator.class);
@@ -30,10 +34,54 @@ public class EventStreamAdherenceReportGenerator {
     private static final LocalDate EARLIEST_LOCAL_DATE = LocalDate.parse("1900-01-01");
     private static final LocalDate LATEST_LOCAL_DATE = LocalDate.parse("9999-12-31");
     
+    /**
+     * Above this many metadata rows, the event streams of the report are built in parallel on the common 
+     * fork-join pool. Below it, the cost of forking exceeds the cost of building the streams.
+     */
+    static final int PARALLEL_THRESHOLD = 500;
+    
+    private final int parallelThreshold;
+    
+    public EventStreamAdherenceReportGenerator() {
+        this(PARALLEL_THRESHOLD);
+    }
+    
+    EventStreamAdherenceReportGenerator(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+    
     public EventStreamAdherenceReport generate(AdherenceState state, Schedule2 schedule) {
     
         Map<String, TimeWindow> timeWindowMap = getTimeWindowMapFromSchedule(schedule);
         
+        // Each event stream is built from the metadata records that share a start event ID, and it does
+        // not depend on any other stream, so the records are partitioned by event ID. The streams are 
+        // created here so the state’s stream map is only read while partitions are processed.
+        Map<String, List<IndexedMetadata>> partitionMap = new LinkedHashMap<>();
+        List<TimelineMetadata> metadata = state.getMetadata();
+        for (int i=0; i < metadata.size(); i++) {
+            TimelineMetadata meta = metadata.get(i);
+            if (meta.isTimeWindowPersistent()) {
+                continue;
+            }
+            String eventId = meta.getSessionStartEventId();
+            List<IndexedMetadata> partition = partitionMap.get(eventId);
+            if (partition == null) {
+                partition = new ArrayList<>();
+                partitionMap.put(eventId, partition);
+                state.getEventStreamById(eventId);
+            }
+            partition.add(new IndexedMetadata(i, meta));
+        }
+        
+        Stream<Map.Entry<String, List<IndexedMetadata>>> partitions = partitionMap.entrySet().stream();
+        if (partitionMap.size() > 1 && metadata.size() > parallelThreshold) {
+            partitions = partitions.parallel();
+        }
+        List<PartitionResult> results = partitions
+                .map(entry -> generatePartition(state, schedule, timeWindowMap, entry.getKey(), entry.getValue()))
+                .collect(toList());
+        
         LocalDate earliestDate = LATEST_LOCAL_DATE;
         LocalDate latestDate = EARLIEST_LOCAL_DATE;
         
@@ -41,24 +89,69 @@ public class EventStreamAdherenceReportGenerator {
         int max = Integer.MIN_VALUE;
         
         String earliestEventId = null;
+        int earliestIndex = Integer.MAX_VALUE;
 
-        for (TimelineMetadata meta : state.getMetadata()) {
-            if (meta.isTimeWindowPersistent()) {
-                continue;
+        // Combine partitions as if the metadata had been processed in order: the earliest event ID is 
+        // from the first record (by position in the metadata) with the earliest start date.
+        for (PartitionResult result : results) {
+            if (result.earliestDate.isBefore(earliestDate) || 
+                    (result.earliestDate.isEqual(earliestDate) && result.earliestIndex < earliestIndex)) {
+                earliestDate = result.earliestDate;
+                earliestEventId = result.earliestEventId;
+                earliestIndex = result.earliestIndex;
+            }
+            if (result.latestDate.isAfter(latestDate)) {
+                latestDate = result.latestDate;
+            }
+            if (min > result.min) {
+                min = result.min;
             }
+            if (max < result.max) {
+                max = result.max;
+            }
+        }
+        
+        DayRange dayRange = null;
+        if (min <= max) {
+            dayRange = new DayRange(min, max);
+        }
+        DateRange dateRange = null;
+        if (earliestDate.isEqual(latestDate) || earliestDate.isBefore(latestDate)) {
+            dateRange = new DateRange(earliestDate, latestDate);
+        }
+        EventStreamAdherenceReport report = new EventStreamAdherenceReport();
+        report.setTimestamp(state.getNow());
+        report.setClientTimeZone(state.getClientTimeZone());
+        report.setAdherencePercent(state.calculateAdherencePercentage());
+        report.setDayRangeOfAllStreams(dayRange);
+        report.setDateRangeOfAllStreams(dateRange);
+        report.setEarliestEventId(earliestEventId);
+        for (String eventId : state.getStreamEventIds()) {
+            report.getStreams().add(state.getEventStreamById(eventId));
+        }
+        report.setProgression(calculateProgress(state, report.getStreams()));
+        return report;
+    }
+    
+    private PartitionResult generatePartition(AdherenceState state, Schedule2 schedule,
+            Map<String, TimeWindow> timeWindowMap, String eventId, List<IndexedMetadata> partition) {
+        
+        PartitionResult result = new PartitionResult();
+        
+        // These are the same for every record in the stream
+        Integer daysSinceEvent = state.getDaysSinceEventById(eventId);
+        LocalDate localDate = state.getEventLocalDateById(eventId);
+        EventStream stream = state.getEventStreamById(eventId);
+        stream.setDaysSinceEvent(daysSinceEvent);
+        
+        for (IndexedMetadata indexed : partition) {
+            TimelineMetadata meta = indexed.meta;
             int startDay = meta.getSessionInstanceStartDay();
             int endDay = meta.getSessionInstanceEndDay();
-            String eventId = meta.getSessionStartEventId();
-            Integer daysSinceEvent = state.getDaysSinceEventById(eventId);
 
-            DateTime timestamp = state.getEventTimestampById(eventId);
-            LocalDate localDate = (timestamp == null) ? null : timestamp.toLocalDate();
             LocalDate startDate = (localDate == null) ? null : localDate.plusDays(startDay);
             LocalDate endDate = (localDate == null) ? null : localDate.plusDays(endDay);
 
-            // Produce one report for each event ID. Create them lazily as we find each eventId;
-            EventStream stream = state.getEventStreamById(eventId);
-            stream.setDaysSinceEvent(daysSinceEvent);
             stream.setStudyBurstId(meta.getStudyBurstId());
             stream.setStudyBurstNum(meta.getStudyBurstNum());
 
@@ -100,41 +193,22 @@ public class EventStreamAdherenceReportGenerator {
             
             eventStreamDay.addTimeWindow(windowEntry);
             
-            if (startDate != null && startDate.isBefore(earliestDate)) {
-                earliestDate = startDate;
-                earliestEventId = eventStreamDay.getStartEventId();
+            if (startDate != null && startDate.isBefore(result.earliestDate)) {
+                result.earliestDate = startDate;
+                result.earliestEventId = eventStreamDay.getStartEventId();
+                result.earliestIndex = indexed.index;
             }
-            if (endDate != null && endDate.isAfter(latestDate)) {
-                latestDate = endDate;
+            if (endDate != null && endDate.isAfter(result.latestDate)) {
+                result.latestDate = endDate;
             }
-            if (min > startDay) {
-                min = startDay;
+            if (result.min > startDay) {
+                result.min = startDay;
             }
-            if (max < endDay) {
-                max = endDay;
+            if (result.max < endDay) {
+                result.max = endDay;
             }
         }
-        
-        DayRange dayRange = null;
-        if (min <= max) {
-            dayRange = new DayRange(min, max);
-        }
-        DateRange dateRange = null;
-        if (earliestDate.isEqual(latestDate) || earliestDate.isBefore(latestDate)) {
-            dateRange = new DateRange(earliestDate, latestDate);
-        }
-        EventStreamAdherenceReport report = new EventStreamAdherenceReport();
-        report.setTimestamp(state.getNow());
-        report.setClientTimeZone(state.getClientTimeZone());
-        report.setAdherencePercent(state.calculateAdherencePercentage());
-        report.setDayRangeOfAllStreams(dayRange);
-        report.setDateRangeOfAllStreams(dateRange);
-        report.setEarliestEventId(earliestEventId);
-        for (String eventId : state.getStreamEventIds()) {
-            report.getStreams().add(state.getEventStreamById(eventId));
-        }
-        report.setProgression(calculateProgress(state, report.getStreams()));
-        return report;
+        return result;
     }
     
     private Map<String, TimeWindow> getTimeWindowMapFromSchedule(Schedule2 schedule) {
@@ -148,4 +222,22 @@ public class EventStreamAdherenceReportGenerator {
         
         return timeWindowMap;
     }
+    
+    private static final class IndexedMetadata {
+        private final int index;
+        private final TimelineMetadata meta;
+        private IndexedMetadata(int index, TimelineMetadata meta) {
+            this.index = index;
+            this.meta = meta;
+        }
+    }
+    
+    private static final class PartitionResult {
+        private LocalDate earliestDate = LATEST_LOCAL_DATE;
+        private LocalDate latestDate = EARLIEST_LOCAL_DATE;
+        private String earliestEventId;
+        private int earliestIndex = Integer.MAX_VALUE;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+    }
 }
@@ -49,8 +49,7 @@ public class StudyAdherenceReportGenerator {
     };
 
     protected LocalDate getDate(AdherenceState state, String eventId) {
-        DateTime timestamp = state.getEventTimestampById(eventId);
-        return (timestamp != null) ? timestamp.toLocalDate() : null;
+        return state.getEventLocalDateById(eventId);
     }
 
     public StudyAdherenceReport generate(AdherenceState state, Schedule2 schedule) {
@@ -71,11 +70,15 @@ public class StudyAdherenceReportGenerator {
         Map<String, DateTime> eventTimestamps = new HashMap<>();
         LocalDate localToday = state.getNow().toLocalDate();
         
-        // Remap all the event streams to one event stream one one timeline from the earliest date
+        // Remap all the event streams to one event stream one one timeline from the earliest date. All the days 
+        // in a stream are offset from the same event date, so the offset to the earliest date is calculated once 
+        // per stream.
         for (EventStream stream : eventReport.getStreams()) {
+            LocalDate eventDate = getDate(state, stream.getStartEventId());
+            int streamOffset = (eventDate == null) ? 0 : Days.daysBetween(earliestDate, eventDate).getDays();
             stream.visitDays((day, i) -> {
                 if (day.getStartDate() != null) {
-                    Integer numDays = Days.daysBetween(earliestDate, day.getStartDate()).getDays();
+                    int numDays = streamOffset + day.getStartDay();
                     studyStream.addEntry(numDays, day);
                     
                     String eventId = day.getStartEventId();
@@ -15,25 +15,38 @@ import static org.sagebionetworks.bridge.BridgeUtils.collectStudyIds;
 import static org.sagebionetworks.bridge.dao.AccountDao.MIGRATION_VERSION;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ENROLLMENT;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import javax.annotation.Resource;
+
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.async.AsyncHandler;
 import org.sagebionetworks.bridge.cache.CacheKey;
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.dao.AccountDao;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
@@ -52,6 +65,29 @@ import org.sagebionetworks.bridge.time.DateUtils;
 
 @Component
 public class AccountService {
+    private static final Logger LOG = LoggerFactory.getLogger(AccountService.class);
+    
+    // The cached account count is reloaded from the database this often, correcting any drift from accounts 
+    // that were created or deleted without adjusting it.
+    static final int ACCOUNT_COUNT_EXPIRE_IN_SECONDS = 60*60;
+    // Progress of an account deletion that failed part way through is kept this long, so that deleting the 
+    // account again only repeats the cleanups that did not finish.
+    static final int ACCOUNT_DELETION_EXPIRE_IN_SECONDS = 24*60*60;
+    // Each chunk of the search term backfill is written in one transaction.
+    static final int SEARCH_TERMS_BACKFILL_CHUNK_SIZE = 100;
+    static final TypeReference<Set<String>> STRING_SET_TYPE_REF = new TypeReference<Set<String>>() {};
+    
+    // The cleanups run when an account is deleted, in the order they are submitted to the pool.
+    static final String HEALTH_DATA_STEP = "healthData";
+    static final String HEALTH_DATA_EX3_STEP = "healthDataEx3";
+    static final String NOTIFICATION_REGISTRATIONS_STEP = "notificationRegistrations";
+    static final String PARTICIPANT_DATA_STEP = "participantData";
+    static final String PARTICIPANT_FILES_STEP = "participantFiles";
+    static final String UPLOADS_STEP = "uploads";
+    static final String SCHEDULED_ACTIVITIES_STEP = "scheduledActivities";
+    static final String ACTIVITY_EVENTS_STEP = "activityEvents";
+    static final String PARTICIPANT_REPORTS_STEP = "participantReports";
+    
     @Autowired
     private AccountDao accountDao;
     @Autowired
@@ -87,6 +123,21 @@ public class AccountService {
     @Autowired
     private RequestInfoService requestInfoService;
     
+    private ExecutorService accountDeletionExecutorService;
+    
+    private ExecutorService asyncExecutorService;
+    
+    @Resource(name = "accountDeletionExecutorService")
+    final void setAccountDeletionExecutorService(ExecutorService accountDeletionExecutorService) {
+        this.accountDeletionExecutorService = accountDeletionExecutorService;
+    }
+    
+    /** Runs the search term backfill. This is configured by Spring. */
+    @Resource(name = "asyncExecutorService")
+    final void setAsyncExecutorService(ExecutorService asyncExecutorService) {
+        this.asyncExecutorService = asyncExecutorService;
+    }
+    
     // Provided to override in tests
     protected String generateGUID() {
         return BridgeUtils.generateGuid();
@@ -115,6 +166,7 @@ public class AccountService {
 
         // Create account. We don't verify studies because this is handled by validation
         accountDao.createAccount(account);
+        adjustAccountCount(app.getIdentifier(), 1);
         
         if (!account.getEnrollments().isEmpty()) {
             activityEventService.publishEnrollmentEvent(
@@ -282,7 +334,9 @@ public class AccountService {
     }
     
     /**
-     * Delete an account along with the authentication credentials.
+     * Delete an account along with the authentication credentials. The account's data in other services is 
+     * deleted first, with the cleanups run concurrently on a bounded pool. If any cleanup fails, the ones that 
+     * succeeded are recorded and the account is left in place, so deleting it again resumes the deletion.
      */
     public void deleteAccount(AccountId accountId) {
         checkNotNull(accountId);
@@ -297,33 +351,99 @@ public class AccountService {
             requestInfoService.removeRequestInfo(account.getId());
 
             String appId = account.getAppId();
-            String userId = account.getId();
-            String healthCode = account.getHealthCode();
-            healthDataService.deleteRecordsForHealthCode(healthCode);
-            healthDataEx3Service.deleteRecordsForHealthCode(healthCode);
-            notificationsService.deleteAllRegistrations(account.getAppId(), healthCode);
-            participantDataService.deleteAllParticipantData(userId);
-            participantFileService.deleteAllFilesForParticipant(userId);
-            uploadService.deleteUploadsForHealthCode(healthCode);
-            scheduledActivityService.deleteActivitiesForUser(healthCode);
-            activityEventService.deleteActivityEvents(account.getAppId(), healthCode);
-
-            List<? extends ReportIndex> reportIndexList = reportService.getReportIndices(appId, ReportType.PARTICIPANT)
-                    .getItems();
-            for (ReportIndex reportIndex : reportIndexList) {
-                reportService.deleteParticipantReport(appId, userId, reportIndex.getIdentifier(), healthCode);
-            }
+            
+            deleteAccountData(account);
 
             // AccountSecret records and Enrollment records are are deleted on a 
             // cascading delete from Account
             accountDao.deleteAccount(account.getId());
+            adjustAccountCount(appId, -1);
             
             // Remove known etag cache keys for this user
             cacheProvider.removeObject( CacheKey.etag(DateTimeZone.class, account.getId()) );
             cacheProvider.removeObject( CacheKey.etag(StudyActivityEvent.class, account.getId()) );
+            cacheProvider.removeObject( CacheKey.accountDeletion(account.getId()) );
+        }
+    }
+    
+    /**
+     * Runs every cleanup for the account that has not already succeeded, and waits for them all to finish. If 
+     * any fail, the completed cleanups are recorded and the first failure is thrown.
+     */
+    private void deleteAccountData(Account account) {
+        CacheKey progressKey = CacheKey.accountDeletion(account.getId());
+        Set<String> completedSteps = cacheProvider.getObject(progressKey, STRING_SET_TYPE_REF);
+        if (completedSteps == null) {
+            completedSteps = new HashSet<>();
+        }
+        
+        // The cleanups run on other threads, which need the caller's context.
+        RequestContext context = RequestContext.get();
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, Runnable> entry : getAccountDeletionSteps(account).entrySet()) {
+            if (!completedSteps.contains(entry.getKey())) {
+                Runnable step = entry.getValue();
+                futures.put(entry.getKey(), CompletableFuture.runAsync(() -> {
+                    RequestContext.set(context);
+                    try {
+                        step.run();
+                    } finally {
+                        RequestContext.set(null);
+                    }
+                }, accountDeletionExecutorService));
+            }
+        }
+        
+        Throwable failure = null;
+        for (Map.Entry<String, CompletableFuture<Void>> entry : futures.entrySet()) {
+            try {
+                entry.getValue().join();
+                completedSteps.add(entry.getKey());
+            } catch (CompletionException e) {
+                LOG.error("Deleting " + entry.getKey() + " for account " + account.getId() + " failed", e.getCause());
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure != null) {
+            cacheProvider.setObject(progressKey, completedSteps, ACCOUNT_DELETION_EXPIRE_IN_SECONDS);
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw new BridgeServiceException(failure);
         }
     }
     
+    /**
+     * The cleanups of an account's data in other services, by name. They are independent of one another, so 
+     * they can run in any order or at the same time.
+     */
+    private Map<String, Runnable> getAccountDeletionSteps(Account account) {
+        String appId = account.getAppId();
+        String userId = account.getId();
+        String healthCode = account.getHealthCode();
+        
+        Map<String, Runnable> steps = new LinkedHashMap<>();
+        steps.put(HEALTH_DATA_STEP, () -> healthDataService.deleteRecordsForHealthCode(healthCode));
+        steps.put(HEALTH_DATA_EX3_STEP, () -> healthDataEx3Service.deleteRecordsForHealthCode(healthCode));
+        steps.put(NOTIFICATION_REGISTRATIONS_STEP,
+                () -> notificationsService.deleteAllRegistrations(appId, healthCode));
+        steps.put(PARTICIPANT_DATA_STEP, () -> participantDataService.deleteAllParticipantData(userId));
+        steps.put(PARTICIPANT_FILES_STEP, () -> participantFileService.deleteAllFilesForParticipant(userId));
+        steps.put(UPLOADS_STEP, () -> uploadService.deleteUploadsForHealthCode(healthCode));
+        steps.put(SCHEDULED_ACTIVITIES_STEP, () -> scheduledActivityService.deleteActivitiesForUser(healthCode));
+        steps.put(ACTIVITY_EVENTS_STEP, () -> activityEventService.deleteActivityEvents(appId, healthCode));
+        steps.put(PARTICIPANT_REPORTS_STEP, () -> {
+            List<? extends ReportIndex> reportIndexList = reportService.getReportIndices(appId, ReportType.PARTICIPANT)
+                    .getItems();
+            for (ReportIndex reportIndex : reportIndexList) {
+                reportService.deleteParticipantReport(appId, userId, reportIndex.getIdentifier(), healthCode);
+            }
+        });
+        return steps;
+    }
+    
     /**
      * Delete all accounts that are preview users in this study. We check and throw an exception 
      * if someone attempts to enroll a preview user in more than one study, so it's safe to 
@@ -333,21 +453,27 @@ public class AccountService {
         checkNotNull(appId);
         checkNotNull(studyId);
 
+        deleteAllAccountsInGroup(appId, studyId, PREVIEW_USER_GROUP);
+    }
+    
+    /**
+     * Delete every account in the data group that is enrolled in the study, along with all of their data. 
+     * Accounts are deleted through the same pipeline as {@link #deleteAccount(AccountId)}.
+     */
+    private void deleteAllAccountsInGroup(String appId, String studyId, String dataGroup) {
         AccountSummarySearch.Builder searchBuilder = new AccountSummarySearch.Builder()
                 .withPageSize(API_MAXIMUM_PAGE_SIZE)
-                .withAllOfGroups(ImmutableSet.of(PREVIEW_USER_GROUP))
-                .withEnrolledInStudyId(studyId);
+                .withAllOfGroups(ImmutableSet.of(dataGroup))
+                .withEnrolledInStudyId(studyId)
+                .withIncludeTotal(false);
         
-        // Retrieve and delete pages from offset 0 until no items are returned. Currently
-        // an error will halt the process, but there are not many (or any) ways for a 
-        // participant to be unremovable in the database
+        // Retrieve and delete pages from offset 0 until no items are returned. An error will halt 
+        // the process; calling this again resumes the deletion of the account that failed.
         PagedResourceList<AccountSummary> page = null;
         do {
             page = getPagedAccountSummaries(appId, searchBuilder.build());
             for (AccountSummary summary : page.getItems()) {
-                // It is too slow to use deleteAccount because it cleans up a ton of
-                // DynamoDB resources. So... we leave all the non-relational data behind.
-                accountDao.deleteAccount(summary.getId());
+                deleteAccount(AccountId.forId(appId, summary.getId()));
             }
         } while(!page.getItems().isEmpty());
     }
@@ -368,6 +494,32 @@ public class AccountService {
         return accountDao.getPagedAccountSummaries(appId, search);
     }
     
+    /**
+     * Pass a summary of every account matching the search to the consumer. Accounts are read a chunk (of the 
+     * search's pageSize) at a time, in order of ID, so every account in a large app can be exported without 
+     * paging through them by offset.
+     */
+    public void streamAccountSummaries(String appId, AccountSummarySearch search, Consumer<AccountSummary> consumer) {
+        checkNotNull(appId);
+        checkNotNull(search);
+        checkNotNull(consumer);
+        
+        accountDao.streamAccountSummaries(appId, search, consumer);
+    }
+    
+    /**
+     * Pass the health codes of every account matching the search to the consumer, a page (of the search's 
+     * pageSize) at a time, in order of account ID and without counting all matching accounts. Used to process 
+     * every account that matches a search.
+     */
+    public void streamHealthCodes(String appId, AccountSummarySearch search, Consumer<List<String>> consumer) {
+        checkNotNull(appId);
+        checkNotNull(search);
+        checkNotNull(consumer);
+        
+        accountDao.streamHealthCodes(appId, search, consumer);
+    }
+    
     /**
      * Get the health code for an account.
      */
@@ -405,5 +557,62 @@ public class AccountService {
         checkNotNull(appId);
         
         accountDao.deleteAllAccounts(appId);
+        cacheProvider.removeObject(CacheKey.accountCount(appId));
+    }
+    
+    /**
+     * The number of accounts in the app, for enforcing an app's account limit. The count is cached and adjusted 
+     * as accounts are created and deleted, so this is usually a single Redis read; it is counted in the database 
+     * when it is not cached, and again after ACCOUNT_COUNT_EXPIRE_IN_SECONDS.
+     */
+    public int getAccountCount(String appId) {
+        checkNotNull(appId);
+        
+        CacheKey cacheKey = CacheKey.accountCount(appId);
+        Integer count = cacheProvider.getObject(cacheKey, Integer.class);
+        if (count == null) {
+            count = accountDao.getAccountCount(appId);
+            cacheProvider.setObject(cacheKey, count, ACCOUNT_COUNT_EXPIRE_IN_SECONDS);
+        }
+        return count;
+    }
+    
+    /**
+     * Start writing the search terms of the accounts that were created before search terms were maintained. This 
+     * runs asynchronously, a chunk of accounts at a time in order of account ID. The last account ID of each chunk
+     * is saved in the cache, so if the backfill stops part way through (for example, because the server is 
+     * restarted), starting it again resumes after that account. Infix account searches should only be switched 
+     * to the search terms (account.search.terms.enabled) once the backfill has logged its completion.
+     */
+    public void startSearchTermsBackfill() {
+        asyncExecutorService.execute(new SearchTermsBackfillHandler());
+    }
+    
+    /** Package-scoped for unit tests. */
+    class SearchTermsBackfillHandler extends AsyncHandler {
+        @Override
+        protected void handle() {
+            CacheKey progressKey = CacheKey.accountSearchTermsBackfill();
+            String afterId = cacheProvider.getObject(progressKey, String.class);
+            if (afterId == null) {
+                afterId = "";
+            }
+            LOG.info("Starting search term backfill after account '" + afterId + "'");
+            String lastId;
+            while ((lastId = accountDao.backfillSearchTerms(afterId, SEARCH_TERMS_BACKFILL_CHUNK_SIZE)) != null) {
+                cacheProvider.setObject(progressKey, lastId);
+                afterId = lastId;
+            }
+            cacheProvider.removeObject(progressKey);
+            LOG.info("Search term backfill completed");
+        }
+    }
+    
+    /**
+     * Adjust the cached account count, if it is cached. A count that is not cached will be counted from the 
+     * database when it is next needed, so it is not recreated here.
+     */
+    void adjustAccountCount(String appId, int delta) {
+        cacheProvider.incrementIfPresent(CacheKey.accountCount(appId), delta);
     }
 }
@@ -625,25 +625,12 @@ public class AccountWorkflowService {
         // Generate key, which is in the form of channel-throttling:[type]:[userId].
         CacheKey cacheKey = CacheKey.channelThrottling(type, userId);
 
-        Integer numRequests = cacheProvider.getObject(cacheKey, Integer.class);
-        if (numRequests == null) {
-            // Fall back to 0.
-            numRequests = 0;
-        }
-
-        if (numRequests < channelThrottleMaxRequests) {
-            // We've seen less than the maximum number of requests. We can let this request through without throttling.
-            // But we should increment the request count in Redis. Reset the expiration so that participants can't
-            // exceed the throttle limit by making a bunch of requests at the end of the throttle window.
-            cacheProvider.setObject(cacheKey, numRequests + 1, channelThrottleTimeoutSeconds);
-            return false;
-        } else {
-            // We've seen at least as many requests as our limit (or more), so this next request will push us over the
-            // limit. Throttle this.
-            // Don't update Redis, since we throttle email/SMS sent, not requests. This allows the expiration to expire
-            // naturally.
-            return true;
-        }
+        // If we've seen less than the maximum number of requests, this request is counted and let through. The
+        // expiration is reset so that participants can't exceed the throttle limit by making a bunch of requests at
+        // the end of the throttle window. Otherwise the request is throttled, and not counted, since we throttle
+        // email/SMS sent, not requests. This allows the expiration to expire naturally.
+        return !cacheProvider.incrementIfBelowLimit(cacheKey, channelThrottleMaxRequests,
+                channelThrottleTimeoutSeconds);
     }
     
     long getDateTimeInMillis() {
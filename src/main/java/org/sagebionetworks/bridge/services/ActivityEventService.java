@@ -334,6 +334,7 @@ public class ActivityEventService {
      * always mutable when this function is called. 
      */
     private void createAutomaticCustomEvents(App app, String healthCode, ActivityEvent event) {
+        List<ActivityEvent> automaticEvents = Lists.newArrayList();
         for (Map.Entry<String, String> oneAutomaticEvent : app.getAutomaticCustomEvents().entrySet()) {
             String automaticEventKey = oneAutomaticEvent.getKey(); // new event key
             Tuple<String> autoEventSpec = BridgeUtils.parseAutoEventValue(oneAutomaticEvent.getValue()); // originEventId:Period
@@ -349,9 +350,12 @@ public class ActivityEventService {
                         .withUpdateType(MUTABLE) 
                         .withObjectId(automaticEventKey)
                         .withTimestamp(automaticEventTime).build();
-                activityEventDao.publishEvent(automaticEvent);
+                automaticEvents.add(automaticEvent);
             }
-        }        
+        }
+        if (!automaticEvents.isEmpty()) {
+            activityEventDao.publishEvents(automaticEvents);
+        }
     }
 
     /**
@@ -16,6 +16,7 @@ import static org.sagebionetworks.bridge.models.ResourceList.EVENT_TIMESTAMPS;
 import static org.sagebionetworks.bridge.models.ResourceList.INCLUDE_REPEATS;
 import static org.sagebionetworks.bridge.models.ResourceList.INSTANCE_GUIDS;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
+import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_KEY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
 import static org.sagebionetworks.bridge.models.ResourceList.PREDICATE;
 import static org.sagebionetworks.bridge.models.ResourceList.SESSION_GUIDS;
@@ -281,6 +282,7 @@ public class AdherenceService {
                 .withRequestParam(INCLUDE_REPEATS, search.getIncludeRepeats())
                 .withRequestParam(INSTANCE_GUIDS, originalInstanceGuids)
                 .withRequestParam(OFFSET_BY, search.getOffsetBy())
+                .withRequestParam(OFFSET_KEY, search.getOffsetKey())
                 .withRequestParam(PAGE_SIZE, search.getPageSize())
                 .withRequestParam(PREDICATE, search.getPredicate())
                 .withRequestParam(ADHERENCE_RECORD_TYPE, search.getAdherenceRecordType())
@@ -13,7 +13,6 @@ import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.CAN_BE_EDITED_BY;
 import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.sagebionetworks.bridge.dao.AccountDao.MIGRATION_VERSION;
-import static org.sagebionetworks.bridge.models.AccountSummarySearch.EMPTY_SEARCH;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.ENABLED;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.UNVERIFIED;
 import static org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm.DEFAULT_PASSWORD_ALGORITHM;
@@ -38,10 +37,8 @@ import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.LimitExceededException;
-import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
-import org.sagebionetworks.bridge.models.accounts.AccountSummary;
 import org.sagebionetworks.bridge.models.accounts.PasswordAlgorithm;
 import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.apps.App;
@@ -66,6 +63,8 @@ public class AdminAccountService {
     @Autowired
     private AccountDao accountDao;
     @Autowired
+    private AccountService accountService;
+    @Autowired
     private CacheProvider cacheProvider;
     
     // accessor for mocking in tests
@@ -176,6 +175,7 @@ public class AdminAccountService {
         account.setRoles(finalRoles);
 
         accountDao.createAccount(account);
+        accountService.adjustAccountCount(appId, 1);
         
         // If roles are provided then permissions also need to be created
         if (!account.getRoles().isEmpty()) {
@@ -293,9 +293,7 @@ public class AdminAccountService {
         checkNotNull(app);
         
         if (app.getAccountLimit() > 0) {
-            // It's sufficient to get minimum number of records, we're looking only at the total of all accounts
-            PagedResourceList<AccountSummary> summaries = accountDao.getPagedAccountSummaries(app.getIdentifier(), EMPTY_SEARCH);
-            if (summaries.getTotal() >= app.getAccountLimit()) {
+            if (accountService.getAccountCount(app.getIdentifier()) >= app.getAccountLimit()) {
                 throw new LimitExceededException(String.format(MAX_USERS_ERROR, app.getAccountLimit()));
             }
         }
@@ -9,6 +9,7 @@ import static org.sagebionetworks.bridge.models.appconfig.ConfigResolver.INSTANC
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 import org.joda.time.DateTime;
@@ -18,7 +19,7 @@ import org.sagebionetworks.bridge.dynamodb.DynamoAppConfig;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.models.CriteriaContext;
-import org.sagebionetworks.bridge.models.CriteriaUtils;
+import org.sagebionetworks.bridge.models.CriteriaIndex;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolderImpl;
 import org.sagebionetworks.bridge.models.appconfig.AppConfig;
@@ -38,12 +39,25 @@ import org.springframework.stereotype.Component;
 import org.springframework.validation.Validator;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 
 @Component
 public class AppConfigService {
     private static final Logger LOG = LoggerFactory.getLogger(AppConfigService.class);
     
+    static final int CRITERIA_INDEX_CACHE_MAXIMUM_SIZE = 1000;
+    
+    // An app config's criteria can only change through an update, which changes its version.
+    private static final ToLongFunction<AppConfig> APP_CONFIG_VERSION = (appConfig) -> 
+        (appConfig.getVersion() == null) ? 0L : appConfig.getVersion();
+    
+    // Compiled criteria of each app's app configs, rebuilt when the app's configs are created, updated, or 
+    // deleted. Each node checks the index against the configs it loads, so no invalidation is needed.
+    private final Cache<String, CriteriaIndex<AppConfig>> criteriaIndexCache = CacheBuilder.newBuilder()
+            .maximumSize(CRITERIA_INDEX_CACHE_MAXIMUM_SIZE).build();
+    
     private AppConfigDao appConfigDao;
     
     private AppConfigElementService appConfigElementService;
@@ -100,6 +114,15 @@ public class AppConfigService {
         this.assessmentService = assessmentService;
     }
     
+    CriteriaIndex<AppConfig> getCriteriaIndex(String appId, List<AppConfig> appConfigs) {
+        CriteriaIndex<AppConfig> index = criteriaIndexCache.getIfPresent(appId);
+        if (index == null || !index.isIndexOf(appConfigs)) {
+            index = CriteriaIndex.create(appConfigs, AppConfig::getGuid, APP_CONFIG_VERSION);
+            criteriaIndexCache.put(appId, index);
+        }
+        return index;
+    }
+    
     // In order to mock this value;
     protected long getCurrentTimestamp() {
         return DateUtils.getCurrentMillisFromEpoch(); 
@@ -130,7 +153,7 @@ public class AppConfigService {
 
         List<AppConfig> appConfigs = getAppConfigs(context.getAppId(), false);
 
-        List<AppConfig> matches = CriteriaUtils.filterByCriteria(context, appConfigs,
+        List<AppConfig> matches = getCriteriaIndex(context.getAppId(), appConfigs).filter(context, appConfigs,
                 comparingLong(AppConfig::getCreatedOn));
 
         // Should have matched one and only one app config.
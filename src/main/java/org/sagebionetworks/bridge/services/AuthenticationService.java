@@ -734,6 +734,7 @@ public class AuthenticationService {
         
         CriteriaContext newContext = updateContextFromSession(context, session);
         session.setConsentStatuses(consentService.getConsentStatuses(newContext, account));
+        session.setConsentCriteriaKey(newContext.getCriteriaKey());
         
         if (!Boolean.TRUE.equals(app.isReauthenticationEnabled())) {
             account.setReauthToken(null);
@@ -14,7 +14,6 @@ import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.fluent.Executor;
 import org.apache.http.client.fluent.Request;
-import org.apache.http.impl.client.HttpClients;
 import org.joda.time.LocalDate;
 
 import org.sagebionetworks.bridge.config.BridgeConfig;
@@ -47,23 +46,12 @@ public class GBFOrderService {
     public static final String GBF_SERVICE_ERROR_MESSAGE = "Error calling order service";
     
     public static final int GBF_HTTP_POST_RETRY_COUNT = 3;
-    // default retry strategy excludes POST requests
-    private static final Executor GBF_HTTP_POST_RETRY_EXECUTOR = Executor.newInstance(HttpClients.custom()
-            .setRetryHandler((e, executionCount, httpContext) -> {
-                if ((e instanceof SocketException) && (executionCount < GBF_HTTP_POST_RETRY_COUNT)) {
-                    LOG.warn("Encountered SocketException, retrying count " + executionCount, e);
-                    return true;
-                } else {
-                    LOG.warn("Encountered SocketException, no more retries", e);
-                    return false;
-                }
-            })
-            .build());
     
     private String gbfOrderUrl;
     private String getGbfOrderStatusUrl;
     private String gbfConfirmationUrl;
     private String gbfApiKey;
+    private Executor postRetryExecutor;
     
     private ObjectMapper jsonMapper = new ObjectMapper()
             .registerModule(new JodaModule())
@@ -80,6 +68,25 @@ public class GBFOrderService {
         this.gbfConfirmationUrl = config.get(GBF_CONFIRMATION_URL);
     }
 
+    /**
+     * GBF requests use the shared connection pool. The default retry strategy excludes POST requests, so GBF's POST
+     * requests get their own retry policy.
+     */
+    @Autowired
+    final void setHttpClientService(HttpClientService httpClientService) {
+        this.postRetryExecutor = Executor.newInstance(httpClientService.createClientBuilder()
+                .setRetryHandler((e, executionCount, httpContext) -> {
+                    if ((e instanceof SocketException) && (executionCount < GBF_HTTP_POST_RETRY_COUNT)) {
+                        LOG.warn("Encountered SocketException, retrying count " + executionCount, e);
+                        return true;
+                    } else {
+                        LOG.warn("Encountered SocketException, no more retries", e);
+                        return false;
+                    }
+                })
+                .build());
+    }
+
     public void placeOrder(Order order, boolean isTest) {
         String orderXml;
         try {
@@ -204,7 +211,7 @@ public class GBFOrderService {
         request.addHeader("Authorization", "Bearer " + bearerToken);
 
         try {
-            return GBF_HTTP_POST_RETRY_EXECUTOR.execute(request).returnResponse();
+            return postRetryExecutor.execute(request).returnResponse();
         } catch (IOException e) {
             LOG.error("Error posting Json to url: {}", url, e);
             throw new BridgeServiceException(GBF_SERVICE_ERROR_MESSAGE);
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -384,7 +385,29 @@ public class HealthDataService {
      * @return list of health data records
      */
     public List<HealthDataRecord> getRecordsForUploadDate(String uploadDate) {
-        // validate upload date
+        validateUploadDate(uploadDate);
+
+        // call through to DAO
+        return healthDataDao.getRecordsForUploadDate(uploadDate);
+    }
+
+    /**
+     * Passes each health data record with the given upload date to the consumer, without holding all of the day's 
+     * records in memory. This is used to export a whole day of records.
+     *
+     * @param uploadDate
+     *         an upload date in YYYY-MM-DD format, must be non-null, non-empty, and represent a valid date
+     * @param consumer
+     *         receives each health data record
+     */
+    public void streamRecordsForUploadDate(String uploadDate, Consumer<HealthDataRecord> consumer) {
+        Preconditions.checkNotNull(consumer);
+        validateUploadDate(uploadDate);
+
+        healthDataDao.streamRecordsForUploadDate(uploadDate, consumer);
+    }
+
+    private static void validateUploadDate(String uploadDate) {
         if (StringUtils.isBlank(uploadDate)) {
             throw new BadRequestException(String.format(CANNOT_BE_BLANK, "uploadDate"));
         }
@@ -396,9 +419,6 @@ public class HealthDataService {
         } catch (IllegalArgumentException ex) {
             throw new BadRequestException(String.format("Expected date format YYYY-MM-DD, received %s", uploadDate));
         }
-
-        // call through to DAO
-        return healthDataDao.getRecordsForUploadDate(uploadDate);
     }
 
     /** Gets a list of records for the given healthCode between the specified createdOn times (inclusive). */
@@ -0,0 +1,131 @@
+package org.sagebionetworks.bridge.services;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.fluent.Executor;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+/**
+ * The HTTP client for calls from Bridge to other web services (OAuth providers, CUIMC, GBF). All clients share one
+ * pool of connections, so that connections (and their TLS sessions) are kept alive and reused across requests, rather
+ * than being opened for each call. Connect, read, and pool lease timeouts are set for every call, and requests that
+ * are safe to repeat are retried on I/O errors (usually a pooled connection closed by the server).
+ */
+@Component
+public class HttpClientService {
+    private static final Logger LOG = LoggerFactory.getLogger(HttpClientService.class);
+
+    static final String CONFIG_KEY_MAX_CONNECTIONS = "http.client.max.connections";
+    static final String CONFIG_KEY_MAX_CONNECTIONS_PER_ROUTE = "http.client.max.connections.per.route";
+    static final String CONFIG_KEY_CONNECT_TIMEOUT_MILLIS = "http.client.connect.timeout.millis";
+    static final String CONFIG_KEY_SOCKET_TIMEOUT_MILLIS = "http.client.socket.timeout.millis";
+    static final String CONFIG_KEY_LEASE_TIMEOUT_MILLIS = "http.client.lease.timeout.millis";
+    static final String CONFIG_KEY_KEEP_ALIVE_MILLIS = "http.client.keep.alive.millis";
+    static final String CONFIG_KEY_RETRY_COUNT = "http.client.retry.count";
+
+    // Pooled connections that have been idle this long are checked before they are reused.
+    static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+    private RequestConfig requestConfig;
+    private ConnectionKeepAliveStrategy keepAliveStrategy;
+    private CloseableHttpClient httpClient;
+    private Executor executor;
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.getInt(CONFIG_KEY_MAX_CONNECTIONS));
+        connectionManager.setDefaultMaxPerRoute(config.getInt(CONFIG_KEY_MAX_CONNECTIONS_PER_ROUTE));
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+        requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.getInt(CONFIG_KEY_CONNECT_TIMEOUT_MILLIS))
+                .setSocketTimeout(config.getInt(CONFIG_KEY_SOCKET_TIMEOUT_MILLIS))
+                .setConnectionRequestTimeout(config.getInt(CONFIG_KEY_LEASE_TIMEOUT_MILLIS)).build();
+
+        // Use the server's Keep-Alive timeout if it sends one, but never keep an idle connection longer than our
+        // maximum; some servers close idle connections without saying so.
+        long maxKeepAliveMillis = config.getInt(CONFIG_KEY_KEEP_ALIVE_MILLIS);
+        keepAliveStrategy = (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return (keepAlive > 0) ? Math.min(keepAlive, maxKeepAliveMillis) : maxKeepAliveMillis;
+        };
+
+        httpClient = createClientBuilder()
+                .setRetryHandler(new DefaultHttpRequestRetryHandler(config.getInt(CONFIG_KEY_RETRY_COUNT), false))
+                .build();
+        executor = Executor.newInstance(httpClient);
+    }
+
+    /** The shared HTTP client. Callers must close (or fully consume) responses to return connections to the pool. */
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /** A fluent executor for the shared HTTP client, for callers using the fluent Request API. */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * A builder for a client with its own retry policy (or other settings) that still uses the shared connection
+     * pool, timeouts, and keep-alive. Closing a client from this builder does not close the pool.
+     */
+    public HttpClientBuilder createClientBuilder() {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setConnectionManagerShared(true)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy);
+    }
+
+    /** Executes a request with the shared client, logging the state of the pool if no connection was available. */
+    public CloseableHttpResponse execute(HttpUriRequest request) throws IOException {
+        checkNotNull(request);
+        try {
+            return httpClient.execute(request);
+        } catch (ConnectionPoolTimeoutException ex) {
+            logPoolStats(request);
+            throw ex;
+        }
+    }
+
+    /** Leased, available, pending, and maximum connections, across all routes. */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    private void logPoolStats(HttpRequest request) {
+        LOG.warn("Timed out waiting for a pooled HTTP connection for " + request.getRequestLine().getUri() +
+                ", pool " + getPoolStats());
+    }
+
+    /** Closes the connection pool. Every client built by this service is marked as sharing it, so none closes it. */
+    @PreDestroy
+    public void shutdown() {
+        connectionManager.shutdown();
+    }
+}
@@ -3,7 +3,6 @@ package org.sagebionetworks.bridge.services;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
-import static org.sagebionetworks.bridge.models.CriteriaUtils.filterByCriteria;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,6 +21,7 @@ import org.sagebionetworks.bridge.dao.NotificationRegistrationDao;
 import org.sagebionetworks.bridge.dao.NotificationTopicDao;
 import org.sagebionetworks.bridge.dao.TopicSubscriptionDao;
 import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.CriteriaIndex;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
 import org.sagebionetworks.bridge.models.notifications.SubscriptionStatus;
@@ -35,6 +35,8 @@ import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.model.NotFoundException;
 import com.amazonaws.services.sns.model.PublishRequest;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
@@ -43,6 +45,14 @@ public class NotificationTopicService {
 
     private static final Logger LOG = LoggerFactory.getLogger(NotificationTopicService.class);
     
+    static final int CRITERIA_INDEX_CACHE_MAXIMUM_SIZE = 1000;
+    
+    // Compiled criteria of each app's criteria-managed topics. A topic's criteria can only change through an 
+    // update, which changes its modifiedOn timestamp. Each node checks the index against the topics it loads, 
+    // and rebuilds it when they differ, so no invalidation is needed.
+    private final Cache<String, CriteriaIndex<NotificationTopic>> criteriaIndexCache = CacheBuilder.newBuilder()
+            .maximumSize(CRITERIA_INDEX_CACHE_MAXIMUM_SIZE).build();
+    
     private NotificationRegistrationDao registrationDao;
     
     private NotificationTopicDao topicDao;
@@ -188,7 +198,8 @@ public class NotificationTopicService {
         }
 
         // Determine topics to subscribe to based on criteria.
-        Set<String> desiredTopicGuidSet = filterByCriteria(context, criteriaTopicList, null).stream()
+        Set<String> desiredTopicGuidSet = getCriteriaIndex(appId, criteriaTopicList)
+                .filter(context, criteriaTopicList, null).stream()
                 .map(NotificationTopic::getGuid).collect(Collectors.toSet());
 
         // Subscribe user to topics.
@@ -197,6 +208,16 @@ public class NotificationTopicService {
         }
     }
 
+    CriteriaIndex<NotificationTopic> getCriteriaIndex(String appId, List<NotificationTopic> criteriaTopicList) {
+        CriteriaIndex<NotificationTopic> index = criteriaIndexCache.getIfPresent(appId);
+        if (index == null || !index.isIndexOf(criteriaTopicList)) {
+            index = CriteriaIndex.create(criteriaTopicList, NotificationTopic::getGuid,
+                    NotificationTopic::getModifiedOn);
+            criteriaIndexCache.put(appId, index);
+        }
+        return index;
+    }
+
     /**
      * Unsubscribe the given registration from all topics. This is generally used before deleting a registration, to
      * clean up any orphaned subscriptions.
@@ -2,10 +2,18 @@ package org.sagebionetworks.bridge.services;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Boolean.TRUE;
+import static java.util.stream.Collectors.toList;
 import static org.sagebionetworks.bridge.BridgeUtils.SEMICOLON_SPACE_JOINER;
+import static org.sagebionetworks.bridge.BridgeUtils.generateGuid;
 
 import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Resource;
 
@@ -15,25 +23,39 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.async.AsyncHandler;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.config.BridgeConfig;
 import org.sagebionetworks.bridge.dao.NotificationRegistrationDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.NotImplementedException;
+import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.CriteriaContext;
 import org.sagebionetworks.bridge.models.OperatingSystem;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.apps.App;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutJob;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutStatus;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationProtocol;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
+import org.sagebionetworks.bridge.time.DateUtils;
 import org.sagebionetworks.bridge.validators.NotificationMessageValidator;
 import org.sagebionetworks.bridge.validators.NotificationRegistrationValidator;
 import org.sagebionetworks.bridge.validators.Validate;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.model.PublishRequest;
 import com.amazonaws.services.sns.model.PublishResult;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.RateLimiter;
 
 /**
  * Service for managing client registration to receive push notifications, integrated into the 
@@ -43,11 +65,27 @@ import com.google.common.collect.Sets;
 public class NotificationsService {
     private static final Logger LOG = LoggerFactory.getLogger(NotificationsService.class);
 
+    static final String CONFIG_KEY_FAN_OUT_PUBLISH_RATE = "notification.fanout.publish.rate";
+    /** Number of accounts whose registrations are looked up together. */
+    static final int FAN_OUT_PAGE_SIZE = 250;
+    /** Maximum number of publish calls queued or in progress for a single job. */
+    static final int MAX_IN_FLIGHT_PUBLISHES = 100;
+    /** Maximum number of failed registration GUIDs reported in the job status. */
+    static final int MAX_REPORTED_FAILURES = 100;
+    static final int FAN_OUT_JOB_EXPIRE_IN_SECONDS = 24*60*60;
+
     private ParticipantService participantService;
+    private AccountService accountService;
+    private CacheProvider cacheProvider;
+    private ExecutorService asyncExecutorService;
+    private ExecutorService fanOutExecutorService;
     private AppService appService;
     private NotificationRegistrationDao notificationRegistrationDao;
     private NotificationTopicService notificationTopicService;
     private AmazonSNS snsClient;
+    
+    // Shared by all fan-out jobs on this node, so that concurrent jobs do not multiply the publish rate.
+    private final RateLimiter fanOutRateLimiter = RateLimiter.create(50.0);
 
     /** Participant service, if we need to get the participant. */
     @Autowired
@@ -55,6 +93,38 @@ public class NotificationsService {
         this.participantService = participantService;
     }
 
+    @Autowired
+    final void setAccountService(AccountService accountService) {
+        this.accountService = accountService;
+    }
+    
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+    
+    /** Runs notification fan-out jobs. This is configured by Spring. */
+    @Resource(name = "asyncExecutorService")
+    final void setAsyncExecutorService(ExecutorService asyncExecutorService) {
+        this.asyncExecutorService = asyncExecutorService;
+    }
+    
+    /** Bounded pool for the registration lookups and SNS publishes of fan-out jobs. */
+    @Resource(name = "notificationFanOutExecutorService")
+    final void setFanOutExecutorService(ExecutorService fanOutExecutorService) {
+        this.fanOutExecutorService = fanOutExecutorService;
+    }
+    
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        setFanOutPublishRate(config.getInt(CONFIG_KEY_FAN_OUT_PUBLISH_RATE));
+    }
+    
+    /** Rate limit for the SNS publishes of fan-out jobs, in publishes per second. Overridable for unit tests. */
+    final void setFanOutPublishRate(double rate) {
+        fanOutRateLimiter.setRate(rate);
+    }
+    
     @Autowired
     final void setAppService(AppService appService) {
         this.appService = appService;
@@ -242,6 +312,160 @@ public class NotificationsService {
         return erroredRegistrations;
     }
 
+    /**
+     * Start a job that sends a push notification to every participant who matches the search. The job runs 
+     * asynchronously; its progress can be retrieved with {@link #getNotificationFanOutJob(String, String)} until it 
+     * expires a day after it was last updated. Accounts are read a page at a time and the registrations for each 
+     * page are looked up together. Notifications are published through a bounded pool and rate-limited across all 
+     * the jobs on this node. A notification that fails to send does not stop the job; the registration is reported 
+     * in the job's status.
+     */
+    public NotificationFanOutJob startNotificationFanOut(String appId, String studyId, AccountSummarySearch search,
+            NotificationMessage message) {
+        checkNotNull(appId);
+        checkNotNull(search);
+        checkNotNull(message);
+        
+        Validate.entityThrowingException(NotificationMessageValidator.INSTANCE, message);
+        
+        NotificationFanOutJob job = new NotificationFanOutJob();
+        job.setJobId(generateGuid());
+        job.setAppId(appId);
+        job.setStudyId(studyId);
+        job.setStatus(NotificationFanOutStatus.RUNNING);
+        job.setStartedOn(DateUtils.getCurrentDateTime());
+        saveNotificationFanOutJob(job);
+        
+        asyncExecutorService.execute(new NotificationFanOutHandler(job, search, message, RequestContext.get()));
+        return job;
+    }
+    
+    /** Get the current status of a notification fan-out job. */
+    public NotificationFanOutJob getNotificationFanOutJob(String appId, String jobId) {
+        checkNotNull(appId);
+        checkNotNull(jobId);
+        
+        NotificationFanOutJob job = cacheProvider.getObject(CacheKey.notificationFanOutJob(appId, jobId),
+                NotificationFanOutJob.class);
+        if (job == null) {
+            throw new EntityNotFoundException(NotificationFanOutJob.class);
+        }
+        return job;
+    }
+    
+    private void saveNotificationFanOutJob(NotificationFanOutJob job) {
+        cacheProvider.setObject(CacheKey.notificationFanOutJob(job.getAppId(), job.getJobId()), job,
+                FAN_OUT_JOB_EXPIRE_IN_SECONDS);
+    }
+    
+    /**
+     * Sends a notification to every registration of the accounts matching a search. Progress is written to the 
+     * cache after each page of accounts. Package-scoped for unit tests.
+     */
+    class NotificationFanOutHandler extends AsyncHandler {
+        private final NotificationFanOutJob job;
+        private final AccountSummarySearch search;
+        private final NotificationMessage message;
+        private final RequestContext requestContext;
+        private final Semaphore inFlightPublishes = new Semaphore(MAX_IN_FLIGHT_PUBLISHES);
+        private final AtomicInteger registrationCount = new AtomicInteger();
+        private final AtomicInteger sentCount = new AtomicInteger();
+        private final AtomicInteger failedCount = new AtomicInteger();
+        private final Queue<String> failedRegistrations = new ConcurrentLinkedQueue<>();
+        private int accountCount;
+        
+        NotificationFanOutHandler(NotificationFanOutJob job, AccountSummarySearch search, NotificationMessage message,
+                RequestContext requestContext) {
+            this.job = job;
+            this.search = search;
+            this.message = message;
+            this.requestContext = requestContext;
+        }
+        
+        @Override
+        protected void handle() {
+            // The account search is scoped by the caller's studies, as it would be for a search in the request.
+            RequestContext.set(requestContext);
+            try {
+                // Pages are read in order of account ID, seeking past the last account of the prior page, so 
+                // accounts created or deleted during the job do not shift the pages.
+                AccountSummarySearch pageSearch = search.toBuilder().withOffsetBy(0)
+                        .withPageSize(FAN_OUT_PAGE_SIZE).build();
+                accountService.streamHealthCodes(job.getAppId(), pageSearch, healthCodes -> {
+                    sendToAccounts(healthCodes);
+                    accountCount += healthCodes.size();
+                    updateJob(NotificationFanOutStatus.RUNNING, null);
+                });
+                
+                inFlightPublishes.acquireUninterruptibly(MAX_IN_FLIGHT_PUBLISHES);
+                updateJob(NotificationFanOutStatus.COMPLETED, null);
+            } catch (RuntimeException e) {
+                LOG.error("Notification fan-out job " + job.getJobId() + " failed after " + accountCount
+                        + " accounts", e);
+                updateJob(NotificationFanOutStatus.FAILED, e.getMessage());
+            } finally {
+                RequestContext.set(null);
+            }
+        }
+        
+        private void sendToAccounts(List<String> healthCodes) {
+            // DynamoDB cannot batch queries, so the lookups for the page are run concurrently instead.
+            List<CompletableFuture<List<NotificationRegistration>>> lookups = healthCodes.stream()
+                    .map(healthCode -> CompletableFuture.supplyAsync(
+                            () -> notificationRegistrationDao.listRegistrations(healthCode), fanOutExecutorService))
+                    .collect(toList());
+            for (CompletableFuture<List<NotificationRegistration>> lookup : lookups) {
+                for (NotificationRegistration registration : lookup.join()) {
+                    // SMS registrations are not sent push notifications.
+                    if (registration.getProtocol() == NotificationProtocol.APPLICATION) {
+                        registrationCount.incrementAndGet();
+                        inFlightPublishes.acquireUninterruptibly();
+                        fanOutRateLimiter.acquire();
+                        try {
+                            fanOutExecutorService.execute(() -> publish(registration));
+                        } catch (RuntimeException e) {
+                            inFlightPublishes.release();
+                            throw e;
+                        }
+                    }
+                }
+            }
+        }
+        
+        private void publish(NotificationRegistration registration) {
+            try {
+                PublishRequest request = new PublishRequest().withTargetArn(registration.getEndpoint())
+                        .withSubject(message.getSubject()).withMessage(message.getMessage());
+                snsClient.publish(request);
+                sentCount.incrementAndGet();
+            } catch (AmazonClientException e) {
+                LOG.warn("Error publishing SNS message to registration " + registration.getGuid()
+                        + " for notification fan-out job " + job.getJobId(), e);
+                failedCount.incrementAndGet();
+                if (failedRegistrations.size() < MAX_REPORTED_FAILURES) {
+                    failedRegistrations.add(registration.getGuid());
+                }
+            } finally {
+                inFlightPublishes.release();
+            }
+        }
+        
+        private void updateJob(NotificationFanOutStatus status, String errorMessage) {
+            job.setStatus(status);
+            job.setErrorMessage(errorMessage);
+            job.setAccountCount(accountCount);
+            job.setRegistrationCount(registrationCount.get());
+            job.setSentCount(sentCount.get());
+            job.setFailedCount(failedCount.get());
+            job.setFailedRegistrations(ImmutableList.copyOf(Iterables.limit(failedRegistrations,
+                    MAX_REPORTED_FAILURES)));
+            if (status != NotificationFanOutStatus.RUNNING) {
+                job.setFinishedOn(DateUtils.getCurrentDateTime());
+            }
+            saveNotificationFanOutJob(job);
+        }
+    }
+    
     private String getPlatformARN(App app, NotificationRegistration registration) {
         String platformARN = app.getPushNotificationARNs().get(registration.getOsName());
         if (StringUtils.isBlank(platformARN)) {
@@ -33,8 +33,6 @@ import org.apache.http.NameValuePair;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -127,6 +125,7 @@ class OAuthProviderService {
     private String synapseClientID;
     private String synapseClientSecret;
     private AppService appService;
+    private HttpClientService httpClientService;
 
     @Autowired
     final void setBridgeConfig(BridgeConfig config) {
@@ -136,6 +135,11 @@ class OAuthProviderService {
         this.synapseClientSecret = config.get(SYNAPSE_OAUTH_CLIENT_SECRET);
     }
     
+    @Autowired
+    final void setHttpClientService(HttpClientService httpClientService) {
+        this.httpClientService = httpClientService;
+    }
+
     @Autowired
     final void setAppService(AppService appService) {
         this.appService = appService;
@@ -178,8 +182,7 @@ class OAuthProviderService {
     }
 
     private OAuthProviderService.Response executeInternal(HttpPost client) {
-        try (CloseableHttpClient httpclient = HttpClients.createDefault()) {
-            CloseableHttpResponse response = httpclient.execute(client);
+        try (CloseableHttpResponse response = httpClientService.execute(client)) {
             int statusCode = response.getStatusLine().getStatusCode();
 
             JsonNode body;
@@ -26,8 +26,6 @@ import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.Roles;
-import org.sagebionetworks.bridge.cache.CacheKey;
-import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.OrganizationDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
@@ -46,7 +44,7 @@ public class OrganizationService {
     private AccountService accountService;
     private SessionUpdateService sessionUpdateService;
     private AssessmentDao assessmentDao;
-    private CacheProvider cacheProvider;
+    private SponsorService sponsorService;
     
     @Autowired
     final void setOrganizationDao(OrganizationDao orgDao) {
@@ -65,8 +63,8 @@ public class OrganizationService {
         this.assessmentDao = assessmentDao;
     }
     @Autowired
-    final void setCacheProvider(CacheProvider cacheProvider) {
-        this.cacheProvider = cacheProvider;
+    final void setSponsorService(SponsorService sponsorService) {
+        this.sponsorService = sponsorService;
     }
     
     DateTime getCreatedOn() {
@@ -193,8 +191,7 @@ public class OrganizationService {
 
         orgDao.deleteOrganization(existing);
         
-        CacheKey cacheKey = CacheKey.orgSponsoredStudies(appId, identifier);
-        cacheProvider.removeObject(cacheKey);
+        sponsorService.invalidateSponsoredStudyIds(appId, identifier);
     }
     
     public PagedResourceList<AccountSummary> getMembers(String appId, String identifier, AccountSummarySearch search) {
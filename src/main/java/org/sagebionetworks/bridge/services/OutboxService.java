@@ -0,0 +1,321 @@
+package org.sagebionetworks.bridge.services;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.simpleemail.model.MessageRejectedException;
+import com.google.common.collect.ImmutableList;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import org.sagebionetworks.bridge.BridgeUtils;
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.outbox.OutboxDelivery;
+import org.sagebionetworks.bridge.models.outbox.OutboxDeliveryStatus;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessage;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessageType;
+import org.sagebionetworks.bridge.time.DateUtils;
+
+/**
+ * A durable queue for outbound email and SMS, so requests (sign up, password reset, consent) don't wait on SES and
+ * SNS. Messages are queued in a Redis sorted set, scored by the time they are next due to be sent. Dispatcher threads
+ * on every node claim due messages by pushing their score forward by a lease period, so a message claimed by a node
+ * that dies is sent again once its lease expires (delivery is at least once). Sends are rate limited per message type
+ * across the cluster, failures that may succeed later are retried with exponential backoff, and the status of each
+ * message is kept for a day under {@link CacheKey#outboxDelivery(String)}.
+ *
+ * When the outbox is disabled (as it is for local development), callers send their messages synchronously.
+ */
+@Component
+public class OutboxService {
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxService.class);
+
+    static final String CONFIG_KEY_ENABLED = "outbox.enabled";
+    static final String CONFIG_KEY_THREAD_COUNT = "outbox.dispatcher.thread.count";
+    static final String CONFIG_KEY_EMAIL_MAX_PER_SECOND = "outbox.email.max.per.second";
+    static final String CONFIG_KEY_SMS_MAX_PER_SECOND = "outbox.sms.max.per.second";
+
+    static final int CLAIM_BATCH_SIZE = 10;
+    static final long CLAIM_LEASE_MILLIS = 5 * 60 * 1000;
+    static final long POLL_INTERVAL_MILLIS = 1000;
+    static final long RETRY_BASE_DELAY_MILLIS = 1000;
+    static final int MAX_ATTEMPTS = 5;
+    static final int DELIVERY_EXPIRE_IN_SECONDS = 24 * 60 * 60;
+    // Rate counters are per second; keep them a little longer so a slow clock on one node still sees the count.
+    static final int RATE_EXPIRE_IN_SECONDS = 2;
+
+    // Returns up to ARGV[3] messages due by ARGV[1], and moves them to ARGV[2] so other dispatchers skip them.
+    static final String CLAIM_SCRIPT =
+            "local members = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[3]) " +
+            "for i, member in ipairs(members) do redis.call('ZADD', KEYS[1], ARGV[2], member) end " +
+            "return members";
+
+    // Replaces a claimed message (ARGV[1]) with its updated form (ARGV[3]), due at ARGV[2].
+    static final String RESCHEDULE_SCRIPT =
+            "redis.call('ZREM', KEYS[1], ARGV[1]) " +
+            "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[3]) " +
+            "return 1";
+
+    private final List<Thread> dispatcherThreads = new ArrayList<>();
+    private volatile boolean running;
+    private JedisPool jedisPool;
+    private CacheProvider cacheProvider;
+    private SendMailViaAmazonService sendMailService;
+    private SmsService smsService;
+    private boolean enabled;
+    private int threadCount;
+    private int emailMaxPerSecond;
+    private int smsMaxPerSecond;
+
+    @Resource(name = "jedisPool")
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    @Autowired
+    final void setCacheProvider(CacheProvider cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
+    @Autowired
+    final void setSendMailService(SendMailViaAmazonService sendMailService) {
+        this.sendMailService = sendMailService;
+    }
+
+    @Autowired
+    final void setSmsService(SmsService smsService) {
+        this.smsService = smsService;
+    }
+
+    @Autowired
+    final void setBridgeConfig(BridgeConfig config) {
+        this.enabled = Boolean.parseBoolean(config.get(CONFIG_KEY_ENABLED));
+        this.threadCount = config.getInt(CONFIG_KEY_THREAD_COUNT);
+        this.emailMaxPerSecond = config.getInt(CONFIG_KEY_EMAIL_MAX_PER_SECOND);
+        this.smsMaxPerSecond = config.getInt(CONFIG_KEY_SMS_MAX_PER_SECOND);
+    }
+
+    /** True if messages should be queued; if false, callers send messages synchronously. */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Starts the dispatcher threads, if the outbox is enabled. */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(this::dispatchLoop, "outbox-dispatcher-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            dispatcherThreads.add(thread);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread thread : dispatcherThreads) {
+            thread.interrupt();
+        }
+        dispatcherThreads.clear();
+    }
+
+    /** Queues a message to be sent. Returns the message ID, which can be used to look up its delivery status. */
+    public String enqueue(OutboxMessage message) {
+        checkNotNull(message);
+        checkNotNull(message.getType());
+
+        message.setId(BridgeUtils.generateGuid());
+        message.setCreatedOn(DateUtils.getCurrentMillisFromEpoch());
+        message.setAttempts(0);
+        if (message.getRequestId() == null) {
+            message.setRequestId(RequestContext.get().getId());
+        }
+        String member = serialize(message);
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.zadd(CacheKey.outboxQueue().toString(), message.getCreatedOn(), member);
+        } catch (RuntimeException ex) {
+            throw new BridgeServiceException(ex);
+        }
+        recordDelivery(message, OutboxDeliveryStatus.QUEUED, null);
+        return message.getId();
+    }
+
+    /** The delivery status of a queued message, or null if it is unknown or expired. */
+    public OutboxDelivery getDelivery(String messageId) {
+        checkNotNull(messageId);
+        return cacheProvider.getObject(CacheKey.outboxDelivery(messageId), OutboxDelivery.class);
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                List<String> members = claim();
+                if (members.isEmpty()) {
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                }
+                for (String member : members) {
+                    dispatch(member);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                // For example, Redis is unavailable. Wait rather than spinning.
+                LOG.error("Error dispatching outbox messages: " + ex.getMessage(), ex);
+                try {
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /** Claims the messages that are due, leasing them to this dispatcher. Package-scoped for unit tests. */
+    @SuppressWarnings("unchecked")
+    List<String> claim() {
+        long now = DateUtils.getCurrentMillisFromEpoch();
+        try (Jedis jedis = jedisPool.getResource()) {
+            Object result = jedis.eval(CLAIM_SCRIPT, ImmutableList.of(CacheKey.outboxQueue().toString()),
+                    ImmutableList.of(Long.toString(now), Long.toString(now + CLAIM_LEASE_MILLIS),
+                            Integer.toString(CLAIM_BATCH_SIZE)));
+            return (result == null) ? ImmutableList.of() : (List<String>) result;
+        }
+    }
+
+    /** Sends one claimed message, then removes it from the queue or schedules a retry. Package-scoped for unit tests. */
+    void dispatch(String member) throws InterruptedException {
+        OutboxMessage message;
+        try {
+            message = BridgeObjectMapper.get().readValue(member, OutboxMessage.class);
+        } catch (IOException ex) {
+            LOG.error("Dropping unreadable outbox message: " + ex.getMessage(), ex);
+            remove(member);
+            return;
+        }
+        acquirePermit(message.getType());
+        try {
+            if (message.getType() == OutboxMessageType.EMAIL) {
+                sendMailService.deliverEmail(message);
+            } else {
+                smsService.deliverSmsMessage(message);
+            }
+        } catch (RuntimeException ex) {
+            int attempts = message.getAttempts() + 1;
+            message.setAttempts(attempts);
+            if (isRetryable(ex) && attempts < MAX_ATTEMPTS) {
+                long delay = RETRY_BASE_DELAY_MILLIS << attempts;
+                LOG.warn("Error sending outbox message " + message.getId() + ", attempt " + attempts
+                        + ", retrying in " + delay + "ms: " + ex.getMessage());
+                reschedule(member, message, DateUtils.getCurrentMillisFromEpoch() + delay);
+                recordDelivery(message, OutboxDeliveryStatus.RETRYING, ex.getMessage());
+            } else {
+                LOG.error("Failed to send outbox message " + message.getId() + " for app " + message.getAppId()
+                        + " and request " + message.getRequestId() + " after " + attempts + " attempt(s): "
+                        + ex.getMessage(), ex);
+                remove(member);
+                recordDelivery(message, OutboxDeliveryStatus.FAILED, ex.getMessage());
+            }
+            return;
+        }
+        remove(member);
+        recordDelivery(message, OutboxDeliveryStatus.SENT, null);
+    }
+
+    /**
+     * Waits until sending another message of this type stays under the cluster-wide rate. Counts are kept per
+     * second, so a dispatcher over the limit waits for the start of the next second.
+     */
+    private void acquirePermit(OutboxMessageType type) throws InterruptedException {
+        int maxPerSecond = (type == OutboxMessageType.EMAIL) ? emailMaxPerSecond : smsMaxPerSecond;
+        while (true) {
+            long now = DateUtils.getCurrentMillisFromEpoch();
+            long second = now / 1000;
+            if (cacheProvider.incrementIfBelowLimit(CacheKey.outboxRate(type, second), maxPerSecond,
+                    RATE_EXPIRE_IN_SECONDS)) {
+                return;
+            }
+            Thread.sleep((second + 1) * 1000 - now);
+        }
+    }
+
+    /**
+     * Throttling, server errors and network errors can succeed if retried. Anything else (including SES rejecting
+     * the message, or a bad phone number) will fail again.
+     */
+    static boolean isRetryable(RuntimeException ex) {
+        if (ex instanceof MessageRejectedException) {
+            return false;
+        }
+        if (ex instanceof AmazonServiceException) {
+            AmazonServiceException ase = (AmazonServiceException) ex;
+            return ase.getStatusCode() >= 500 || RetryUtils.isThrottlingException(ase)
+                    || RetryUtils.isRetryableServiceException(ase);
+        }
+        return ex instanceof AmazonClientException;
+    }
+
+    private void remove(String member) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.zrem(CacheKey.outboxQueue().toString(), member);
+        }
+    }
+
+    private void reschedule(String member, OutboxMessage message, long dueOn) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.eval(RESCHEDULE_SCRIPT, ImmutableList.of(CacheKey.outboxQueue().toString()),
+                    ImmutableList.of(member, Long.toString(dueOn), serialize(message)));
+        }
+    }
+
+    private void recordDelivery(OutboxMessage message, OutboxDeliveryStatus status, String errorMessage) {
+        OutboxDelivery delivery = new OutboxDelivery();
+        delivery.setMessageId(message.getId());
+        delivery.setType(message.getType());
+        delivery.setAppId(message.getAppId());
+        delivery.setStatus(status);
+        delivery.setAttempts(message.getAttempts());
+        delivery.setErrorMessage(errorMessage);
+        delivery.setModifiedOn(DateTime.now());
+        try {
+            cacheProvider.setObject(CacheKey.outboxDelivery(message.getId()), delivery, DELIVERY_EXPIRE_IN_SECONDS);
+        } catch (RuntimeException ex) {
+            // The status is informational; don't fail (and resend) a message because it could not be recorded.
+            LOG.warn("Error recording delivery status of outbox message " + message.getId() + ": " + ex.getMessage());
+        }
+    }
+
+    private static String serialize(OutboxMessage message) {
+        try {
+            return BridgeObjectMapper.get().writeValueAsString(message);
+        } catch (IOException ex) {
+            throw new BridgeServiceException(ex);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.model.SendMessageResult;
@@ -89,6 +90,7 @@ import org.sagebionetworks.bridge.models.activities.CustomActivityEventRequest;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.apps.MimeType;
 import org.sagebionetworks.bridge.models.apps.SmsTemplate;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutJob;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationProtocol;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
@@ -360,13 +362,30 @@ public class ParticipantService {
     public PagedResourceList<AccountSummary> getPagedAccountSummaries(App app, AccountSummarySearch search) {
         checkNotNull(app);
         
+        search = validateAccountSummarySearch(app, search);
+        return accountService.getPagedAccountSummaries(app.getIdentifier(), search);
+    }
+    
+    /**
+     * Pass a summary of every account matching the search to the consumer, without paging through the accounts by 
+     * offset or holding them all in memory. This is used to export a roster of all the accounts in an app.
+     */
+    public void streamAccountSummaries(App app, AccountSummarySearch search, Consumer<AccountSummary> consumer) {
+        checkNotNull(app);
+        checkNotNull(consumer);
+        
+        search = validateAccountSummarySearch(app, search);
+        accountService.streamAccountSummaries(app.getIdentifier(), search, consumer);
+    }
+    
+    private AccountSummarySearch validateAccountSummarySearch(App app, AccountSummarySearch search) {
         Validate.entityThrowingException(new AccountSummarySearchValidator(app.getDataGroups()), search);
         
         if (CANNOT_ACCESS_PARTICIPANTS.check()) {
             Set<String> newDataGroups = addToSet(search.getAllOfGroups(), TEST_USER_GROUP);
             search = search.toBuilder().withAllOfGroups(newDataGroups).build();
         }
-        return accountService.getPagedAccountSummaries(app.getIdentifier(), search);
+        return search;
     }
 
     /**
@@ -531,9 +550,7 @@ public class ParticipantService {
     }
 
     private void throwExceptionIfLimitMetOrExceeded(App app) {
-        // It's sufficient to get minimum number of records, we're looking only at the total of all accounts
-        PagedResourceList<AccountSummary> summaries = getPagedAccountSummaries(app, AccountSummarySearch.EMPTY_SEARCH);
-        if (summaries.getTotal() >= app.getAccountLimit()) {
+        if (accountService.getAccountCount(app.getIdentifier()) >= app.getAccountLimit()) {
             throw new LimitExceededException(String.format(BridgeConstants.MAX_USERS_ERROR, app.getAccountLimit()));
         }
     }
@@ -709,6 +726,44 @@ public class ParticipantService {
         return notificationsService.sendNotificationToUser(app.getIdentifier(), account.getHealthCode(), message);
     }
 
+    /**
+     * Start a job that sends a push notification to every participant matching the search (or all participants, if 
+     * no search is provided). If a study ID is provided, only participants enrolled in that study are notified. The 
+     * search is subject to the same validation and restrictions as an account summary search by the caller.
+     */
+    public NotificationFanOutJob sendNotificationToParticipants(App app, String studyId, AccountSummarySearch search,
+            NotificationMessage message) {
+        checkNotNull(app);
+        
+        if (message == null) {
+            throw new BadRequestException("A notification message is required.");
+        }
+        if (search == null) {
+            search = AccountSummarySearch.EMPTY_SEARCH;
+        }
+        if (studyId != null) {
+            search = search.toBuilder().withEnrolledInStudyId(studyId).build();
+        }
+        Validate.entityThrowingException(new AccountSummarySearchValidator(app.getDataGroups()), search);
+        
+        if (CANNOT_ACCESS_PARTICIPANTS.check()) {
+            Set<String> newDataGroups = addToSet(search.getAllOfGroups(), TEST_USER_GROUP);
+            search = search.toBuilder().withAllOfGroups(newDataGroups).build();
+        }
+        return notificationsService.startNotificationFanOut(app.getIdentifier(), studyId, search, message);
+    }
+    
+    /**
+     * Get the progress of a job started with 
+     * {@link #sendNotificationToParticipants(App, String, AccountSummarySearch, NotificationMessage)}.
+     */
+    public NotificationFanOutJob getNotificationFanOutJob(App app, String jobId) {
+        checkNotNull(app);
+        checkNotNull(jobId);
+        
+        return notificationsService.getNotificationFanOutJob(app.getIdentifier(), jobId);
+    }
+
     /**
      * Send an SMS message to this user if they have a verified phone number. This message will be 
      * sent with AWS' non-critical, "Promotional" level of delivery that optimizes for cost.
@@ -10,10 +10,16 @@ import static org.sagebionetworks.bridge.BridgeConstants.API_MINIMUM_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeUtils.isEmpty;
 import static org.sagebionetworks.bridge.models.ResourceList.REPORT_TYPE;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -66,9 +72,30 @@ public class ReportService {
     
     private static final String INVALID_TIME_RANGE = "startTime later in time than endTime";
     
+    static final int MAX_REPORT_BATCH_SIZE = 1000;
+    
+    static final String BATCH_REQUIRED_MSG = "Report data records are required";
+    
+    static final String BATCH_TOO_LARGE_MSG = "Cannot save more than " + MAX_REPORT_BATCH_SIZE
+            + " report data records at one time";
+    
+    /**
+     * Index changes made on other nodes are only visible to the batch save methods after this expiration 
+     * (changes made through this node are visible immediately).
+     */
+    static final long KNOWN_INDEX_CACHE_EXPIRATION_SECONDS = 60;
+    
+    static final long KNOWN_INDEX_CACHE_MAXIMUM_SIZE = 10000;
+    
     private ReportDataDao reportDataDao;
     private ReportIndexDao reportIndexDao;
     
+    // Indices that are known to exist, so batch saves from analytics jobs do not read the index on every call. 
+    // Participant reports for the same identifier share one index, so this covers all participants' reports.
+    private final Cache<String, ReportIndex> knownIndexCache = CacheBuilder.newBuilder()
+            .expireAfterWrite(KNOWN_INDEX_CACHE_EXPIRATION_SECONDS, TimeUnit.SECONDS)
+            .maximumSize(KNOWN_INDEX_CACHE_MAXIMUM_SIZE).build();
+    
     @Autowired
     final void setReportDataDao(ReportDataDao reportDataDao) {
         this.reportDataDao =reportDataDao;
@@ -245,6 +272,99 @@ public class ReportService {
         }
     }
     
+    /**
+     * Save a list of study report records in batch writes. The index for the report is read (or created) 
+     * once for the whole list, and after that is served from a local cache of known indices. The records 
+     * are all validated before any are saved. If this is the first data for this report, the studies of 
+     * the first record define who can see the report, as they would if the records were saved one at a time.
+     */
+    public void saveStudyReports(String appId, String identifier, List<ReportData> reportDataList) {
+        ReportDataKey key = new ReportDataKey.Builder()
+                .withReportType(ReportType.STUDY)
+                .withIdentifier(identifier)
+                .withAppId(appId).build();
+        Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
+        
+        ReportIndex index = getKnownIndex(key);
+        checkStudyReportAccess(index);
+        
+        batchSaveReportData(key, index, reportDataList);
+    }
+    
+    /**
+     * Save a list of participant report records in batch writes. Index handling and validation are the same as 
+     * for {@link #saveStudyReports(String, String, List)}.
+     */
+    public void saveParticipantReports(String appId, String userId, String identifier, String healthCode,
+            List<ReportData> reportDataList) {
+        ReportDataKey key = new ReportDataKey.Builder()
+                .withHealthCode(healthCode)
+                .withReportType(ReportType.PARTICIPANT)
+                .withIdentifier(identifier)
+                .withAppId(appId).build();
+        Validate.entityThrowingException(ReportDataKeyValidator.INSTANCE, key);
+        
+        ReportIndex index = getKnownIndex(key);
+        checkParticipantReportAccess(userId, index);
+        
+        batchSaveReportData(key, index, reportDataList);
+    }
+    
+    private void batchSaveReportData(ReportDataKey key, ReportIndex index, List<ReportData> reportDataList) {
+        if (reportDataList == null || reportDataList.isEmpty() || reportDataList.contains(null)) {
+            throw new BadRequestException(BATCH_REQUIRED_MSG);
+        }
+        if (reportDataList.size() > MAX_REPORT_BATCH_SIZE) {
+            throw new BadRequestException(BATCH_TOO_LARGE_MSG);
+        }
+        // Without an index, the first record establishes the report's studies and later records may not change 
+        // them, exactly as if the records were saved one at a time.
+        Set<String> studyIds = (index == null) ? reportDataList.get(0).getStudyIds() : index.getStudyIds();
+        ReportIndex validationIndex = index;
+        if (validationIndex == null) {
+            validationIndex = ReportIndex.create();
+            validationIndex.setStudyIds(studyIds);
+        }
+        ReportDataValidator validator = new ReportDataValidator(validationIndex);
+        
+        // A later record for the same date replaces an earlier one, as it would with individual saves (a batch 
+        // write cannot contain the same item twice).
+        Map<String, ReportData> reportDataByDate = new LinkedHashMap<>();
+        for (ReportData reportData : reportDataList) {
+            reportData.setReportDataKey(key);
+            Validate.entityThrowingException(validator, reportData);
+            
+            String date = (reportData.getLocalDate() != null) ? reportData.getLocalDate().toString() :
+                reportData.getDateTime().withZone(DateTimeZone.UTC).toString();
+            reportDataByDate.remove(date);
+            reportDataByDate.put(date, reportData);
+        }
+        reportDataDao.batchSaveReportData(ImmutableList.copyOf(reportDataByDate.values()));
+        if (index == null) {
+            addToIndex(key, studyIds);
+        }
+    }
+    
+    private ReportIndex getKnownIndex(ReportDataKey key) {
+        String cacheKey = getIndexCacheKey(key.getAppId(), key.getReportType(), key.getIdentifier());
+        ReportIndex index = knownIndexCache.getIfPresent(cacheKey);
+        if (index == null) {
+            index = reportIndexDao.getIndex(key);
+            if (index != null) {
+                knownIndexCache.put(cacheKey, index);
+            }
+        }
+        return index;
+    }
+    
+    private void invalidateKnownIndex(String appId, ReportType reportType, String identifier) {
+        knownIndexCache.invalidate(getIndexCacheKey(appId, reportType, identifier));
+    }
+    
+    private static String getIndexCacheKey(String appId, ReportType reportType, String identifier) {
+        return appId + ":" + reportType.name() + ":" + identifier;
+    }
+    
     /**
      * Delete all records for a study report. Study memberships will be enforced.
      */
@@ -260,6 +380,7 @@ public class ReportService {
         
         reportDataDao.deleteReportData(key);
         reportIndexDao.removeIndex(key);
+        invalidateKnownIndex(appId, ReportType.STUDY, identifier);
     }
     
     /**
@@ -287,6 +408,7 @@ public class ReportService {
         DateRangeResourceList<? extends ReportData> results = getStudyReport(appId, identifier, startDate, endDate);
         if (results.getItems().isEmpty()) {
             reportIndexDao.removeIndex(key);
+            invalidateKnownIndex(appId, ReportType.STUDY, identifier);
         }
     }
     
@@ -362,6 +484,7 @@ public class ReportService {
         checkParticipantReportAccess(userId, index);
         
         reportIndexDao.removeIndex(key);
+        invalidateKnownIndex(appId, ReportType.PARTICIPANT, identifier);
     }
 
     /**
@@ -393,6 +516,7 @@ public class ReportService {
             index.setStudyIds(existingIndex.getStudyIds());
         }
         reportIndexDao.updateIndex(index);
+        invalidateKnownIndex(appId, reportType, index.getIdentifier());
     }
     
     protected void checkParticipantReportAccess(String userId, ReportIndex index) {
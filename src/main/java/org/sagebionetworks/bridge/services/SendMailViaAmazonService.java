@@ -16,6 +16,8 @@ import javax.mail.internet.MimeMultipart;
 
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessage;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessageType;
 import org.sagebionetworks.bridge.services.email.MimeTypeEmail;
 import org.sagebionetworks.bridge.services.email.MimeTypeEmailProvider;
 
@@ -41,6 +43,7 @@ public class SendMailViaAmazonService implements SendMailService {
 
     private AmazonSimpleEmailService emailClient;
     private EmailVerificationService emailVerificationService;
+    private OutboxService outboxService;
 
     @Autowired
     final void setEmailClient(AmazonSimpleEmailService emailClient) {
@@ -51,6 +54,11 @@ public class SendMailViaAmazonService implements SendMailService {
         this.emailVerificationService = emailVerificationService;
     }
     
+    @Autowired
+    final void setOutboxService(OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
+    
     @Override
     public void sendEmail(MimeTypeEmailProvider provider) {
         String senderEmail = provider.getPlainSenderEmail();
@@ -62,7 +70,19 @@ public class SendMailViaAmazonService implements SendMailService {
             String fullSenderEmail = provider.getMimeTypeEmail().getSenderAddress();
             MimeTypeEmail email = provider.getMimeTypeEmail();
             for (String recipient: email.getRecipientAddresses()) {
-                sendEmail(fullSenderEmail, recipient, email, provider.getApp().getIdentifier());
+                OutboxMessage message = new OutboxMessage();
+                message.setType(OutboxMessageType.EMAIL);
+                message.setAppId(provider.getApp().getIdentifier());
+                message.setRequestId(RequestContext.get().getId());
+                message.setEmailType(email.getType());
+                message.setSender(fullSenderEmail);
+                message.setRecipient(recipient);
+                message.setRawMessage(createRawMessage(fullSenderEmail, recipient, email));
+                if (outboxService.isEnabled()) {
+                    outboxService.enqueue(message);
+                } else {
+                    deliverEmail(message);
+                }
             }
         } catch (MessageRejectedException ex) {
             // This happens if the sender email is not verified in SES. In general, it's not useful to app users to
@@ -75,8 +95,25 @@ public class SendMailViaAmazonService implements SendMailService {
         }
     }
 
-    private void sendEmail(String senderEmail, String recipient, MimeTypeEmail email, String appId)
-            throws AmazonClientException, MessagingException, IOException {
+    /**
+     * Sends a rendered email to SES. Called by sendEmail() when the outbox is disabled, and by the outbox 
+     * dispatcher, which handles the SES exceptions itself.
+     */
+    public void deliverEmail(OutboxMessage message) throws AmazonClientException {
+        RawMessage sesRawMessage = new RawMessage(ByteBuffer.wrap(message.getRawMessage()));
+
+        SendRawEmailRequest req = new SendRawEmailRequest(sesRawMessage);
+        req.setSource(message.getSender());
+        req.setDestinations(Collections.singleton(message.getRecipient()));
+        SendRawEmailResult result = emailClient.sendRawEmail(req);
+
+        logger.info("Sent email to SES with messageID " + result.getMessageId() + " with type " +
+                        message.getEmailType() + " for app " + message.getAppId() + " and request " +
+                        message.getRequestId());
+    }
+
+    private byte[] createRawMessage(String senderEmail, String recipient, MimeTypeEmail email)
+            throws MessagingException, IOException {
         
         Session mailSession = Session.getInstance(new Properties(), null);
         MimeMessage mimeMessage = new MimeMessage(mailSession);
@@ -95,15 +132,7 @@ public class SendMailViaAmazonService implements SendMailService {
         mimeMessage.setContent(mimeMultipart);
         ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
         mimeMessage.writeTo(byteOutputStream);
-        RawMessage sesRawMessage = new RawMessage(ByteBuffer.wrap(byteOutputStream.toByteArray()));
-
-        SendRawEmailRequest req = new SendRawEmailRequest(sesRawMessage);
-        req.setSource(senderEmail);
-        req.setDestinations(Collections.singleton(recipient));
-        SendRawEmailResult result = emailClient.sendRawEmail(req);
-
-        logger.info("Sent email to SES with messageID " + result.getMessageId() + " with type " +
-                        email.getType() + " for app " + appId + " and request " + RequestContext.get().getId());
+        return byteOutputStream.toByteArray();
     }
     
 }
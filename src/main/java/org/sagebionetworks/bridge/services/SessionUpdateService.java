@@ -1,12 +1,15 @@
 package org.sagebionetworks.bridge.services;
 
 import java.util.Map;
+import java.util.function.Consumer;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.joda.time.DateTimeZone;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.CriteriaContext;
 import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
 import org.sagebionetworks.bridge.models.accounts.ExternalIdentifier;
@@ -19,6 +22,10 @@ import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
  * Service that updates the state of a user's session, eventually its dependencies as well (the state of the 
  * user's push notification topic subscriptions, and the session as it is cached). Changes that update a 
  * user's session should go through this service to ensure dependencies are handled correctly.
+ * 
+ * Updates only do the work their change requires. Consent statuses and subscriptions are only recalculated 
+ * when the parts of the user's criteria context that criteria match against have changed, and the session is 
+ * only written to the cache if the update changed it.
  */
 @Component
 public class SessionUpdateService {
@@ -43,18 +50,15 @@ public class SessionUpdateService {
     }
 
     public void updateTimeZone(UserSession session, DateTimeZone timeZone) {
-        session.setParticipant(builder(session).withTimeZone(timeZone).build());
-        cacheProvider.setUserSession(session);
+        update(session, s -> s.setParticipant(builder(s).withTimeZone(timeZone).build()));
     }
     
     public void updateClientTimeZone(UserSession session, String clientTimeZone) {
-        session.setParticipant(builder(session).withClientTimeZone(clientTimeZone).build());
-        cacheProvider.setUserSession(session);
+        update(session, s -> s.setParticipant(builder(s).withClientTimeZone(clientTimeZone).build()));
     }
     
     public void updateApp(UserSession session, String appId) {
-        session.setAppId(appId);
-        cacheProvider.setUserSession(session);
+        update(session, s -> s.setAppId(appId));
     }
 
     public void updateLanguage(UserSession session, CriteriaContext context) {
@@ -62,8 +66,7 @@ public class SessionUpdateService {
     }
     
     public void updateExternalId(UserSession session, ExternalIdentifier externalId) {
-        session.setParticipant(builder(session).withExternalId(externalId.getIdentifier()).build());
-        cacheProvider.setUserSession(session);
+        update(session, s -> s.setParticipant(builder(s).withExternalId(externalId.getIdentifier()).build()));
     }
     
     public void updateParticipant(UserSession session, CriteriaContext context, StudyParticipant participant) {
@@ -75,21 +78,30 @@ public class SessionUpdateService {
     }
 
     private void updateCriteria(UserSession session, CriteriaContext context, StudyParticipant participant) {
+        // Consent statuses and criteria-based subscriptions only change if the criteria context has changed 
+        // since the statuses were last calculated.
+        String criteriaKey = context.getCriteriaKey();
+        boolean criteriaChanged = !criteriaKey.equals(session.getConsentCriteriaKey());
+        
         // Update session and consent statuses.
-        session.setParticipant(participant);
-        Map<SubpopulationGuid,ConsentStatus> statuses = consentService.getConsentStatuses(context);
-        session.setConsentStatuses(statuses);
-        cacheProvider.setUserSession(session);
+        update(session, s -> {
+            s.setParticipant(participant);
+            if (criteriaChanged) {
+                Map<SubpopulationGuid,ConsentStatus> statuses = consentService.getConsentStatuses(context);
+                s.setConsentStatuses(statuses);
+                s.setConsentCriteriaKey(criteriaKey);
+            }
+        });
 
         // Manage notifications, if necessary.
-        notificationTopicService.manageCriteriaBasedSubscriptions(context.getAppId(), context,
-                participant.getHealthCode());
+        if (criteriaChanged) {
+            notificationTopicService.manageCriteriaBasedSubscriptions(context.getAppId(), context,
+                    participant.getHealthCode());
+        }
     }
     
     public void updateSharingScope(UserSession session, SharingScope sharingScope) {
-        session.setParticipant(builder(session).withSharingScope(sharingScope).build());
-        
-        cacheProvider.setUserSession(session);
+        update(session, s -> s.setParticipant(builder(s).withSharingScope(sharingScope).build()));
     }
     
     public void updateSession(UserSession oldSession, UserSession newSession) {
@@ -102,11 +114,30 @@ public class SessionUpdateService {
     public void updateOrgMembership(String userId, String newOrgId) {
         UserSession session = cacheProvider.getUserSessionByUserId(userId);
         if (session != null) {
-            session.setParticipant(new StudyParticipant.Builder().copyOf(
-                    session.getParticipant()).withOrgMembership(newOrgId).build());
+            update(session, s -> s.setParticipant(builder(s).withOrgMembership(newOrgId).build()));
+        }
+    }
+    
+    /** Applies the change to the session, and writes the session to the cache only if the change altered it. */
+    private void update(UserSession session, Consumer<UserSession> change) {
+        String before = serialize(session);
+        change.accept(session);
+        if (!serialize(session).equals(before)) {
             cacheProvider.setUserSession(session);
         }
     }
+    
+    /**
+     * The session as it is cached, except that it includes the health code rather than the encrypted health 
+     * code. The encryption is not deterministic, so two serializations of the same session would never match.
+     */
+    private String serialize(UserSession session) {
+        try {
+            return StudyParticipant.API_WITH_HEALTH_CODE_WRITER.writeValueAsString(session);
+        } catch (JsonProcessingException e) {
+            throw new BridgeServiceException(e);
+        }
+    }
 
     private StudyParticipant.Builder builder(UserSession session) {
         return new StudyParticipant.Builder().copyOf(session.getParticipant());
@@ -4,14 +4,18 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Resource;
 
 import com.amazonaws.services.sns.AmazonSNS;
 import com.amazonaws.services.sns.model.CheckIfPhoneNumberIsOptedOutRequest;
 import com.amazonaws.services.sns.model.CheckIfPhoneNumberIsOptedOutResult;
+import com.amazonaws.services.sns.model.MessageAttributeValue;
 import com.amazonaws.services.sns.model.OptInPhoneNumberRequest;
+import com.amazonaws.services.sns.model.PublishRequest;
 import com.amazonaws.services.sns.model.PublishResult;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
@@ -33,6 +37,8 @@ import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataSubmission;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessage;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessageType;
 import org.sagebionetworks.bridge.models.sms.SmsMessage;
 import org.sagebionetworks.bridge.models.sms.SmsType;
 import org.sagebionetworks.bridge.models.upload.UploadFieldDefinition;
@@ -68,6 +74,7 @@ public class SmsService {
     private ParticipantService participantService;
     private UploadSchemaService schemaService;
     private AmazonSNS snsClient;
+    private OutboxService outboxService;
 
     /** Health data service, used to submit SMS message logs as health data. */
     @Autowired
@@ -99,15 +106,21 @@ public class SmsService {
         this.snsClient = snsClient;
     }
 
+    /** Outbox, to queue messages to be sent asynchronously. */
+    @Autowired
+    public final void setOutboxService(OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
+
     /**
      * Sends an SMS message using the given message provider. User ID is used to fetch the account, so we can get
      * health code and time zone and other relevant attributes to log and record as health data. If the recipient
-     * doesn't have an account (for example, for Intent-to-Participate), this can be left null.
+     * doesn't have an account (for example, for Intent-to-Participate), this can be left null. If the outbox is 
+     * enabled, the message is queued and sent (and logged) asynchronously.
      */
     public void sendSmsMessage(String userId, SmsMessageProvider provider) {
         checkNotNull(provider);
         App app = provider.getApp();
-        Phone recipientPhone = provider.getPhone();
         String message = provider.getFormattedMessage();
 
         // Check max SMS length.
@@ -115,31 +128,94 @@ public class SmsService {
             throw new BridgeServiceException("SMS message cannot be longer than 600 UTF-8/ASCII characters.");
         }
 
-        // Send SMS.
-        String messageId;
-        PublishResult result = snsClient.publish(provider.getSmsRequest());
-        messageId = result.getMessageId();
+        // Fetch participant, if it exists.
+        StudyParticipant participant = null;
+        if (userId != null) {
+            participant = participantService.getParticipant(app, userId, false);
+        }
+
+        PublishRequest request = provider.getSmsRequest();
+        OutboxMessage outboxMessage = new OutboxMessage();
+        outboxMessage.setType(OutboxMessageType.SMS);
+        outboxMessage.setAppId(app.getIdentifier());
+        outboxMessage.setRequestId(RequestContext.get().getId());
+        outboxMessage.setUserId(userId);
+        outboxMessage.setPhoneNumber(request.getPhoneNumber());
+        outboxMessage.setMessage(message);
+        outboxMessage.setSmsType(provider.getSmsTypeEnum());
+        // Sender ID is null if the app has no short name, so this can't be an ImmutableMap.
+        Map<String, String> attributes = new HashMap<>();
+        for (Map.Entry<String, MessageAttributeValue> entry : request.getMessageAttributes().entrySet()) {
+            attributes.put(entry.getKey(), entry.getValue().getStringValue());
+        }
+        outboxMessage.setMessageAttributes(attributes);
+        if (participant != null) {
+            outboxMessage.setHealthCode(participant.getHealthCode());
+            if (participant.getTimeZone() != null) {
+                outboxMessage.setTimeZone(participant.getTimeZone().getID());
+            }
+        }
+
+        if (outboxService.isEnabled()) {
+            outboxService.enqueue(outboxMessage);
+        } else {
+            String messageId = publish(outboxMessage);
+            logSentMessage(outboxMessage, messageId, participant);
+        }
+    }
+
+    /**
+     * Sends an SMS message that was queued in the outbox, and logs it. The participant is reconstructed from the 
+     * health code and time zone captured when the message was queued.
+     */
+    public void deliverSmsMessage(OutboxMessage outboxMessage) {
+        checkNotNull(outboxMessage);
+        String messageId = publish(outboxMessage);
+
+        StudyParticipant participant = null;
+        if (outboxMessage.getHealthCode() != null) {
+            participant = new StudyParticipant.Builder().withHealthCode(outboxMessage.getHealthCode())
+                    .withTimeZone((outboxMessage.getTimeZone() == null) ? null :
+                            DateTimeZone.forID(outboxMessage.getTimeZone())).build();
+        }
+        try {
+            logSentMessage(outboxMessage, messageId, participant);
+        } catch (RuntimeException ex) {
+            // The message was sent. Throwing would cause the outbox to send it again.
+            LOG.error("Error logging SMS message, app=" + outboxMessage.getAppId() + ", message ID=" + messageId +
+                    ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private String publish(OutboxMessage outboxMessage) {
+        Map<String, MessageAttributeValue> attributes = new HashMap<>();
+        for (Map.Entry<String, String> entry : outboxMessage.getMessageAttributes().entrySet()) {
+            attributes.put(entry.getKey(),
+                    new MessageAttributeValue().withStringValue(entry.getValue()).withDataType("String"));
+        }
+        PublishRequest request = new PublishRequest().withMessage(outboxMessage.getMessage())
+                .withPhoneNumber(outboxMessage.getPhoneNumber()).withMessageAttributes(attributes);
+        PublishResult result = snsClient.publish(request);
+        String messageId = result.getMessageId();
+
+        LOG.info("Sent SMS message, app=" + outboxMessage.getAppId() + ", message ID=" + messageId +
+                ", request ID=" + outboxMessage.getRequestId());
+        return messageId;
+    }
 
-        LOG.info("Sent SMS message, app=" + app.getIdentifier() + ", message ID=" + messageId + ", request ID=" +
-                RequestContext.get().getId());
+    // Logs the sent message, and if we have a participant, records it as health data.
+    private void logSentMessage(OutboxMessage outboxMessage, String messageId, StudyParticipant participant) {
+        String appId = outboxMessage.getAppId();
 
         // Log SMS message.
         DateTime sentOn = DateTime.now();
         SmsMessage smsMessage = SmsMessage.create();
-        smsMessage.setPhoneNumber(recipientPhone.getNumber());
+        smsMessage.setPhoneNumber(outboxMessage.getPhoneNumber());
         smsMessage.setSentOn(sentOn.getMillis());
-        smsMessage.setMessageBody(message);
+        smsMessage.setMessageBody(outboxMessage.getMessage());
         smsMessage.setMessageId(messageId);
-        smsMessage.setSmsType(provider.getSmsTypeEnum());
-        smsMessage.setAppId(app.getIdentifier());
-
-        // Fetch participant, if it exists.
-        StudyParticipant participant = null;
-        if (userId != null) {
-            participant = participantService.getParticipant(app, userId, false);
-        }
-
-        // Finish logging SMS message.
+        smsMessage.setSmsType(outboxMessage.getSmsType());
+        smsMessage.setAppId(appId);
         if (participant != null) {
             smsMessage.setHealthCode(participant.getHealthCode());
         }
@@ -148,7 +224,7 @@ public class SmsService {
 
         // If we have a participant, make a health data.
         if (participant != null) {
-            initMessageLogSchema(app.getIdentifier());
+            initMessageLogSchema(appId);
 
             // Set sentOn w/ user's time zone, if it exists.
             DateTime sentOnWithTimeZone;
@@ -161,8 +237,8 @@ public class SmsService {
             // Create health data.
             ObjectNode healthDataNode = BridgeObjectMapper.get().createObjectNode();
             healthDataNode.put(FIELD_NAME_SENT_ON, sentOnWithTimeZone.toString());
-            healthDataNode.put(FIELD_NAME_SMS_TYPE, provider.getSmsType());
-            healthDataNode.put(FIELD_NAME_MESSAGE_BODY, message);
+            healthDataNode.put(FIELD_NAME_SMS_TYPE, outboxMessage.getSmsType().getValue());
+            healthDataNode.put(FIELD_NAME_MESSAGE_BODY, outboxMessage.getMessage());
 
             // Health Data Service requires app version and phone info. However, this health data is submitted by
             // Bridge, not by the app, so fill those in with artificial values.
@@ -171,7 +247,7 @@ public class SmsService {
                     .withCreatedOn(sentOnWithTimeZone).withSchemaId(MESSAGE_LOG_SCHEMA_ID)
                     .withSchemaRevision(MESSAGE_LOG_SCHEMA_REV).withData(healthDataNode).build();
             try {
-                healthDataService.submitHealthData(app.getIdentifier(), participant, healthData);
+                healthDataService.submitHealthData(appId, participant, healthData);
             } catch (IOException | UploadValidationException ex) {
                 throw new BridgeServiceException(ex);
             }
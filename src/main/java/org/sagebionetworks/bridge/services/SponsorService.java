@@ -14,8 +14,11 @@ import static org.sagebionetworks.bridge.util.BridgeCollectors.toImmutableSet;
 
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +39,14 @@ public class SponsorService {
     static final TypeReference<Set<String>> STRING_SET_TYPE_REF = new TypeReference<Set<String>>() {};
     
     static final String NOT_A_SPONSOR_MSG = "Organization '%s' is not a sponsor of study '%s'";
+    
+    /**
+     * Sponsorship changes on other nodes are only visible to this node's local cache after this 
+     * expiration (local changes are visible immediately).
+     */
+    static final long LOCAL_CACHE_EXPIRATION_SECONDS = 60;
+    
+    static final long LOCAL_CACHE_MAXIMUM_SIZE = 10000;
 
     private OrganizationService organizationService;
     
@@ -45,6 +56,12 @@ public class SponsorService {
     
     private CacheProvider cacheProvider;
     
+    // Immutable sets are shared by all requests for the same organization, so building the 
+    // RequestContext for an authenticated call does not need to go to Redis or copy the set.
+    private final Cache<CacheKey, Set<String>> localSponsoredStudiesCache = CacheBuilder.newBuilder()
+            .expireAfterWrite(LOCAL_CACHE_EXPIRATION_SECONDS, TimeUnit.SECONDS)
+            .maximumSize(LOCAL_CACHE_MAXIMUM_SIZE).build();
+    
     @Autowired
     final void setOrganizationService(OrganizationService organizationService) {
         this.organizationService = organizationService;
@@ -72,10 +89,16 @@ public class SponsorService {
         // Cached because this will be accessed for every request.
         CacheKey cacheKey = CacheKey.orgSponsoredStudies(appId, orgId);
 
-        Set<String> cached = cacheProvider.getObject(cacheKey, STRING_SET_TYPE_REF);
+        Set<String> cached = localSponsoredStudiesCache.getIfPresent(cacheKey);
         if (cached != null) {
             return cached;
         }
+        cached = cacheProvider.getObject(cacheKey, STRING_SET_TYPE_REF);
+        if (cached != null) {
+            cached = ImmutableSet.copyOf(cached);
+            localSponsoredStudiesCache.put(cacheKey, cached);
+            return cached;
+        }
         Optional<Organization> opt = organizationService.getOrganizationOpt(appId, orgId);
         if (!opt.isPresent()) {
             return ImmutableSet.of();
@@ -83,9 +106,20 @@ public class SponsorService {
         cached = sponsorDao.getSponsoredStudies(appId, orgId, null, null).getItems().stream()
                 .map(Study::getIdentifier).collect(toImmutableSet());
         cacheProvider.setObject(cacheKey, cached);
+        localSponsoredStudiesCache.put(cacheKey, cached);
         return cached;
     }
     
+    /**
+     * Remove the organization's sponsored studies from the shared cache and from this node's local cache. Call
+     * this when the organization's sponsorships change, or when the organization is deleted.
+     */
+    public void invalidateSponsoredStudyIds(String appId, String orgId) {
+        CacheKey cacheKey = CacheKey.orgSponsoredStudies(appId, orgId);
+        cacheProvider.removeObject(cacheKey);
+        localSponsoredStudiesCache.invalidate(cacheKey);
+    }
+    
     public PagedResourceList<Organization> getStudySponsors(String appId, String studyId, Integer offsetBy, Integer pageSize) {
         checkNotNull(appId);
         checkNotNull(studyId);
@@ -134,7 +168,7 @@ public class SponsorService {
         // sponsors the study, that is also caught as a constraint violation.
         
         sponsorDao.addStudySponsor(appId, studyId, orgId);
-        cacheProvider.removeObject( CacheKey.orgSponsoredStudies(appId, orgId) );
+        invalidateSponsoredStudyIds(appId, orgId);
     }
 
     /**
@@ -147,7 +181,7 @@ public class SponsorService {
         checkNotNull(orgId);
         
         sponsorDao.addStudySponsor(appId, studyId, orgId);
-        cacheProvider.removeObject( CacheKey.orgSponsoredStudies(appId, orgId) );
+        invalidateSponsoredStudyIds(appId, orgId);
     }
     
     public void removeStudySponsor(String appId, String studyId, String orgId) {
@@ -161,7 +195,7 @@ public class SponsorService {
             // Currently we allow you to remove the last sponsor from a study. There is no 
             // database constraint that prevents this.
             sponsorDao.removeStudySponsor(appId, studyId, orgId);
-            cacheProvider.removeObject( CacheKey.orgSponsoredStudies(appId, orgId) );
+            invalidateSponsoredStudyIds(appId, orgId);
         } else {
             // Either one of the two entities is missing, or if they both exist, the org
             // does not sponsor this study. So one way or another, an exception must be 
@@ -17,6 +17,7 @@ import static org.sagebionetworks.bridge.validators.StudyActivityEventValidator.
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -343,7 +344,8 @@ public class StudyActivityEventService {
     
     /**
      * If the triggering event is mutable, study burst events can be created as well. Any errors
-     * that occur are collected in the list of failedEventIds.
+     * that occur are collected in the list of failedEventIds. The burst events are calculated and
+     * checked against one query of the participant’s recent events, and then written in one batch.
      */
     private void createStudyBurstEvents(Schedule2 schedule, StudyActivityEvent event, List<String> failedEventIds) {
         String eventId = event.getEventId();
@@ -356,9 +358,13 @@ public class StudyActivityEventService {
             .withCreatedOn(event.getCreatedOn())
             .withObjectType(STUDY_BURST);
         
-        boolean createdBurstEvents = false;
+        Map<String, StudyActivityEvent> recentEvents = null;
+        List<StudyActivityEvent> burstEvents = new ArrayList<>();
         for(StudyBurst burst : schedule.getStudyBursts()) {
             if (burst.getOriginEventId().equals(eventId)) {
+                if (recentEvents == null) {
+                    recentEvents = getRecentEventsMap(event.getUserId(), event.getStudyId());
+                }
                 builder.withUpdateType(burst.getUpdateType());
                 builder.withStudyBurstId(burst.getIdentifier());
                 builder.withOriginEventId(burst.getOriginEventId());
@@ -382,25 +388,32 @@ public class StudyActivityEventService {
                     }
                     periodFromOrigin = periodFromOrigin.plus(burst.getInterval());
                     
-                    StudyActivityEvent mostRecent = dao.getRecentStudyActivityEvent(
-                            burstEvent.getUserId(), burstEvent.getStudyId(), burstEvent.getEventId());
+                    StudyActivityEvent mostRecent = recentEvents.get(burstEvent.getEventId());
 
                     // Study bursts also have an update type that must be respected.
                     if (burst.getUpdateType().canUpdate(mostRecent, burstEvent)) {
-                        dao.publishEvent(burstEvent);
-                        createdBurstEvents = true;
+                        burstEvents.add(burstEvent);
                     }  else {
                         failedEventIds.add(burstEvent.getEventId());
                     } 
                 }
             }
         }
-        if (createdBurstEvents) {
+        if (!burstEvents.isEmpty()) {
+            dao.publishEvents(burstEvents);
             // trigger alert for study burst change if study burst events were created
             alertService.createAlert(Alert.studyBurstChange(event.getStudyId(), event.getAppId(), event.getUserId()));
         }
     }
     
+    private Map<String, StudyActivityEvent> getRecentEventsMap(String userId, String studyId) {
+        Map<String, StudyActivityEvent> map = new HashMap<>();
+        for (StudyActivityEvent oneEvent : dao.getRecentStudyActivityEvents(userId, studyId)) {
+            map.put(oneEvent.getEventId(), oneEvent);
+        }
+        return map;
+    }
+    
     private void deleteStudyBurstEvents(Schedule2 schedule, StudyActivityEvent event) {
         String eventId = event.getEventId();
         
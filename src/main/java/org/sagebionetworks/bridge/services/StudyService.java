@@ -41,6 +41,7 @@ import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.VersionHolder;
 import org.sagebionetworks.bridge.models.activities.StudyActivityEventIdsMap;
@@ -52,11 +53,27 @@ import org.sagebionetworks.bridge.validators.Validate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableMap;
 
 @Component
 public class StudyService {
     
+    static final TypeReference<Set<String>> STRING_SET_TYPE_REF = new TypeReference<Set<String>>() {};
+    
+    /**
+     * Studies and study ID sets are removed from the cache, and their version incremented, whenever a 
+     * study is changed. A read only caches what it loaded if the version has not changed since the read 
+     * began, so entries are never stale; they expire only so that unused studies do not stay in Redis.
+     */
+    static final int STUDY_CACHE_EXPIRE_IN_SECONDS = 10*60;
+    
+    // Neither of these fields is included in the JSON of a study, so they are stored alongside it.
+    static final String APP_ID_FIELD = "appId";
+    static final String LOGO_GUID_FIELD = "logoGuid";
+    
     @Autowired
     private StudyDao studyDao;
     @Autowired
@@ -107,6 +124,10 @@ public class StudyService {
             cacheProvider.removeObject(cacheKey);
         }
         studyDao.removeScheduleFromStudies(appId, scheduleGuid);
+        // The schedule GUID of these studies has changed, so cached copies are out-of-date
+        for (String studyId : studyIds) {
+            removeCachedStudy(appId, studyId);
+        }
     }
     
     public void updateStudyEtags(String appId, String scheduleGuid, DateTime timestamp) {
@@ -121,18 +142,30 @@ public class StudyService {
         }
     }
     
+    /**
+     * Get a study. Studies are read through a cache, and each call returns a new copy of the 
+     * study that the caller is free to change.
+     */
     public Study getStudy(String appId, String studyId, boolean throwsException) {
         checkNotNull(appId);
         checkNotNull(studyId);
         
-        Study study = studyDao.getStudy(appId, studyId);
+        CacheKey cacheKey = CacheKey.study(appId, studyId);
+        Study study = getCachedStudy(cacheKey);
+        if (study == null) {
+            // The version is read before the study, so a change made after the study is read will 
+            // have changed the version, and the study will not be cached. The etag is only set by 
+            // changes to the study, never from a copy that may already be out-of-date.
+            CacheKey versionKey = CacheKey.studyVersion(appId, studyId);
+            long version = cacheProvider.getVersion(versionKey);
+            study = studyDao.getStudy(appId, studyId);
+            if (study != null) {
+                cacheStudy(cacheKey, study, versionKey, version);
+            }
+        }
         if (throwsException && study == null) {
             throw new EntityNotFoundException(Study.class);
         }
-        if (study != null) {
-            CacheKey cacheKey = CacheKey.etag(Study.class, appId, studyId);
-            cacheProvider.setObject(cacheKey, study.getModifiedOn());
-        }
         return study;
     }
     
@@ -142,10 +175,20 @@ public class StudyService {
      * so we can provide a cache for these infrequently changing identifiers.
      */
     public Set<String> getStudyIds(String appId) {
-        return getStudies(appId, null, null, false, false)
-                .getItems().stream()
-                .map(Study::getIdentifier)
-                .collect(toSet());
+        checkNotNull(appId);
+        
+        CacheKey cacheKey = CacheKey.studyIds(appId);
+        Set<String> studyIds = cacheProvider.getObject(cacheKey, STRING_SET_TYPE_REF);
+        if (studyIds == null) {
+            CacheKey versionKey = CacheKey.studyIdsVersion(appId);
+            long version = cacheProvider.getVersion(versionKey);
+            studyIds = getStudies(appId, null, null, false, false)
+                    .getItems().stream()
+                    .map(Study::getIdentifier)
+                    .collect(toSet());
+            cacheProvider.setObjectIfVersion(cacheKey, studyIds, STUDY_CACHE_EXPIRE_IN_SECONDS, versionKey, version);
+        }
+        return studyIds;
     }
 
     /** Returns a list of all study IDs in the given app that use the given schedule. */
@@ -227,6 +270,8 @@ public class StudyService {
         if (setStudySponsor && orgId != null) {
             sponsorService.createStudyWithSponsorship(appId, study.getIdentifier(), orgId);    
         }
+        invalidateStudy(appId, study.getIdentifier());
+        
         CacheKey cacheKey = CacheKey.etag(Study.class, appId, study.getIdentifier());
         cacheProvider.setObject(cacheKey, study.getModifiedOn());
 
@@ -262,6 +307,7 @@ public class StudyService {
         Validate.entityThrowingException(validator, study);
         
         VersionHolder keys = studyDao.updateStudy(study);
+        invalidateStudy(appId, study.getIdentifier());
         
         CacheKey cacheKey = CacheKey.publicStudy(appId, study.getIdentifier());
         cacheProvider.removeObject(cacheKey);
@@ -286,6 +332,7 @@ public class StudyService {
         existing.setDeleted(true);
         existing.setModifiedOn(DateTime.now());
         studyDao.updateStudy(existing);
+        invalidateStudy(appId, studyId);
         
         CacheKey cacheKey = CacheKey.publicStudy(appId, studyId);
         cacheProvider.removeObject(cacheKey);
@@ -311,6 +358,7 @@ public class StudyService {
         String scheduleGuid = existing.getScheduleGuid();
         
         studyDao.deleteStudyPermanently(appId, studyId);
+        invalidateStudy(appId, studyId);
         if (scheduleGuid != null) {
             scheduleService.deleteSchedulePermanently(appId, scheduleGuid);    
         }
@@ -326,7 +374,12 @@ public class StudyService {
     public void deleteAllStudies(String appId) {
         checkNotNull(appId);
 
+        List<Study> studies = studyDao.getStudies(appId, null, null, null, true).getItems();
         studyDao.deleteAllStudies(appId);
+        for (Study study : studies) {
+            removeCachedStudy(appId, study.getIdentifier());
+        }
+        removeCachedStudyIds(appId);
     }
     
     public Study transitionToDesign(String appId, String studyId) {
@@ -409,6 +462,7 @@ public class StudyService {
         study.setPhase(DESIGN);
         study.setModifiedOn(getDateTime());
         studyDao.updateStudy(study);
+        invalidateStudy(appId, studyId);
     
         CacheKey cacheKey = CacheKey.publicStudy(appId, studyId);
         cacheProvider.removeObject(cacheKey);
@@ -444,6 +498,7 @@ public class StudyService {
         study.setPhase(targetPhase);
         study.setModifiedOn(getDateTime());
         studyDao.updateStudy(study);
+        invalidateStudy(appId, studyId);
         
         CacheKey cacheKey = CacheKey.publicStudy(appId, studyId);
         cacheProvider.removeObject(cacheKey);
@@ -459,6 +514,52 @@ public class StudyService {
         return study;
     }
     
+    private Study getCachedStudy(CacheKey cacheKey) {
+        ObjectNode node = cacheProvider.getObject(cacheKey, ObjectNode.class);
+        if (node == null) {
+            return null;
+        }
+        try {
+            Study study = BridgeObjectMapper.get().treeToValue(node, Study.class);
+            study.setAppId(node.path(APP_ID_FIELD).textValue());
+            study.setLogoGuid(node.path(LOGO_GUID_FIELD).textValue());
+            return study;
+        } catch (JsonProcessingException e) {
+            // Treat this as a cache miss; the entry will be replaced.
+            return null;
+        }
+    }
+    
+    private void cacheStudy(CacheKey cacheKey, Study study, CacheKey versionKey, long version) {
+        ObjectNode node = BridgeObjectMapper.get().valueToTree(study);
+        node.put(APP_ID_FIELD, study.getAppId());
+        node.put(LOGO_GUID_FIELD, study.getLogoGuid());
+        cacheProvider.setObjectIfVersion(cacheKey, node, STUDY_CACHE_EXPIRE_IN_SECONDS, versionKey, version);
+    }
+    
+    /**
+     * A study has been created, changed, or deleted. Remove the study and the app’s set of study 
+     * IDs from the cache so they are read again from the database.
+     */
+    private void invalidateStudy(String appId, String studyId) {
+        removeCachedStudy(appId, studyId);
+        removeCachedStudyIds(appId);
+    }
+    
+    /**
+     * The version is incremented before the entry is removed, so a read that loaded the study before it 
+     * was changed can no longer cache it.
+     */
+    private void removeCachedStudy(String appId, String studyId) {
+        cacheProvider.incrementVersion(CacheKey.studyVersion(appId, studyId));
+        cacheProvider.removeObject(CacheKey.study(appId, studyId));
+    }
+    
+    private void removeCachedStudyIds(String appId) {
+        cacheProvider.incrementVersion(CacheKey.studyIdsVersion(appId));
+        cacheProvider.removeObject(CacheKey.studyIds(appId));
+    }
+    
     /**
      * Retrieves the custom event IDs from a schedule. The returned event IDs will 
      * have the "custom:" prefix removed. If scheduleGuid is null, will return
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Set;
+import java.util.function.ToLongFunction;
 
 import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.validation.Validator;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import org.sagebionetworks.bridge.BridgeUtils;
 import org.sagebionetworks.bridge.cache.CacheProvider;
@@ -22,7 +25,7 @@ import org.sagebionetworks.bridge.dao.StudyConsentDao;
 import org.sagebionetworks.bridge.dao.SubpopulationDao;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.CriteriaContext;
-import org.sagebionetworks.bridge.models.CriteriaUtils;
+import org.sagebionetworks.bridge.models.CriteriaIndex;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.subpopulations.StudyConsent;
@@ -37,6 +40,20 @@ import org.sagebionetworks.bridge.validators.Validate;
 public class SubpopulationService {
 
     private static final TypeReference<List<Subpopulation>> SURVEY_LIST_REF = new TypeReference<List<Subpopulation>>() {};
+    
+    static final int SUBPOP_MATCHER_CACHE_MAXIMUM_SIZE = 1000;
+    static final int CRITERIA_MATCH_CACHE_MAXIMUM_SIZE = 1000;
+    
+    // A subpopulation's criteria can only change through an update, which changes its version.
+    private static final ToLongFunction<Subpopulation> SUBPOP_VERSION = (subpop) -> 
+        (subpop.getVersion() == null) ? 0L : subpop.getVersion();
+    
+    // Compiled criteria of each app's subpopulations, and the subpopulations matched for each criteria key 
+    // (see CriteriaContext.getCriteriaKey()). Many users share the same criteria, so most sign-ins look up 
+    // their subpopulations rather than matching them. Removed when this node changes the app's subpopulations; 
+    // other nodes check the index against the subpopulations they load, and rebuild it when they differ.
+    private final Cache<String, SubpopulationMatcher> matcherCache = CacheBuilder.newBuilder()
+            .maximumSize(SUBPOP_MATCHER_CACHE_MAXIMUM_SIZE).build();
 
     private SubpopulationDao subpopDao;
     private StudyConsentDao studyConsentDao;
@@ -99,6 +116,7 @@ public class SubpopulationService {
         studyConsentService.publishConsent(app, subpop, view.getCreatedOn());
         
         cacheProvider.removeObject(CacheKey.subpopList(app.getIdentifier()));
+        matcherCache.invalidate(app.getIdentifier());
         return created;
     }
     
@@ -118,6 +136,7 @@ public class SubpopulationService {
         }
         
         cacheProvider.removeObject(CacheKey.subpopList(app.getIdentifier()));
+        matcherCache.invalidate(app.getIdentifier());
         return created;
     }
     
@@ -154,6 +173,7 @@ public class SubpopulationService {
         Subpopulation updated = subpopDao.updateSubpopulation(subpop);
         cacheProvider.removeObject(CacheKey.subpop(updated.getGuid(), app.getIdentifier()));
         cacheProvider.removeObject(CacheKey.subpopList(app.getIdentifier()));
+        matcherCache.invalidate(app.getIdentifier());
         return updated;
     }
     
@@ -207,7 +227,23 @@ public class SubpopulationService {
         
         List<Subpopulation> subpops = getSubpopulations(context.getAppId(), false);
         
-        return CriteriaUtils.filterByCriteria(context, subpops, null);
+        SubpopulationMatcher matcher = getSubpopulationMatcher(context.getAppId(), subpops);
+        String criteriaKey = context.getCriteriaKey();
+        int[] positions = matcher.matches.getIfPresent(criteriaKey);
+        if (positions == null) {
+            positions = matcher.index.match(context, subpops, null);
+            matcher.matches.put(criteriaKey, positions);
+        }
+        return matcher.index.select(subpops, positions);
+    }
+    
+    SubpopulationMatcher getSubpopulationMatcher(String appId, List<Subpopulation> subpops) {
+        SubpopulationMatcher matcher = matcherCache.getIfPresent(appId);
+        if (matcher == null || !matcher.index.isIndexOf(subpops)) {
+            matcher = new SubpopulationMatcher(CriteriaIndex.create(subpops, Subpopulation::getGuidString, SUBPOP_VERSION));
+            matcherCache.put(appId, matcher);
+        }
+        return matcher;
     }
 
     /**
@@ -220,6 +256,7 @@ public class SubpopulationService {
         subpopDao.deleteSubpopulation(appId, subpopGuid);
         cacheProvider.removeObject(CacheKey.subpop(subpopGuid, appId));
         cacheProvider.removeObject(CacheKey.subpopList(appId));
+        matcherCache.invalidate(appId);
     }
     
     /**
@@ -233,6 +270,7 @@ public class SubpopulationService {
         studyConsentService.deleteAllConsentsPermanently(subpopGuid);
         cacheProvider.removeObject(CacheKey.subpop(subpopGuid, appId));
         cacheProvider.removeObject(CacheKey.subpopList(appId));
+        matcherCache.invalidate(appId);
     }
     
     /**
@@ -250,5 +288,18 @@ public class SubpopulationService {
             }
         }
     }
-
+    
+    /**
+     * The criteria index of an app's subpopulations, with the positions of the subpopulations that matched each 
+     * criteria key. The positions are only valid for subpopulations that match the index. 
+     */
+    static final class SubpopulationMatcher {
+        private final CriteriaIndex<Subpopulation> index;
+        private final Cache<String, int[]> matches = CacheBuilder.newBuilder()
+                .maximumSize(CRITERIA_MATCH_CACHE_MAXIMUM_SIZE).build();
+        
+        SubpopulationMatcher(CriteriaIndex<Subpopulation> index) {
+            this.index = index;
+        }
+    }
 }
@@ -26,9 +26,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.ToLongFunction;
 
 import javax.annotation.PostConstruct;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Triple;
@@ -49,7 +52,7 @@ import org.sagebionetworks.bridge.exceptions.ConstraintViolationException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.models.Criteria;
 import org.sagebionetworks.bridge.models.CriteriaContext;
-import org.sagebionetworks.bridge.models.CriteriaUtils;
+import org.sagebionetworks.bridge.models.CriteriaIndex;
 import org.sagebionetworks.bridge.models.GuidVersionHolder;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -64,6 +67,17 @@ import org.sagebionetworks.bridge.validators.Validate;
 @Component
 public class TemplateService {
     private static final Logger LOG = LoggerFactory.getLogger(TemplateService.class);
+    
+    static final int CRITERIA_INDEX_CACHE_MAXIMUM_SIZE = 1000;
+    
+    // A template's criteria can only change through an update, which changes its modifiedOn timestamp.
+    private static final ToLongFunction<Template> TEMPLATE_VERSION = (template) -> 
+        (template.getModifiedOn() == null) ? 0L : template.getModifiedOn().getMillis();
+    
+    // Compiled criteria of each app's templates of each type. Each node checks the index against the templates 
+    // it loads, and rebuilds it when they differ, so no invalidation is needed.
+    private final Cache<String, CriteriaIndex<Template>> criteriaIndexCache = CacheBuilder.newBuilder()
+            .maximumSize(CRITERIA_INDEX_CACHE_MAXIMUM_SIZE).build();
 
     private Map<TemplateType,Triple<String,String,MimeType>> defaultTemplatesMap = new HashMap<>();
     
@@ -229,11 +243,10 @@ public class TemplateService {
 
         ResourceList<Template> results = (ResourceList<Template>)templateDao.getTemplates(
                 context.getAppId(), type, null, null, false);
-        for (Template template : results.getItems()) {
-            loadCriteria(template);
-        }
+        List<Template> templates = results.getItems();
 
-        List<Template> templateMatches = CriteriaUtils.filterByCriteria(context, results.getItems(), null);
+        List<Template> templateMatches = getCriteriaIndex(context.getAppId(), type, templates)
+                .filter(context, templates, null);
         
         // The ideal case: one and only one template matches the user's context
         if (templateMatches.size() == 1) {
@@ -402,6 +415,23 @@ public class TemplateService {
         templateDao.deleteTemplatesForApp(appId);
     }
 
+    /**
+     * The criteria of templates are stored separately, so they are only loaded when the index of the app's 
+     * templates of this type has to be compiled again.
+     */
+    CriteriaIndex<Template> getCriteriaIndex(String appId, TemplateType type, List<Template> templates) {
+        String cacheKey = appId + ":" + type.name();
+        CriteriaIndex<Template> index = criteriaIndexCache.getIfPresent(cacheKey);
+        if (index == null || !index.isIndexOf(templates)) {
+            for (Template template : templates) {
+                loadCriteria(template);
+            }
+            index = CriteriaIndex.create(templates, Template::getGuid, TEMPLATE_VERSION);
+            criteriaIndexCache.put(cacheKey, index);
+        }
+        return index;
+    }
+    
     private boolean isDefaultTemplate(Template template, String appId) {
         App app = appService.getApp(appId);
         String defaultGuid = app.getDefaultTemplates().get(template.getTemplateType().name().toLowerCase());
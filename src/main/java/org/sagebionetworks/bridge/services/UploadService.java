@@ -16,10 +16,15 @@ import static org.sagebionetworks.bridge.BridgeConstants.CANNOT_BE_BLANK;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -28,6 +33,7 @@ import javax.annotation.Resource;
 import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -35,7 +41,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.base.Stopwatch;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
@@ -75,6 +83,7 @@ import org.sagebionetworks.bridge.models.upload.UploadSession;
 import org.sagebionetworks.bridge.models.upload.UploadStatus;
 import org.sagebionetworks.bridge.models.upload.UploadValidationStatus;
 import org.sagebionetworks.bridge.models.upload.UploadView;
+import org.sagebionetworks.bridge.upload.UploadCompletionRegistry;
 import org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator;
 import org.sagebionetworks.bridge.validators.UploadValidator;
 import org.sagebionetworks.bridge.validators.Validate;
@@ -85,6 +94,9 @@ public class UploadService {
     private static final Logger logger = LoggerFactory.getLogger(UploadService.class);
 
     static final long EXPIRATION = 24 * 60 * 60 * 1000; // 24 hours
+    static final int MAX_UPLOAD_BATCH_SIZE = 100;
+    // S3 DeleteObjects accepts at most this many keys per request.
+    static final int S3_DELETE_OBJECTS_MAX_KEYS = 1000;
     
     // package-scoped to be available in unit tests
     static final String CONFIG_KEY_UPLOAD_BUCKET = "upload.bucket";
@@ -106,10 +118,11 @@ public class UploadService {
     private UploadDao uploadDao;
     private UploadDedupeDao uploadDedupeDao;
     private UploadValidationService uploadValidationService;
+    private UploadCompletionRegistry uploadCompletionRegistry;
 
     // These parameters can be overriden to facilitate testing.
-    // By default, we sleep 5 seconds, including right at the start and end. This means on our 7th iteration,
-    // 30 seconds will have passed.
+    // By default, we wait up to 5 seconds for validation to signal completion, including right at the start and end.
+    // This means on our 7th iteration, 30 seconds will have passed.
     private int pollValidationStatusMaxIterations = 7;
     private long pollValidationStatusSleepMillis = 5000;
 
@@ -189,6 +202,12 @@ public class UploadService {
         this.uploadValidationService = uploadValidationService;
     }
 
+    /** Registry that upload validation signals when it completes. This is configured by Spring. */
+    @Autowired
+    final void setUploadCompletionRegistry(UploadCompletionRegistry uploadCompletionRegistry) {
+        this.uploadCompletionRegistry = uploadCompletionRegistry;
+    }
+
     /**
      * Number of iterations while polling for validation status before we time out. This is used primarily by tests to
      * reduce the amount of wait time during tests.
@@ -198,7 +217,7 @@ public class UploadService {
     }
 
     /**
-     * Milliseconds to sleep per iterations while polling for validation status. This is used primarily by tests to
+     * Milliseconds to wait for a completion signal per iteration while polling for validation status. This is used primarily by tests to
      * reduce the amount of wait time during tests.
      */
     public final void setPollValidationStatusSleepMillis(long pollValidationStatusSleepMillis) {
@@ -242,21 +261,10 @@ public class UploadService {
             uploadId = upload.getUploadId();
 
             // Get client info from Request Context, write it to the upload as JSON.
-            RequestContext requestContext = RequestContext.get();
-            ClientInfo clientInfo = requestContext.getCallerClientInfo();
-            try {
-                String clientInfoJsonText = BridgeObjectMapper.get().writerWithDefaultPrettyPrinter()
-                        .writeValueAsString(clientInfo);
-                upload.setClientInfo(clientInfoJsonText);
-            } catch (JsonProcessingException ex) {
-                // Should never happen. Log an error and swallow it, so that we don't fail the rest of the upload.
-                logger.error("Error serializing client info to JSON for app " + appId + " healthcode " +
-                        participant.getHealthCode(), ex);
-            }
+            upload.setClientInfo(getClientInfoJson(appId, participant.getHealthCode()));
 
             // Also, get the User Agent.
-            String userAgent = requestContext.getUserAgent();
-            upload.setUserAgent(userAgent);
+            upload.setUserAgent(RequestContext.get().getUserAgent());
 
             // Write the upload back to the upload table with the user agent and client info.
             uploadDao.updateUpload(upload);
@@ -276,6 +284,128 @@ public class UploadService {
             }
         }
 
+        return createUploadSession(uploadId, uploadRequest);
+    }
+
+    /**
+     * Batch form of {@link #createUpload}, for clients that have queued several files (for example, after being
+     * offline). Dedupe lookups, upload writes (which include client info and user agent), and dedupe registrations
+     * are each made as a single batch call, and a session with a pre-signed URL is returned for each request, in the
+     * order of the requests.
+     */
+    public List<UploadSession> createUploads(String appId, StudyParticipant participant,
+            List<UploadRequest> uploadRequests) {
+        if (uploadRequests == null || uploadRequests.isEmpty()) {
+            throw new BadRequestException("Upload requests " + CANNOT_BE_BLANK);
+        }
+        if (uploadRequests.size() > MAX_UPLOAD_BATCH_SIZE) {
+            throw new BadRequestException("Cannot request more than " + MAX_UPLOAD_BATCH_SIZE +
+                    " uploads at one time");
+        }
+        for (UploadRequest uploadRequest : uploadRequests) {
+            Validate.entityThrowingException(UploadValidator.INSTANCE, uploadRequest);
+        }
+        String healthCode = participant.getHealthCode();
+        DateTime uploadRequestedOn = DateUtils.getCurrentDateTime();
+
+        // Check to see if any uploads are dupes, and if they are, get their upload status. Do not execute dedupe
+        // logic on test/API app, because integration tests submit the same uploads over and over again.
+        Map<String, String> originalUploadIdsByMd5 = ImmutableMap.of();
+        Map<String, Upload> originalUploadsById = ImmutableMap.of();
+        if (!API_APP_ID.equals(appId)) {
+            try {
+                Set<String> uploadMd5s = uploadRequests.stream().map(UploadRequest::getContentMd5)
+                        .collect(Collectors.toSet());
+                originalUploadIdsByMd5 = uploadDedupeDao.getDuplicates(healthCode, uploadMd5s, uploadRequestedOn);
+                if (!originalUploadIdsByMd5.isEmpty()) {
+                    originalUploadsById = uploadDao.getUploadsById(ImmutableSet.copyOf(
+                            originalUploadIdsByMd5.values()));
+                }
+            } catch (RuntimeException ex) {
+                // Don't want dedupe logic to fail the upload. Log an error and swallow the exception.
+                logger.error("Error deduping uploads: " + ex.getMessage(), ex);
+            }
+        }
+
+        // Sort out which requests reactivate an incomplete (REQUESTED) original upload, and which need a new upload.
+        // A file that appears more than once in the batch is a dupe of its first appearance, which is not yet
+        // complete, so it gets the same upload as the first appearance.
+        String[] uploadIds = new String[uploadRequests.size()];
+        Map<String, Integer> firstIndexByMd5 = new HashMap<>();
+        List<Integer> newUploadIndices = new ArrayList<>();
+        List<UploadRequest> newUploadRequests = new ArrayList<>();
+        List<String> newOriginalUploadIds = new ArrayList<>();
+        for (int i = 0; i < uploadRequests.size(); i++) {
+            UploadRequest uploadRequest = uploadRequests.get(i);
+            String uploadMd5 = uploadRequest.getContentMd5();
+            String originalUploadId = originalUploadIdsByMd5.get(uploadMd5);
+            Upload originalUpload = (originalUploadId == null) ? null : originalUploadsById.get(originalUploadId);
+
+            if (originalUpload != null && originalUpload.getStatus() == UploadStatus.REQUESTED) {
+                uploadIds[i] = originalUploadId;
+            } else if (firstIndexByMd5.containsKey(uploadMd5)) {
+                // Resolved below, once the first appearance has an upload ID.
+                continue;
+            } else {
+                firstIndexByMd5.put(uploadMd5, i);
+                newUploadIndices.add(i);
+                newUploadRequests.add(uploadRequest);
+                newOriginalUploadIds.add(originalUploadId);
+            }
+        }
+
+        // Write all the new uploads, with client info and user agent, in one batch.
+        RequestContext requestContext = RequestContext.get();
+        List<Upload> newUploads = uploadDao.createUploads(appId, healthCode, newUploadRequests, newOriginalUploadIds,
+                getClientInfoJson(appId, healthCode), requestContext.getUserAgent());
+
+        Map<String, String> uploadIdsToRegister = new HashMap<>();
+        for (int j = 0; j < newUploads.size(); j++) {
+            String uploadId = newUploads.get(j).getUploadId();
+            String originalUploadId = newOriginalUploadIds.get(j);
+            uploadIds[newUploadIndices.get(j)] = uploadId;
+
+            if (originalUploadId != null) {
+                // We had a dupe of a previous completed upload. Log this for future analysis.
+                logger.info("Detected dupe: App " + appId + ", upload " + uploadId + " is a dupe of " +
+                        originalUploadId);
+            } else {
+                // Not a dupe. Register this upload so we can detect dupes of it.
+                uploadIdsToRegister.put(newUploadRequests.get(j).getContentMd5(), uploadId);
+            }
+        }
+        for (int i = 0; i < uploadIds.length; i++) {
+            if (uploadIds[i] == null) {
+                uploadIds[i] = uploadIds[firstIndexByMd5.get(uploadRequests.get(i).getContentMd5())];
+            }
+        }
+        try {
+            uploadDedupeDao.registerUploads(healthCode, uploadIdsToRegister, uploadRequestedOn);
+        } catch (RuntimeException ex) {
+            // Don't want dedupe logic to fail the upload. Log an error and swallow the exception.
+            logger.error("Error registering uploads " + uploadIdsToRegister.values() + " in dedupe table: " +
+                    ex.getMessage(), ex);
+        }
+
+        List<UploadSession> sessions = new ArrayList<>(uploadIds.length);
+        for (int i = 0; i < uploadIds.length; i++) {
+            sessions.add(createUploadSession(uploadIds[i], uploadRequests.get(i)));
+        }
+        return sessions;
+    }
+
+    private String getClientInfoJson(String appId, String healthCode) {
+        ClientInfo clientInfo = RequestContext.get().getCallerClientInfo();
+        try {
+            return BridgeObjectMapper.get().writerWithDefaultPrettyPrinter().writeValueAsString(clientInfo);
+        } catch (JsonProcessingException ex) {
+            // Should never happen. Log an error and swallow it, so that we don't fail the rest of the upload.
+            logger.error("Error serializing client info to JSON for app " + appId + " healthcode " + healthCode, ex);
+            return null;
+        }
+    }
+
+    private UploadSession createUploadSession(String uploadId, UploadRequest uploadRequest) {
         // Upload ID in DynamoDB is the same as the S3 Object ID
         GeneratePresignedUrlRequest presignedUrlRequest =
                 new GeneratePresignedUrlRequest(uploadBucket, uploadId, HttpMethod.PUT);
@@ -289,7 +419,7 @@ public class UploadService {
         presignedUrlRequest.addRequestParameter(SERVER_SIDE_ENCRYPTION, AES_256_SERVER_SIDE_ENCRYPTION);
 
         // Additional headers for signing
-        presignedUrlRequest.setContentMd5(uploadMd5);
+        presignedUrlRequest.setContentMd5(uploadRequest.getContentMd5());
         presignedUrlRequest.setContentType(uploadRequest.getContentType());
 
         URL url = s3UploadClient.generatePresignedUrl(presignedUrlRequest);
@@ -443,31 +573,53 @@ public class UploadService {
      * Polls for validation status for a given upload ID. Polls until validation is complete or otherwise is in a state
      * where further polling won't get any results (like validation failed, or upload is requested but not yet
      * uploaded), or until it times out. See getUploadValidationStatus() for more details.
+     * 
+     * Rather than sleeping between polls, this waits for the validation task (on this node or another node) to signal
+     * completion through the UploadCompletionRegistry, and then reads the status again. Each wait is bounded, so if a
+     * signal is lost, this falls back to polling.
      */
     public UploadValidationStatus pollUploadValidationStatusUntilComplete(String uploadId) {
-        // Loop logic is a little wonky. (Loop-and-a-half problem.) Use an infinite loop here and rely on tests to make
-        // sure we don't go infinite.
-        int numIters = 0;
-        while (true) {
-            UploadValidationStatus validationStatus = getUploadValidationStatus(uploadId);
-            if (validationStatus.getStatus() != UploadStatus.VALIDATION_IN_PROGRESS) {
-                // Validation is either finished processing, or otherwise in a state where it's pointless to wait.
-                // Return the answer we have now.
-                return validationStatus;
-            }
+        // Register before reading the status, so we can't miss a completion that happens in between.
+        CompletableFuture<Void> completion = uploadCompletionRegistry.register(uploadId);
+        try {
+            // Loop logic is a little wonky. (Loop-and-a-half problem.) Use an infinite loop here and rely on tests to
+            // make sure we don't go infinite.
+            int numIters = 0;
+            while (true) {
+                UploadValidationStatus validationStatus = getUploadValidationStatus(uploadId);
+                if (validationStatus.getStatus() != UploadStatus.VALIDATION_IN_PROGRESS) {
+                    // Validation is either finished processing, or otherwise in a state where it's pointless to wait.
+                    // Return the answer we have now.
+                    return validationStatus;
+                }
 
-            // Short-circuit: If we've elapsed our timeout, just exit now. Don't wait for a sleep.
-            numIters++;
-            if (numIters >= pollValidationStatusMaxIterations) {
-                throw new BridgeServiceException("Timeout polling validation status for upload " + uploadId);
+                // Short-circuit: If we've elapsed our timeout, just exit now. Don't wait for a signal.
+                numIters++;
+                if (numIters >= pollValidationStatusMaxIterations) {
+                    throw new BridgeServiceException("Timeout polling validation status for upload " + uploadId);
+                }
+
+                awaitValidationCompletion(completion);
             }
+        } finally {
+            uploadCompletionRegistry.unregister(uploadId, completion);
+        }
+    }
 
-            // Sleep and try again.
-            try {
+    private void awaitValidationCompletion(CompletableFuture<Void> completion) {
+        try {
+            if (completion.isDone()) {
+                // We were signaled, but the status has not been updated (writing the status failed). Don't spin.
                 Thread.sleep(pollValidationStatusSleepMillis);
-            } catch (InterruptedException ex) {
-                logger.error("Interrupted while polling for validation status: " + ex.getMessage());
+            } else {
+                completion.get(pollValidationStatusSleepMillis, TimeUnit.MILLISECONDS);
             }
+        } catch (TimeoutException ex) {
+            // No signal within this iteration. Check the status again.
+        } catch (ExecutionException ex) {
+            logger.error("Error waiting for validation status: " + ex.getMessage(), ex);
+        } catch (InterruptedException ex) {
+            logger.error("Interrupted while polling for validation status: " + ex.getMessage());
         }
     }
 
@@ -531,15 +683,19 @@ public class UploadService {
     public void deleteUploadsForHealthCode(String healthCode) {
         checkArgument(isNotBlank(healthCode));
 
-        // Delete from DynamoDB.
-        List<String> uploadIdList = uploadDao.deleteUploadsForHealthCode(healthCode);
+        // The records are deleted last, so if deleting the files fails, the files can still be found when the 
+        // deletion is retried.
+        List<String> uploadIdList = uploadDao.getUploadIdsForHealthCode(healthCode);
 
-        // Delete files from S3.
-        // If the file does not exist on S3, the s3Client will actually return success
-        // instead of an error message.
-        for (String uploadId : uploadIdList) {
-            s3Client.deleteObject(uploadBucket, uploadId);
+        // Delete files from S3, up to S3's limit of keys per request. Files that do not exist on S3 are
+        // reported as deleted rather than as errors.
+        for (List<String> uploadIdBatch : Lists.partition(uploadIdList, S3_DELETE_OBJECTS_MAX_KEYS)) {
+            s3Client.deleteObjects(new DeleteObjectsRequest(uploadBucket)
+                    .withKeys(uploadIdBatch.toArray(new String[0])).withQuiet(true));
         }
+        
+        // Delete from DynamoDB.
+        uploadDao.deleteUploadsForHealthCode(healthCode);
     }
 
     /**
@@ -5,6 +5,7 @@ import static org.sagebionetworks.bridge.AuthEvaluatorField.USER_ID;
 import static org.sagebionetworks.bridge.AuthUtils.CAN_EDIT_ACCOUNTS;
 import static org.sagebionetworks.bridge.BridgeUtils.parseAccountId;
 import static org.sagebionetworks.bridge.Roles.ORG_ADMIN;
+import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
 import static org.sagebionetworks.bridge.models.RequestInfo.REQUEST_INFO_WRITER;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -56,6 +57,7 @@ public class AccountsController extends BaseController  {
     static final StatusMessage EMAIL_VERIFY_MSG = new StatusMessage("Email verification request has been resent to user.");
     static final StatusMessage PHONE_VERIFY_MSG = new StatusMessage("Phone verification request has been resent to user.");
     static final StatusMessage SIGN_OUT_MSG = new StatusMessage("User signed out.");
+    static final StatusMessage SEARCH_TERMS_BACKFILL_MSG = new StatusMessage("Search term backfill started.");
     
     private AdminAccountService adminAccountService;
     
@@ -191,6 +193,16 @@ public class AccountsController extends BaseController  {
         return PHONE_VERIFY_MSG;
     }
     
+    @PostMapping("/v1/accounts/searchterms/backfill")
+    @ResponseStatus(code = ACCEPTED)
+    public StatusMessage backfillSearchTerms() {
+        getAuthenticatedSession(SUPERADMIN);
+        
+        accountService.startSearchTermsBackfill();
+        
+        return SEARCH_TERMS_BACKFILL_MSG;
+    }
+    
     @PostMapping("/v1/accounts/self/identifiers")
     public JsonNode updateIdentifiers() {
         UserSession session = getAuthenticatedSession();
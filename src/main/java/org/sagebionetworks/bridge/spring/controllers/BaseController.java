@@ -18,6 +18,8 @@ import javax.servlet.http.HttpServletResponse;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.ImmutableSet;
 
 import org.apache.commons.lang3.StringUtils;
@@ -70,6 +72,13 @@ public abstract class BaseController {
     }
     
     protected final static ObjectMapper MAPPER = BridgeObjectMapper.get();
+    
+    protected final static String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    
+    // Writes one value per line, for exports streamed as newline-delimited JSON. Values are not flushed one at a 
+    // time; the servlet container sends the response in chunks as its buffer fills.
+    protected final static ObjectWriter NDJSON_WRITER = MAPPER.writer().withRootValueSeparator("\n")
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 
     CacheProvider cacheProvider;
     
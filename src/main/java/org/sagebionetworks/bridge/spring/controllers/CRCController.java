@@ -103,6 +103,7 @@ import org.sagebionetworks.bridge.models.healthdata.HealthDataSubmission;
 import org.sagebionetworks.bridge.models.reports.ReportData;
 import org.sagebionetworks.bridge.services.GBFOrderService;
 import org.sagebionetworks.bridge.services.HealthDataService;
+import org.sagebionetworks.bridge.services.HttpClientService;
 import org.sagebionetworks.bridge.services.ParticipantService;
 import org.sagebionetworks.bridge.services.ReportService;
 import org.sagebionetworks.bridge.upload.UploadValidationException;
@@ -174,6 +175,8 @@ public class CRCController extends BaseController {
 
     private GBFOrderService gbfOrderService;
 
+    private HttpClientService httpClientService;
+
     @Autowired
     final void setParticipantService(ParticipantService participantService) {
         this.participantService = participantService;
@@ -193,6 +196,11 @@ public class CRCController extends BaseController {
     final void setGbfOrderService(GBFOrderService GBFOrderService) {
         this.gbfOrderService = GBFOrderService;
     }
+
+    @Autowired
+    final void setHttpClientService(HttpClientService httpClientService) {
+        this.httpClientService = httpClientService;
+    }
     
     DateTime getTimestamp() {
         return DateTime.now().withZone(DateTimeZone.UTC);
@@ -566,11 +574,11 @@ public class CRCController extends BaseController {
     HttpResponse put(String url, String bodyJson, Account account) throws IOException {
         Request request = Request.Put(url).bodyString(bodyJson, APPLICATION_JSON);
         request = addAuthorizationHeader(request, account);
-        return request.execute().returnResponse();
+        return httpClientService.getExecutor().execute(request).returnResponse();
     }
     
     HttpResponse get(String url) throws IOException {
-        return Request.Get(url).execute().returnResponse();
+        return httpClientService.getExecutor().execute(Request.Get(url)).returnResponse();
     }
 
 //    HttpResponse get(String url, Account account) throws IOException {
@@ -582,7 +590,7 @@ public class CRCController extends BaseController {
     HttpResponse post(String url, Account account, String body) throws IOException {
         Request request = Request.Post(url).bodyString(body, APPLICATION_FORM_URLENCODED);
         request = addAuthorizationHeader(request, account);
-        return request.execute().returnResponse();
+        return httpClientService.getExecutor().execute(request).returnResponse();
     }
 
     private Request addAuthorizationHeader(Request request, Account account) {
@@ -6,9 +6,13 @@ import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
+
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.SequenceWriter;
 
 import org.joda.time.DateTime;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -77,6 +81,30 @@ public class HealthDataController extends BaseController {
         return HealthDataRecord.PUBLIC_RECORD_WRITER.writeValueAsString(recordResourceList);
     }
 
+    /**
+     * Exports every health data record uploaded on the given date (in all apps) as newline-delimited JSON. Records 
+     * are written as they are read, so a whole day of records can be exported without holding them in memory.
+     */
+    @GetMapping("/v3/healthdata/uploadDate/{uploadDate}")
+    public void exportRecordsForUploadDate(@PathVariable String uploadDate) throws IOException {
+        getAuthenticatedSession(WORKER);
+
+        HttpServletResponse response = response();
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        
+        // The writer is only closed (which commits the response) if the export succeeds, so an invalid upload 
+        // date is still returned as an error.
+        SequenceWriter writer = NDJSON_WRITER.writeValues(response.getOutputStream());
+        healthDataService.streamRecordsForUploadDate(uploadDate, record -> {
+            try {
+                writer.write(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.close();
+    }
+
     /**
      * API to allow consented users to submit health data in a synchronous API, instead of using the asynchronous
      * upload API. This is most beneficial for small data sets, like simple surveys. This API returns the health data
@@ -22,13 +22,18 @@ import static org.sagebionetworks.bridge.models.sms.SmsType.PROMOTIONAL;
 import static org.sagebionetworks.bridge.spring.controllers.StudyParticipantController.INSTALL_LINK_SEND_MSG;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.servlet.http.HttpServletResponse;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.Sets;
 
@@ -74,6 +79,8 @@ import org.sagebionetworks.bridge.models.activities.ActivityEvent;
 import org.sagebionetworks.bridge.models.activities.CustomActivityEventRequest;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.apps.SmsTemplate;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutJob;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutRequest;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
 import org.sagebionetworks.bridge.models.schedules.ActivityType;
@@ -333,6 +340,34 @@ public class ParticipantController extends BaseController {
         return participantService.getPagedAccountSummaries(app, search);
     }
 
+    /**
+     * Exports a summary of every account in the app that matches the search as newline-delimited JSON, for the 
+     * participant roster worker and admin tools. Accounts are written as they are read, a page (of the search's 
+     * pageSize) at a time; the search's offsetBy is ignored.
+     */
+    @PostMapping("/v1/apps/{appId}/participants/export")
+    public void exportAccountSummariesForWorker(@PathVariable String appId) throws IOException {
+        getAuthenticatedSession(WORKER);
+        App app = appService.getApp(appId);
+        
+        AccountSummarySearch search = parseJson(AccountSummarySearch.class);
+        
+        HttpServletResponse response = response();
+        response.setContentType(APPLICATION_NDJSON_VALUE);
+        
+        // The writer is only closed (which commits the response) if the export succeeds, so an invalid search 
+        // is still returned as an error.
+        SequenceWriter writer = NDJSON_WRITER.writeValues(response.getOutputStream());
+        participantService.streamAccountSummaries(app, search, summary -> {
+            try {
+                writer.write(summary);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.close();
+    }
+
     @PostMapping("/v3/participants")
     @ResponseStatus(HttpStatus.CREATED)
     public IdentifierHolder createParticipant() {
@@ -651,6 +686,30 @@ public class ParticipantController extends BaseController {
                 + BridgeUtils.COMMA_SPACE_JOINER.join(erroredNotifications) + ".");
     }
 
+    /**
+     * Start a job that sends a push notification to all the participants matching an account search. The 
+     * returned job can be polled for progress.
+     */
+    @PostMapping("/v3/participants/notifications")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public NotificationFanOutJob sendNotificationToParticipants() {
+        UserSession session = getAuthenticatedSession(DEVELOPER, RESEARCHER);
+        App app = appService.getApp(session.getAppId());
+        
+        NotificationFanOutRequest request = parseJson(NotificationFanOutRequest.class);
+        
+        return participantService.sendNotificationToParticipants(app, null, request.getSearch(),
+                request.getMessage());
+    }
+    
+    @GetMapping("/v3/participants/notifications/{jobId}")
+    public NotificationFanOutJob getNotificationFanOutJob(@PathVariable String jobId) {
+        UserSession session = getAuthenticatedSession(DEVELOPER, RESEARCHER);
+        App app = appService.getApp(session.getAppId());
+        
+        return participantService.getNotificationFanOutJob(app, jobId);
+    }
+
     @GetMapping(path = {"/v3/participants/{userId}/activityEvents",
             "/v3/participants/{userId}/activityevents"}, produces = { APPLICATION_JSON_VALUE })
     public ResourceList<ActivityEvent> getActivityEvents(@PathVariable String userId) throws JsonProcessingException {
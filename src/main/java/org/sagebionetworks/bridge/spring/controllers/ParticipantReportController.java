@@ -8,6 +8,9 @@ import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.RESEARCHER;
 import static org.sagebionetworks.bridge.Roles.WORKER;
+import static org.sagebionetworks.bridge.spring.controllers.StudyReportController.REPORT_DATA_LIST_TYPE_REF;
+
+import java.util.List;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -227,6 +230,28 @@ public class ParticipantReportController extends BaseController {
         return new StatusMessage("Report data saved.");
     }
     
+    /**
+     * Save many records of a participant report at once, in batch writes. As with saving a single record, the 
+     * caller must be a developer or researcher.
+     */
+    @PostMapping("/v4/participants/{userIdToken}/reports/{identifier}/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public StatusMessage saveParticipantReports(@PathVariable String userIdToken, @PathVariable String identifier) {
+        UserSession session = getAuthenticatedSession(DEVELOPER, RESEARCHER);
+
+        AccountId accountId = BridgeUtils.parseAccountId(session.getAppId(), userIdToken);
+        Account account = accountService.getAccount(accountId)
+                .orElseThrow(() -> new EntityNotFoundException(Account.class));
+
+        List<ReportData> reportDataList = parseJson(REPORT_DATA_LIST_TYPE_REF);
+        reportDataList.forEach(reportData -> reportData.setKey(null));
+        
+        reportService.saveParticipantReports(session.getAppId(), account.getId(), identifier, 
+                account.getHealthCode(), reportDataList);
+        
+        return new StatusMessage("Report data saved.");
+    }
+    
     /**
      * When saving, worker accounts do not know the userId of the account, only the healthCode, so a 
      * special method is needed.
@@ -68,6 +68,8 @@ import org.sagebionetworks.bridge.models.activities.StudyActivityEvent;
 import org.sagebionetworks.bridge.models.activities.StudyActivityEventIdsMap;
 import org.sagebionetworks.bridge.models.activities.StudyActivityEventRequest;
 import org.sagebionetworks.bridge.models.apps.App;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutJob;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutRequest;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
 import org.sagebionetworks.bridge.models.reports.ReportData;
@@ -544,6 +546,38 @@ public class StudyParticipantController extends BaseController {
                 + BridgeUtils.COMMA_SPACE_JOINER.join(erroredNotifications) + ".");
     }
     
+    /**
+     * Start a job that sends a push notification to all the participants enrolled in the study (optionally 
+     * narrowed by an account search). The returned job can be polled for progress.
+     */
+    @PostMapping("/v5/studies/{studyId}/participants/notifications")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public NotificationFanOutJob sendNotificationToParticipants(@PathVariable String studyId) {
+        UserSession session = getAdministrativeSession();
+        
+        CAN_EDIT_STUDY_PARTICIPANTS.checkAndThrow(STUDY_ID, studyId);
+        
+        NotificationFanOutRequest request = parseJson(NotificationFanOutRequest.class);
+        App app = appService.getApp(session.getAppId());
+        
+        return participantService.sendNotificationToParticipants(app, studyId, request.getSearch(),
+                request.getMessage());
+    }
+    
+    @GetMapping("/v5/studies/{studyId}/participants/notifications/{jobId}")
+    public NotificationFanOutJob getNotificationFanOutJob(@PathVariable String studyId, @PathVariable String jobId) {
+        UserSession session = getAdministrativeSession();
+        
+        CAN_EDIT_STUDY_PARTICIPANTS.checkAndThrow(STUDY_ID, studyId);
+        
+        App app = appService.getApp(session.getAppId());
+        NotificationFanOutJob job = participantService.getNotificationFanOutJob(app, jobId);
+        if (!studyId.equals(job.getStudyId())) {
+            throw new EntityNotFoundException(NotificationFanOutJob.class);
+        }
+        return job;
+    }
+    
     @PostMapping("/v5/studies/{studyId}/participants/{userId}/sendInstallLink")
     @ResponseStatus(HttpStatus.ACCEPTED)
     public StatusMessage sendInstallLink(@PathVariable String studyId, @PathVariable String userId, 
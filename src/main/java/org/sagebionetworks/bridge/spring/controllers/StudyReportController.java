@@ -10,6 +10,9 @@ import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.sagebionetworks.bridge.models.reports.ReportType.PARTICIPANT;
 import static org.sagebionetworks.bridge.models.reports.ReportType.STUDY;
 
+import java.util.List;
+
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,6 +56,8 @@ public class StudyReportController extends BaseController {
     static final StatusMessage DELETED_DATA_MSG = new StatusMessage("Report record deleted.");
     static final StatusMessage DELETED_MSG = new StatusMessage("Report deleted.");
     static final StatusMessage SAVED_MSG = new StatusMessage("Report data saved.");
+    static final TypeReference<List<ReportData>> REPORT_DATA_LIST_TYPE_REF = 
+            new TypeReference<List<ReportData>>() {};
     
     @Autowired
     ReportService reportService;
@@ -158,6 +163,39 @@ public class StudyReportController extends BaseController {
         return SAVED_MSG;
     }
     
+    /**
+     * Save many records of a study report at once. This is intended for developers and worker processes that 
+     * push large numbers of data points; the records are saved in batch writes.
+     */
+    @PostMapping("/v4/reports/{identifier}/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public StatusMessage saveStudyReports(@PathVariable String identifier) {
+        UserSession session = getAuthenticatedSession(DEVELOPER, WORKER);
+        
+        List<ReportData> reportDataList = parseJson(REPORT_DATA_LIST_TYPE_REF);
+        reportDataList.forEach(reportData -> reportData.setKey(null));
+        
+        reportService.saveStudyReports(session.getAppId(), identifier, reportDataList);
+        
+        return SAVED_MSG;
+    }
+    
+    /**
+     * A similar method as above but specifying app id only for WORKER
+     */
+    @PostMapping("/v1/apps/{appId}/reports/{identifier}/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public StatusMessage saveStudyReportsForWorker(@PathVariable String appId, @PathVariable String identifier) {
+        getAuthenticatedSession(WORKER);
+        
+        List<ReportData> reportDataList = parseJson(REPORT_DATA_LIST_TYPE_REF);
+        reportDataList.forEach(reportData -> reportData.setKey(null));
+        
+        reportService.saveStudyReports(appId, identifier, reportDataList);
+        
+        return SAVED_MSG;
+    }
+    
     /**
      * Developers and workers can delete study report data. This is not performant for large data sets and 
      * should only be done during testing.
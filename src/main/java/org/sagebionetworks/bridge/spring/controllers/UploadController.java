@@ -8,9 +8,11 @@ import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableSet;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +28,7 @@ import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.RequestInfo;
+import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.upload.Upload;
@@ -42,6 +45,9 @@ import org.sagebionetworks.bridge.time.DateUtils;
 @CrossOrigin
 @RestController
 public class UploadController extends BaseController {
+    
+    static final TypeReference<List<UploadRequest>> UPLOAD_REQUEST_LIST_TYPE_REF =
+            new TypeReference<List<UploadRequest>>() {};
 
     private UploadService uploadService;
     
@@ -103,6 +109,28 @@ public class UploadController extends BaseController {
         return uploadSession;
     }
 
+    /**
+     * Creates an upload session for each of a list of upload requests, for clients that have queued several files. The
+     * sessions are returned in the order of the requests.
+     */
+    @PostMapping("/v3/uploads/batch")
+    public ResourceList<UploadSession> uploadBatch() {
+        UserSession session = getAuthenticatedAndConsentedSession();
+        List<UploadRequest> uploadRequests = parseJson(UPLOAD_REQUEST_LIST_TYPE_REF);
+        List<UploadSession> uploadSessions = uploadService.createUploads(session.getAppId(), session.getParticipant(),
+                uploadRequests);
+        final Metrics metrics = getMetrics();
+        if (metrics != null) {
+            metrics.setUploadSize(uploadRequests.stream().mapToLong(UploadRequest::getContentLength).sum());
+        }
+        
+        RequestInfo requestInfo = getRequestInfoBuilder(session)
+                .withUploadedOn(DateUtils.getCurrentDateTime()).build();
+        requestInfoService.updateRequestInfo(requestInfo);
+        
+        return new ResourceList<>(uploadSessions);
+    }
+
     /**
      * <p>
      * Signals to the Bridge server that the upload is complete. This kicks off the asynchronous validation process
@@ -0,0 +1,89 @@
+package org.sagebionetworks.bridge.spring.util;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Node-wide aggregate of storage call counts and latencies, keyed by operation (e.g.
+ * "HibernateAccountDao.getAccount"). Request-scoped totals are recorded in the request's Metrics;
+ * this registry accumulates across requests and periodically logs the most expensive operations.
+ */
+@Component
+public class StorageMetricsRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(StorageMetricsRegistry.class);
+
+    static final long LOG_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    static final int LOG_TOP_N = 25;
+
+    private final ConcurrentMap<String, CallStats> stats = new ConcurrentHashMap<>();
+    private final AtomicLong lastLoggedOn = new AtomicLong(System.currentTimeMillis());
+
+    public void record(String operation, long elapsedMillis) {
+        stats.computeIfAbsent(operation, (key) -> new CallStats()).add(elapsedMillis);
+
+        long lastLogged = lastLoggedOn.get();
+        long now = System.currentTimeMillis();
+        if (now - lastLogged >= LOG_INTERVAL_MILLIS && lastLoggedOn.compareAndSet(lastLogged, now)) {
+            logSnapshot();
+        }
+    }
+
+    /** An immutable view of the statistics collected so far. */
+    public Map<String, CallStats> getSnapshot() {
+        return ImmutableMap.copyOf(stats);
+    }
+
+    public void clear() {
+        stats.clear();
+    }
+
+    void logSnapshot() {
+        if (!LOG.isInfoEnabled()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("Storage call statistics (top " + LOG_TOP_N + " by total millis):");
+        stats.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, CallStats> entry) -> entry.getValue().getTotalMillis())
+                    .reversed())
+            .limit(LOG_TOP_N)
+            .forEach(entry -> sb.append(" ").append(entry.getKey()).append(entry.getValue()));
+        LOG.info(sb.toString());
+    }
+
+    public static final class CallStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final LongAccumulator maxMillis = new LongAccumulator(Math::max, 0L);
+
+        void add(long elapsedMillis) {
+            count.increment();
+            totalMillis.add(elapsedMillis);
+            maxMillis.accumulate(elapsedMillis);
+        }
+        public long getCount() {
+            return count.sum();
+        }
+        public long getTotalMillis() {
+            return totalMillis.sum();
+        }
+        public long getMaxMillis() {
+            return maxMillis.get();
+        }
+        @Override
+        public String toString() {
+            return "[count=" + getCount() + ", totalMillis=" + getTotalMillis() + ", maxMillis=" + getMaxMillis() + "]";
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.sagebionetworks.bridge.spring.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.models.Metrics;
+
+/**
+ * Times every call through a DAO interface (MySQL via Hibernate, or DynamoDB) and every call through
+ * the CacheProvider (Redis). Each call is added to the request's Metrics as a per-backend count and
+ * elapsed time (dbCalls/dbMillis, dynamoCalls/dynamoMillis, redisCalls/redisMillis), and to the
+ * node-wide StorageMetricsRegistry under the name of the implementing class and method.
+ */
+@Aspect
+@Component
+public class StorageTimingComponent {
+
+    static final String DB = "db";
+    static final String DYNAMO = "dynamo";
+    static final String REDIS = "redis";
+    private static final String DYNAMO_PREFIX = "Dynamo";
+
+    private StorageMetricsRegistry registry;
+
+    @Autowired
+    final void setStorageMetricsRegistry(StorageMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * org.sagebionetworks.bridge.dao.*.*(..))")
+    public Object timeDaoCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = getTargetClassName(joinPoint);
+        String storageType = className.startsWith(DYNAMO_PREFIX) ? DYNAMO : DB;
+        return time(joinPoint, className, storageType);
+    }
+
+    @Around("execution(public * org.sagebionetworks.bridge.cache.CacheProvider.*(..))")
+    public Object timeCacheCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, getTargetClassName(joinPoint), REDIS);
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String className, String storageType) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            Metrics metrics = RequestContext.get().getMetrics();
+            if (metrics != null) {
+                metrics.recordStorageCall(storageType, elapsedMillis);
+            }
+            registry.record(className + "." + joinPoint.getSignature().getName(), elapsedMillis);
+        }
+    }
+
+    private String getTargetClassName(ProceedingJoinPoint joinPoint) {
+        Object target = joinPoint.getTarget();
+        return (target == null) ? joinPoint.getSignature().getDeclaringType().getSimpleName() :
+            target.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,142 @@
+package org.sagebionetworks.bridge.upload;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * Lets a request that is synchronously waiting for upload validation wait for the validation task to finish, rather
+ * than repeatedly reading the validation status. Waiters register a future for an upload ID; when an
+ * UploadValidationTask finishes, it signals the registry, which completes the futures registered on this node and
+ * publishes the upload ID to a Redis channel (keyed by upload ID) so that futures registered on other nodes are
+ * completed as well.
+ */
+@Component
+public class UploadCompletionRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(UploadCompletionRegistry.class);
+
+    static final String CHANNEL_PREFIX = "uploadComplete:";
+    static final String CHANNEL_PATTERN = CHANNEL_PREFIX + "*";
+    static final long RESUBSCRIBE_DELAY_MILLIS = 5000;
+
+    private final ConcurrentMap<String, Set<CompletableFuture<Void>>> waiters = new ConcurrentHashMap<>();
+    private final JedisPubSub subscriber = new JedisPubSub() {
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+            completeLocal(message);
+        }
+    };
+    private volatile boolean running;
+    private Thread subscriberThread;
+    private JedisPool jedisPool;
+
+    @Resource(name = "jedisPool")
+    final void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
+
+    /** Starts listening for completions published by other nodes. */
+    @PostConstruct
+    public void start() {
+        running = true;
+        subscriberThread = new Thread(this::subscribe, "upload-completion-subscriber");
+        subscriberThread.setDaemon(true);
+        subscriberThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (subscriber.isSubscribed()) {
+            subscriber.punsubscribe();
+        }
+        if (subscriberThread != null) {
+            subscriberThread.interrupt();
+        }
+    }
+
+    /**
+     * Returns a future that completes when validation of the upload finishes. Callers must call
+     * {@link #unregister(String, CompletableFuture)} when they are done waiting.
+     */
+    public CompletableFuture<Void> register(String uploadId) {
+        checkNotNull(uploadId);
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        waiters.computeIfAbsent(uploadId, (key) -> ConcurrentHashMap.newKeySet()).add(future);
+        return future;
+    }
+
+    public void unregister(String uploadId, CompletableFuture<Void> future) {
+        checkNotNull(uploadId);
+
+        waiters.computeIfPresent(uploadId, (key, futures) -> {
+            futures.remove(future);
+            return futures.isEmpty() ? null : futures;
+        });
+    }
+
+    /**
+     * Called when validation of an upload has finished (successfully or not) and its status has been written. The
+     * notification to other nodes is best effort; waiters fall back to reading the validation status if it is lost.
+     */
+    public void signalComplete(String uploadId) {
+        checkNotNull(uploadId);
+
+        completeLocal(uploadId);
+        try (Jedis jedis = jedisPool.getResource()) {
+            jedis.publish(CHANNEL_PREFIX + uploadId, uploadId);
+        } catch (RuntimeException ex) {
+            LOG.warn("Error publishing completion of upload " + uploadId + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    /** Number of upload IDs with registered waiters. Package-scoped for unit tests. */
+    int getWaitingUploadCount() {
+        return waiters.size();
+    }
+
+    void completeLocal(String uploadId) {
+        Set<CompletableFuture<Void>> futures = waiters.remove(uploadId);
+        if (futures != null) {
+            for (CompletableFuture<Void> future : futures) {
+                future.complete(null);
+            }
+        }
+    }
+
+    private void subscribe() {
+        while (running) {
+            // psubscribe() blocks for as long as the subscription is open.
+            try (Jedis jedis = jedisPool.getResource()) {
+                jedis.psubscribe(subscriber, CHANNEL_PATTERN);
+            } catch (RuntimeException ex) {
+                if (running) {
+                    LOG.warn("Upload completion subscription failed, resubscribing: " + ex.getMessage(), ex);
+                }
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RESUBSCRIBE_DELAY_MILLIS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ public class UploadValidationTask implements Runnable {
     private List<UploadValidationHandler> handlerList;
     private UploadDao uploadDao;
     private HealthDataService healthDataService;
+    private UploadCompletionRegistry uploadCompletionRegistry;
 
     public final void setHealthDataService(HealthDataService healthDataService) {
         this.healthDataService = healthDataService;
@@ -82,6 +83,19 @@ public class UploadValidationTask implements Runnable {
         return uploadDao;
     }
 
+    /**
+     * Registry used to signal requests waiting synchronously for validation to complete. This is configured by Spring
+     * through the task factory.
+     */
+    public final void setUploadCompletionRegistry(UploadCompletionRegistry uploadCompletionRegistry) {
+        this.uploadCompletionRegistry = uploadCompletionRegistry;
+    }
+
+    /** This is package-scoped to facilitate unit tests. */
+    /* package-scoped*/ UploadCompletionRegistry getUploadCompletionRegistry() {
+        return uploadCompletionRegistry;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void run() {
@@ -139,6 +153,10 @@ public class UploadValidationTask implements Runnable {
             logWriteValidationStatusException(status, ex);
         }
 
+        // Wake up any request waiting synchronously for this upload. It re-reads the status, so if writing the status
+        // failed above, it continues to wait.
+        uploadCompletionRegistry.signalComplete(context.getUpload().getUploadId());
+
         // TODO: if validation fails, wipe the files from S3
 
         // Finally, delete the temp dir.
@@ -23,6 +23,7 @@ public class UploadValidationTaskFactory {
     private List<UploadValidationHandler> handlerList;
     private UploadDao uploadDao;
     private HealthDataService healthDataService;
+    private UploadCompletionRegistry uploadCompletionRegistry;
 
     /** File helper, used to create and delete the temp directory in which we process uploads. */
     @Autowired
@@ -47,6 +48,12 @@ public class UploadValidationTaskFactory {
         this.healthDataService = healthDataService;
     }
 
+    /** Registry used to signal requests waiting synchronously for validation. This is configured by Spring. */
+    @Autowired
+    public final void setUploadCompletionRegistry(UploadCompletionRegistry uploadCompletionRegistry) {
+        this.uploadCompletionRegistry = uploadCompletionRegistry;
+    }
+
     /**
      * Factory method for creating a validation task instance, for validating a single upload.
      *
@@ -69,6 +76,7 @@ public class UploadValidationTaskFactory {
         task.setHandlerList(handlerList);
         task.setUploadDao(uploadDao);
         task.setHealthDataService(healthDataService);
+        task.setUploadCompletionRegistry(uploadCompletionRegistry);
         return task;
     }
 }
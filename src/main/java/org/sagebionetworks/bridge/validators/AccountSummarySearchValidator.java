@@ -14,6 +14,7 @@ import org.springframework.validation.Validator;
 public class AccountSummarySearchValidator implements Validator {
     public static final String DATE_RANGE_ERROR = "startDate should be before endDate";
     public static final String PAGE_RANGE_ERROR = "must be from "+API_MINIMUM_PAGE_SIZE+"-"+API_MAXIMUM_PAGE_SIZE+" records";
+    public static final String OFFSET_BY_AND_OFFSET_KEY_ERROR = "cannot be combined with an offsetKey";
 
     private Set<String> appDataGroups;
     
@@ -32,6 +33,9 @@ public class AccountSummarySearchValidator implements Validator {
         
         if (search.getOffsetBy() < 0) {
             errors.rejectValue("offsetBy", "cannot be less than 0");
+        } else if (search.getOffsetBy() > 0 && search.getOffsetKey() != null) {
+            // The key already marks where the page starts; skipping accounts after it is almost certainly an error.
+            errors.rejectValue("offsetBy", OFFSET_BY_AND_OFFSET_KEY_ERROR);
         }
         // Just set a sane upper limit on this.
         if (search.getPageSize() < API_MINIMUM_PAGE_SIZE || search.getPageSize() > API_MAXIMUM_PAGE_SIZE) {
@@ -33,6 +33,7 @@ public class AdherenceRecordsSearchValidator extends AbstractValidator {
             "eventTimestampEnd must be after eventTimestampStart";
     public static final String EVENT_TIMESTAMP_END_MUST_BE_WITHIN_RANGE =
             "must be within " + MAX_DATE_RANGE_IN_DAYS + " days of eventTimestampStart";
+    public static final String OFFSET_BY_AND_OFFSET_KEY_ERROR = "cannot be combined with an offsetKey";
     public static final String HAS_NO_HAS_MULTIPLE_UPLOAD_IDS_ERROR =
             "cannot specify both hasMultipleUploadIds and hasNoUploadIds";
 
@@ -111,6 +112,9 @@ public class AdherenceRecordsSearchValidator extends AbstractValidator {
 
         if (search.getOffsetBy() < 0) {
             errors.rejectValue(OFFSET_BY_FIELD, CANNOT_BE_NEGATIVE);
+        } else if (search.getOffsetBy() > 0 && search.getOffsetKey() != null) {
+            // The key already marks where the page starts; skipping records after it is almost certainly an error.
+            errors.rejectValue(OFFSET_BY_FIELD, OFFSET_BY_AND_OFFSET_KEY_ERROR);
         }
         if (search.getPageSize() < 1 || search.getPageSize() > MAX_PAGE_SIZE) {
             errors.rejectValue(PAGE_SIZE_FIELD, PAGE_SIZE_ERROR);
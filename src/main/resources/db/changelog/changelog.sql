@@ -1098,3 +1098,24 @@ ALTER TABLE `AdherenceRecords`
 ADD COLUMN `postProcessingAttributes` text COLLATE utf8_unicode_ci DEFAULT NULL,
 ADD COLUMN `postProcessingCompletedOn` bigint(20) unsigned DEFAULT NULL,
 ADD COLUMN `postProcessingStatus` varchar(255) DEFAULT NULL;
+
+-- changeset bridge:81
+
+ALTER TABLE `StudyActivityEvents`
+ADD INDEX `StudyActivityEvents-UserId-StudyId-EventId-CreatedOn` (userId, studyId, eventId, createdOn);
+
+-- changeset bridge:82
+
+CREATE TABLE IF NOT EXISTS `AccountSearchTerms` (
+  `accountId` varchar(255) NOT NULL,
+  `term` varchar(300) COLLATE utf8_bin NOT NULL,
+  PRIMARY KEY (`accountId`,`term`),
+  KEY `AccountSearchTerms-Term-Index` (`term`),
+  CONSTRAINT `AccountSearchTerms-Id-Constraint` FOREIGN KEY (`accountId`) REFERENCES `Accounts` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_unicode_ci;
+
+-- changeset bridge:83
+
+-- Account summary pages are ordered by (createdOn, id) and seek past the last account of the prior page.
+ALTER TABLE `Accounts`
+ADD INDEX `Accounts-StudyId-CreatedOn-Id` (studyId, createdOn, id);
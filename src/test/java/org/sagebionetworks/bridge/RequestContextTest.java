@@ -162,6 +162,18 @@ public class RequestContextTest extends Mockito {
         assertFalse(context.isInRole((Set<Roles>)null));
     }
     
+    @Test
+    public void callerRolesBitmasks() {
+        RequestContext context = new RequestContext.Builder().withCallerRoles(ImmutableSet.of(ADMIN)).build();
+        
+        assertEquals(context.getCallerRolesBitmask(), ADMIN.bit());
+        assertEquals(context.getCallerPassesAsRolesBitmask(), Roles.toBitmask(Roles.PASSES_AS_ROLE.get(ADMIN)));
+        
+        context = new RequestContext.Builder().build();
+        assertEquals(context.getCallerRolesBitmask(), 0);
+        assertEquals(context.getCallerPassesAsRolesBitmask(), 0);
+    }
+    
     @Test
     public void isAdministratorTrue() {
         RequestContext context = new RequestContext.Builder().withCallerRoles(ImmutableSet.of(DEVELOPER)).build();
@@ -12,6 +12,7 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.models.ThrottleRequestType;
 import org.sagebionetworks.bridge.models.accounts.SignIn;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessageType;
 import org.sagebionetworks.bridge.models.schedules2.timelines.Timeline;
 import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 
@@ -75,6 +76,43 @@ public class CacheKeyTest {
                 "ABC:channel-signin-to-session-token");
     }
 
+    @Test
+    public void outboxQueue() {
+        assertEquals(CacheKey.outboxQueue().toString(), "OutboxQueue");
+    }
+    
+    @Test
+    public void accountCount() {
+        assertEquals(CacheKey.accountCount("appId").toString(), "appId:AccountCount");
+    }
+    
+    @Test
+    public void accountSearchTermsBackfill() {
+        assertEquals(CacheKey.accountSearchTermsBackfill().toString(), "AccountSearchTermsBackfill");
+    }
+    
+    @Test
+    public void accountDeletion() {
+        assertEquals(CacheKey.accountDeletion("userId").toString(), "userId:AccountDeletion");
+    }
+    
+    @Test
+    public void accountSummaryTotal() {
+        assertEquals(CacheKey.accountSummaryTotal("appId", "signature").toString(),
+                "appId:signature:AccountSummaryTotal");
+    }
+    
+    @Test
+    public void outboxDelivery() {
+        assertEquals(CacheKey.outboxDelivery("messageId").toString(), "messageId:OutboxDelivery");
+    }
+    
+    @Test
+    public void outboxRate() {
+        assertEquals(CacheKey.outboxRate(OutboxMessageType.EMAIL, 1600000000L).toString(),
+                "1600000000:email:OutboxRate");
+    }
+    
     @Test
     public void channelThrottling() {
         assertEquals(CacheKey.channelThrottling(ThrottleRequestType.EMAIL_SIGNIN, "userId").toString(),
@@ -185,4 +223,26 @@ public class CacheKeyTest {
         String key = TEST_APP_ID + ":" + TEST_STUDY_ID + ":PublicStudy";
         assertEquals(CacheKey.publicStudy(TEST_APP_ID, TEST_STUDY_ID).toString(), key);
     }
+    
+    @Test
+    public void study() {
+        String key = TEST_STUDY_ID + ":" + TEST_APP_ID + ":Study";
+        assertEquals(CacheKey.study(TEST_APP_ID, TEST_STUDY_ID).toString(), key);
+    }
+    
+    @Test
+    public void studyIds() {
+        assertEquals(CacheKey.studyIds(TEST_APP_ID).toString(), TEST_APP_ID + ":StudyIds");
+    }
+    
+    @Test
+    public void studyVersion() {
+        String key = TEST_STUDY_ID + ":" + TEST_APP_ID + ":StudyVersion";
+        assertEquals(CacheKey.studyVersion(TEST_APP_ID, TEST_STUDY_ID).toString(), key);
+    }
+    
+    @Test
+    public void studyIdsVersion() {
+        assertEquals(CacheKey.studyIdsVersion(TEST_APP_ID).toString(), TEST_APP_ID + ":StudyIdsVersion");
+    }
 }
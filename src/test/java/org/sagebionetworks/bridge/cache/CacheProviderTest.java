@@ -37,6 +37,7 @@ import org.sagebionetworks.bridge.config.BridgeConfigFactory;
 import org.sagebionetworks.bridge.config.Environment;
 import org.sagebionetworks.bridge.crypto.AesGcmEncryptor;
 import org.sagebionetworks.bridge.crypto.Encryptor;
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.accounts.ConsentStatus;
@@ -49,16 +50,20 @@ import org.sagebionetworks.bridge.models.subpopulations.SubpopulationGuid;
 import org.sagebionetworks.bridge.redis.JedisOps;
 import org.sagebionetworks.bridge.redis.JedisTransaction;
 
+import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 public class CacheProviderTest {
     private static final CacheKey CACHE_KEY = CacheKey.app("key");
+    private static final CacheKey VERSION_KEY = CacheKey.studyIdsVersion("key");
     private static final Encryptor ENCRYPTOR = new AesGcmEncryptor(BridgeConfigFactory.getConfig().getProperty("bridge.healthcode.redis.key"));
     private static final String REQUEST_INFO_KEY = "userId:request-info";
     private static final String TEST_ID_KEY = TEST_APP_ID + ":App";
@@ -76,6 +81,12 @@ public class CacheProviderTest {
     @Mock
     private JedisOps jedisOps;
 
+    @Mock
+    private JedisPool jedisPool;
+
+    @Mock
+    private Jedis jedis;
+
     @Captor
     private ArgumentCaptor<String> stringCaptor;
 
@@ -161,8 +172,11 @@ public class CacheProviderTest {
         when(jedisOps.getTransaction()).thenReturn(transaction);
         when(jedisOps.get(TOKEN_TO_USER_ID.toString())).thenReturn(USER_ID);
 
+        when(jedisPool.getResource()).thenReturn(jedis);
+
         cacheProvider = new CacheProvider();
         cacheProvider.setJedisOps(jedisOps);
+        cacheProvider.setJedisPool(jedisPool);
     }
 
     private UserSession createUserSession() {
@@ -617,4 +631,90 @@ public class CacheProviderTest {
         cacheProvider.removeApp(TEST_APP_ID);
         verify(jedisOps).del(TEST_ID_KEY);
     }
+
+    @Test
+    public void incrementIfBelowLimit() {
+        when(jedis.eval(any(String.class), any(List.class), any(List.class))).thenReturn(1L);
+        
+        assertTrue(cacheProvider.incrementIfBelowLimit(CACHE_KEY, 2, 300));
+        
+        verify(jedis).eval(CacheProvider.INCREMENT_IF_BELOW_LIMIT_SCRIPT, ImmutableList.of(CACHE_KEY.toString()),
+                ImmutableList.of("2", "300"));
+        verify(jedis).close();
+    }
+
+    @Test
+    public void incrementIfBelowLimitAtLimit() {
+        when(jedis.eval(any(String.class), any(List.class), any(List.class))).thenReturn(0L);
+        
+        assertFalse(cacheProvider.incrementIfBelowLimit(CACHE_KEY, 2, 300));
+        verify(jedis).close();
+    }
+
+    @Test(expectedExceptions = BridgeServiceException.class)
+    public void incrementIfBelowLimitRedisError() {
+        when(jedis.eval(any(String.class), any(List.class), any(List.class)))
+                .thenThrow(new JedisConnectionException("connection refused"));
+        
+        cacheProvider.incrementIfBelowLimit(CACHE_KEY, 2, 300);
+    }
+
+    @Test
+    public void incrementIfPresent() {
+        when(jedis.eval(any(String.class), any(List.class), any(List.class))).thenReturn(5L);
+        
+        assertEquals(cacheProvider.incrementIfPresent(CACHE_KEY, -1), Long.valueOf(5L));
+        
+        verify(jedis).eval(CacheProvider.INCREMENT_IF_PRESENT_SCRIPT, ImmutableList.of(CACHE_KEY.toString()),
+                ImmutableList.of("-1"));
+        verify(jedis).close();
+    }
+
+    @Test
+    public void incrementIfPresentNotCached() {
+        when(jedis.eval(any(String.class), any(List.class), any(List.class))).thenReturn(null);
+        
+        assertNull(cacheProvider.incrementIfPresent(CACHE_KEY, 1));
+        verify(jedis).close();
+    }
+
+    @Test
+    public void getVersion() {
+        when(jedisOps.get(VERSION_KEY.toString())).thenReturn("3");
+        
+        assertEquals(cacheProvider.getVersion(VERSION_KEY), 3L);
+    }
+
+    @Test
+    public void getVersionNotCached() {
+        assertEquals(cacheProvider.getVersion(VERSION_KEY), 0L);
+    }
+
+    @Test
+    public void incrementVersion() {
+        cacheProvider.incrementVersion(VERSION_KEY);
+        
+        verify(jedis).incr(VERSION_KEY.toString());
+        verify(jedis).close();
+    }
+
+    @Test
+    public void setObjectIfVersion() throws Exception {
+        when(jedis.eval(any(String.class), any(List.class), any(List.class))).thenReturn(1L);
+        
+        assertTrue(cacheProvider.setObjectIfVersion(CACHE_KEY, ImmutableSet.of("a"), 300, VERSION_KEY, 3L));
+        
+        verify(jedis).eval(CacheProvider.SET_IF_VERSION_SCRIPT, 
+                ImmutableList.of(CACHE_KEY.toString(), VERSION_KEY.toString()), 
+                ImmutableList.of(BridgeObjectMapper.get().writeValueAsString(ImmutableSet.of("a")), "300", "3"));
+        verify(jedis).close();
+    }
+
+    @Test
+    public void setObjectIfVersionChanged() {
+        when(jedis.eval(any(String.class), any(List.class), any(List.class))).thenReturn(0L);
+        
+        assertFalse(cacheProvider.setObjectIfVersion(CACHE_KEY, ImmutableSet.of("a"), 300, VERSION_KEY, 3L));
+        verify(jedis).close();
+    }
 }
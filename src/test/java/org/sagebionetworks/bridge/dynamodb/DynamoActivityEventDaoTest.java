@@ -13,7 +13,7 @@ import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateTy
 import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.MUTABLE;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
-import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.util.List;
@@ -21,7 +21,10 @@ import java.util.Map;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBSaveExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
 import com.google.common.collect.ImmutableList;
 
 import org.joda.time.DateTime;
@@ -65,15 +68,15 @@ public class DynamoActivityEventDaoTest extends Mockito {
     @Mock
     PaginatedQueryList<DynamoActivityEvent> queryResults;
     
-    @Captor
-    ArgumentCaptor<DynamoActivityEvent> eventCaptor;
-    
     @Captor
     ArgumentCaptor<DynamoDBQueryExpression<DynamoActivityEvent>> queryCaptor;
     
     @Captor
     ArgumentCaptor<List<DynamoActivityEvent>> listCaptor;
     
+    @Captor
+    ArgumentCaptor<DynamoDBSaveExpression> saveExpressionCaptor;
+    
     @BeforeMethod
     public void before() {
         MockitoAnnotations.initMocks(this);
@@ -84,73 +87,41 @@ public class DynamoActivityEventDaoTest extends Mockito {
         boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
         assertTrue(result);
         
-        verify(mockMapper).load(eventCaptor.capture());
-        DynamoActivityEvent loadKey = eventCaptor.getValue();
-        assertEquals(loadKey.getHealthCode(), HEALTH_CODE);
-        assertEquals(loadKey.getEventId(), "survey:AAA-BBB-CCC:finished");
+        verify(mockMapper).save(eq(SURVEY_FINISHED_EVENT), saveExpressionCaptor.capture());
+        verify(mockMapper, never()).load(any());
         
-        verify(mockMapper).save(eventCaptor.capture());
-        assertSame(eventCaptor.getValue(), SURVEY_FINISHED_EVENT);
+        // Future-only events are written if they do not exist, or if they are later
+        DynamoDBSaveExpression expression = saveExpressionCaptor.getValue();
+        assertEquals(expression.getConditionalOperator(), "OR");
+        assertFalse(expression.getExpected().get("eventId").getExists());
+        ExpectedAttributeValue timestamp = expression.getExpected().get("timestamp");
+        assertEquals(timestamp.getComparisonOperator(), "LT");
+        assertEquals(timestamp.getAttributeValueList().get(0).getN(), Long.toString(TIMESTAMP.getMillis()));
     }
     
     @Test
-    public void publishEventIsMutableAndLater() {
-        DynamoActivityEvent earlierEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(SURVEY).withEventType(FINISHED).withTimestamp(TIMESTAMP.minusHours(1))
-                .withObjectId("AAA-BBB-CCC").build();
-        when(mockMapper.load(any())).thenReturn(earlierEvent);
-        
-        boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
-        assertTrue(result);
-        
-        verify(mockMapper).save(eventCaptor.capture());
-        assertSame(eventCaptor.getValue(), SURVEY_FINISHED_EVENT);
-    }
-    
-    @Test
-    public void publishEventIsEarlierFails() {
-        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(SURVEY).withEventType(FINISHED).withTimestamp(TIMESTAMP.plusHours(1))
-                .withObjectId("AAA-BBB-CCC").build();
-        when(mockMapper.load(any())).thenReturn(laterEvent);
+    public void publishEventConditionFails() {
+        doThrow(new ConditionalCheckFailedException("message")).when(mockMapper)
+            .save(eq(SURVEY_FINISHED_EVENT), any(DynamoDBSaveExpression.class));
         
         boolean result = dao.publishEvent(SURVEY_FINISHED_EVENT);
         assertFalse(result);
-        
-        verify(mockMapper, never()).save(any());
     }
     
     @Test
-    public void publishEvent_ImmutableFirstSucceeds() {
+    public void publishEvent_Immutable() {
         dao.publishEvent(ENROLLMENT_EVENT);
         
-        verify(mockMapper).save(ENROLLMENT_EVENT);
-    }
-    
-    @Test
-    public void publishEvent_ImmutableEarlierFails() {
-        when(mockMapper.load(any())).thenReturn(ENROLLMENT_EVENT);
-        DynamoActivityEvent earlierEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP.minusHours(1)).build();
-
-        dao.publishEvent(earlierEvent);
-        
-        verify(mockMapper, never()).save(any());
-    }
-    
-    @Test
-    public void publishEvent_ImmutableLaterFails() {
-        when(mockMapper.load(any())).thenReturn(ENROLLMENT_EVENT);
-        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP.plusHours(1)).build();
-
-        dao.publishEvent(laterEvent);
+        verify(mockMapper).save(eq(ENROLLMENT_EVENT), saveExpressionCaptor.capture());
         
-        verify(mockMapper, never()).save(any());
+        DynamoDBSaveExpression expression = saveExpressionCaptor.getValue();
+        assertNull(expression.getConditionalOperator());
+        assertEquals(expression.getExpected().size(), 1);
+        assertFalse(expression.getExpected().get("eventId").getExists());
     }
     
     @Test
-    public void publishEvent_MutableFirstSucceeds() {
+    public void publishEvent_Mutable() {
         DynamoActivityEvent event = new DynamoActivityEvent.Builder()
                 .withHealthCode(HEALTH_CODE)
                 .withObjectType(CUSTOM)
@@ -159,41 +130,18 @@ public class DynamoActivityEventDaoTest extends Mockito {
         
         dao.publishEvent(event);
         
-        verify(mockMapper).save(event);
-    }
-    
-    @Test
-    public void publishEvent_MutableEarlierSucceeds() {
-        DynamoActivityEvent.Builder builder = new DynamoActivityEvent.Builder()
-                .withHealthCode(HEALTH_CODE)
-                .withObjectType(CUSTOM)
-                .withUpdateType(MUTABLE)
-                .withTimestamp(TIMESTAMP);
-        when(mockMapper.load(any())).thenReturn(builder.build());
-        DynamoActivityEvent event = builder.withTimestamp(TIMESTAMP.minusHours(1)).build();
-        
-        dao.publishEvent(event);
-        
-        verify(mockMapper).save(event);
-    }
-    
-    @Test
-    public void publishEvent_MutableLaterSucceeds() {
-        DynamoActivityEvent.Builder builder = new DynamoActivityEvent.Builder()
-                .withHealthCode(HEALTH_CODE)
-                .withObjectType(CUSTOM)
-                .withUpdateType(MUTABLE)
-                .withTimestamp(TIMESTAMP);
-        when(mockMapper.load(any())).thenReturn(builder.build());
-        DynamoActivityEvent event = builder.withTimestamp(TIMESTAMP.plusHours(1)).build();
-        
-        dao.publishEvent(event);
+        verify(mockMapper).save(eq(event), saveExpressionCaptor.capture());
         
-        verify(mockMapper).save(event);
+        DynamoDBSaveExpression expression = saveExpressionCaptor.getValue();
+        assertEquals(expression.getConditionalOperator(), "OR");
+        assertFalse(expression.getExpected().get("eventId").getExists());
+        ExpectedAttributeValue timestamp = expression.getExpected().get("timestamp");
+        assertEquals(timestamp.getComparisonOperator(), "NE");
+        assertEquals(timestamp.getAttributeValueList().get(0).getN(), Long.toString(TIMESTAMP.getMillis()));
     }
     
     @Test
-    public void publishEvent_FutureOnlyFirstSucceeds() {
+    public void publishEvent_FutureOnly() {
         DynamoActivityEvent event = new DynamoActivityEvent.Builder()
                 .withHealthCode(HEALTH_CODE)
                 .withObjectType(CUSTOM)
@@ -202,37 +150,38 @@ public class DynamoActivityEventDaoTest extends Mockito {
         
         dao.publishEvent(event);
         
-        verify(mockMapper).save(event);
+        verify(mockMapper).save(eq(event), saveExpressionCaptor.capture());
+        
+        ExpectedAttributeValue timestamp = saveExpressionCaptor.getValue().getExpected().get("timestamp");
+        assertEquals(timestamp.getComparisonOperator(), "LT");
     }
     
     @Test
-    public void publishEvent_FutureOnlyEarlierFails() {
+    public void publishEvents() {
         DynamoActivityEvent.Builder builder = new DynamoActivityEvent.Builder()
                 .withHealthCode(HEALTH_CODE)
                 .withObjectType(CUSTOM)
-                .withUpdateType(FUTURE_ONLY)
+                .withUpdateType(MUTABLE)
                 .withTimestamp(TIMESTAMP);
-        when(mockMapper.load(any())).thenReturn(builder.build());
-        DynamoActivityEvent event = builder.withTimestamp(TIMESTAMP.minusHours(1)).build();
+        DynamoActivityEvent eventA = builder.withObjectId("A").build();
+        DynamoActivityEvent eventB = builder.withObjectId("B").build();
+        when(mockMapper.batchSave(any(List.class))).thenReturn(ImmutableList.of());
         
-        dao.publishEvent(event);
+        dao.publishEvents(ImmutableList.of(eventA, ENROLLMENT_EVENT, eventB));
+        
+        verify(mockMapper).batchSave(listCaptor.capture());
+        assertEquals(listCaptor.getValue(), ImmutableList.of(eventA, eventB));
         
-        verify(mockMapper, never()).save(any());
+        verify(mockMapper).save(eq(ENROLLMENT_EVENT), any(DynamoDBSaveExpression.class));
+        verify(mockMapper, never()).save(eq(eventA), any(DynamoDBSaveExpression.class));
     }
     
     @Test
-    public void publishEvent_FutureOnlyLaterSucceeds() {
-        DynamoActivityEvent.Builder builder = new DynamoActivityEvent.Builder()
-                .withHealthCode(HEALTH_CODE)
-                .withObjectType(CUSTOM)
-                .withUpdateType(FUTURE_ONLY)
-                .withTimestamp(TIMESTAMP);
-        when(mockMapper.load(any())).thenReturn(builder.build());
-        DynamoActivityEvent event = builder.withTimestamp(TIMESTAMP.plusHours(1)).build();
+    public void publishEventsNoMutableEvents() {
+        dao.publishEvents(ImmutableList.of(ENROLLMENT_EVENT));
         
-        dao.publishEvent(event);
-        
-        verify(mockMapper).save(event);
+        verify(mockMapper).save(eq(ENROLLMENT_EVENT), any(DynamoDBSaveExpression.class));
+        verify(mockMapper, never()).batchSave(any(List.class));
     }
     
     @Test
@@ -352,18 +301,5 @@ public class DynamoActivityEventDaoTest extends Mockito {
         verify(mockMapper).batchDelete(listCaptor.capture());
         List<DynamoActivityEvent> eventsToDelete = listCaptor.getValue();
         assertEquals(eventsToDelete, savedEvents);
-    }    
-    
-    @Test
-    public void publishEventIsImmutableFails() {
-        when(mockMapper.load(any())).thenReturn(ENROLLMENT_EVENT);
-
-        DynamoActivityEvent laterEvent = new DynamoActivityEvent.Builder().withHealthCode(HEALTH_CODE)
-                .withObjectType(ENROLLMENT).withTimestamp(TIMESTAMP.plusHours(1)).build();
-
-        boolean result = dao.publishEvent(laterEvent);
-        assertFalse(result);
-
-        verify(mockMapper, never()).save(any());
     }
-}    
+}
@@ -11,8 +11,10 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
@@ -153,6 +155,29 @@ public class DynamoHealthDataDaoTest {
         assertSame(retVal, mockResult);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void streamRecordsForUploadDate() {
+        DynamoIndexHelper mockIndex = mock(DynamoIndexHelper.class);
+        DynamoHealthDataDao dao = new DynamoHealthDataDao();
+        dao.setUploadDateIndex(mockIndex);
+
+        List<HealthDataRecord> streamedRecords = new ArrayList<>();
+        dao.streamRecordsForUploadDate("2015-02-11", streamedRecords::add);
+
+        ArgumentCaptor<Consumer<List<HealthDataRecord>>> batchConsumerCaptor = ArgumentCaptor.forClass(Consumer.class);
+        verify(mockIndex).queryInBatches(eq(HealthDataRecord.class), eq("uploadDate"), eq("2015-02-11"), eq(null),
+                eq(DynamoHealthDataDao.UPLOAD_DATE_BATCH_SIZE), batchConsumerCaptor.capture());
+
+        // Each batch from the index is passed on to the consumer a record at a time.
+        HealthDataRecord record1 = HealthDataRecord.create();
+        HealthDataRecord record2 = HealthDataRecord.create();
+        HealthDataRecord record3 = HealthDataRecord.create();
+        batchConsumerCaptor.getValue().accept(ImmutableList.of(record1, record2));
+        batchConsumerCaptor.getValue().accept(ImmutableList.of(record3));
+        assertEquals(streamedRecords, ImmutableList.of(record1, record2, record3));
+    }
+
     @Test
     public void getRecordsByHealthCodeCreatedOnSchemaId() {
         // Mock mapper with record.
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.dynamodb;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
@@ -8,6 +9,7 @@ import static org.testng.Assert.assertNull;
 
 import javax.annotation.Nonnull;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +33,7 @@ import org.testng.annotations.Test;
 public class DynamoIndexHelperTest {
     
     private DynamoIndexHelper helper;
+    private DynamoDBMapper mockMapper;
     private ArgumentCaptor<List> arg;
     
     // test class to be used solely for mock testing
@@ -102,7 +105,7 @@ public class DynamoIndexHelperTest {
                 new Thing("jkl; key", "jkl; value")));
 
         // mock mapper
-        DynamoDBMapper mockMapper = mock(DynamoDBMapper.class);
+        mockMapper = mock(DynamoDBMapper.class);
         arg = ArgumentCaptor.forClass(List.class);
         when(mockMapper.batchLoad(arg.capture())).thenReturn(mockMapperResultMap);
         helper.setMapper(mockMapper);
@@ -139,6 +142,28 @@ public class DynamoIndexHelperTest {
         assertEquals(thingMap.get("jkl; key"), "jkl; value");
     }
     
+    @Test
+    public void testQueryInBatches() {
+        mockResultsOfQuery(null);
+
+        List<List<Thing>> batches = new ArrayList<>();
+        helper.<Thing>queryInBatches(Thing.class, "test key", "test value", null, 3, batches::add);
+
+        // The four keys are loaded in two batches, of three and one.
+        ArgumentCaptor<List> keyListCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockMapper, times(2)).batchLoad(keyListCaptor.capture());
+        List<List> keyLists = keyListCaptor.getAllValues();
+        assertEquals(keyLists.get(0).size(), 3);
+        assertEquals(((Thing) keyLists.get(0).get(0)).key, "foo key");
+        assertEquals(keyLists.get(1).size(), 1);
+        assertEquals(((Thing) keyLists.get(1).get(0)).key, "jkl; key");
+
+        // Each batch is passed to the consumer with the full rows loaded for it (here, the same mock result).
+        assertEquals(batches.size(), 2);
+        assertEquals(batches.get(0).size(), 4);
+        assertEquals(batches.get(1).size(), 4);
+    }
+    
     @Test
     public void testCount() {
         mockResultsOfQuery(null);
@@ -8,19 +8,28 @@ import static org.sagebionetworks.bridge.models.reports.ReportType.STUDY;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper.FailedBatch;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -34,6 +43,7 @@ import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.DateRangeResourceList;
 import org.sagebionetworks.bridge.models.ForwardCursorPagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -193,6 +203,67 @@ public class DynamoReportDataDaoTest extends Mockito {
         assertEquals(reportData.getDateTime().getZone(), DateTimeZone.UTC);
     }
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void batchSaveReportData() {
+        when(mockMapper.batchSave(any(List.class))).thenReturn(ImmutableList.of());
+        
+        dao.batchSaveReportData(ImmutableList.of(report0, report1));
+        
+        verify(mockMapper).batchSave(dataListCaptor.capture());
+        assertEquals(dataListCaptor.getValue(), ImmutableList.of(report0, report1));
+        assertEquals(report0.getDateTime().getZone(), DateTimeZone.UTC);
+        assertEquals(report1.getDateTime().getZone(), DateTimeZone.UTC);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void batchSaveReportDataRetriesUnprocessedItems() {
+        dao.setBatchSaveRetryDelayMillis(0);
+        when(mockMapper.batchSave(any(List.class))).thenReturn(ImmutableList.of(createFailedBatch(report1, report3)),
+                ImmutableList.of(createFailedBatch(report3)), ImmutableList.of());
+        
+        dao.batchSaveReportData(ImmutableList.of(report0, report1, report2, report3));
+        
+        verify(mockMapper, times(3)).batchSave(dataListCaptor.capture());
+        List<List<DynamoReportData>> submitted = dataListCaptor.getAllValues();
+        assertEquals(submitted.get(0), ImmutableList.of(report0, report1, report2, report3));
+        assertEquals(submitted.get(1), ImmutableList.of(report1, report3));
+        assertEquals(submitted.get(2), ImmutableList.of(report3));
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void batchSaveReportDataStopsRetrying() {
+        dao.setBatchSaveRetryDelayMillis(0);
+        when(mockMapper.batchSave(any(List.class))).thenReturn(ImmutableList.of(createFailedBatch(report1)));
+        
+        try {
+            dao.batchSaveReportData(ImmutableList.of(report0, report1));
+            fail("Should have thrown exception");
+        } catch (BridgeServiceException e) {
+            // expected
+        }
+        verify(mockMapper, times(DynamoReportDataDao.MAX_BATCH_SAVE_ATTEMPTS)).batchSave(any(List.class));
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void batchSaveReportDataDoesNotRetryFailureWithoutUnprocessedItems() {
+        FailedBatch failure = new FailedBatch();
+        failure.setException(new RuntimeException("Table not found"));
+        failure.setUnprocessedItems(ImmutableMap.of());
+        when(mockMapper.batchSave(any(List.class))).thenReturn(ImmutableList.of(failure));
+        
+        try {
+            dao.batchSaveReportData(ImmutableList.of(report0, report1));
+            fail("Should have thrown exception");
+        } catch (BridgeServiceException e) {
+            assertTrue(e.getMessage().contains("Table not found"));
+        }
+        verify(mockMapper, times(1)).batchSave(any(List.class));
+    }
+    
     @Test
     public void deleteReportData() {
         when(mockMapper.query(eq(DynamoReportData.class), any())).thenReturn(mockQueryList);
@@ -240,6 +311,22 @@ public class DynamoReportDataDaoTest extends Mockito {
         verify(mockMapper, never()).delete(any());
     }    
     
+    // Unprocessed items are reported with the stored (UTC) form of the date.
+    private static FailedBatch createFailedBatch(DynamoReportData... unprocessed) {
+        List<WriteRequest> requests = new ArrayList<>();
+        for (DynamoReportData report : unprocessed) {
+            Map<String, AttributeValue> item = ImmutableMap.of(
+                    DynamoReportDataDao.KEY_ATTRIBUTE, new AttributeValue(report.getKey()),
+                    DynamoReportDataDao.DATE_ATTRIBUTE, 
+                    new AttributeValue(report.getDateTime().withZone(DateTimeZone.UTC).toString()));
+            requests.add(new WriteRequest().withPutRequest(new PutRequest().withItem(item)));
+        }
+        FailedBatch failure = new FailedBatch();
+        failure.setException(new ProvisionedThroughputExceededException("Throttled"));
+        failure.setUnprocessedItems(ImmutableMap.of("ReportData", requests));
+        return failure;
+    }
+    
     private static DynamoReportData createReport(DateTime date, String fieldValue1, String fieldValue2) {
         ObjectNode node = JsonNodeFactory.instance.objectNode();
         node.put("field1", fieldValue1);
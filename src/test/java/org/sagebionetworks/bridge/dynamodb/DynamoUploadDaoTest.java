@@ -56,6 +56,7 @@ import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 public class DynamoUploadDaoTest {
@@ -169,6 +170,68 @@ public class DynamoUploadDaoTest {
         assertEquals(capturedUpload.getStatus(), UploadStatus.DUPLICATE);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void createUploads() {
+        UploadRequest req1 = createUploadRequest();
+        UploadRequest req2 = createUploadRequest();
+        when(mockMapper.batchSave(any(List.class))).thenReturn(ImmutableList.of());
+
+        List<Upload> uploads = dao.createUploads(TEST_APP_ID, "fakeHealthCode", ImmutableList.of(req1, req2),
+                Lists.newArrayList(null, "original-upload-id"), "clientInfo", "userAgent");
+        assertEquals(uploads.size(), 2);
+
+        // Uploads are written in one batch, with the client info and user agent.
+        verify(mockMapper).batchSave(uploadListCaptor.capture());
+        List<Upload> captured = uploadListCaptor.getValue();
+        assertEquals(captured, uploads);
+        for (Upload upload : captured) {
+            assertNotNull(upload.getUploadId());
+            assertEquals(upload.getAppId(), TEST_APP_ID);
+            assertEquals(upload.getHealthCode(), "fakeHealthCode");
+            assertTrue(upload.getRequestedOn() > 0);
+            assertEquals(upload.getClientInfo(), "clientInfo");
+            assertEquals(upload.getUserAgent(), "userAgent");
+            assertEquals(upload.getFilename(), req1.getName());
+        }
+        assertNull(captured.get(0).getDuplicateUploadId());
+        assertEquals(captured.get(0).getStatus(), UploadStatus.REQUESTED);
+        assertEquals(captured.get(1).getDuplicateUploadId(), "original-upload-id");
+        assertEquals(captured.get(1).getStatus(), UploadStatus.DUPLICATE);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void createUploadsMismatchedOriginalUploadIds() {
+        dao.createUploads(TEST_APP_ID, "fakeHealthCode", ImmutableList.of(createUploadRequest()),
+                ImmutableList.of(), "clientInfo", "userAgent");
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getUploadsById() {
+        DynamoUpload2 loaded1 = new DynamoUpload2();
+        loaded1.setUploadId(UPLOAD_ID);
+        DynamoUpload2 loaded2 = new DynamoUpload2();
+        loaded2.setUploadId(UPLOAD_ID_2);
+        when(mockMapper.batchLoad(any(List.class))).thenReturn(ImmutableMap.of("Upload2",
+                ImmutableList.of(loaded1, loaded2)));
+
+        Map<String, Upload> result = dao.getUploadsById(ImmutableSet.of(UPLOAD_ID, UPLOAD_ID_2, UPLOAD_ID_3));
+        assertEquals(result, ImmutableMap.of(UPLOAD_ID, loaded1, UPLOAD_ID_2, loaded2));
+
+        ArgumentCaptor<List> keysCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockMapper).batchLoad(keysCaptor.capture());
+        List<DynamoUpload2> keys = keysCaptor.getValue();
+        assertEquals(keys.size(), 3);
+        assertEquals(keys.get(0).getUploadId(), UPLOAD_ID);
+    }
+
+    @Test
+    public void getUploadsByIdEmpty() {
+        assertTrue(dao.getUploadsById(ImmutableSet.of()).isEmpty());
+        verify(mockMapper, never()).batchLoad(any(List.class));
+    }
+
     @Test
     public void getUpload() {
         // mock DDB mapper
@@ -496,6 +559,23 @@ public class DynamoUploadDaoTest {
         dao.getAppUploads(TEST_APP_ID, startTime, endTime, 101, null);
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void getUploadIdsForHealthCode() {
+        DynamoUpload2 upload1 = new DynamoUpload2();
+        upload1.setUploadId(UPLOAD_ID);
+
+        DynamoUpload2 upload2 = new DynamoUpload2();
+        upload2.setUploadId(UPLOAD_ID_2);
+
+        when(mockIndexHelper.queryKeys(DynamoUpload2.class, INDEX_NAME_HEALTH_CODE, TestConstants.HEALTH_CODE, null))
+                .thenReturn(ImmutableList.of(upload1, upload2));
+
+        List<String> uploadIdList = dao.getUploadIdsForHealthCode(TestConstants.HEALTH_CODE);
+        assertEquals(uploadIdList, ImmutableList.of(UPLOAD_ID, UPLOAD_ID_2));
+        verify(mockMapper, never()).batchDelete(any(List.class));
+    }
+
     @Test
     public void deleteUploadsForHealthCode() {
         // Make uploads to delete.
@@ -6,10 +6,16 @@ import static org.sagebionetworks.bridge.dynamodb.DynamoUploadDedupeDao.NUM_DAYS
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 
+import java.util.List;
+import java.util.Map;
+
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapper;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
 import com.amazonaws.services.dynamodbv2.datamodeling.PaginatedQueryList;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import org.joda.time.DateTime;
 import org.mockito.ArgumentCaptor;
@@ -21,6 +27,7 @@ import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+@SuppressWarnings("unchecked")
 public class DynamoUploadDedupeDaoTest extends Mockito {
     private static final String HEALTHCODE = "test-healthcode";
     private static final String UPLOAD_ID = "original-upload";
@@ -42,6 +49,9 @@ public class DynamoUploadDedupeDaoTest extends Mockito {
     @Captor
     ArgumentCaptor<DynamoUploadDedupe> dedupeCaptor;
     
+    @Captor
+    ArgumentCaptor<List<DynamoUploadDedupe>> dedupeListCaptor;
+    
     @BeforeMethod
     public void setup() {
         MockitoAnnotations.initMocks(this);
@@ -96,4 +106,50 @@ public class DynamoUploadDedupeDaoTest extends Mockito {
         String originalUploadId = dao.getDuplicate(HEALTHCODE, UPLOAD_MD5, UPLOAD_REQUESTED_ON);
         assertNull(originalUploadId);
     }
+
+    @Test
+    public void getDuplicates() {
+        DynamoUploadDedupe dedupe = new DynamoUploadDedupe();
+        dedupe.setOriginalUploadId(UPLOAD_ID);
+        
+        PaginatedQueryList<DynamoUploadDedupe> mockEmptyList = mock(PaginatedQueryList.class);
+        when(mockEmptyList.isEmpty()).thenReturn(true);
+        when(mockQueryList.isEmpty()).thenReturn(false);
+        when(mockQueryList.get(0)).thenReturn(dedupe);
+        when(mockMapper.query(eq(DynamoUploadDedupe.class), any())).thenAnswer(invocation -> {
+            DynamoDBQueryExpression<DynamoUploadDedupe> query = invocation.getArgument(1);
+            return UPLOAD_MD5.equals(query.getHashKeyValues().getUploadMd5()) ? mockQueryList : mockEmptyList;
+        });
+        
+        Map<String, String> duplicates = dao.getDuplicates(HEALTHCODE, ImmutableSet.of(UPLOAD_MD5, "other-md5"),
+                UPLOAD_REQUESTED_ON);
+        assertEquals(duplicates, ImmutableMap.of(UPLOAD_MD5, UPLOAD_ID));
+        verify(mockMapper, times(2)).query(eq(DynamoUploadDedupe.class), any());
+    }
+    
+    @Test
+    public void registerUploads() {
+        when(mockMapper.batchSave(any(List.class))).thenReturn(ImmutableList.of());
+        
+        dao.registerUploads(HEALTHCODE, ImmutableMap.of(UPLOAD_MD5, UPLOAD_ID, "other-md5", "other-upload"),
+                UPLOAD_REQUESTED_ON);
+        
+        verify(mockMapper).batchSave(dedupeListCaptor.capture());
+        List<DynamoUploadDedupe> dedupeList = dedupeListCaptor.getValue();
+        assertEquals(dedupeList.size(), 2);
+        
+        DynamoUploadDedupe dedupe = dedupeList.get(0);
+        assertEquals(dedupe.getHealthCode(), HEALTHCODE);
+        assertEquals(dedupe.getOriginalUploadId(), UPLOAD_ID);
+        assertEquals(dedupe.getUploadMd5(), UPLOAD_MD5);
+        assertEquals(dedupe.getUploadRequestedDate(), UPLOAD_REQUESTED_ON.withZone(LOCAL_TIME_ZONE).toLocalDate());
+        assertEquals(dedupe.getUploadRequestedOn(), UPLOAD_REQUESTED_ON.getMillis());
+        assertEquals(dedupeList.get(1).getOriginalUploadId(), "other-upload");
+    }
+    
+    @Test
+    public void registerUploadsEmpty() {
+        dao.registerUploads(HEALTHCODE, ImmutableMap.of(), UPLOAD_REQUESTED_ON);
+        verify(mockMapper, never()).batchSave(any(List.class));
+    }
 }
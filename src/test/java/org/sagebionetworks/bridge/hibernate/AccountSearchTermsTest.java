@@ -0,0 +1,107 @@
+package org.sagebionetworks.bridge.hibernate;
+
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.models.accounts.Phone;
+import org.sagebionetworks.bridge.models.studies.Enrollment;
+
+public class AccountSearchTermsTest {
+
+    @Test
+    public void createTermsForAllValues() {
+        HibernateAccount account = new HibernateAccount();
+        account.setEmail("A@b.c");
+        account.setPhone(new Phone("+1 (206) 555-0123", "US"));
+        Enrollment enrollment = Enrollment.create(TEST_APP_ID, "study1", "userId", "Ext1");
+        account.getEnrollments().add(enrollment);
+
+        Set<String> terms = AccountSearchTerms.create(account);
+
+        assertEquals(terms, new ImmutableSet.Builder<String>()
+                .add("email|a@b.c", "email|@b.c", "email|b.c", "email|.c", "email|c")
+                .add("phone|12065550123", "phone|2065550123", "phone|065550123", "phone|65550123",
+                        "phone|5550123", "phone|550123", "phone|50123", "phone|0123", "phone|123", "phone|23",
+                        "phone|3")
+                .add("externalId|ext1", "externalId|xt1", "externalId|t1", "externalId|1").build());
+    }
+
+    @Test
+    public void createTermsSkipsMissingValues() {
+        HibernateAccount account = new HibernateAccount();
+        account.setEmail(" ");
+
+        assertTrue(AccountSearchTerms.create(account).isEmpty());
+    }
+
+    @Test
+    public void createTermsSkipsBlankSuffixes() {
+        HibernateAccount account = new HibernateAccount();
+        account.setEmail("a b  ");
+
+        assertEquals(AccountSearchTerms.create(account), ImmutableSet.of("email|a b", "email| b", "email|b"));
+    }
+
+    @Test
+    public void createTermsFoldsAccents() {
+        HibernateAccount account = new HibernateAccount();
+        account.setEmail("Renée@x.io");
+
+        Set<String> terms = AccountSearchTerms.create(account);
+
+        assertEquals(terms, ImmutableSet.of("email|renee@x.io", "email|enee@x.io", "email|nee@x.io", "email|ee@x.io",
+                "email|e@x.io", "email|@x.io", "email|x.io", "email|.io", "email|io", "email|o"));
+        // A search for "e" or "É" finds the account, as it does in the accounts table's collation.
+        assertTrue(terms.contains(AccountSearchTerms.term(AccountSearchTerms.EMAIL, "e@")));
+        assertTrue(terms.contains(AccountSearchTerms.term(AccountSearchTerms.EMAIL, "É@")));
+    }
+
+    @Test
+    public void createTermsKeepsSurrogatePairsTogether() {
+        HibernateAccount account = new HibernateAccount();
+        account.getEnrollments().add(Enrollment.create(TEST_APP_ID, "study1", "userId", "a\uD83D\uDE00"));
+
+        assertEquals(AccountSearchTerms.create(account),
+                ImmutableSet.of("externalId|a\uD83D\uDE00", "externalId|\uD83D\uDE00"));
+    }
+
+    @Test
+    public void normalize() {
+        assertEquals(AccountSearchTerms.normalize("ÉéÑ"), "een");
+        // Full-width letters are compatibility characters for ASCII letters.
+        assertEquals(AccountSearchTerms.normalize("ＡＢ"), "ab");
+        assertEquals(AccountSearchTerms.normalize("ΟΔΟΣ ΟΔΟΣ"), "οδοσ οδοσ");
+    }
+
+    @Test
+    public void term() {
+        assertEquals(AccountSearchTerms.term(AccountSearchTerms.EMAIL, "ABC "), "email|abc");
+        assertEquals(AccountSearchTerms.term(AccountSearchTerms.EXTERNAL_ID, " aBc"), "externalId| abc");
+    }
+
+    @Test
+    public void sources() {
+        HibernateAccount account = new HibernateAccount();
+        account.setEmail("a@b.c");
+        account.setPhone(new Phone("+1 (206) 555-0123", "US"));
+        account.getEnrollments().add(Enrollment.create(TEST_APP_ID, "study2", "userId", "ext2"));
+        account.getEnrollments().add(Enrollment.create(TEST_APP_ID, "study1", "userId", "ext1"));
+        account.getEnrollments().add(Enrollment.create(TEST_APP_ID, "study3", "userId"));
+
+        assertEquals(AccountSearchTerms.sources(account),
+                Arrays.asList("a@b.c", account.getPhone().getNumber(), null, "ext1", "ext2"));
+    }
+
+    @Test
+    public void digitsOnly() {
+        assertEquals(AccountSearchTerms.digitsOnly("+1 (206) 555-0123"), "12065550123");
+        assertEquals(AccountSearchTerms.digitsOnly(null), null);
+    }
+}
@@ -14,9 +14,13 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
 import static org.sagebionetworks.bridge.TestConstants.USER_DATA_GROUPS;
 import static org.sagebionetworks.bridge.TestConstants.TEST_NOTE;
 import static org.sagebionetworks.bridge.dao.AccountDao.MIGRATION_VERSION;
+import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.ACCOUNT_SUMMARY_TOTAL_EXPIRE_IN_SECONDS;
 import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.APP_IDS_FOR_USER_QUERY;
 import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.DELETE_ALL_ACCOUNTS_QUERY;
 import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.FULL_QUERY;
+import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.INSERT_SEARCH_TERM_SQL;
+import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.INVALID_OFFSET_KEY_ERROR;
+import static org.sagebionetworks.bridge.hibernate.HibernateAccountDao.SEARCH_TERMS_BACKFILL_QUERY;
 import static org.sagebionetworks.bridge.models.SearchTermPredicate.AND;
 import static org.sagebionetworks.bridge.models.StringSearchPosition.INFIX;
 import static org.sagebionetworks.bridge.models.accounts.AccountStatus.ENABLED;
@@ -28,20 +32,28 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
 import org.mockito.ArgumentCaptor;
@@ -57,6 +69,9 @@ import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.RequestContext;
 import org.sagebionetworks.bridge.Roles;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.ResourceList;
@@ -111,6 +126,13 @@ public class HibernateAccountDaoTest extends Mockito {
     private static final String EXTID_FULL_QUERY = "SELECT en from HibernateEnrollment as en WHERE en.appId = :appId AND en.studyId = :studyId AND en.externalId IS NOT NULL AND en.externalId LIKE :idFilter ORDER BY en.externalId";
     private static final String EXTID_FULL_COUNT_QUERY = "SELECT count(en) from HibernateEnrollment as en WHERE en.appId = :appId AND en.studyId = :studyId AND en.externalId IS NOT NULL AND en.externalId LIKE :idFilter ORDER BY en.externalId";
     private static final String EXTID_QUERY = "SELECT en from HibernateEnrollment as en WHERE en.appId = :appId AND en.studyId = :studyId AND en.externalId IS NOT NULL ORDER BY en.externalId";
+    private static final String TERM_SEARCH = "acct.id IN (SELECT termAcct.id FROM HibernateAccount AS termAcct "
+            + "JOIN termAcct.searchTerms AS term WHERE term LIKE ";
+    private static final String EMAIL_TERM_SEARCH = "(" + TERM_SEARCH + ":emailTerm) AND acct.email LIKE :email)";
+    private static final String PHONE_TERM_SEARCH = "(" + TERM_SEARCH
+            + ":numberTerm) AND acct.phone.number LIKE :number)";
+    private static final String EXTID_TERM_SEARCH = "(" + TERM_SEARCH
+            + ":extIdTerm) AND enrollment.externalId LIKE :extId)";
     private static final String EXTID_COUNT_QUERY = "SELECT count(en) from HibernateEnrollment as en WHERE en.appId = :appId AND en.studyId = :studyId AND en.externalId IS NOT NULL ORDER BY en.externalId";
 
     @Captor
@@ -122,6 +144,12 @@ public class HibernateAccountDaoTest extends Mockito {
     @Mock
     private HibernateHelper mockHibernateHelper;
 
+    @Mock
+    private CacheProvider mockCacheProvider;
+
+    @Mock
+    private Session mockSession;
+
     private App app;
     
     @InjectMocks
@@ -143,6 +171,11 @@ public class HibernateAccountDaoTest extends Mockito {
 
         dao = spy(new HibernateAccountDao());
         dao.setHibernateHelper(mockHibernateHelper);
+        dao.setCacheProvider(mockCacheProvider);
+        when(mockHibernateHelper.executeWithExceptionHandling(any(), any())).thenAnswer(invocation -> {
+            Function<Session, Account> function = invocation.getArgument(1);
+            return function.apply(mockSession);
+        });
 
         app = App.create();
         app.setIdentifier(TEST_APP_ID);
@@ -165,6 +198,8 @@ public class HibernateAccountDaoTest extends Mockito {
         Account account = dao.getAccount(ACCOUNT_ID_WITH_EMAIL).get();
 
         assertEquals(account, hibernateAccount);
+        // The values of the persisted search terms are recorded, so an update can tell if they've changed.
+        assertEquals(hibernateAccount.getSearchTermSources(), AccountSearchTerms.sources(hibernateAccount));
     }
 
     @Test
@@ -175,6 +210,12 @@ public class HibernateAccountDaoTest extends Mockito {
         dao.createAccount(account);
         
         verify(mockHibernateHelper).create(account);
+        
+        // Search terms are created for the account's email.
+        Set<String> terms = ((HibernateAccount)account).getSearchTerms();
+        assertTrue(terms.contains("email|" + EMAIL));
+        assertTrue(terms.contains("email|@example.com"));
+        assertTrue(terms.contains("email|m"));
     }
 
     @Test
@@ -183,7 +224,54 @@ public class HibernateAccountDaoTest extends Mockito {
         
         dao.updateAccount(account);
         
-        verify(mockHibernateHelper).update(account);
+        verify(mockSession).update(account);
+    }
+    
+    @Test
+    public void updateAccountChangesSearchTerms() {
+        HibernateAccount account = (HibernateAccount)makeValidGenericAccount();
+        Set<String> persistedTerms = new HashSet<>(ImmutableSet.of("email|old@example.com", "email|@example.com"));
+        account.setSearchTerms(persistedTerms);
+        
+        dao.updateAccount(account);
+        
+        // The persisted set of terms is changed in place, so only the differences are written.
+        verify(mockSession).update(account);
+        assertSame(account.getSearchTerms(), persistedTerms);
+        assertFalse(persistedTerms.contains("email|old@example.com"));
+        assertTrue(persistedTerms.contains("email|@example.com"));
+        assertTrue(persistedTerms.contains("email|" + EMAIL));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void updateAccountLeavesSearchTermsWhenIdentifiersUnchanged() {
+        HibernateAccount account = (HibernateAccount)makeValidGenericAccount();
+        account.setSearchTermSources(AccountSearchTerms.sources(account));
+        // Stands in for the lazily loaded collection, which would be read if it were used in any way.
+        Set<String> persistedTerms = mock(Set.class);
+        account.setSearchTerms(persistedTerms);
+        account.setFirstName("Changed");
+        
+        dao.updateAccount(account);
+        
+        verify(mockSession).update(account);
+        verifyZeroInteractions(persistedTerms);
+    }
+    
+    @Test
+    public void updateAccountChangesSearchTermsWhenIdentifiersChange() {
+        HibernateAccount account = (HibernateAccount)makeValidGenericAccount();
+        account.setSearchTermSources(AccountSearchTerms.sources(account));
+        Set<String> persistedTerms = new HashSet<>(AccountSearchTerms.create(account));
+        account.setSearchTerms(persistedTerms);
+        account.setEmail("other@example.com");
+        
+        dao.updateAccount(account);
+        
+        assertSame(account.getSearchTerms(), persistedTerms);
+        assertEquals(persistedTerms, AccountSearchTerms.create(account));
+        assertEquals(account.getSearchTermSources(), AccountSearchTerms.sources(account));
     }
 
     @Test
@@ -217,7 +305,7 @@ public class HibernateAccountDaoTest extends Mockito {
         // Capture the update
         ArgumentCaptor<HibernateAccount> updatedHibernateAccountCaptor = ArgumentCaptor
                 .forClass(HibernateAccount.class);
-        verify(mockHibernateHelper).update(updatedHibernateAccountCaptor.capture());
+        verify(mockSession).update(updatedHibernateAccountCaptor.capture());
 
         HibernateAccount updatedHibernateAccount = updatedHibernateAccountCaptor.getValue();
 
@@ -459,6 +547,14 @@ public class HibernateAccountDaoTest extends Mockito {
         verify(mockHibernateHelper).deleteById(HibernateAccount.class, ACCOUNT_ID);
     }
 
+    @Test
+    public void getAccountCount() {
+        when(mockHibernateHelper.queryCount(HibernateAccountDao.APP_COUNT_QUERY, 
+                ImmutableMap.of("appId", TEST_APP_ID))).thenReturn(12);
+        
+        assertEquals(dao.getAccountCount(TEST_APP_ID), 12);
+    }
+    
     @Test
     public void getPaged() throws Exception {
         // Researchers can see all the studies the summaries are associated to.
@@ -468,7 +564,7 @@ public class HibernateAccountDaoTest extends Mockito {
         String expQuery = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN "
                 + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
                 + "WHERE acct.appId = :appId AND admin = 1 AND acct.orgMembership = "
-                + ":orgId GROUP BY acct.id";
+                + ":orgId GROUP BY acct.id ORDER BY acct.createdOn, acct.id";
 
         String expCountQuery = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct "
                 + "LEFT JOIN acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
@@ -531,6 +627,226 @@ public class HibernateAccountDaoTest extends Mockito {
         verify(mockHibernateHelper).getById(HibernateAccount.class, "account-1");
         verify(mockHibernateHelper).getById(HibernateAccount.class, "account-2");
         verify(mockHibernateHelper).queryCount(expCountQuery, APP_QUERY_PARAMS);
+        
+        // The first page is always counted, and the count is cached for later pages.
+        verify(mockCacheProvider, never()).getObject(any(), eq(Integer.class));
+        verify(mockCacheProvider).setObject(any(CacheKey.class), eq(12), eq(ACCOUNT_SUMMARY_TOTAL_EXPIRE_IN_SECONDS));
+        
+        // The page is not full, so there is no next page.
+        assertNull(accountSummaryResourceList.getNextPageOffsetKey());
+    }
+    
+    @Test
+    public void getPagedByOffsetKey() throws Exception {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerRoles(ImmutableSet.of(RESEARCHER)).build());
+        
+        String expQuery = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN "
+                + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
+                + "WHERE acct.appId = :appId AND (acct.createdOn > :keyCreatedOn OR "
+                + "(acct.createdOn = :keyCreatedOn AND acct.id > :keyId)) GROUP BY acct.id "
+                + "ORDER BY acct.createdOn, acct.id";
+        
+        HibernateAccount priorAccount = makeValidHibernateAccount(false);
+        priorAccount.setId("account-0");
+        priorAccount.setCreatedOn(CREATED_ON);
+        String offsetKey = HibernateAccountDao.encodeOffsetKey(priorAccount);
+        
+        HibernateAccount hibernateAccount1 = makeValidHibernateAccount(false);
+        hibernateAccount1.setId("account-1");
+        hibernateAccount1.setCreatedOn(CREATED_ON);
+        HibernateAccount hibernateAccount2 = makeValidHibernateAccount(false);
+        hibernateAccount2.setId("account-2");
+        hibernateAccount2.setCreatedOn(MODIFIED_ON);
+        
+        when(mockHibernateHelper.queryGet(eq(expQuery), any(), eq(0), eq(2), eq(String.class)))
+                .thenReturn(ImmutableList.of("account-1", "account-2"));
+        when(mockHibernateHelper.getById(HibernateAccount.class, "account-1")).thenReturn(hibernateAccount1);
+        when(mockHibernateHelper.getById(HibernateAccount.class, "account-2")).thenReturn(hibernateAccount2);
+        when(mockCacheProvider.getObject(any(), eq(Integer.class))).thenReturn(20);
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey(offsetKey)
+                .withPageSize(2).build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertEquals(page.getItems().size(), 2);
+        assertEquals(page.getItems().get(0).getId(), "account-1");
+        assertEquals(page.getItems().get(1).getId(), "account-2");
+        assertEquals(page.getRequestParams().get("offsetKey"), offsetKey);
+        
+        // The total was counted with an earlier page.
+        assertEquals(page.getTotal(), (Integer)20);
+        verify(mockHibernateHelper, never()).queryCount(any(), any());
+        
+        // The page is full, so the key to the next page is that of the last account.
+        assertEquals(page.getNextPageOffsetKey(), HibernateAccountDao.encodeOffsetKey(hibernateAccount2));
+        
+        verify(mockHibernateHelper).queryGet(eq(expQuery), paramCaptor.capture(), eq(0), eq(2), eq(String.class));
+        Map<String, Object> params = paramCaptor.getValue();
+        assertEquals(params.get("appId"), TEST_APP_ID);
+        assertEquals(params.get("keyCreatedOn"), new DateTime(CREATED_ON.getMillis()));
+        assertEquals(params.get("keyId"), "account-0");
+    }
+    
+    @Test
+    public void getPagedByOffsetKeyCountsWithoutKey() throws Exception {
+        String expCountQuery = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct "
+                + "LEFT JOIN acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
+                + "WHERE acct.appId = :appId";
+        
+        HibernateAccount priorAccount = makeValidHibernateAccount(false);
+        priorAccount.setCreatedOn(CREATED_ON);
+        when(mockHibernateHelper.queryCount(any(), any())).thenReturn(20);
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder()
+                .withOffsetKey(HibernateAccountDao.encodeOffsetKey(priorAccount)).build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        // Nothing was cached, so the total is counted over all pages (without seeking past the key).
+        assertEquals(page.getTotal(), (Integer)20);
+        verify(mockHibernateHelper).queryCount(expCountQuery, APP_QUERY_PARAMS);
+        verify(mockCacheProvider).setObject(any(CacheKey.class), eq(20), eq(ACCOUNT_SUMMARY_TOTAL_EXPIRE_IN_SECONDS));
+    }
+    
+    @Test
+    public void getPagedWithoutTotal() throws Exception {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withIncludeTotal(false).build();
+        PagedResourceList<AccountSummary> page = dao.getPagedAccountSummaries(TEST_APP_ID, search);
+        
+        assertNull(page.getTotal());
+        verify(mockHibernateHelper, never()).queryCount(any(), any());
+        verifyZeroInteractions(mockCacheProvider);
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class, 
+            expectedExceptionsMessageRegExp = INVALID_OFFSET_KEY_ERROR)
+    public void getPagedInvalidOffsetKey() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetKey("not-a-key").build();
+        dao.getPagedAccountSummaries(TEST_APP_ID, search);
+    }
+    
+    @Test(expectedExceptions = IllegalStateException.class,
+            expectedExceptionsMessageRegExp = "Account " + ACCOUNT_ID + " has no createdOn timestamp to page by")
+    public void offsetKeyWithoutCreatedOn() throws Exception {
+        HibernateAccount account = makeValidHibernateAccount(false);
+        account.setCreatedOn(null);
+        
+        HibernateAccountDao.encodeOffsetKey(account);
+    }
+    
+    @Test
+    public void offsetKeyRoundTrip() throws Exception {
+        HibernateAccount account = makeValidHibernateAccount(false);
+        account.setCreatedOn(CREATED_ON);
+        
+        Map<String, Object> params = HibernateAccountDao.decodeOffsetKey(
+                HibernateAccountDao.encodeOffsetKey(account));
+        assertEquals(params.get("keyCreatedOn"), new DateTime(CREATED_ON.getMillis()));
+        assertEquals(params.get("keyId"), ACCOUNT_ID);
+    }
+    
+    @Test
+    public void streamHealthCodes() throws Exception {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerRoles(ImmutableSet.of(RESEARCHER)).build());
+        
+        String expQuery = "SELECT acct.id, acct.healthCode FROM HibernateAccount AS acct LEFT JOIN "
+                + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
+                + "WHERE acct.appId = :appId AND acct.id > :afterId AND admin = 1 AND acct.orgMembership = "
+                + ":orgId GROUP BY acct.id ORDER BY acct.id";
+        Map<String, Object> firstParams = ImmutableMap.of("appId", TEST_APP_ID, "afterId", "", "orgId", TEST_ORG_ID);
+        Map<String, Object> secondParams = ImmutableMap.of("appId", TEST_APP_ID, "afterId", "id2", "orgId",
+                TEST_ORG_ID);
+        when(mockHibernateHelper.queryGet(expQuery, firstParams, null, 2, Object[].class)).thenReturn(
+                ImmutableList.of(new Object[] { "id1", "healthCode1" }, new Object[] { "id2", "healthCode2" }));
+        when(mockHibernateHelper.queryGet(expQuery, secondParams, null, 2, Object[].class)).thenReturn(
+                ImmutableList.of(new Object[] { "id3", "healthCode3" }));
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetBy(10)
+                .withAdminOnly(true).withOrgMembership(TEST_ORG_ID).withPageSize(2).build();
+        
+        List<List<String>> pages = new ArrayList<>();
+        dao.streamHealthCodes(TEST_APP_ID, search, pages::add);
+        assertEquals(pages, ImmutableList.of(ImmutableList.of("healthCode1", "healthCode2"),
+                ImmutableList.of("healthCode3")));
+        
+        // Pages seek past the last ID rather than using an offset, and are read without a count query, 
+        // or loading the accounts.
+        verify(mockHibernateHelper, times(2)).queryGet(any(), any(), any(), any(), any());
+        verify(mockHibernateHelper, never()).queryCount(any(), any());
+        verify(mockHibernateHelper, never()).getById(any(), any());
+    }
+    
+    @Test
+    public void streamHealthCodesNoAccounts() throws Exception {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(Object[].class)))
+                .thenReturn(ImmutableList.of());
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(2).build();
+        
+        List<List<String>> pages = new ArrayList<>();
+        dao.streamHealthCodes(TEST_APP_ID, search, pages::add);
+        
+        assertTrue(pages.isEmpty());
+    }
+    
+    @Test
+    public void streamAccountSummaries() throws Exception {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerRoles(ImmutableSet.of(RESEARCHER)).build());
+        
+        String expQuery = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN "
+                + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId "
+                + "WHERE acct.appId = :appId AND acct.id > :afterId AND admin = 1 AND acct.orgMembership = "
+                + ":orgId GROUP BY acct.id ORDER BY acct.id";
+        Map<String, Object> firstParams = ImmutableMap.of("appId", TEST_APP_ID, "afterId", "", "orgId", TEST_ORG_ID);
+        Map<String, Object> secondParams = ImmutableMap.of("appId", TEST_APP_ID, "afterId", "id2", "orgId",
+                TEST_ORG_ID);
+        when(mockHibernateHelper.queryGet(expQuery, firstParams, null, 2, String.class))
+                .thenReturn(ImmutableList.of("id1", "id2"));
+        when(mockHibernateHelper.queryGet(expQuery, secondParams, null, 2, String.class))
+                .thenReturn(ImmutableList.of("id3"));
+        
+        HibernateAccount account1 = new HibernateAccount();
+        account1.setId("id1");
+        HibernateAccount account2 = new HibernateAccount();
+        account2.setId("id2");
+        // Returned out of order, and the account with id3 has been deleted since its ID was read.
+        when(mockHibernateHelper.queryGet(HibernateAccountDao.ACCOUNTS_BY_ID_QUERY,
+                ImmutableMap.of("ids", ImmutableList.of("id1", "id2")), null, null, HibernateAccount.class))
+                .thenReturn(ImmutableList.of(account2, account1));
+        when(mockHibernateHelper.queryGet(HibernateAccountDao.ACCOUNTS_BY_ID_QUERY,
+                ImmutableMap.of("ids", ImmutableList.of("id3")), null, null, HibernateAccount.class))
+                .thenReturn(ImmutableList.of());
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetBy(10)
+                .withAdminOnly(true).withOrgMembership(TEST_ORG_ID).withPageSize(2).build();
+        
+        List<AccountSummary> summaries = new ArrayList<>();
+        dao.streamAccountSummaries(TEST_APP_ID, search, summaries::add);
+        
+        assertEquals(summaries.size(), 2);
+        assertEquals(summaries.get(0).getId(), "id1");
+        assertEquals(summaries.get(1).getId(), "id2");
+        
+        // Chunks seek past the last ID rather than using an offset, are not counted, and load their 
+        // accounts with one query.
+        verify(mockHibernateHelper, times(4)).queryGet(any(), any(), any(), any(), any());
+        verify(mockHibernateHelper, never()).queryCount(any(), any());
+        verify(mockHibernateHelper, never()).getById(any(), any());
+    }
+    
+    @Test
+    public void streamAccountSummariesNoAccounts() throws Exception {
+        when(mockHibernateHelper.queryGet(any(), any(), any(), any(), eq(String.class))).thenReturn(ImmutableList.of());
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(2).build();
+        
+        List<AccountSummary> summaries = new ArrayList<>();
+        dao.streamAccountSummaries(TEST_APP_ID, search, summaries::add);
+        
+        assertTrue(summaries.isEmpty());
+        verify(mockHibernateHelper, never()).queryGet(any(), any(), any(), any(), eq(HibernateAccount.class));
     }
     
     @Test
@@ -610,15 +926,16 @@ public class HibernateAccountDaoTest extends Mockito {
 
     @Test
     public void getPagedWithOptionalParams() throws Exception {
+        dao.setSearchTermsEnabled(true);
         String expBaseQuery = "FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 +"AS enrollment WITH acct.id = enrollment.accountId LEFT JOIN org.sagebionetworks.bridge."
                 +"models.RequestInfo AS ri WITH acct.id = ri.userId WHERE acct.appId = :appId AND "
-                +"admin = 1 AND acct.orgMembership = :orgId AND acct.email LIKE :email AND "
-                +"acct.phone.number LIKE :number AND acct.createdOn >= :startTime AND acct.createdOn <= "
+                +"admin = 1 AND acct.orgMembership = :orgId AND " + EMAIL_TERM_SEARCH + " AND "
+                + PHONE_TERM_SEARCH + " AND acct.createdOn >= :startTime AND acct.createdOn <= "
                 +":endTime AND :language IN ELEMENTS(acct.languages) AND (:IN1 IN elements(acct.dataGroups) "
                 +"AND :IN2 IN elements(acct.dataGroups)) AND (:NOTIN1 NOT IN elements(acct.dataGroups) AND "
                 +":NOTIN2 NOT IN elements(acct.dataGroups)) AND ri.signedInOn IS NOT NULL";
-        String expQuery = "SELECT acct.id " + expBaseQuery + " GROUP BY acct.id";
+        String expQuery = "SELECT acct.id " + expBaseQuery + " GROUP BY acct.id ORDER BY acct.createdOn, acct.id";
         String expCountQuery = "SELECT COUNT(DISTINCT acct.id) " + expBaseQuery;
 
         // Setup start and end dates.
@@ -730,16 +1047,17 @@ public class HibernateAccountDaoTest extends Mockito {
 
     @Test
     public void getPagedWithOptionalEmptySetParams() throws Exception {
+        dao.setSearchTermsEnabled(true);
         String expQuery = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
-                + "acct.email LIKE :email AND acct.phone.number LIKE :number AND acct.createdOn >= "
+                + EMAIL_TERM_SEARCH + " AND " + PHONE_TERM_SEARCH + " AND acct.createdOn >= "
                 + ":startTime AND acct.createdOn <= :endTime AND :language IN ELEMENTS(acct.languages) "
-                + "GROUP BY acct.id";
+                + "GROUP BY acct.id ORDER BY acct.createdOn, acct.id";
 
         String expCountQuery = "SELECT COUNT(DISTINCT acct.id) FROM HibernateAccount AS acct LEFT JOIN "
                 + "acct.enrollments AS enrollment WITH acct.id = enrollment.accountId WHERE "
-                + "acct.appId = :appId AND acct.email LIKE :email AND acct.phone.number LIKE "
-                + ":number AND acct.createdOn >= :startTime AND acct.createdOn <= :endTime AND :language "
+                + "acct.appId = :appId AND " + EMAIL_TERM_SEARCH + " AND " + PHONE_TERM_SEARCH
+                + " AND acct.createdOn >= :startTime AND acct.createdOn <= :endTime AND :language "
                 + "IN ELEMENTS(acct.languages)";
 
         // Setup start and end dates.
@@ -810,7 +1128,7 @@ public class HibernateAccountDaoTest extends Mockito {
     public void getPagedScopedToOrgStudies() {
         String queryExpr = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
-                + "enrollment.studyId IN (:studies) GROUP BY acct.id";
+                + "enrollment.studyId IN (:studies) GROUP BY acct.id ORDER BY acct.createdOn, acct.id";
         
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(STUDY_COORDINATOR))
@@ -828,7 +1146,7 @@ public class HibernateAccountDaoTest extends Mockito {
     public void getPagedNotScopedToOrgStudiesForAdmin() {
         String queryExpr = "SELECT acct.id FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
                 + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId "
-                + "GROUP BY acct.id";
+                + "GROUP BY acct.id ORDER BY acct.createdOn, acct.id";
         
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(ADMIN))
@@ -1046,16 +1364,75 @@ public class HibernateAccountDaoTest extends Mockito {
     
     @Test
     public void externalIdFilterQueryCorrect() throws Exception {
+        dao.setSearchTermsEnabled(true);
         AccountSummarySearch search = new AccountSummarySearch.Builder()
                 .withExternalIdFilter("filter").build();
         
         QueryBuilder builder = dao.makeQuery(FULL_QUERY, TEST_APP_ID, null, search, false);
 
         String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
-                + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND enrollment.externalId LIKE :extId GROUP BY acct.id";
+                + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
+                + EXTID_TERM_SEARCH + " GROUP BY acct.id";
 
         assertEquals(builder.getQuery(), finalQuery);
         assertEquals(builder.getParameters().get("extId"), "%filter%");
+        assertEquals(builder.getParameters().get("extIdTerm"), "externalId|filter%");
+    }
+    
+    @Test
+    public void externalIdFilterQueryWithoutSearchTerms() throws Exception {
+        AccountSummarySearch search = new AccountSummarySearch.Builder()
+                .withExternalIdFilter("filter").build();
+        
+        QueryBuilder builder = dao.makeQuery(FULL_QUERY, TEST_APP_ID, null, search, false);
+
+        // Until the search terms are enabled, the column is searched directly.
+        String finalQuery = "SELECT acct FROM HibernateAccount AS acct LEFT JOIN acct.enrollments "
+                + "AS enrollment WITH acct.id = enrollment.accountId WHERE acct.appId = :appId AND "
+                + "enrollment.externalId LIKE :extId GROUP BY acct.id";
+
+        assertEquals(builder.getQuery(), finalQuery);
+        assertEquals(builder.getParameters().get("extId"), "%filter%");
+        assertNull(builder.getParameters().get("extIdTerm"));
+    }
+    
+    @Test
+    public void backfillSearchTerms() throws Exception {
+        HibernateAccount account1 = new HibernateAccount();
+        account1.setId("id1");
+        account1.setEmail("a@b");
+        HibernateAccount account2 = new HibernateAccount();
+        account2.setId("id2");
+        when(mockHibernateHelper.queryGet(SEARCH_TERMS_BACKFILL_QUERY, ImmutableMap.of("afterId", "id0"), null, 
+                100, HibernateAccount.class)).thenReturn(ImmutableList.of(account1, account2));
+        
+        String lastId = dao.backfillSearchTerms("id0", 100);
+        assertEquals(lastId, "id2");
+        
+        ArgumentCaptor<Work> workCaptor = ArgumentCaptor.forClass(Work.class);
+        verify(mockHibernateHelper).doWork(workCaptor.capture());
+        
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(INSERT_SEARCH_TERM_SQL)).thenReturn(mockStatement);
+        workCaptor.getValue().execute(mockConnection);
+        
+        // Three terms for the first account, none for the second, written in one batch.
+        verify(mockStatement, times(3)).setString(1, "id1");
+        verify(mockStatement).setString(2, "email|a@b");
+        verify(mockStatement).setString(2, "email|@b");
+        verify(mockStatement).setString(2, "email|b");
+        verify(mockStatement, times(3)).addBatch();
+        verify(mockStatement).executeBatch();
+    }
+    
+    @Test
+    public void backfillSearchTermsWhenNoMoreAccounts() {
+        when(mockHibernateHelper.queryGet(SEARCH_TERMS_BACKFILL_QUERY, ImmutableMap.of("afterId", "id2"), null, 
+                100, HibernateAccount.class)).thenReturn(ImmutableList.of());
+        
+        assertNull(dao.backfillSearchTerms("id2", 100));
+        verify(mockHibernateHelper, never()).doWork(any());
     }
     
     @Test
@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.hibernate;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.sagebionetworks.bridge.TestConstants.CREATED_ON;
 import static org.sagebionetworks.bridge.TestConstants.GUID;
 import static org.sagebionetworks.bridge.TestConstants.MODIFIED_ON;
@@ -16,6 +17,7 @@ import static org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValida
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 
+import java.util.Base64;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +45,7 @@ import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.PagedResourceList;
+import org.sagebionetworks.bridge.models.SearchTermPredicate;
 import org.sagebionetworks.bridge.models.schedules2.Schedule2;
 import org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceRecord;
 import org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceRecordId;
@@ -56,7 +59,10 @@ public class HibernateAdherenceRecordDaoTest extends Mockito {
             + " WHERE ar.userId = :userId AND ar.studyId = :studyId AND au.uploadId = :uploadId";
     private static final String BASE_QUERY_WITHOUT_USER_ID = HibernateAdherenceRecordDao.BASE_QUERY
             + " WHERE ar.appId = :appId AND ar.studyId = :studyId";
-    private static final String ORDER = " ORDER BY ar.startedOn ASC";
+    private static final String ORDER = " ORDER BY ar.startedOn ASC, ar.instanceGuid ASC, ar.userId ASC, "
+            + "ar.eventTimestamp ASC, ar.instanceTimestamp ASC";
+    private static final String ORDER_DESC = " ORDER BY ar.startedOn DESC, ar.instanceGuid DESC, ar.userId DESC, "
+            + "ar.eventTimestamp DESC, ar.instanceTimestamp DESC";
 
     private static final DateTime EVENT_TIMESTAMP_START = DateTime.parse("2023-04-11T14:36:47.529Z");
     private static final long EVENT_TIMESTAMP_START_MILLIS = EVENT_TIMESTAMP_START.getMillis();
@@ -118,6 +124,128 @@ public class HibernateAdherenceRecordDaoTest extends Mockito {
         PagedResourceList<AdherenceRecord> retValue = dao.getAdherenceRecords(search);
         assertEquals(retValue.getItems(), list);
         assertEquals(retValue.getTotal(), Integer.valueOf(150));
+        assertNull(retValue.getNextPageOffsetKey());
+    }
+
+    @Test
+    public void getAdherenceRecords_withOffsetKey() {
+        AdherenceRecord rec1 = getAdherenceRecord("guid1");
+        rec1.setInstanceTimestamp(CREATED_ON);
+        AdherenceRecord rec2 = getAdherenceRecord("guid2");
+        rec2.setInstanceTimestamp(CREATED_ON);
+        List<AdherenceRecord> list = ImmutableList.of(rec1, rec2);
+        
+        AdherenceRecordsSearch search = search().withOffsetKey(offsetKey(MODIFIED_ON)).withPageSize(2).build();
+        
+        when(mockHelper.nativeQueryGet(eq("SELECT * " + BASE_QUERY + " AND "
+                + HibernateAdherenceRecordDao.SEEK_ASC + ORDER), any(), eq(0), eq(2), eq(AdherenceRecord.class)))
+                .thenReturn(list);
+        when(mockHelper.nativeQueryCount("SELECT count(*) " + BASE_QUERY + ORDER,
+                ImmutableMap.of("studyId", TEST_STUDY_ID, "userId", TEST_USER_ID))).thenReturn(150);
+        
+        PagedResourceList<AdherenceRecord> retValue = dao.getAdherenceRecords(search);
+        assertEquals(retValue.getItems(), list);
+        assertEquals(retValue.getTotal(), Integer.valueOf(150));
+        // The page is full, so the key of the last record is returned to retrieve the next page.
+        assertEquals(retValue.getNextPageOffsetKey(), HibernateAdherenceRecordDao.encodeOffsetKey(rec2));
+    }
+    
+    @Test
+    public void getAdherenceRecords_withoutTotal() {
+        List<AdherenceRecord> list = ImmutableList.of(getAdherenceRecord(GUID));
+        
+        AdherenceRecordsSearch search = search().withIncludeTotal(false).build();
+        
+        when(mockHelper.nativeQueryGet("SELECT * " + BASE_QUERY + ORDER,
+                ImmutableMap.of("studyId", TEST_STUDY_ID, "userId", TEST_USER_ID), 0, DEFAULT_PAGE_SIZE,
+                AdherenceRecord.class)).thenReturn(list);
+        
+        PagedResourceList<AdherenceRecord> retValue = dao.getAdherenceRecords(search);
+        assertEquals(retValue.getItems(), list);
+        assertNull(retValue.getTotal());
+        assertNull(retValue.getNextPageOffsetKey());
+        
+        verify(mockHelper, never()).nativeQueryCount(any(), any());
+    }
+    
+    @Test
+    public void createQuery_offsetKeyAsc() {
+        AdherenceRecordsSearch search = search().withOffsetKey(offsetKey(MODIFIED_ON)).build();
+        
+        QueryBuilder builder = dao.createQuery(search);
+        assertEquals(builder.getQuery(), BASE_QUERY + " AND " + HibernateAdherenceRecordDao.SEEK_ASC + ORDER);
+        assertEquals(builder.getParameters().get("keyStartedOn"), MODIFIED_ON.getMillis());
+        assertEquals(builder.getParameters().get("keyInstanceGuid"), GUID);
+        assertEquals(builder.getParameters().get("keyUserId"), TEST_USER_ID);
+        assertEquals(builder.getParameters().get("keyEventTimestamp"), CREATED_ON.getMillis());
+        assertEquals(builder.getParameters().get("keyInstanceTimestamp"), CREATED_ON.getMillis());
+        
+        // Without the seek, for counting records across all pages.
+        builder = dao.createQuery(search, false);
+        assertEquals(builder.getQuery(), BASE_QUERY + ORDER);
+        assertNull(builder.getParameters().get("keyInstanceGuid"));
+    }
+    
+    @Test
+    public void createQuery_offsetKeyAscNotStarted() {
+        AdherenceRecordsSearch search = search().withOffsetKey(offsetKey(null)).build();
+        
+        QueryBuilder builder = dao.createQuery(search);
+        assertEquals(builder.getQuery(), BASE_QUERY + " AND " 
+                + HibernateAdherenceRecordDao.SEEK_ASC_NOT_STARTED + ORDER);
+        assertNull(builder.getParameters().get("keyStartedOn"));
+        assertEquals(builder.getParameters().get("keyInstanceGuid"), GUID);
+    }
+    
+    @Test
+    public void createQuery_offsetKeyDesc() {
+        AdherenceRecordsSearch search = search().withOffsetKey(offsetKey(MODIFIED_ON)).withSortOrder(DESC).build();
+        
+        QueryBuilder builder = dao.createQuery(search);
+        assertEquals(builder.getQuery(), BASE_QUERY + " AND " + HibernateAdherenceRecordDao.SEEK_DESC + ORDER_DESC);
+        assertEquals(builder.getParameters().get("keyStartedOn"), MODIFIED_ON.getMillis());
+    }
+    
+    @Test
+    public void createQuery_offsetKeyDescNotStarted() {
+        AdherenceRecordsSearch search = search().withOffsetKey(offsetKey(null)).withSortOrder(DESC).build();
+        
+        QueryBuilder builder = dao.createQuery(search);
+        assertEquals(builder.getQuery(), BASE_QUERY + " AND " 
+                + HibernateAdherenceRecordDao.SEEK_DESC_NOT_STARTED + ORDER_DESC);
+        assertNull(builder.getParameters().get("keyStartedOn"));
+    }
+    
+    @Test
+    public void createQuery_offsetKeyWithOrPredicate() {
+        // The seek is required, not one of the alternatives of an OR search.
+        AdherenceRecordsSearch search = search().withOffsetKey(offsetKey(MODIFIED_ON))
+                .withPredicate(SearchTermPredicate.OR).withDeclined(true)
+                .withAdherenceRecordType(SESSION).build();
+        
+        QueryBuilder builder = dao.createQuery(search);
+        assertEquals(builder.getQuery(), BASE_QUERY + " AND declined = 1 AND " 
+                + HibernateAdherenceRecordDao.SEEK_ASC + " AND (tm.assessmentGuid IS NULL)" + ORDER);
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class, 
+            expectedExceptionsMessageRegExp = HibernateAdherenceRecordDao.INVALID_OFFSET_KEY_ERROR)
+    public void createQuery_offsetKeyNotBase64() {
+        dao.createQuery(search().withOffsetKey("not a key!").build());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class, 
+            expectedExceptionsMessageRegExp = HibernateAdherenceRecordDao.INVALID_OFFSET_KEY_ERROR)
+    public void createQuery_offsetKeyWrongParts() {
+        String offsetKey = Base64.getUrlEncoder().encodeToString("1|2|3".getBytes(UTF_8));
+        dao.createQuery(search().withOffsetKey(offsetKey).build());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class, 
+            expectedExceptionsMessageRegExp = HibernateAdherenceRecordDao.INVALID_OFFSET_KEY_ERROR)
+    public void createQuery_offsetKeyNotNumeric() {
+        String offsetKey = Base64.getUrlEncoder().encodeToString("a|guid|user|b|c".getBytes(UTF_8));
+        dao.createQuery(search().withOffsetKey(offsetKey).build());
     }
 
     @Test
@@ -225,7 +353,7 @@ public class HibernateAdherenceRecordDaoTest extends Mockito {
         assertEquals(builder.getQuery(),
                 BASE_QUERY + " AND ar.startedOn = (SELECT startedOn FROM AdherenceRecords "
                         + "WHERE userId = :userId AND instanceGuid = ar.instanceGuid ORDER BY "
-                        + "startedOn DESC LIMIT 1) ORDER BY ar.startedOn DESC");
+                        + "startedOn DESC LIMIT 1)" + ORDER_DESC);
         assertEquals(builder.getParameters().get("studyId"), TEST_STUDY_ID);
         assertEquals(builder.getParameters().get("userId"), TEST_USER_ID);
     }
@@ -307,7 +435,7 @@ public class HibernateAdherenceRecordDaoTest extends Mockito {
         AdherenceRecordsSearch search = search().withSortOrder(DESC).build();
 
         QueryBuilder builder = dao.createQuery(search);
-        assertEquals(builder.getQuery(), BASE_QUERY + " ORDER BY ar.startedOn DESC");
+        assertEquals(builder.getQuery(), BASE_QUERY + ORDER_DESC);
         assertEquals(builder.getParameters().get("studyId"), TEST_STUDY_ID);
         assertEquals(builder.getParameters().get("userId"), TEST_USER_ID);
     }
@@ -627,6 +755,13 @@ public class HibernateAdherenceRecordDaoTest extends Mockito {
     private AdherenceRecordsSearch.Builder search() {
         return new AdherenceRecordsSearch.Builder().withUserId(TEST_USER_ID).withStudyId(TEST_STUDY_ID);
     }
+    
+    private String offsetKey(DateTime startedOn) {
+        AdherenceRecord record = getAdherenceRecord(GUID);
+        record.setStartedOn(startedOn);
+        record.setInstanceTimestamp(CREATED_ON);
+        return HibernateAdherenceRecordDao.encodeOffsetKey(record);
+    }
 
     @Test
     public void deleteAdherenceRecord() {
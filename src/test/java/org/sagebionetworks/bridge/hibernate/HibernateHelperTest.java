@@ -34,6 +34,7 @@ import org.hibernate.NonUniqueResultException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.jdbc.Work;
 import org.hibernate.exception.ConstraintViolationException;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
@@ -338,6 +339,13 @@ public class HibernateHelperTest {
         verify(mockSession).saveOrUpdate(testObj);
     }
 
+    @Test
+    public void doWork() {
+        Work work = connection -> {};
+        helper.doWork(work);
+        verify(mockSession).doWork(work);
+    }
+
     @Test
     public void update() {
         Object testObj = new Object();
@@ -9,20 +9,26 @@ import static org.sagebionetworks.bridge.hibernate.HibernateStudyActivityEventDa
 import static org.sagebionetworks.bridge.hibernate.HibernateStudyActivityEventDao.EVENT_ID_FIELD;
 import static org.sagebionetworks.bridge.hibernate.HibernateStudyActivityEventDao.GET_RECENT_SQL;
 import static org.sagebionetworks.bridge.hibernate.HibernateStudyActivityEventDao.HISTORY_SQL;
+import static org.sagebionetworks.bridge.hibernate.HibernateStudyActivityEventDao.INSERT_SQL;
 import static org.sagebionetworks.bridge.hibernate.HibernateStudyActivityEventDao.STUDY_ID_FIELD;
 import static org.sagebionetworks.bridge.hibernate.HibernateStudyActivityEventDao.USER_ID_FIELD;
 import static org.sagebionetworks.bridge.models.ResourceList.OFFSET_BY;
 import static org.sagebionetworks.bridge.models.ResourceList.PAGE_SIZE;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.CUSTOM;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.IMMUTABLE;
+import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.MUTABLE;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertSame;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
 
+import org.hibernate.jdbc.Work;
+import org.joda.time.Period;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
@@ -76,6 +82,82 @@ public class HibernateStudyActivityEventDaoTest extends Mockito {
         verify(mockHelper).saveOrUpdate(event);
     }
     
+    @Test
+    public void publishEvents() {
+        StudyActivityEvent event = new StudyActivityEvent.Builder().build();
+        
+        dao.publishEvents(ImmutableList.of(event, event));
+        
+        verify(mockHelper).doWork(any());
+    }
+    
+    @Test
+    public void publishEventsEmptyList() {
+        dao.publishEvents(ImmutableList.of());
+        
+        verify(mockHelper, never()).doWork(any());
+    }
+    
+    @Test
+    public void persistEventsInBatch() throws Exception {
+        StudyActivityEvent event = new StudyActivityEvent.Builder()
+                .withTimestamp(CREATED_ON).withCreatedOn(MODIFIED_ON).build();
+        
+        Work work = dao.persistEventsInBatch(ImmutableList.of(event, event, event));
+        
+        Connection mockConnection = mock(Connection.class);
+        PreparedStatement mockStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(INSERT_SQL)).thenReturn(mockStatement);
+        
+        work.execute(mockConnection);
+        
+        verify(mockStatement, times(3)).addBatch();
+        verify(mockStatement).executeBatch();
+        verify(mockStatement).close();
+    }
+    
+    @Test
+    public void updatePreparedStatement() throws Exception {
+        StudyActivityEvent event = new StudyActivityEvent.Builder()
+                .withAppId("appId")
+                .withUserId(TEST_USER_ID)
+                .withStudyId(TEST_STUDY_ID)
+                .withEventId("study_burst:foo:01")
+                .withTimestamp(CREATED_ON)
+                .withAnswerValue("01")
+                .withClientTimeZone("America/Los_Angeles")
+                .withCreatedOn(MODIFIED_ON)
+                .withStudyBurstId("foo")
+                .withOriginEventId("enrollment")
+                .withPeriodFromOrigin(Period.parse("P1W"))
+                .withUpdateType(MUTABLE).build();
+        
+        PreparedStatement mockStatement = mock(PreparedStatement.class);
+        dao.updatePreparedStatement(mockStatement, event);
+        
+        verify(mockStatement).setString(1, "appId");
+        verify(mockStatement).setString(2, TEST_USER_ID);
+        verify(mockStatement).setString(3, TEST_STUDY_ID);
+        verify(mockStatement).setString(4, "study_burst:foo:01");
+        verify(mockStatement).setLong(5, CREATED_ON.getMillis());
+        verify(mockStatement).setString(6, "01");
+        verify(mockStatement).setString(7, "America/Los_Angeles");
+        verify(mockStatement).setLong(8, MODIFIED_ON.getMillis());
+        verify(mockStatement).setString(9, "foo");
+        verify(mockStatement).setString(10, "enrollment");
+        verify(mockStatement).setString(11, "P1W");
+        verify(mockStatement).setString(12, "MUTABLE");
+        verify(mockStatement).addBatch();
+        
+        // Optional values are nullable
+        event = new StudyActivityEvent.Builder().withTimestamp(CREATED_ON).withCreatedOn(MODIFIED_ON).build();
+        mockStatement = mock(PreparedStatement.class);
+        dao.updatePreparedStatement(mockStatement, event);
+        
+        verify(mockStatement).setString(11, null);
+        verify(mockStatement).setString(12, null);
+    }
+    
     @Test
     public void getRecentStudyActivityEvents() { 
         List<Object[]> list = ImmutableList.of(new Object[12], new Object[12]);
@@ -12,6 +12,8 @@ import static org.sagebionetworks.bridge.models.StringSearchPosition.PREFIX;
 import static org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceRecordType.ASSESSMENT;
 import static org.sagebionetworks.bridge.models.schedules2.adherence.AdherenceRecordType.SESSION;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 import java.util.Map;
 
@@ -333,10 +335,88 @@ public class QueryBuilderTest {
     @Test
     public void whereClause_phone() {
         QueryBuilder builder = new QueryBuilder();
-        WhereClauseBuilder where = builder.startWhere(AND);
+        WhereClauseBuilder where = builder.startWhere(AND, true);
         where.phone(INFIX, "(971) 248-6796");
-        assertEquals(builder.getQuery(), "WHERE acct.phone.number LIKE :number");
+        assertEquals(builder.getQuery(), "WHERE (acct.id IN (SELECT termAcct.id FROM HibernateAccount AS termAcct "
+                + "JOIN termAcct.searchTerms AS term WHERE term LIKE :numberTerm) AND acct.phone.number LIKE :number)");
         assertEquals(builder.getParameters().get("number"), "%9712486796%");
+        assertEquals(builder.getParameters().get("numberTerm"), "phone|9712486796%");
+    }
+    
+    @Test
+    public void whereClause_phoneWithPrefix() {
+        QueryBuilder builder = new QueryBuilder();
+        WhereClauseBuilder where = builder.startWhere(AND);
+        where.phone(PREFIX, "(971) 248-6796");
+        assertEquals(builder.getQuery(), "WHERE acct.phone.number LIKE :number");
+        assertEquals(builder.getParameters().get("number"), "9712486796%");
+    }
+    
+    @Test
+    public void whereClause_searchTermLikeWithInfix() {
+        QueryBuilder builder = new QueryBuilder();
+        WhereClauseBuilder where = builder.startWhere(AND, true);
+        where.searchTermLike(INFIX, AccountSearchTerms.EMAIL, "phrase", "key", "Value");
+        
+        assertEquals(builder.getQuery(), "WHERE (acct.id IN (SELECT termAcct.id FROM HibernateAccount AS termAcct "
+                + "JOIN termAcct.searchTerms AS term WHERE term LIKE :keyTerm) AND phrase)");
+        assertEquals(builder.getParameters().get("key"), "%Value%");
+        assertEquals(builder.getParameters().get("keyTerm"), "email|value%");
+    }
+    
+    @Test
+    public void whereClause_searchTermLikeFoldsAccents() {
+        QueryBuilder builder = new QueryBuilder();
+        WhereClauseBuilder where = builder.startWhere(AND, true);
+        where.searchTermLike(INFIX, AccountSearchTerms.EMAIL, "phrase", "key", "Renée");
+        
+        // The column is still searched with the value as entered; its collation ignores the accent.
+        assertEquals(builder.getParameters().get("key"), "%Renée%");
+        assertEquals(builder.getParameters().get("keyTerm"), "email|renee%");
+    }
+    
+    @Test
+    public void whereClause_searchTermLikeWithPostfix() {
+        QueryBuilder builder = new QueryBuilder();
+        WhereClauseBuilder where = builder.startWhere(AND, true);
+        where.searchTermLike(POSTFIX, AccountSearchTerms.EMAIL, "phrase", "key", "value");
+        
+        assertEquals(builder.getQuery(), "WHERE (acct.id IN (SELECT termAcct.id FROM HibernateAccount AS termAcct "
+                + "JOIN termAcct.searchTerms AS term WHERE term LIKE :keyTerm) AND phrase)");
+        assertEquals(builder.getParameters().get("key"), "%value");
+        assertEquals(builder.getParameters().get("keyTerm"), "email|value");
+    }
+    
+    @Test
+    public void whereClause_searchTermLikeWithoutSearchTerms() {
+        QueryBuilder builder = new QueryBuilder();
+        WhereClauseBuilder where = builder.startWhere(AND);
+        where.searchTermLike(INFIX, AccountSearchTerms.EMAIL, "phrase", "key", "Value");
+        
+        assertEquals(builder.getQuery(), "WHERE phrase");
+        assertEquals(builder.getParameters().get("key"), "%Value%");
+        assertNull(builder.getParameters().get("keyTerm"));
+    }
+    
+    @Test
+    public void whereClause_searchTermLikeWithExact() {
+        QueryBuilder builder = new QueryBuilder();
+        WhereClauseBuilder where = builder.startWhere(AND);
+        where.searchTermLike(EXACT, AccountSearchTerms.EMAIL, "phrase", "key", "value");
+        
+        // An exact (or prefix) search can use the index on the column itself.
+        assertEquals(builder.getQuery(), "WHERE phrase");
+        assertEquals(builder.getParameters().get("key"), "value");
+        assertNull(builder.getParameters().get("keyTerm"));
+    }
+    
+    @Test
+    public void whereClause_searchTermLikeWithBlankValue() {
+        QueryBuilder builder = new QueryBuilder();
+        WhereClauseBuilder where = builder.startWhere(AND);
+        where.searchTermLike(INFIX, AccountSearchTerms.EMAIL, "phrase", "key", "");
+        assertEquals(builder.getQuery(), "");
+        assertTrue(builder.getParameters().isEmpty());
     }
     
     @Test
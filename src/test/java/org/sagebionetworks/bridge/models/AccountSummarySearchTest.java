@@ -98,6 +98,8 @@ public class AccountSummarySearchTest {
             .withAttributeValueFilter("bar")
             .withPredicate(OR)
             .withInUse(false)
+            .withOffsetKey("offsetKey")
+            .withIncludeTotal(false)
             .build();
         
         String json = BridgeObjectMapper.get().writeValueAsString(search);
@@ -127,6 +129,8 @@ public class AccountSummarySearchTest {
         assertEquals(deser.getAttributeValueFilter(), "bar");
         assertEquals(deser.getPredicate(), OR);
         assertFalse(deser.isInUse());
+        assertEquals(deser.getOffsetKey(), "offsetKey");
+        assertFalse(deser.getIncludeTotal());
     }
     
     @Test
@@ -154,6 +158,8 @@ public class AccountSummarySearchTest {
             .withAttributeValueFilter("bar")
             .withPredicate(OR)
             .withInUse(true)
+            .withOffsetKey("offsetKey")
+            .withIncludeTotal(false)
             .build();
 
         AccountSummarySearch copy = search.toBuilder().build();
@@ -176,6 +182,8 @@ public class AccountSummarySearchTest {
         assertEquals(copy.getAttributeValueFilter(), "bar");
         assertEquals(copy.getPredicate(), OR);
         assertTrue(copy.isInUse());
+        assertEquals(copy.getOffsetKey(), "offsetKey");
+        assertFalse(copy.getIncludeTotal());
     }
     
     @Test
@@ -183,5 +191,6 @@ public class AccountSummarySearchTest {
         assertEquals(AccountSummarySearch.EMPTY_SEARCH.getOffsetBy(), 0);
         assertEquals(AccountSummarySearch.EMPTY_SEARCH.getPageSize(), BridgeConstants.API_DEFAULT_PAGE_SIZE);
         assertEquals(AccountSummarySearch.EMPTY_SEARCH.getPredicate(), SearchTermPredicate.AND);
+        assertTrue(AccountSummarySearch.EMPTY_SEARCH.getIncludeTotal());
     }
 }
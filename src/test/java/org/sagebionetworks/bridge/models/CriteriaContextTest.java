@@ -7,8 +7,10 @@ import org.sagebionetworks.bridge.models.accounts.AccountId;
 
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
 
@@ -70,4 +72,37 @@ public class CriteriaContextTest {
         assertEquals(accountId.getAppId(), TEST_APP_ID);
         assertEquals(accountId.getId(), USER_ID);
     }
+    
+    @Test
+    public void criteriaKey() {
+        CriteriaContext context = new CriteriaContext.Builder()
+                .withAppId(TEST_APP_ID)
+                .withUserId(USER_ID)
+                .withClientInfo(ClientInfo.fromUserAgentCache("app/10 (Unknown iPhone; iPhone OS/14.0) BridgeSDK/4"))
+                .withUserDataGroups(ImmutableSet.of("b", "a"))
+                .withUserStudyIds(ImmutableSet.of("study2", "study1"))
+                .withLanguages(ImmutableList.of("fr", "en")).build();
+        
+        assertEquals(context.getCriteriaKey(), TEST_APP_ID + ":10:iPhone OS:[a, b]:[study1, study2]:[fr, en]");
+        
+        // The order of data groups and studies does not matter, and values not matched by criteria are ignored.
+        CriteriaContext same = new CriteriaContext.Builder()
+                .withAppId(TEST_APP_ID)
+                .withUserId("otherUserId")
+                .withClientInfo(ClientInfo.fromUserAgentCache("app/10 (Other iPhone; iPhone OS/15.0) BridgeSDK/5"))
+                .withUserDataGroups(ImmutableSet.of("a", "b"))
+                .withUserStudyIds(ImmutableSet.of("study1", "study2"))
+                .withLanguages(ImmutableList.of("fr", "en")).build();
+        assertEquals(same.getCriteriaKey(), context.getCriteriaKey());
+        
+        // The order of languages does matter.
+        CriteriaContext different = new CriteriaContext.Builder()
+                .withAppId(TEST_APP_ID)
+                .withUserId(USER_ID)
+                .withClientInfo(context.getClientInfo())
+                .withUserDataGroups(context.getUserDataGroups())
+                .withUserStudyIds(context.getUserStudyIds())
+                .withLanguages(ImmutableList.of("en", "fr")).build();
+        assertNotEquals(different.getCriteriaKey(), context.getCriteriaKey());
+    }
 }
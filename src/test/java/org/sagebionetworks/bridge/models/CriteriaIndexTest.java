@@ -0,0 +1,208 @@
+package org.sagebionetworks.bridge.models;
+
+import static java.util.Comparator.comparingLong;
+import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
+import static org.sagebionetworks.bridge.models.OperatingSystem.ANDROID;
+import static org.sagebionetworks.bridge.models.OperatingSystem.IOS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.models.appconfig.AppConfig;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class CriteriaIndexTest {
+
+    private static final List<String> LANGUAGES = ImmutableList.of("en", "fr", "de");
+    private static final List<String> OS_NAMES = ImmutableList.of(IOS, ANDROID);
+
+    @Test
+    public void matchesSameAsCriteriaUtils() {
+        // More than 64 data groups, so the masks span several words.
+        Random random = new Random(1234L);
+        List<String> dataGroups = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            dataGroups.add("group" + i);
+        }
+        List<String> studyIds = ImmutableList.of("studyA", "studyB", "studyC", "studyD");
+
+        List<AppConfig> appConfigs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Criteria criteria = Criteria.create();
+            criteria.setAllOfGroups(randomSubset(random, dataGroups, 2));
+            criteria.setNoneOfGroups(randomSubset(random, dataGroups, 2));
+            criteria.setAllOfStudyIds(randomSubset(random, studyIds, 1));
+            criteria.setNoneOfStudyIds(randomSubset(random, studyIds, 1));
+            if (random.nextBoolean()) {
+                criteria.setMinAppVersion(IOS, random.nextInt(10));
+            }
+            if (random.nextBoolean()) {
+                criteria.setMaxAppVersion(ANDROID, random.nextInt(10));
+            }
+            if (random.nextInt(3) == 0) {
+                criteria.setLanguage(LANGUAGES.get(random.nextInt(LANGUAGES.size())));
+            }
+            appConfigs.add(createAppConfig(i, criteria));
+        }
+        CriteriaIndex<AppConfig> index = CriteriaIndex.create(appConfigs, AppConfig::getGuid, AppConfig::getVersion);
+        assertEquals(index.size(), 200);
+
+        int matched = 0;
+        for (int i = 0; i < 500; i++) {
+            ClientInfo clientInfo = new ClientInfo.Builder()
+                    .withAppVersion(random.nextBoolean() ? random.nextInt(10) : null)
+                    .withOsName(OS_NAMES.get(random.nextInt(OS_NAMES.size()))).build();
+            CriteriaContext context = new CriteriaContext.Builder()
+                    .withAppId(TEST_APP_ID)
+                    .withClientInfo(clientInfo)
+                    // Include a data group that no criteria refers to.
+                    .withUserDataGroups(ImmutableSet.<String>builder()
+                            .addAll(randomSubset(random, dataGroups, 60)).add("unknownGroup").build())
+                    .withUserStudyIds(randomSubset(random, studyIds, 3))
+                    .withLanguages(random.nextBoolean() ? ImmutableList.of("fr", "en") : ImmutableList.of("DE"))
+                    .build();
+
+            List<AppConfig> expected = CriteriaUtils.filterByCriteria(context, appConfigs,
+                    comparingLong(AppConfig::getCreatedOn));
+            List<AppConfig> actual = index.filter(context, appConfigs, comparingLong(AppConfig::getCreatedOn));
+            assertEquals(actual, expected);
+            matched += actual.size();
+        }
+        // Make sure the comparison was not trivially between empty lists.
+        assertTrue(matched > 0);
+    }
+
+    @Test
+    public void sortsByLanguageThenSecondComparator() {
+        AppConfig noLanguage = createAppConfig(3, Criteria.create());
+        AppConfig french = createAppConfig(2, criteriaWithLanguage("fr"));
+        AppConfig englishLater = createAppConfig(1, criteriaWithLanguage("en"));
+        AppConfig englishEarlier = createAppConfig(0, criteriaWithLanguage("en"));
+        englishLater.setCreatedOn(20L);
+        englishEarlier.setCreatedOn(10L);
+
+        List<AppConfig> appConfigs = ImmutableList.of(noLanguage, french, englishLater, englishEarlier);
+        CriteriaIndex<AppConfig> index = CriteriaIndex.create(appConfigs, AppConfig::getGuid, AppConfig::getVersion);
+
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withLanguages(ImmutableList.of("en", "fr")).build();
+
+        assertEquals(index.filter(context, appConfigs, comparingLong(AppConfig::getCreatedOn)),
+                ImmutableList.of(noLanguage, englishEarlier, englishLater, french));
+        assertEquals(index.filter(context, appConfigs, null),
+                ImmutableList.of(noLanguage, englishLater, englishEarlier, french));
+    }
+
+    @Test
+    public void returnsCandidatesFromProvidedList() {
+        Criteria criteria = Criteria.create();
+        criteria.setAllOfGroups(ImmutableSet.of("group1"));
+        List<AppConfig> appConfigs = ImmutableList.of(createAppConfig(0, criteria));
+        CriteriaIndex<AppConfig> index = CriteriaIndex.create(appConfigs, AppConfig::getGuid, AppConfig::getVersion);
+
+        // The same configs, loaded again.
+        Criteria reloadedCriteria = Criteria.create();
+        reloadedCriteria.setAllOfGroups(ImmutableSet.of("group1"));
+        List<AppConfig> reloaded = ImmutableList.of(createAppConfig(0, reloadedCriteria));
+        assertTrue(index.isIndexOf(reloaded));
+
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withUserDataGroups(ImmutableSet.of("group1")).build();
+        List<AppConfig> results = index.filter(context, reloaded, null);
+        assertEquals(results.size(), 1);
+        assertSame(results.get(0), reloaded.get(0));
+    }
+
+    @Test
+    public void matchPositionsCanBeAppliedToReloadedList() {
+        List<AppConfig> appConfigs = ImmutableList.of(createAppConfig(0, criteriaWithLanguage("fr")),
+                createAppConfig(1, criteriaWithLanguage("de")), createAppConfig(2, criteriaWithLanguage("en")));
+        CriteriaIndex<AppConfig> index = CriteriaIndex.create(appConfigs, AppConfig::getGuid, AppConfig::getVersion);
+
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withLanguages(ImmutableList.of("en", "fr")).build();
+        int[] positions = index.match(context, appConfigs, null);
+        assertEquals(positions, new int[] { 2, 0 });
+
+        List<AppConfig> reloaded = ImmutableList.of(createAppConfig(0, criteriaWithLanguage("fr")),
+                createAppConfig(1, criteriaWithLanguage("de")), createAppConfig(2, criteriaWithLanguage("en")));
+        List<AppConfig> results = index.select(reloaded, positions);
+        assertEquals(results.size(), 2);
+        assertSame(results.get(0), reloaded.get(2));
+        assertSame(results.get(1), reloaded.get(0));
+    }
+
+    @Test
+    public void isIndexOf() {
+        List<AppConfig> appConfigs = ImmutableList.of(createAppConfig(0, Criteria.create()),
+                createAppConfig(1, Criteria.create()));
+        CriteriaIndex<AppConfig> index = CriteriaIndex.create(appConfigs, AppConfig::getGuid, AppConfig::getVersion);
+        assertTrue(index.isIndexOf(appConfigs));
+
+        // Updated config
+        AppConfig updated = createAppConfig(1, Criteria.create());
+        updated.setVersion(2L);
+        assertFalse(index.isIndexOf(ImmutableList.of(appConfigs.get(0), updated)));
+
+        // Replaced config, at the same version
+        assertFalse(index.isIndexOf(ImmutableList.of(appConfigs.get(0), createAppConfig(2, Criteria.create()))));
+
+        // Deleted config
+        assertFalse(index.isIndexOf(ImmutableList.of(appConfigs.get(0))));
+
+        // Different order
+        assertFalse(index.isIndexOf(ImmutableList.of(appConfigs.get(1), appConfigs.get(0))));
+    }
+
+    @Test
+    public void emptyIndex() {
+        CriteriaIndex<AppConfig> index = CriteriaIndex.create(ImmutableList.of(), AppConfig::getGuid, AppConfig::getVersion);
+
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withUserDataGroups(ImmutableSet.of("group1")).build();
+        assertTrue(index.filter(context, ImmutableList.of(), null).isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void filterRejectsDifferentCandidates() {
+        CriteriaIndex<AppConfig> index = CriteriaIndex.create(ImmutableList.of(), AppConfig::getGuid, AppConfig::getVersion);
+
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID).build();
+        index.filter(context, ImmutableList.of(createAppConfig(0, Criteria.create())), null);
+    }
+
+    private static Set<String> randomSubset(Random random, List<String> values, int maxSize) {
+        Set<String> subset = new HashSet<>();
+        int size = random.nextInt(maxSize + 1);
+        for (int i = 0; i < size; i++) {
+            subset.add(values.get(random.nextInt(values.size())));
+        }
+        return subset;
+    }
+
+    private static Criteria criteriaWithLanguage(String language) {
+        Criteria criteria = Criteria.create();
+        criteria.setLanguage(language);
+        return criteria;
+    }
+
+    private static AppConfig createAppConfig(int i, Criteria criteria) {
+        AppConfig appConfig = AppConfig.create();
+        appConfig.setGuid("config" + i);
+        appConfig.setVersion(1L);
+        appConfig.setCreatedOn(1000L - i);
+        appConfig.setCriteria(criteria);
+        return appConfig;
+    }
+}
@@ -165,6 +165,26 @@ public class MetricsTest {
         assertEquals("third", paramsNode.get("now_new_key").get(0).textValue());
     }
 
+    @Test
+    public void testRecordStorageCall() {
+        Metrics metrics = new Metrics("12345");
+        metrics.recordStorageCall("db", 5L);
+        metrics.recordStorageCall("db", 7L);
+        metrics.recordStorageCall("redis", 1L);
+
+        JsonNode metricsNode = metrics.getJson();
+        assertEquals(metricsNode.get("dbCalls").longValue(), 2L);
+        assertEquals(metricsNode.get("dbMillis").longValue(), 12L);
+        assertEquals(metricsNode.get("redisCalls").longValue(), 1L);
+        assertEquals(metricsNode.get("redisMillis").longValue(), 1L);
+        assertFalse(metricsNode.has("dynamoCalls"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRecordStorageCallTypeMustNotBeBlank() {
+        new Metrics("12345").recordStorageCall(" ", 1L);
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testConstructorRequestIdMustNotBeNull() {
         new Metrics(null);
@@ -108,6 +108,20 @@ public class PagedResourceListTest {
         assertNull(node.get("endTime"));
     }
     
+    @Test
+    public void canSerializeWithNextPageOffsetKey() throws Exception {
+        List<AccountSummary> accounts = Lists.newArrayList(SUMMARY1, SUMMARY2);
+        
+        PagedResourceList<AccountSummary> page = new PagedResourceList<AccountSummary>(accounts, null, "nextKey", true)
+                .withRequestParam("offsetKey", "thisKey");
+        
+        JsonNode node = BridgeObjectMapper.get().valueToTree(page);
+        assertEquals(node.get("nextPageOffsetKey").textValue(), "nextKey");
+        assertEquals(node.get("requestParams").get("offsetKey").textValue(), "thisKey");
+        assertNull(node.get("total"));
+        assertEquals(node.get("items").size(), 2);
+    }
+    
     @Test(expectedExceptions = NullPointerException.class)
     public void totalCannotBeNull() throws Exception {
         List<AccountSummary> accounts = Lists.newArrayListWithCapacity(2);
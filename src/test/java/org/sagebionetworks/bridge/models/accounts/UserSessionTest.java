@@ -79,6 +79,7 @@ public class UserSessionTest {
         session.setAppId(TEST_APP_ID);
         session.setReauthToken("reauthToken");
         session.setConsentStatuses(statuses);
+        session.setConsentCriteriaKey("criteriaKey");
         
         String json = StudyParticipant.CACHE_WRITER.writeValueAsString(session);
         UserSession newSession = BridgeObjectMapper.get().readValue(json, UserSession.class);
@@ -92,6 +93,7 @@ public class UserSessionTest {
         assertEquals(newSession.getIpAddress(), session.getIpAddress());
         assertEquals(newSession.getAppId(), session.getAppId());
         assertEquals(newSession.getParticipant(), session.getParticipant());
+        assertEquals(newSession.getConsentCriteriaKey(), "criteriaKey");
     }
     
     @Test
@@ -37,7 +37,7 @@ public class AdherenceRecordsSearchTest extends Mockito {
         AdherenceRecordsSearch search = createSearch();
                 
         JsonNode node = BridgeObjectMapper.get().valueToTree(search);
-        assertEquals(node.size(), 25);
+        assertEquals(node.size(), 27);
         assertEquals(node.get("appId").textValue(), TEST_APP_ID);
         assertEquals(node.get("userId").textValue(), TEST_USER_ID);
         assertEquals(node.get("studyId").textValue(), TEST_STUDY_ID);
@@ -54,6 +54,8 @@ public class AdherenceRecordsSearchTest extends Mockito {
         assertEquals(node.get("startTime").textValue(), CREATED_ON.toString());
         assertEquals(node.get("endTime").textValue(), MODIFIED_ON.toString());
         assertEquals(node.get("offsetBy").intValue(), 100);
+        assertEquals(node.get("offsetKey").textValue(), "offsetKey");
+        assertFalse(node.get("includeTotal").booleanValue());
         assertEquals(node.get("pageSize").intValue(), 20);
         assertEquals(node.get("sortOrder").textValue(), "desc");
         assertEquals(node.get("type").textValue(), "AdherenceRecordsSearch");
@@ -83,6 +85,8 @@ public class AdherenceRecordsSearchTest extends Mockito {
         assertEquals(deser.getStartTime(), CREATED_ON);
         assertEquals(deser.getEndTime(), MODIFIED_ON);
         assertEquals(deser.getOffsetBy(), Integer.valueOf(100));
+        assertEquals(deser.getOffsetKey(), "offsetKey");
+        assertFalse(deser.getIncludeTotal());
         assertEquals(deser.getPageSize(), Integer.valueOf(20));
         assertEquals(deser.getSortOrder(), DESC);
         assertEquals(deser.getInstanceGuidStartedOnMap(), ImmutableMap.of());
@@ -135,6 +139,8 @@ public class AdherenceRecordsSearchTest extends Mockito {
         assertEquals(copy.getStartTime(), CREATED_ON);
         assertEquals(copy.getEndTime(), MODIFIED_ON);
         assertEquals(copy.getOffsetBy(), Integer.valueOf(100));
+        assertEquals(copy.getOffsetKey(), "offsetKey");
+        assertFalse(copy.getIncludeTotal());
         assertEquals(copy.getPageSize(), Integer.valueOf(20));
         assertEquals(copy.getSortOrder(), DESC);
         assertEquals(copy.getPredicate(), OR);
@@ -163,6 +169,8 @@ public class AdherenceRecordsSearchTest extends Mockito {
                 .withStartTime(CREATED_ON)
                 .withEndTime(MODIFIED_ON)
                 .withOffsetBy(100)
+                .withOffsetKey("offsetKey")
+                .withIncludeTotal(Boolean.FALSE)
                 .withPageSize(20)
                 .withSortOrder(DESC)
                 .withPredicate(OR)
@@ -185,6 +193,8 @@ public class AdherenceRecordsSearchTest extends Mockito {
         assertFalse(search.getCurrentTimestampsOnly());
         assertEquals(search.getEventTimestamps(), ImmutableMap.of());
         assertEquals(search.getOffsetBy(), Integer.valueOf(0));
+        assertNull(search.getOffsetKey());
+        assertTrue(search.getIncludeTotal());
         assertEquals(search.getPageSize(), Integer.valueOf(DEFAULT_PAGE_SIZE));
         assertEquals(search.getSortOrder(), ASC);
         assertEquals(search.getPredicate(), AND);
@@ -28,6 +28,7 @@ import org.joda.time.DateTimeZone;
 import org.joda.time.LocalDate;
 import org.joda.time.LocalTime;
 import org.joda.time.Period;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.activities.StudyActivityEvent;
 import org.sagebionetworks.bridge.models.schedules2.Schedule2;
 import org.sagebionetworks.bridge.models.schedules2.Session;
@@ -494,6 +495,48 @@ public class EventStreamAdherenceReportGeneratorTest {
         assertEquals(window.getState(), UNSTARTED);
     }
     
+    @Test
+    public void parallelReportMatchesSequentialReport() throws Exception {
+        // Three streams (one with no event) whose first sessions start on the same date, so the 
+        // earliest event ID must be chosen by metadata order, not by the order partitions complete.
+        List<TimelineMetadata> metas = new ArrayList<>();
+        List<AdherenceRecord> records = new ArrayList<>();
+        for (int i=0; i < EventStreamAdherenceReportGenerator.PARALLEL_THRESHOLD + 100; i++) {
+            String guid = "instance" + i;
+            int startDay = i / 3;
+            if (i % 3 == 0) {
+                metas.add(createMeta(guid, guid, "u90_okqrmPgKptcc9E8lORwC", "ksuWqp17x3i9zjQBh0FHSDS2", startDay,
+                        startDay + 2, "study_burst:Main Sequence:01", "Main Sequence", 1, "*", "Session #1", false));
+            } else if (i % 3 == 1) {
+                metas.add(createMeta(guid, guid, "sessionGuid", "timeWindowGuid", startDay, startDay + 1,
+                        "sessionStartEventId", null, null, "sessionSymbol", "sessionName", false));
+            } else {
+                metas.add(createMeta(guid, guid, "sessionGuid", "timeWindowGuid", startDay, startDay,
+                        "unsetEventId", null, null, "sessionSymbol", "sessionName", false));
+            }
+            if (i % 4 == 0) {
+                records.add(createRecord(STARTED_ON, (i % 8 == 0) ? FINISHED_ON : null, guid, false));
+            }
+        }
+        metas.add(META_PERSISTENT);
+        List<StudyActivityEvent> events = ImmutableList.of(
+                createEvent("sessionStartEventId", NOW.minusDays(100)),
+                createEvent("study_burst:Main Sequence:01", NOW.minusDays(100)));
+        
+        AdherenceState.Builder builder = new AdherenceState.Builder().withMetadata(metas).withEvents(events)
+                .withAdherenceRecords(records).withNow(NOW).withClientTimeZone("America/Chicago");
+        
+        EventStreamAdherenceReport sequential = new EventStreamAdherenceReportGenerator(Integer.MAX_VALUE)
+                .generate(builder.build(), SCHEDULE);
+        EventStreamAdherenceReport parallel = new EventStreamAdherenceReportGenerator(0)
+                .generate(builder.build(), SCHEDULE);
+        
+        assertEquals(sequential.getEarliestEventId(), "study_burst:Main Sequence:01");
+        assertEquals(sequential.getStreams().size(), 3);
+        assertEquals(BridgeObjectMapper.get().writeValueAsString(parallel),
+                BridgeObjectMapper.get().writeValueAsString(sequential));
+    }
+    
     private AdherenceState createState(DateTime now, TimelineMetadata meta,
             StudyActivityEvent event, AdherenceRecord adherenceRecord) {
         return createState(now, meta, event, adherenceRecord, false);
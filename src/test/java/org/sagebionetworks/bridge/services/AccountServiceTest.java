@@ -42,6 +42,7 @@ import java.util.function.Consumer;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
@@ -129,6 +130,9 @@ public class AccountServiceTest extends Mockito {
 
     @Mock
     Consumer<Account> mockConsumer;
+    
+    @Mock
+    Consumer<AccountSummary> mockSummaryConsumer;
 
     @Mock
     ParticipantVersionService mockParticipantVersionService;
@@ -189,6 +193,8 @@ public class AccountServiceTest extends Mockito {
     @BeforeMethod
     public void beforeMethod() {
         MockitoAnnotations.initMocks(this);
+        service.setAccountDeletionExecutorService(MoreExecutors.newDirectExecutorService());
+        service.setAsyncExecutorService(MoreExecutors.newDirectExecutorService());
         RequestContext.set(new RequestContext.Builder()
                 .withCallerRoles(ImmutableSet.of(RESEARCHER)).build());
     }
@@ -228,6 +234,7 @@ public class AccountServiceTest extends Mockito {
         assertEquals(createdAccount.getDataGroups(), ImmutableSet.of());
         
         verify(mockCacheProvider).setObject(CacheKey.etag(DateTimeZone.class, TEST_USER_ID), MOCK_DATETIME);
+        verify(mockCacheProvider).incrementIfPresent(CacheKey.accountCount(TEST_APP_ID), 1);
 
         // Verify we also create a participant version.
         verify(mockParticipantVersionService).createParticipantVersionFromAccount(same(app), same(createdAccount));
@@ -874,6 +881,36 @@ public class AccountServiceTest extends Mockito {
     public void deleteAllAccounts() {
         service.deleteAllAccounts(TEST_APP_ID);
         verify(mockAccountDao).deleteAllAccounts(TEST_APP_ID);
+        verify(mockCacheProvider).removeObject(CacheKey.accountCount(TEST_APP_ID));
+    }
+    
+    @Test
+    public void getAccountCountCached() {
+        when(mockCacheProvider.getObject(CacheKey.accountCount(TEST_APP_ID), Integer.class)).thenReturn(12);
+        
+        assertEquals(service.getAccountCount(TEST_APP_ID), 12);
+        
+        verify(mockAccountDao, never()).getAccountCount(any());
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
+    }
+    
+    @Test
+    public void getAccountCountNotCached() {
+        when(mockAccountDao.getAccountCount(TEST_APP_ID)).thenReturn(12);
+        
+        assertEquals(service.getAccountCount(TEST_APP_ID), 12);
+        
+        verify(mockCacheProvider).setObject(CacheKey.accountCount(TEST_APP_ID), 12,
+                AccountService.ACCOUNT_COUNT_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void streamAccountSummaries() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(50).build();
+        
+        service.streamAccountSummaries(TEST_APP_ID, search, mockSummaryConsumer);
+        
+        verify(mockAccountDao).streamAccountSummaries(TEST_APP_ID, search, mockSummaryConsumer);
     }
     
     @SuppressWarnings("unchecked")
@@ -893,6 +930,16 @@ public class AccountServiceTest extends Mockito {
         PagedResourceList<AccountSummary> page3 = new PagedResourceList<>(
                 ImmutableList.of(), API_MAXIMUM_PAGE_SIZE+1);
         when(mockAccountDao.getPagedAccountSummaries(eq(TEST_APP_ID), any())).thenReturn(page1, page2, page3);
+        when(mockAccountDao.getAccount(any())).thenAnswer(invocation -> {
+            AccountId accountId = invocation.getArgument(0);
+            Account account = Account.create();
+            account.setAppId(accountId.getAppId());
+            account.setId(accountId.getId());
+            account.setHealthCode("healthCode-" + accountId.getId());
+            return Optional.of(account);
+        });
+        doReturn(new ReportTypeResourceList<>(ImmutableList.of())).when(mockReportService)
+                .getReportIndices(TEST_APP_ID, ReportType.PARTICIPANT);
         
         service.deleteAllPreviewAccounts(TEST_APP_ID, TEST_STUDY_ID);
         
@@ -903,6 +950,7 @@ public class AccountServiceTest extends Mockito {
         assertEquals(capturedSearch.getAllOfGroups(), ImmutableSet.of(PREVIEW_USER_GROUP));
         assertEquals(capturedSearch.getEnrolledInStudyId(), TEST_STUDY_ID);
         assertEquals(capturedSearch.getOffsetBy(), 0);
+        assertFalse(capturedSearch.getIncludeTotal());
 
         verify(mockAccountDao).deleteAccount("user1");
         verify(mockAccountDao).deleteAccount("user2");
@@ -910,6 +958,12 @@ public class AccountServiceTest extends Mockito {
         verify(mockAccountDao).deleteAccount("user4");
         verify(mockAccountDao).deleteAccount("user5");
         verify(mockAccountDao).deleteAccount("user6");
+        verify(mockCacheProvider, times(6)).incrementIfPresent(CacheKey.accountCount(TEST_APP_ID), -1);
+        
+        // Preview accounts are deleted with all of their data.
+        verify(mockHealthDataService).deleteRecordsForHealthCode("healthCode-user1");
+        verify(mockUploadService).deleteUploadsForHealthCode("healthCode-user6");
+        verify(mockParticipantDataService).deleteAllParticipantData("user3");
     }
     
     @Test
@@ -1024,14 +1078,124 @@ public class AccountServiceTest extends Mockito {
         verify(mockScheduledActivityService).deleteActivitiesForUser(HEALTH_CODE);
         verify(mockActivityEventService, atLeastOnce()).deleteActivityEvents(TEST_APP_ID, HEALTH_CODE);
         verify(mockAccountDao).deleteAccount(TEST_USER_ID);
+        verify(mockCacheProvider).incrementIfPresent(CacheKey.accountCount(TEST_APP_ID), -1);
         verify(mockCacheProvider).removeObject(CacheKey.etag(DateTimeZone.class, TEST_USER_ID));
         verify(mockCacheProvider).removeObject(CacheKey.etag(StudyActivityEvent.class, TEST_USER_ID));
+        verify(mockCacheProvider).removeObject(CacheKey.accountDeletion(TEST_USER_ID));
 
         verify(mockReportService).getReportIndices(TEST_APP_ID, ReportType.PARTICIPANT);
         verify(mockReportService).deleteParticipantReport(TEST_APP_ID, TEST_USER_ID, REPORT_ID_1, HEALTH_CODE);
         verify(mockReportService).deleteParticipantReport(TEST_APP_ID, TEST_USER_ID, REPORT_ID_2, HEALTH_CODE);
     }
     
+    @Test
+    public void deleteAccount_resumesAfterCompletedSteps() {
+        Account account = mockAccountForDeletion();
+        when(mockCacheProvider.getObject(CacheKey.accountDeletion(TEST_USER_ID), AccountService.STRING_SET_TYPE_REF))
+                .thenReturn(Sets.newHashSet(AccountService.HEALTH_DATA_STEP, AccountService.UPLOADS_STEP,
+                        AccountService.PARTICIPANT_REPORTS_STEP));
+        
+        service.deleteAccount(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
+        
+        // Completed steps are not repeated
+        verify(mockHealthDataService, never()).deleteRecordsForHealthCode(any());
+        verify(mockUploadService, never()).deleteUploadsForHealthCode(any());
+        verify(mockReportService, never()).getReportIndices(any(), any());
+        
+        verify(mockHealthDataEx3Service).deleteRecordsForHealthCode(HEALTH_CODE);
+        verify(mockNotificationsService).deleteAllRegistrations(TEST_APP_ID, HEALTH_CODE);
+        verify(mockParticipantDataService).deleteAllParticipantData(TEST_USER_ID);
+        verify(mockParticipantFileService).deleteAllFilesForParticipant(TEST_USER_ID);
+        verify(mockScheduledActivityService).deleteActivitiesForUser(HEALTH_CODE);
+        verify(mockActivityEventService).deleteActivityEvents(TEST_APP_ID, HEALTH_CODE);
+        verify(mockAccountDao).deleteAccount(account.getId());
+        verify(mockCacheProvider).removeObject(CacheKey.accountDeletion(TEST_USER_ID));
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void deleteAccount_failedStepRecordsProgress() {
+        mockAccountForDeletion();
+        RuntimeException ex = new RuntimeException("S3 is down");
+        doThrow(ex).when(mockUploadService).deleteUploadsForHealthCode(HEALTH_CODE);
+        
+        try {
+            service.deleteAccount(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
+            fail("Should have thrown exception");
+        } catch (RuntimeException e) {
+            assertSame(e, ex);
+        }
+        
+        // The other cleanups still ran
+        verify(mockHealthDataService).deleteRecordsForHealthCode(HEALTH_CODE);
+        verify(mockActivityEventService).deleteActivityEvents(TEST_APP_ID, HEALTH_CODE);
+        
+        ArgumentCaptor<Set<String>> stepsCaptor = ArgumentCaptor.forClass(Set.class);
+        verify(mockCacheProvider).setObject(eq(CacheKey.accountDeletion(TEST_USER_ID)), stepsCaptor.capture(),
+                eq(AccountService.ACCOUNT_DELETION_EXPIRE_IN_SECONDS));
+        assertEquals(stepsCaptor.getValue(), ImmutableSet.of(AccountService.HEALTH_DATA_STEP,
+                AccountService.HEALTH_DATA_EX3_STEP, AccountService.NOTIFICATION_REGISTRATIONS_STEP,
+                AccountService.PARTICIPANT_DATA_STEP, AccountService.PARTICIPANT_FILES_STEP,
+                AccountService.SCHEDULED_ACTIVITIES_STEP, AccountService.ACTIVITY_EVENTS_STEP,
+                AccountService.PARTICIPANT_REPORTS_STEP));
+        
+        // The account is kept, so deleting it again resumes the deletion
+        verify(mockAccountDao, never()).deleteAccount(any());
+        verify(mockCacheProvider, never()).incrementIfPresent(any(), anyInt());
+        verify(mockCacheProvider, never()).removeObject(CacheKey.accountDeletion(TEST_USER_ID));
+    }
+    
+    @Test
+    public void startSearchTermsBackfill() {
+        when(mockAccountDao.backfillSearchTerms("", AccountService.SEARCH_TERMS_BACKFILL_CHUNK_SIZE))
+                .thenReturn("id1");
+        when(mockAccountDao.backfillSearchTerms("id1", AccountService.SEARCH_TERMS_BACKFILL_CHUNK_SIZE))
+                .thenReturn("id2");
+        
+        service.startSearchTermsBackfill();
+        
+        verify(mockAccountDao).backfillSearchTerms("id2", AccountService.SEARCH_TERMS_BACKFILL_CHUNK_SIZE);
+        verify(mockCacheProvider).setObject(CacheKey.accountSearchTermsBackfill(), "id1");
+        verify(mockCacheProvider).setObject(CacheKey.accountSearchTermsBackfill(), "id2");
+        verify(mockCacheProvider).removeObject(CacheKey.accountSearchTermsBackfill());
+    }
+    
+    @Test
+    public void startSearchTermsBackfill_resumesAfterSavedAccount() {
+        when(mockCacheProvider.getObject(CacheKey.accountSearchTermsBackfill(), String.class)).thenReturn("id5");
+        
+        service.startSearchTermsBackfill();
+        
+        verify(mockAccountDao).backfillSearchTerms("id5", AccountService.SEARCH_TERMS_BACKFILL_CHUNK_SIZE);
+        verify(mockAccountDao, never()).backfillSearchTerms("", AccountService.SEARCH_TERMS_BACKFILL_CHUNK_SIZE);
+        verify(mockCacheProvider).removeObject(CacheKey.accountSearchTermsBackfill());
+    }
+    
+    @Test
+    public void startSearchTermsBackfill_failureKeepsProgress() {
+        when(mockAccountDao.backfillSearchTerms("", AccountService.SEARCH_TERMS_BACKFILL_CHUNK_SIZE))
+                .thenReturn("id1");
+        when(mockAccountDao.backfillSearchTerms("id1", AccountService.SEARCH_TERMS_BACKFILL_CHUNK_SIZE))
+                .thenThrow(new RuntimeException("Database is down"));
+        
+        service.startSearchTermsBackfill();
+        
+        // Starting the backfill again resumes after the last chunk that was written.
+        verify(mockCacheProvider).setObject(CacheKey.accountSearchTermsBackfill(), "id1");
+        verify(mockCacheProvider, never()).removeObject(CacheKey.accountSearchTermsBackfill());
+    }
+    
+    private Account mockAccountForDeletion() {
+        Account account = Account.create();
+        account.setAppId(TEST_APP_ID);
+        account.setId(TEST_USER_ID);
+        account.setHealthCode(HEALTH_CODE);
+        when(mockAccountDao.getAccount(AccountId.forId(TEST_APP_ID, TEST_USER_ID))).thenReturn(Optional.of(account));
+        doReturn(new ReportTypeResourceList<>(ImmutableList.of())).when(mockReportService)
+                .getReportIndices(TEST_APP_ID, ReportType.PARTICIPANT);
+        return account;
+    }
+    
     @Test
     public void deleteAccount_notFound() {
         service.deleteAccount(AccountId.forId(TEST_APP_ID, TEST_USER_ID));
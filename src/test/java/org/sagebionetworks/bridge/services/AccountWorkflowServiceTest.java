@@ -210,6 +210,18 @@ public class AccountWorkflowServiceTest extends Mockito {
             return null;
         }).when(mockCacheProvider).removeObject(any());
 
+        // Throttle counts are kept in the same map.
+        when(mockCacheProvider.incrementIfBelowLimit(any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            CacheKey cacheKey = invocation.getArgument(0);
+            int maxRequests = invocation.getArgument(1);
+            Integer count = (Integer) mockCacheProviderMap.getOrDefault(cacheKey.toString(), 0);
+            if (count >= maxRequests) {
+                return false;
+            }
+            mockCacheProviderMap.put(cacheKey.toString(), count + 1);
+            return true;
+        });
+
         // Add params to mock account.
         when(mockAccount.getId()).thenReturn(USER_ID);
         when(service.getDateTimeInMillis()).thenReturn(TIMESTAMP.getMillis());
@@ -262,8 +274,7 @@ public class AccountWorkflowServiceTest extends Mockito {
         assertEquals(email.getType(), EmailType.VERIFY_EMAIL);
 
         // Verify throttling cache calls.
-        verify(mockCacheProvider).getObject(VERIFY_EMAIL_THROTTLE_CACHE_KEY, Integer.class);
-        verify(mockCacheProvider).setObject(eq(VERIFY_EMAIL_THROTTLE_CACHE_KEY), any(), anyInt());
+        verify(mockCacheProvider).incrementIfBelowLimit(VERIFY_EMAIL_THROTTLE_CACHE_KEY, 2, 300);
 
         verifyNoMoreInteractions(mockCacheProvider);
     }
@@ -312,8 +323,7 @@ public class AccountWorkflowServiceTest extends Mockito {
         assertTrue(message.contains("012-345"));
 
         // Verify throttling cache calls.
-        verify(mockCacheProvider).getObject(VERIFY_PHONE_THROTTLE_CACHE_KEY, Integer.class);
-        verify(mockCacheProvider).setObject(eq(VERIFY_PHONE_THROTTLE_CACHE_KEY), any(), anyInt());
+        verify(mockCacheProvider).incrementIfBelowLimit(VERIFY_PHONE_THROTTLE_CACHE_KEY, 2, 300);
 
         verifyNoMoreInteractions(mockCacheProvider);
     }
@@ -969,8 +979,7 @@ public class AccountWorkflowServiceTest extends Mockito {
         assertEquals(provider.getType(), EmailType.EMAIL_SIGN_IN);
 
         // Verify throttling cache calls.
-        verify(mockCacheProvider).getObject(EMAIL_SIGNIN_THROTTLE_CACHE_KEY, Integer.class);
-        verify(mockCacheProvider).setObject(eq(EMAIL_SIGNIN_THROTTLE_CACHE_KEY), any(), anyInt());
+        verify(mockCacheProvider).incrementIfBelowLimit(EMAIL_SIGNIN_THROTTLE_CACHE_KEY, 2, 300);
 
         verifyNoMoreInteractions(mockCacheProvider);
     }
@@ -1109,8 +1118,7 @@ public class AccountWorkflowServiceTest extends Mockito {
         assertEquals(message, "Enter 123-456 to sign in to AppName");
 
         // Verify throttling cache calls.
-        verify(mockCacheProvider).getObject(PHONE_SIGNIN_THROTTLE_CACHE_KEY, Integer.class);
-        verify(mockCacheProvider).setObject(eq(PHONE_SIGNIN_THROTTLE_CACHE_KEY), any(), anyInt());
+        verify(mockCacheProvider).incrementIfBelowLimit(PHONE_SIGNIN_THROTTLE_CACHE_KEY, 2, 300);
 
         verifyNoMoreInteractions(mockCacheProvider);
     }
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -81,6 +82,9 @@ public class ActivityEventServiceTest {
     @Captor
     private ArgumentCaptor<ActivityEvent> eventCaptor;
     
+    @Captor
+    private ArgumentCaptor<List<ActivityEvent>> publishedEventsCaptor;
+    
     @BeforeMethod
     public void before() {
         MockitoAnnotations.initMocks(this);
@@ -138,15 +142,17 @@ public class ActivityEventServiceTest {
 
         activityEventService.publishCustomEvent(app, HEALTH_CODE, "myEvent", timestamp1);
 
-        verify(activityEventDao, times(2)).publishEvent(any());
+        verify(activityEventDao).publishEvent(any());
+        verify(activityEventDao).publishEvents(publishedEventsCaptor.capture());
 
-        ActivityEvent activityEvent = activityEventArgumentCaptor.getAllValues().get(0);
+        ActivityEvent activityEvent = activityEventArgumentCaptor.getValue();
         assertEquals(activityEvent.getEventId(), "custom:myEvent");
         assertEquals(activityEvent.getUpdateType(), FUTURE_ONLY);
         assertEquals(activityEvent.getHealthCode(), HEALTH_CODE);
         assertEquals(activityEvent.getTimestamp(), timestamp1);
 
-        activityEvent = activityEventArgumentCaptor.getAllValues().get(1);
+        assertEquals(publishedEventsCaptor.getValue().size(), 1);
+        activityEvent = publishedEventsCaptor.getValue().get(0);
         assertEquals(activityEvent.getEventId(), "custom:3-days-after-enrollment");
         assertEquals(activityEvent.getUpdateType(), MUTABLE
                 );
@@ -370,9 +376,13 @@ public class ActivityEventServiceTest {
 
         // Verify published events (4)
         ArgumentCaptor<ActivityEvent> publishedEventCaptor = ArgumentCaptor.forClass(ActivityEvent.class);
-        verify(activityEventDao, times(4)).publishEvent(publishedEventCaptor.capture());
+        verify(activityEventDao).publishEvent(publishedEventCaptor.capture());
+        verify(activityEventDao).publishEvents(publishedEventsCaptor.capture());
 
-        List<ActivityEvent> publishedEventList = publishedEventCaptor.getAllValues();
+        List<ActivityEvent> publishedEventList = ImmutableList.<ActivityEvent>builder()
+                .add(publishedEventCaptor.getValue())
+                .addAll(publishedEventsCaptor.getValue()).build();
+        assertEquals(publishedEventList.size(), 4);
 
         assertEquals(publishedEventList.get(0).getEventId(), "enrollment");
         assertTrue(publishedEventList.get(0).getTimestamp().isEqual(enrollment));
@@ -484,9 +494,13 @@ public class ActivityEventServiceTest {
 
         // Verify published events (4)
         ArgumentCaptor<ActivityEvent> publishedEventCaptor = ArgumentCaptor.forClass(ActivityEvent.class);
-        verify(activityEventDao, times(4)).publishEvent(publishedEventCaptor.capture());
+        verify(activityEventDao).publishEvent(publishedEventCaptor.capture());
+        verify(activityEventDao).publishEvents(publishedEventsCaptor.capture());
 
-        List<ActivityEvent> publishedEventList = publishedEventCaptor.getAllValues();
+        List<ActivityEvent> publishedEventList = ImmutableList.<ActivityEvent>builder()
+                .add(publishedEventCaptor.getValue())
+                .addAll(publishedEventsCaptor.getValue()).build();
+        assertEquals(publishedEventList.size(), 4);
 
         assertEquals(publishedEventList.get(0).getEventId(), "activities_retrieved");
         assertEquals(publishedEventList.get(0).getTimestamp(), retrieved);
@@ -529,9 +543,13 @@ public class ActivityEventServiceTest {
 
         // Verify published events (3)
         ArgumentCaptor<ActivityEvent> publishedEventCaptor = ArgumentCaptor.forClass(ActivityEvent.class);
-        verify(activityEventDao, times(3)).publishEvent(publishedEventCaptor.capture());
+        verify(activityEventDao).publishEvent(publishedEventCaptor.capture());
+        verify(activityEventDao).publishEvents(publishedEventsCaptor.capture());
 
-        List<ActivityEvent> publishedEventList = publishedEventCaptor.getAllValues();
+        List<ActivityEvent> publishedEventList = ImmutableList.<ActivityEvent>builder()
+                .add(publishedEventCaptor.getValue())
+                .addAll(publishedEventsCaptor.getValue()).build();
+        assertEquals(publishedEventList.size(), 3);
         
         assertEquals(publishedEventList.get(0).getEventId(), "custom:myEvent");
         assertEquals(publishedEventList.get(0).getTimestamp(), timestamp);
@@ -729,9 +747,13 @@ public class ActivityEventServiceTest {
 
         // Verify published events (4)
         ArgumentCaptor<ActivityEvent> publishedEventCaptor = ArgumentCaptor.forClass(ActivityEvent.class);
-        verify(activityEventDao, times(4)).publishEvent(publishedEventCaptor.capture());
+        verify(activityEventDao).publishEvent(publishedEventCaptor.capture());
+        verify(activityEventDao).publishEvents(publishedEventsCaptor.capture());
 
-        List<ActivityEvent> publishedEventList = publishedEventCaptor.getAllValues();
+        List<ActivityEvent> publishedEventList = ImmutableList.<ActivityEvent>builder()
+                .add(publishedEventCaptor.getValue())
+                .addAll(publishedEventsCaptor.getValue()).build();
+        assertEquals(publishedEventList.size(), 4);
 
         assertEquals(publishedEventList.get(0).getEventId(), "install_link_sent");
         assertEquals(publishedEventList.get(0).getTimestamp(), retrieved);
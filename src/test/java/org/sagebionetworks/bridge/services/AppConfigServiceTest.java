@@ -1,7 +1,9 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyBoolean;
 import static org.mockito.Mockito.anyInt;
@@ -37,6 +39,7 @@ import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.Criteria;
 import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.CriteriaIndex;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolder;
 import org.sagebionetworks.bridge.models.GuidCreatedOnVersionHolderImpl;
 import org.sagebionetworks.bridge.models.OperatingSystem;
@@ -55,6 +58,7 @@ import org.sagebionetworks.bridge.models.upload.UploadSchema;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 public class AppConfigServiceTest {
@@ -224,6 +228,34 @@ public class AppConfigServiceTest {
         assertEquals(retValue, appConfig2);
     }
     
+    @Test
+    public void getCriteriaIndexReusedUntilConfigsChange() {
+        List<AppConfig> appConfigs = ImmutableList.of(createIndexedConfig(1L));
+        CriteriaIndex<AppConfig> index = service.getCriteriaIndex(TEST_APP_ID, appConfigs);
+        
+        // Configs loaded again on a later request
+        assertSame(service.getCriteriaIndex(TEST_APP_ID, ImmutableList.of(createIndexedConfig(1L))), index);
+        
+        // An updated config
+        CriteriaIndex<AppConfig> updatedIndex = service.getCriteriaIndex(TEST_APP_ID,
+                ImmutableList.of(createIndexedConfig(2L)));
+        assertNotSame(updatedIndex, index);
+        assertSame(service.getCriteriaIndex(TEST_APP_ID, ImmutableList.of(createIndexedConfig(2L))), updatedIndex);
+        
+        // Indices are kept per app
+        assertNotSame(service.getCriteriaIndex("otherApp", ImmutableList.of(createIndexedConfig(2L))), updatedIndex);
+    }
+    
+    private static AppConfig createIndexedConfig(Long version) {
+        Criteria criteria = Criteria.create();
+        criteria.setAllOfGroups(ImmutableSet.of("group1"));
+        AppConfig appConfig = AppConfig.create();
+        appConfig.setGuid(GUID);
+        appConfig.setVersion(version);
+        appConfig.setCriteria(criteria);
+        return appConfig;
+    }
+    
     private AppConfig setupAndTestConfigResolution(Supplier<AppConfig> supplier) {
         Survey survey = Survey.create();
         survey.setIdentifier("theIdentifier");
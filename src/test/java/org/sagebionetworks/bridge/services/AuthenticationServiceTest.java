@@ -279,6 +279,7 @@ public class AuthenticationServiceTest extends Mockito {
         inOrder.verify(cacheProvider).setUserSession(session);
         
         assertEquals(session.getConsentStatuses(), CONSENTED_STATUS_MAP);
+        assertEquals(session.getConsentCriteriaKey(), contextCaptor.getValue().getCriteriaKey());
         assertTrue(session.isAuthenticated());
         assertFalse(session.isSynapseAuthenticated());
         assertEquals(session.getIpAddress(), IP_ADDRESS);
@@ -1,14 +1,18 @@
 package org.sagebionetworks.bridge.services;
 
+import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.ImmutableList;
@@ -139,6 +143,35 @@ public class HealthDataServiceTest {
         assertEquals(recordList.get(2).getHealthCode(), "baz healthcode");
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void streamRecordsForUploadDateSuccess() {
+        HealthDataDao mockDao = mock(HealthDataDao.class);
+        HealthDataService svc = new HealthDataService();
+        svc.setHealthDataDao(mockDao);
+
+        Consumer<HealthDataRecord> mockConsumer = mock(Consumer.class);
+        svc.streamRecordsForUploadDate(TEST_UPLOAD_DATE_STR, mockConsumer);
+
+        verify(mockDao).streamRecordsForUploadDate(TEST_UPLOAD_DATE_STR, mockConsumer);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void streamRecordsForUploadDateInvalidUploadDate() {
+        HealthDataDao mockDao = mock(HealthDataDao.class);
+        HealthDataService svc = new HealthDataService();
+        svc.setHealthDataDao(mockDao);
+
+        try {
+            svc.streamRecordsForUploadDate("2014-02-31", mock(Consumer.class));
+            fail("Should have thrown exception");
+        } catch (BadRequestException e) {
+            // expected
+        }
+        verify(mockDao, never()).streamRecordsForUploadDate(any(), any());
+    }
+
     @Test(expectedExceptions = InvalidEntityException.class)
     public void updateRecordsWithExporterStatusNullRecordIds() {
         RecordExportStatusRequest request = new RecordExportStatusRequest();
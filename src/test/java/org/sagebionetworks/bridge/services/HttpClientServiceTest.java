@@ -0,0 +1,62 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.pool.PoolStats;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.config.BridgeConfig;
+
+public class HttpClientServiceTest extends Mockito {
+
+    @Mock
+    BridgeConfig mockConfig;
+
+    HttpClientService service;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        MockitoAnnotations.initMocks(this);
+        when(mockConfig.getInt(HttpClientService.CONFIG_KEY_MAX_CONNECTIONS)).thenReturn(50);
+        when(mockConfig.getInt(HttpClientService.CONFIG_KEY_MAX_CONNECTIONS_PER_ROUTE)).thenReturn(10);
+        when(mockConfig.getInt(HttpClientService.CONFIG_KEY_CONNECT_TIMEOUT_MILLIS)).thenReturn(1000);
+        when(mockConfig.getInt(HttpClientService.CONFIG_KEY_SOCKET_TIMEOUT_MILLIS)).thenReturn(2000);
+        when(mockConfig.getInt(HttpClientService.CONFIG_KEY_LEASE_TIMEOUT_MILLIS)).thenReturn(500);
+        when(mockConfig.getInt(HttpClientService.CONFIG_KEY_KEEP_ALIVE_MILLIS)).thenReturn(30000);
+        when(mockConfig.getInt(HttpClientService.CONFIG_KEY_RETRY_COUNT)).thenReturn(3);
+
+        service = new HttpClientService();
+        service.setBridgeConfig(mockConfig);
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        service.shutdown();
+    }
+
+    @Test
+    public void poolIsConfigured() {
+        PoolStats stats = service.getPoolStats();
+        assertEquals(stats.getMax(), 50);
+        assertEquals(stats.getLeased(), 0);
+        assertEquals(stats.getPending(), 0);
+    }
+
+    @Test
+    public void clientsShareThePool() throws Exception {
+        assertNotNull(service.getHttpClient());
+        assertNotNull(service.getExecutor());
+
+        // Closing a client with its own policy leaves the shared pool open.
+        CloseableHttpClient client = service.createClientBuilder().build();
+        client.close();
+        assertEquals(service.getPoolStats().getMax(), 50);
+    }
+}
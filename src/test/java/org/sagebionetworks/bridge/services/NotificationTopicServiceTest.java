@@ -8,6 +8,8 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestUtils.getNotificationTopic;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 import static org.mockito.Mockito.doReturn;
@@ -33,6 +35,7 @@ import org.sagebionetworks.bridge.dao.TopicSubscriptionDao;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.models.Criteria;
 import org.sagebionetworks.bridge.models.CriteriaContext;
+import org.sagebionetworks.bridge.models.CriteriaIndex;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationProtocol;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
@@ -365,6 +368,25 @@ public class NotificationTopicServiceTest {
         verify(mockSubscriptionDao, never()).subscribe(any(), eq(MANUAL_TOPIC_2));
     }
 
+    @Test
+    public void criteriaIndexIsReusedUntilTopicsChange() {
+        List<NotificationTopic> topics = ImmutableList.of(CRITERIA_TOPIC_1, CRITERIA_TOPIC_2);
+        CriteriaIndex<NotificationTopic> index = service.getCriteriaIndex(TEST_APP_ID, topics);
+        
+        // The same topics, loaded again.
+        assertSame(service.getCriteriaIndex(TEST_APP_ID, ImmutableList.of(CRITERIA_TOPIC_1, CRITERIA_TOPIC_2)), index);
+        
+        // Updating a topic changes its modifiedOn timestamp.
+        NotificationTopic updated = NotificationTopic.create();
+        updated.setGuid(CRITERIA_TOPIC_2.getGuid());
+        updated.setCriteria(CRITERIA_TOPIC_2.getCriteria());
+        updated.setModifiedOn(CRITERIA_TOPIC_2.getModifiedOn() + 1000L);
+        CriteriaIndex<NotificationTopic> updatedIndex = service.getCriteriaIndex(TEST_APP_ID, 
+                ImmutableList.of(CRITERIA_TOPIC_1, updated));
+        assertNotSame(updatedIndex, index);
+        assertSame(service.getCriteriaIndex(TEST_APP_ID, ImmutableList.of(CRITERIA_TOPIC_1, updated)), updatedIndex);
+    }
+
     @Test
     public void unsubscribeAll_NoSubscriptions() {
         // Mock dependencies.
@@ -6,8 +6,16 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
 import static org.sagebionetworks.bridge.TestUtils.getNotificationMessage;
 import static org.sagebionetworks.bridge.TestUtils.getNotificationRegistration;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.fail;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
@@ -15,6 +23,7 @@ import static org.mockito.Mockito.verify;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import com.google.common.collect.ImmutableList;
 import org.mockito.ArgumentCaptor;
@@ -25,13 +34,20 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.TestConstants;
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.NotificationRegistrationDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
+import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
+import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.exceptions.NotImplementedException;
+import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.CriteriaContext;
 import org.sagebionetworks.bridge.models.OperatingSystem;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.apps.App;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutJob;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutStatus;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationProtocol;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
@@ -43,6 +59,7 @@ import com.amazonaws.services.sns.model.PublishResult;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
 
 public class NotificationsServiceTest {
     private static final String HEALTH_CODE = "ABC";
@@ -73,6 +90,15 @@ public class NotificationsServiceTest {
     
     @Mock
     private App mockApp;
+    
+    @Mock
+    private AccountService mockAccountService;
+    
+    @Mock
+    private CacheProvider mockCacheProvider;
+    
+    @Captor
+    private ArgumentCaptor<AccountSummarySearch> searchCaptor;
 
     @Captor
     private ArgumentCaptor<PublishRequest> requestCaptor;
@@ -89,6 +115,11 @@ public class NotificationsServiceTest {
         service.setAppService(mockAppService);
         service.setNotificationRegistrationDao(mockRegistrationDao);
         service.setSnsClient(mockSnsClient);
+        service.setAccountService(mockAccountService);
+        service.setCacheProvider(mockCacheProvider);
+        service.setAsyncExecutorService(MoreExecutors.newDirectExecutorService());
+        service.setFanOutExecutorService(MoreExecutors.newDirectExecutorService());
+        service.setFanOutPublishRate(1000000);
 
         Map<String,String> map = Maps.newHashMap();
         map.put(OS_NAME, PLATFORM_ARN);
@@ -327,4 +358,116 @@ public class NotificationsServiceTest {
         registration.setEndpoint(TestConstants.PHONE.getNumber());
         return registration;
     }
+
+    @Test
+    public void startNotificationFanOut() {
+        // The first page is full, so a second page is read.
+        List<String> firstPage = Lists.newArrayList();
+        for (int i = 0; i < NotificationsService.FAN_OUT_PAGE_SIZE; i++) {
+            firstPage.add("healthCode" + i);
+        }
+        doAnswer(invocation -> {
+            Consumer<List<String>> consumer = invocation.getArgument(2);
+            consumer.accept(firstPage);
+            consumer.accept(ImmutableList.of("lastHealthCode"));
+            return null;
+        }).when(mockAccountService).streamHealthCodes(eq(TEST_APP_ID), any(), any());
+        when(mockRegistrationDao.listRegistrations(any())).thenReturn(ImmutableList.of());
+        when(mockRegistrationDao.listRegistrations("healthCode0")).thenReturn(ImmutableList.of(
+                createPushRegistration("guid0", "endpoint0"), getSmsNotificationRegistration()));
+        when(mockRegistrationDao.listRegistrations("healthCode1")).thenReturn(ImmutableList.of(
+                createPushRegistration("guid1", "endpoint1")));
+        when(mockRegistrationDao.listRegistrations("lastHealthCode")).thenReturn(ImmutableList.of(
+                createPushRegistration("guid2", "endpoint2")));
+        when(mockSnsClient.publish(any())).thenAnswer(invocation -> {
+            PublishRequest request = invocation.getArgument(0);
+            if (request.getTargetArn().equals("endpoint1")) {
+                throw new InvalidParameterException("endpoint disabled");
+            }
+            return mockPublishResult;
+        });
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withEnrolledInStudyId("studyA").build();
+        
+        NotificationFanOutJob job = service.startNotificationFanOut(TEST_APP_ID, "studyA", search,
+                getNotificationMessage());
+        
+        // The executors run the job synchronously in this test.
+        assertNotNull(job.getJobId());
+        assertEquals(job.getAppId(), TEST_APP_ID);
+        assertEquals(job.getStudyId(), "studyA");
+        assertEquals(job.getStatus(), NotificationFanOutStatus.COMPLETED);
+        assertEquals(job.getAccountCount(), NotificationsService.FAN_OUT_PAGE_SIZE + 1);
+        assertEquals(job.getRegistrationCount(), 3);
+        assertEquals(job.getSentCount(), 2);
+        assertEquals(job.getFailedCount(), 1);
+        assertEquals(job.getFailedRegistrations(), ImmutableList.of("guid1"));
+        assertNotNull(job.getStartedOn());
+        assertNotNull(job.getFinishedOn());
+        assertNull(job.getErrorMessage());
+        
+        verify(mockAccountService).streamHealthCodes(eq(TEST_APP_ID), searchCaptor.capture(), any());
+        AccountSummarySearch pageSearch = searchCaptor.getValue();
+        assertEquals(pageSearch.getPageSize(), NotificationsService.FAN_OUT_PAGE_SIZE);
+        assertEquals(pageSearch.getEnrolledInStudyId(), "studyA");
+        
+        verify(mockSnsClient, times(3)).publish(requestCaptor.capture());
+        PublishRequest request = requestCaptor.getAllValues().get(0);
+        assertEquals(request.getTargetArn(), "endpoint0");
+        assertEquals(request.getSubject(), getNotificationMessage().getSubject());
+        assertEquals(request.getMessage(), getNotificationMessage().getMessage());
+        
+        // Progress is saved when the job starts, after each page, and when it finishes.
+        verify(mockCacheProvider, times(4)).setObject(CacheKey.notificationFanOutJob(TEST_APP_ID, job.getJobId()),
+                job, NotificationsService.FAN_OUT_JOB_EXPIRE_IN_SECONDS);
+    }
+    
+    @Test
+    public void startNotificationFanOutJobFails() {
+        doThrow(new IllegalStateException("database unavailable")).when(mockAccountService)
+                .streamHealthCodes(eq(TEST_APP_ID), any(), any());
+        
+        NotificationFanOutJob job = service.startNotificationFanOut(TEST_APP_ID, null,
+                AccountSummarySearch.EMPTY_SEARCH, getNotificationMessage());
+        
+        assertEquals(job.getStatus(), NotificationFanOutStatus.FAILED);
+        assertEquals(job.getErrorMessage(), "database unavailable");
+        assertEquals(job.getAccountCount(), 0);
+        assertNotNull(job.getFinishedOn());
+        verify(mockSnsClient, never()).publish(any());
+    }
+    
+    @Test
+    public void startNotificationFanOutInvalidMessage() {
+        try {
+            service.startNotificationFanOut(TEST_APP_ID, null, AccountSummarySearch.EMPTY_SEARCH,
+                    new NotificationMessage.Builder().build());
+            fail("Should have thrown exception");
+        } catch (InvalidEntityException e) {
+            // expected
+        }
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
+        verify(mockAccountService, never()).streamHealthCodes(any(), any(), any());
+    }
+    
+    @Test
+    public void getNotificationFanOutJob() {
+        NotificationFanOutJob job = new NotificationFanOutJob();
+        when(mockCacheProvider.getObject(CacheKey.notificationFanOutJob(TEST_APP_ID, "jobId"),
+                NotificationFanOutJob.class)).thenReturn(job);
+        
+        assertSame(service.getNotificationFanOutJob(TEST_APP_ID, "jobId"), job);
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void getNotificationFanOutJobNotFound() {
+        service.getNotificationFanOutJob(TEST_APP_ID, "jobId");
+    }
+    
+    private static NotificationRegistration createPushRegistration(String guid, String endpoint) {
+        NotificationRegistration registration = getNotificationRegistration();
+        registration.setGuid(guid);
+        registration.setEndpoint(endpoint);
+        registration.setProtocol(NotificationProtocol.APPLICATION);
+        return registration;
+    }
 }
@@ -15,9 +15,13 @@ import java.util.List;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.http.HttpVersion;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicStatusLine;
 import org.apache.http.util.EntityUtils;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -104,6 +108,12 @@ public class OAuthProviderServiceTest extends Mockito {
     @Mock
     private CloseableHttpClient mockClient;
     
+    @Mock
+    private HttpClientService mockHttpClientService;
+    
+    @Mock
+    private CloseableHttpResponse mockHttpResponse;
+    
     @Mock
     private HttpPost mockPost;
     
@@ -489,4 +499,25 @@ public class OAuthProviderServiceTest extends Mockito {
             assertEquals(e.getMessage(), "The token provided is invalid");
         }
     }
+    
+    @Test
+    public void executeRequestUsesSharedClient() throws Exception {
+        when(mockHttpClientService.execute(mockPost)).thenReturn(mockHttpResponse);
+        when(mockHttpResponse.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        when(mockHttpResponse.getEntity()).thenReturn(new StringEntity("{\"a\":1}"));
+        
+        Response response = service.executeGrantRequest(mockPost);
+        assertEquals(response.getStatusCode(), 200);
+        assertEquals(response.getBody().get("a").intValue(), 1);
+        
+        // Closing the response returns the connection to the pool.
+        verify(mockHttpResponse).close();
+    }
+    
+    @Test(expectedExceptions = BridgeServiceException.class)
+    public void executeRequestIOException() throws Exception {
+        when(mockHttpClientService.execute(mockPost)).thenThrow(new IOException());
+        
+        service.executeGrantRequest(mockPost);
+    }
 }
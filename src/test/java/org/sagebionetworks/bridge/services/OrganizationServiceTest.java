@@ -37,8 +37,6 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.RequestContext;
-import org.sagebionetworks.bridge.cache.CacheKey;
-import org.sagebionetworks.bridge.cache.CacheProvider;
 import org.sagebionetworks.bridge.dao.OrganizationDao;
 import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
@@ -65,7 +63,7 @@ public class OrganizationServiceTest extends Mockito {
     AssessmentDao mockAssessmentDao;
     
     @Mock
-    CacheProvider mockCacheProvider;
+    SponsorService mockSponsorService;
     
     @Mock
     SessionUpdateService mockSessionUpdateService;
@@ -304,7 +302,7 @@ public class OrganizationServiceTest extends Mockito {
         service.deleteOrganization(TEST_APP_ID, IDENTIFIER);
         
         verify(mockOrgDao).deleteOrganization(org);
-        verify(mockCacheProvider).removeObject(CacheKey.orgSponsoredStudies(TEST_APP_ID, IDENTIFIER));
+        verify(mockSponsorService).invalidateSponsoredStudyIds(TEST_APP_ID, IDENTIFIER);
     }
 
     @Test
@@ -317,7 +315,7 @@ public class OrganizationServiceTest extends Mockito {
         service.deleteOrganization(TEST_APP_ID, IDENTIFIER);
         
         verify(mockOrgDao).deleteOrganization(org);
-        verify(mockCacheProvider).removeObject(CacheKey.orgSponsoredStudies(TEST_APP_ID, IDENTIFIER));
+        verify(mockSponsorService).invalidateSponsoredStudyIds(TEST_APP_ID, IDENTIFIER);
     }
     
     @Test(expectedExceptions = ConstraintViolationException.class)
@@ -0,0 +1,292 @@
+package org.sagebionetworks.bridge.services;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.simpleemail.model.MessageRejectedException;
+import com.google.common.collect.ImmutableList;
+import org.joda.time.DateTimeUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import org.sagebionetworks.bridge.cache.CacheKey;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.config.BridgeConfig;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
+import org.sagebionetworks.bridge.models.outbox.OutboxDelivery;
+import org.sagebionetworks.bridge.models.outbox.OutboxDeliveryStatus;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessage;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessageType;
+
+public class OutboxServiceTest extends Mockito {
+    private static final long NOW = 1600000000000L;
+    private static final String QUEUE_KEY = CacheKey.outboxQueue().toString();
+
+    @Mock
+    JedisPool mockJedisPool;
+
+    @Mock
+    Jedis mockJedis;
+
+    @Mock
+    CacheProvider mockCacheProvider;
+
+    @Mock
+    SendMailViaAmazonService mockSendMailService;
+
+    @Mock
+    SmsService mockSmsService;
+
+    @Mock
+    BridgeConfig mockConfig;
+
+    OutboxService service;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        MockitoAnnotations.initMocks(this);
+        DateTimeUtils.setCurrentMillisFixed(NOW);
+
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+        when(mockCacheProvider.incrementIfBelowLimit(any(), anyInt(), anyInt())).thenReturn(true);
+        when(mockConfig.get(OutboxService.CONFIG_KEY_ENABLED)).thenReturn("true");
+        when(mockConfig.getInt(OutboxService.CONFIG_KEY_THREAD_COUNT)).thenReturn(2);
+        when(mockConfig.getInt(OutboxService.CONFIG_KEY_EMAIL_MAX_PER_SECOND)).thenReturn(10);
+        when(mockConfig.getInt(OutboxService.CONFIG_KEY_SMS_MAX_PER_SECOND)).thenReturn(5);
+
+        service = new OutboxService();
+        service.setJedisPool(mockJedisPool);
+        service.setCacheProvider(mockCacheProvider);
+        service.setSendMailService(mockSendMailService);
+        service.setSmsService(mockSmsService);
+        service.setBridgeConfig(mockConfig);
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        DateTimeUtils.setCurrentMillisSystem();
+    }
+
+    @Test
+    public void isEnabled() {
+        assertTrue(service.isEnabled());
+
+        when(mockConfig.get(OutboxService.CONFIG_KEY_ENABLED)).thenReturn("false");
+        service.setBridgeConfig(mockConfig);
+        assertFalse(service.isEnabled());
+    }
+
+    @Test
+    public void enqueue() throws Exception {
+        OutboxMessage message = createMessage(OutboxMessageType.EMAIL);
+        message.setRequestId("request-id");
+
+        String messageId = service.enqueue(message);
+        assertNotNull(messageId);
+
+        ArgumentCaptor<String> memberCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mockJedis).zadd(eq(QUEUE_KEY), eq((double) NOW), memberCaptor.capture());
+        verify(mockJedis).close();
+
+        OutboxMessage queued = BridgeObjectMapper.get().readValue(memberCaptor.getValue(), OutboxMessage.class);
+        assertEquals(queued.getId(), messageId);
+        assertEquals(queued.getType(), OutboxMessageType.EMAIL);
+        assertEquals(queued.getCreatedOn(), NOW);
+        assertEquals(queued.getAttempts(), 0);
+        assertEquals(queued.getRequestId(), "request-id");
+        assertEquals(queued.getRecipient(), "recipient@example.com");
+        assertEquals(new String(queued.getRawMessage()), "raw message");
+
+        verifyDelivery(messageId, OutboxDeliveryStatus.QUEUED, 0);
+    }
+
+    @Test
+    public void claim() {
+        List<String> members = ImmutableList.of("a", "b");
+        when(mockJedis.eval(OutboxService.CLAIM_SCRIPT, ImmutableList.of(QUEUE_KEY),
+                ImmutableList.of(Long.toString(NOW), Long.toString(NOW + OutboxService.CLAIM_LEASE_MILLIS),
+                        Integer.toString(OutboxService.CLAIM_BATCH_SIZE)))).thenReturn(members);
+
+        assertEquals(service.claim(), members);
+        verify(mockJedis).close();
+    }
+
+    @Test
+    public void dispatchEmail() throws Exception {
+        OutboxMessage message = createMessage(OutboxMessageType.EMAIL);
+        String member = serialize(message);
+
+        service.dispatch(member);
+
+        verify(mockCacheProvider).incrementIfBelowLimit(CacheKey.outboxRate(OutboxMessageType.EMAIL, NOW / 1000),
+                10, OutboxService.RATE_EXPIRE_IN_SECONDS);
+        verify(mockSendMailService).deliverEmail(any());
+        verify(mockJedis).zrem(QUEUE_KEY, member);
+        verifyDelivery(message.getId(), OutboxDeliveryStatus.SENT, 0);
+    }
+
+    @Test
+    public void dispatchSms() throws Exception {
+        OutboxMessage message = createMessage(OutboxMessageType.SMS);
+        String member = serialize(message);
+
+        service.dispatch(member);
+
+        verify(mockCacheProvider).incrementIfBelowLimit(CacheKey.outboxRate(OutboxMessageType.SMS, NOW / 1000),
+                5, OutboxService.RATE_EXPIRE_IN_SECONDS);
+        verify(mockSmsService).deliverSmsMessage(any());
+        verify(mockJedis).zrem(QUEUE_KEY, member);
+        verifyDelivery(message.getId(), OutboxDeliveryStatus.SENT, 0);
+    }
+
+    @Test
+    public void dispatchRetryableErrorReschedules() throws Exception {
+        AmazonServiceException ex = new AmazonServiceException("Service unavailable");
+        ex.setStatusCode(503);
+        doThrow(ex).when(mockSendMailService).deliverEmail(any());
+
+        OutboxMessage message = createMessage(OutboxMessageType.EMAIL);
+        message.setAttempts(1);
+        String member = serialize(message);
+
+        service.dispatch(member);
+
+        // Second failure, so the retry is due in 4 seconds.
+        ArgumentCaptor<List> argsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(mockJedis).eval(eq(OutboxService.RESCHEDULE_SCRIPT), eq(ImmutableList.of(QUEUE_KEY)),
+                argsCaptor.capture());
+        List<?> args = argsCaptor.getValue();
+        assertEquals(args.get(0), member);
+        assertEquals(args.get(1), Long.toString(NOW + 4000));
+        OutboxMessage rescheduled = BridgeObjectMapper.get().readValue((String) args.get(2), OutboxMessage.class);
+        assertEquals(rescheduled.getAttempts(), 2);
+
+        verify(mockJedis, never()).zrem(anyString(), any(String[].class));
+        verifyDelivery(message.getId(), OutboxDeliveryStatus.RETRYING, 2);
+    }
+
+    @Test
+    public void dispatchLastAttemptFails() throws Exception {
+        doThrow(new AmazonClientException("timeout")).when(mockSmsService).deliverSmsMessage(any());
+
+        OutboxMessage message = createMessage(OutboxMessageType.SMS);
+        message.setAttempts(OutboxService.MAX_ATTEMPTS - 1);
+        String member = serialize(message);
+
+        service.dispatch(member);
+
+        verify(mockJedis).zrem(QUEUE_KEY, member);
+        verify(mockJedis, never()).eval(eq(OutboxService.RESCHEDULE_SCRIPT), anyList(), anyList());
+        verifyDelivery(message.getId(), OutboxDeliveryStatus.FAILED, OutboxService.MAX_ATTEMPTS);
+    }
+
+    @Test
+    public void dispatchPermanentErrorFails() throws Exception {
+        doThrow(new MessageRejectedException("rejected")).when(mockSendMailService).deliverEmail(any());
+
+        OutboxMessage message = createMessage(OutboxMessageType.EMAIL);
+        String member = serialize(message);
+
+        service.dispatch(member);
+
+        verify(mockJedis).zrem(QUEUE_KEY, member);
+        verifyDelivery(message.getId(), OutboxDeliveryStatus.FAILED, 1);
+    }
+
+    @Test
+    public void dispatchUnreadableMessageIsDropped() throws Exception {
+        service.dispatch("not json");
+
+        verify(mockJedis).zrem(QUEUE_KEY, "not json");
+        verifyZeroInteractions(mockSendMailService, mockSmsService);
+    }
+
+    @Test
+    public void dispatchWaitsForRatePermit() throws Exception {
+        // Fix the clock just before the end of a second, so the wait is short.
+        DateTimeUtils.setCurrentMillisFixed(NOW + 999);
+        when(mockCacheProvider.incrementIfBelowLimit(any(), anyInt(), anyInt())).thenReturn(false, true);
+
+        OutboxMessage message = createMessage(OutboxMessageType.EMAIL);
+        service.dispatch(serialize(message));
+
+        verify(mockCacheProvider, times(2)).incrementIfBelowLimit(
+                CacheKey.outboxRate(OutboxMessageType.EMAIL, NOW / 1000), 10, OutboxService.RATE_EXPIRE_IN_SECONDS);
+        verify(mockSendMailService).deliverEmail(any());
+    }
+
+    @Test
+    public void isRetryable() {
+        AmazonServiceException serverError = new AmazonServiceException("error");
+        serverError.setStatusCode(500);
+        assertTrue(OutboxService.isRetryable(serverError));
+
+        AmazonServiceException throttled = new AmazonServiceException("error");
+        throttled.setStatusCode(400);
+        throttled.setErrorCode("Throttling");
+        assertTrue(OutboxService.isRetryable(throttled));
+
+        assertTrue(OutboxService.isRetryable(new AmazonClientException("network error")));
+
+        AmazonServiceException badRequest = new AmazonServiceException("error");
+        badRequest.setStatusCode(400);
+        badRequest.setErrorCode("InvalidParameter");
+        assertFalse(OutboxService.isRetryable(badRequest));
+
+        assertFalse(OutboxService.isRetryable(new MessageRejectedException("rejected")));
+        assertFalse(OutboxService.isRetryable(new IllegalStateException()));
+    }
+
+    @Test
+    public void startDoesNothingWhenDisabled() {
+        when(mockConfig.get(OutboxService.CONFIG_KEY_ENABLED)).thenReturn("false");
+        service.setBridgeConfig(mockConfig);
+
+        service.start();
+        service.stop();
+        verifyZeroInteractions(mockJedisPool);
+    }
+
+    private void verifyDelivery(String messageId, OutboxDeliveryStatus status, int attempts) {
+        ArgumentCaptor<OutboxDelivery> deliveryCaptor = ArgumentCaptor.forClass(OutboxDelivery.class);
+        verify(mockCacheProvider).setObject(eq(CacheKey.outboxDelivery(messageId)), deliveryCaptor.capture(),
+                eq(OutboxService.DELIVERY_EXPIRE_IN_SECONDS));
+        OutboxDelivery delivery = deliveryCaptor.getValue();
+        assertEquals(delivery.getMessageId(), messageId);
+        assertEquals(delivery.getStatus(), status);
+        assertEquals(delivery.getAttempts(), attempts);
+    }
+
+    private static OutboxMessage createMessage(OutboxMessageType type) {
+        OutboxMessage message = new OutboxMessage();
+        message.setId("message-id");
+        message.setType(type);
+        message.setAppId("app-id");
+        if (type == OutboxMessageType.EMAIL) {
+            message.setSender("sender@example.com");
+            message.setRecipient("recipient@example.com");
+            message.setRawMessage("raw message".getBytes());
+        } else {
+            message.setPhoneNumber("+12065550123");
+            message.setMessage("message");
+        }
+        return message;
+    }
+
+    private static String serialize(OutboxMessage message) throws Exception {
+        return BridgeObjectMapper.get().writeValueAsString(message);
+    }
+}
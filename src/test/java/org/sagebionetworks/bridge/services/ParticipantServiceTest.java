@@ -47,6 +47,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import com.amazonaws.services.sqs.AmazonSQS;
 import com.amazonaws.services.sqs.model.SendMessageResult;
@@ -84,7 +85,6 @@ import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.models.AccountSummarySearch;
 import org.sagebionetworks.bridge.models.ClientInfo;
 import org.sagebionetworks.bridge.models.CriteriaContext;
-import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.RequestInfo;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.AccountId;
@@ -104,6 +104,7 @@ import org.sagebionetworks.bridge.models.activities.CustomActivityEventRequest;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.apps.PasswordPolicy;
 import org.sagebionetworks.bridge.models.apps.SmsTemplate;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutJob;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationProtocol;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
@@ -233,9 +234,6 @@ public class ParticipantServiceTest extends Mockito {
     @Mock
     private ScheduledActivityService scheduledActivityService;
     
-    @Mock
-    private PagedResourceList<AccountSummary> accountSummaries;
-    
     @Mock
     private EnrollmentService enrollmentService;
     
@@ -844,6 +842,33 @@ public class ParticipantServiceTest extends Mockito {
         verify(accountService).getPagedAccountSummaries(TEST_APP_ID, search); 
     }
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void streamAccountSummaries() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder()
+                .withOffsetBy(1100)
+                .withPageSize(50)
+                .withEmailFilter("foo").build();
+        Consumer<AccountSummary> consumer = mock(Consumer.class);
+        
+        participantService.streamAccountSummaries(APP, search, consumer);
+        
+        verify(accountService).streamAccountSummaries(TEST_APP_ID, search, consumer);
+    }
+    
+    @SuppressWarnings("unchecked")
+    @Test
+    public void streamAccountSummariesInvalidSearch() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withPageSize(-100).build();
+        try {
+            participantService.streamAccountSummaries(APP, search, mock(Consumer.class));
+            fail("Should have thrown exception");
+        } catch (InvalidEntityException e) {
+            // expected
+        }
+        verify(accountService, never()).streamAccountSummaries(any(), any(), any());
+    }
+    
     @Test(expectedExceptions = NullPointerException.class)
     public void getPagedAccountSummariesWithBadStudy() {
         participantService.getPagedAccountSummaries(null, AccountSummarySearch.EMPTY_SEARCH);
@@ -1661,22 +1686,85 @@ public class ParticipantServiceTest extends Mockito {
         verify(notificationsService).sendNotificationToUser(TEST_APP_ID, HEALTH_CODE, message);
     }
 
+    @Test
+    public void sendNotificationToParticipants() {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerUserId("some-id")
+                .withCallerRoles(ImmutableSet.of(Roles.RESEARCHER)).build());
+        NotificationMessage message = TestUtils.getNotificationMessage();
+        NotificationFanOutJob job = new NotificationFanOutJob();
+        when(notificationsService.startNotificationFanOut(eq(TEST_APP_ID), eq(TEST_STUDY_ID), any(), eq(message)))
+                .thenReturn(job);
+        
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withLanguage("en").build();
+        
+        NotificationFanOutJob retValue = participantService.sendNotificationToParticipants(APP, TEST_STUDY_ID,
+                search, message);
+        assertSame(retValue, job);
+        
+        verify(notificationsService).startNotificationFanOut(eq(TEST_APP_ID), eq(TEST_STUDY_ID),
+                searchCaptor.capture(), eq(message));
+        assertEquals(searchCaptor.getValue().getLanguage(), "en");
+        assertEquals(searchCaptor.getValue().getEnrolledInStudyId(), TEST_STUDY_ID);
+        assertTrue(searchCaptor.getValue().getAllOfGroups().isEmpty());
+    }
+    
+    @Test
+    public void sendNotificationToParticipantsDefaultsSearchAndAddsTestFlagForDevelopers() {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerUserId("some-id")
+                .withCallerRoles(ImmutableSet.of(Roles.DEVELOPER)).build());
+        NotificationMessage message = TestUtils.getNotificationMessage();
+        
+        participantService.sendNotificationToParticipants(APP, null, null, message);
+        
+        verify(notificationsService).startNotificationFanOut(eq(TEST_APP_ID), isNull(),
+                searchCaptor.capture(), eq(message));
+        assertNull(searchCaptor.getValue().getEnrolledInStudyId());
+        assertEquals(searchCaptor.getValue().getAllOfGroups(), ImmutableSet.of(TEST_USER_GROUP));
+    }
+    
+    @Test
+    public void sendNotificationToParticipantsNoMessage() {
+        try {
+            participantService.sendNotificationToParticipants(APP, null, EMPTY_SEARCH, null);
+            fail("Should have thrown exception");
+        } catch (BadRequestException e) {
+            assertEquals(e.getMessage(), "A notification message is required.");
+        }
+        verifyZeroInteractions(notificationsService);
+    }
+    
+    @Test(expectedExceptions = InvalidEntityException.class)
+    public void sendNotificationToParticipantsInvalidSearch() {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withOffsetBy(-1).build();
+        
+        participantService.sendNotificationToParticipants(APP, null, search, TestUtils.getNotificationMessage());
+    }
+    
+    @Test
+    public void getNotificationFanOutJob() {
+        NotificationFanOutJob job = new NotificationFanOutJob();
+        when(notificationsService.getNotificationFanOutJob(TEST_APP_ID, "jobId")).thenReturn(job);
+        
+        assertSame(participantService.getNotificationFanOutJob(APP, "jobId"), job);
+    }
+
     @Test
     public void limitNotExceededException() {
         mockHealthCodeAndAccountRetrieval();
         APP.setAccountLimit(10);
-        when(accountSummaries.getTotal()).thenReturn(9);
-        when(accountService.getPagedAccountSummaries(TEST_APP_ID, EMPTY_SEARCH))
-                .thenReturn(accountSummaries);
+        when(accountService.getAccountCount(TEST_APP_ID)).thenReturn(9);
         
         participantService.createParticipant(APP, PARTICIPANT, false);
+        
+        verify(accountService, never()).getPagedAccountSummaries(any(), any());
     }
     
     @Test
     public void throwLimitExceededExactlyException() {
         APP.setAccountLimit(10);
-        when(accountSummaries.getTotal()).thenReturn(10);
-        when(accountService.getPagedAccountSummaries(TEST_APP_ID, EMPTY_SEARCH)).thenReturn(accountSummaries);
+        when(accountService.getAccountCount(TEST_APP_ID)).thenReturn(10);
         
         try {
             participantService.createParticipant(APP, PARTICIPANT, false);
@@ -1689,8 +1777,7 @@ public class ParticipantServiceTest extends Mockito {
     @Test(expectedExceptions = LimitExceededException.class)
     public void throwLimitExceededException() {
         APP.setAccountLimit(10);
-        when(accountSummaries.getTotal()).thenReturn(13);
-        when(accountService.getPagedAccountSummaries(TEST_APP_ID, EMPTY_SEARCH)).thenReturn(accountSummaries);
+        when(accountService.getAccountCount(TEST_APP_ID)).thenReturn(13);
         
         participantService.createParticipant(APP, PARTICIPANT, false);
     }
@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.services;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 import static org.sagebionetworks.bridge.RequestContext.NULL_INSTANCE;
 import static org.sagebionetworks.bridge.Roles.ADMIN;
 import static org.sagebionetworks.bridge.Roles.STUDY_COORDINATOR;
@@ -46,6 +47,7 @@ import org.sagebionetworks.bridge.models.reports.ReportType;
 
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
@@ -87,6 +89,9 @@ public class ReportServiceTest extends Mockito {
     @Captor
     ArgumentCaptor<ReportData> reportDataCaptor;
     
+    @Captor
+    ArgumentCaptor<List<ReportData>> reportDataListCaptor;
+    
     @Captor
     ArgumentCaptor<ReportIndex> reportIndexCaptor;
     
@@ -343,6 +348,139 @@ public class ReportServiceTest extends Mockito {
         verify(mockReportIndexDao, never()).addIndex(any(), any());
     }
     
+    @Test
+    public void saveStudyReports() {
+        ReportData data1 = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        ReportData data2 = createReport(LocalDate.parse("2015-02-11"), "Second", "Name");
+        ReportData data3 = createReport(LocalDate.parse("2015-02-10"), "Third", "Name");
+        
+        service.saveStudyReports(TEST_APP_ID, IDENTIFIER, ImmutableList.of(data1, data2, data3));
+        
+        // A later record for the same date replaces the earlier one. 
+        verify(mockReportDataDao).batchSaveReportData(reportDataListCaptor.capture());
+        List<ReportData> saved = reportDataListCaptor.getValue();
+        assertEquals(saved, ImmutableList.of(data2, data3));
+        for (ReportData data : saved) {
+            assertEquals(data.getKey(), STUDY_REPORT_DATA_KEY.getKeyString());
+        }
+        verify(mockReportDataDao, never()).saveReportData(any());
+        verify(mockReportIndexDao).addIndex(STUDY_REPORT_DATA_KEY, null);
+    }
+    
+    @Test
+    public void saveStudyReportsReadsKnownIndexOnce() {
+        when(mockReportIndexDao.getIndex(any())).thenReturn(ReportIndex.create());
+        
+        service.saveStudyReports(TEST_APP_ID, IDENTIFIER, ImmutableList.of(CANNED_REPORT));
+        service.saveStudyReports(TEST_APP_ID, IDENTIFIER, ImmutableList.of(CANNED_REPORT));
+        
+        verify(mockReportIndexDao, times(1)).getIndex(STUDY_REPORT_DATA_KEY);
+        verify(mockReportIndexDao, never()).addIndex(any(), any());
+        verify(mockReportDataDao, times(2)).batchSaveReportData(any());
+        
+        // Deleting the report forgets the index.
+        service.deleteStudyReport(TEST_APP_ID, IDENTIFIER);
+        service.saveStudyReports(TEST_APP_ID, IDENTIFIER, ImmutableList.of(CANNED_REPORT));
+        verify(mockReportIndexDao, times(3)).getIndex(STUDY_REPORT_DATA_KEY);
+    }
+    
+    @Test
+    public void saveStudyReportsDoesNotCacheMissingIndex() {
+        service.saveStudyReports(TEST_APP_ID, IDENTIFIER, ImmutableList.of(CANNED_REPORT));
+        service.saveStudyReports(TEST_APP_ID, IDENTIFIER, ImmutableList.of(CANNED_REPORT));
+        
+        verify(mockReportIndexDao, times(2)).getIndex(STUDY_REPORT_DATA_KEY);
+    }
+    
+    @Test
+    public void saveStudyReportsFirstRecordSetsStudies() {
+        ReportData data1 = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        data1.setStudyIds(ImmutableSet.of("studyA"));
+        ReportData data2 = createReport(LocalDate.parse("2015-02-11"), "Second", "Name");
+        data2.setStudyIds(ImmutableSet.of("studyB"));
+        
+        try {
+            service.saveStudyReports(TEST_APP_ID, IDENTIFIER, ImmutableList.of(data1, data2));
+            fail("Should have thrown exception");
+        } catch (InvalidEntityException e) {
+            assertEquals(e.getErrors().get("studyIds").get(0), "studyIds cannot be changed once created for a report");
+        }
+        // Nothing is saved if any record is invalid.
+        verify(mockReportDataDao, never()).batchSaveReportData(any());
+        verify(mockReportIndexDao, never()).addIndex(any(), any());
+    }
+    
+    @Test
+    public void saveStudyReportsInvalidRecord() {
+        ReportData data = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        data.setData(null);
+        
+        invalid(() -> service.saveStudyReports(TEST_APP_ID, IDENTIFIER, ImmutableList.of(CANNED_REPORT, data)), 
+                "data", "is required");
+        verify(mockReportDataDao, never()).batchSaveReportData(any());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class, 
+            expectedExceptionsMessageRegExp = ReportService.BATCH_REQUIRED_MSG)
+    public void saveStudyReportsEmpty() {
+        service.saveStudyReports(TEST_APP_ID, IDENTIFIER, ImmutableList.of());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class, 
+            expectedExceptionsMessageRegExp = ReportService.BATCH_TOO_LARGE_MSG)
+    public void saveStudyReportsTooMany() {
+        List<ReportData> list = Lists.newArrayList();
+        for (int i = 0; i <= ReportService.MAX_REPORT_BATCH_SIZE; i++) {
+            list.add(createReport(LocalDate.parse("2015-02-10").plusDays(i), "First", "Name"));
+        }
+        service.saveStudyReports(TEST_APP_ID, IDENTIFIER, list);
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void saveStudyReportsAuthorizes() {
+        setupMismatchedStudies(STUDY_REPORT_DATA_KEY);
+        
+        service.saveStudyReports(TEST_APP_ID, IDENTIFIER, ImmutableList.of(CANNED_REPORT));
+    }
+    
+    @Test
+    public void saveParticipantReports() {
+        ReportData data1 = createReport(LocalDate.parse("2015-02-10"), "First", "Name");
+        ReportData data2 = createReport(LocalDate.parse("2015-02-11"), "Second", "Name");
+        
+        service.saveParticipantReports(TEST_APP_ID, TEST_USER_ID, IDENTIFIER, HEALTH_CODE,
+                ImmutableList.of(data1, data2));
+        
+        verify(mockReportDataDao).batchSaveReportData(reportDataListCaptor.capture());
+        List<ReportData> saved = reportDataListCaptor.getValue();
+        assertEquals(saved, ImmutableList.of(data1, data2));
+        for (ReportData data : saved) {
+            assertEquals(data.getKey(), PARTICIPANT_REPORT_DATA_KEY.getKeyString());
+        }
+        verify(mockReportIndexDao).addIndex(PARTICIPANT_REPORT_DATA_KEY, null);
+    }
+    
+    @Test
+    public void saveParticipantReportsSharesKnownIndexAcrossParticipants() {
+        when(mockReportIndexDao.getIndex(any())).thenReturn(ReportIndex.create());
+        
+        service.saveParticipantReports(TEST_APP_ID, TEST_USER_ID, IDENTIFIER, HEALTH_CODE,
+                ImmutableList.of(CANNED_REPORT));
+        service.saveParticipantReports(TEST_APP_ID, "otherUserId", IDENTIFIER, "otherHealthCode",
+                ImmutableList.of(createReport(LocalDate.parse("2015-02-10"), "First", "Name")));
+        
+        verify(mockReportIndexDao, times(1)).getIndex(any());
+        verify(mockReportIndexDao, never()).addIndex(any(), any());
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void saveParticipantReportsAuthorizes() {
+        setupMismatchedStudies(PARTICIPANT_REPORT_DATA_KEY);
+        
+        service.saveParticipantReports(TEST_APP_ID, "some-other-user", IDENTIFIER, HEALTH_CODE,
+                ImmutableList.of(CANNED_REPORT));
+    }
+    
     @Test
     public void deleteStudyReport() {
         service.deleteStudyReport(TEST_APP_ID, IDENTIFIER);
@@ -87,6 +87,7 @@ public class SendMailViaAmazonServiceConsentTest {
         
         emailVerificationService = mock(EmailVerificationService.class);
         service.setEmailVerificationService(emailVerificationService);
+        service.setOutboxService(mock(OutboxService.class));
         
         subpopulation = Subpopulation.create();
         subpopulation.setGuidString(TEST_APP_ID);
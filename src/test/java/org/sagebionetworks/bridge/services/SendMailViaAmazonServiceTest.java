@@ -1,11 +1,16 @@
 package org.sagebionetworks.bridge.services;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sagebionetworks.bridge.models.apps.MimeType.HTML;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.testng.annotations.BeforeMethod;
@@ -14,11 +19,15 @@ import org.testng.annotations.Test;
 import org.sagebionetworks.bridge.exceptions.BridgeServiceException;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.apps.MimeType;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessage;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessageType;
 import org.sagebionetworks.bridge.models.templates.TemplateRevision;
 import org.sagebionetworks.bridge.services.email.BasicEmailProvider;
 
 import com.amazonaws.services.simpleemail.AmazonSimpleEmailService;
+import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
 import com.amazonaws.services.simpleemail.model.SendRawEmailResult;
+import com.google.common.collect.ImmutableList;
 
 public class SendMailViaAmazonServiceTest {
 
@@ -38,6 +47,9 @@ public class SendMailViaAmazonServiceTest {
     @Mock
     private SendRawEmailResult result;
     
+    @Mock
+    private OutboxService outboxService;
+    
     @BeforeMethod
     public void before() {
         MockitoAnnotations.initMocks(this);
@@ -49,6 +61,7 @@ public class SendMailViaAmazonServiceTest {
         service = new SendMailViaAmazonService();
         service.setEmailClient(emailClient);
         service.setEmailVerificationService(emailVerificationService);
+        service.setOutboxService(outboxService);
     }
     
     @Test
@@ -90,4 +103,52 @@ public class SendMailViaAmazonServiceTest {
                 .build();
         service.sendEmail(provider);
     }
+    
+    @Test
+    public void verifiedEmailQueuedInOutbox() throws Exception {
+        when(emailVerificationService.isVerified(SUPPORT_EMAIL)).thenReturn(true);
+        when(outboxService.isEnabled()).thenReturn(true);
+        
+        TemplateRevision revision = TemplateRevision.create();
+        revision.setSubject("subject");
+        revision.setDocumentContent("body");
+        revision.setMimeType(MimeType.HTML);
+        
+        BasicEmailProvider provider = new BasicEmailProvider.Builder()
+                .withApp(app)
+                .withRecipientEmail(RECIPIENT_EMAIL)
+                .withTemplateRevision(revision)
+                .build();
+        service.sendEmail(provider);
+        
+        ArgumentCaptor<OutboxMessage> messageCaptor = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(outboxService).enqueue(messageCaptor.capture());
+        verify(emailClient, never()).sendRawEmail(any());
+        
+        OutboxMessage message = messageCaptor.getValue();
+        assertEquals(message.getType(), OutboxMessageType.EMAIL);
+        assertEquals(message.getRecipient(), RECIPIENT_EMAIL);
+        assertTrue(message.getSender().contains(SUPPORT_EMAIL));
+        assertTrue(new String(message.getRawMessage(), UTF_8).contains("subject"));
+    }
+    
+    @Test
+    public void deliverEmail() {
+        when(emailClient.sendRawEmail(any())).thenReturn(result);
+        
+        OutboxMessage message = new OutboxMessage();
+        message.setType(OutboxMessageType.EMAIL);
+        message.setSender(SUPPORT_EMAIL);
+        message.setRecipient(RECIPIENT_EMAIL);
+        message.setRawMessage("raw message".getBytes(UTF_8));
+        service.deliverEmail(message);
+        
+        ArgumentCaptor<SendRawEmailRequest> requestCaptor = ArgumentCaptor.forClass(SendRawEmailRequest.class);
+        verify(emailClient).sendRawEmail(requestCaptor.capture());
+        
+        SendRawEmailRequest request = requestCaptor.getValue();
+        assertEquals(request.getSource(), SUPPORT_EMAIL);
+        assertEquals(request.getDestinations(), ImmutableList.of(RECIPIENT_EMAIL));
+        assertEquals(new String(request.getRawMessage().getData().array(), UTF_8), "raw message");
+    }
 }
@@ -1,6 +1,7 @@
 package org.sagebionetworks.bridge.services;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -114,11 +115,90 @@ public class SessionUpdateServiceTest {
         verify(mockCacheProvider).setUserSession(session);
         assertEquals(session.getParticipant().getLanguages().iterator().next(), "es");
         assertSame(session.getConsentStatuses(), CONSENT_STATUS_MAP);
+        assertEquals(session.getConsentCriteriaKey(), context.getCriteriaKey());
 
         // Verify notification service.
         verify(mockNotificationTopicService).manageCriteriaBasedSubscriptions(TEST_APP_ID, context, HEALTH_CODE);
     }
 
+    @Test
+    public void updateTimeZoneUnchanged() {
+        UserSession session = new UserSession();
+        DateTimeZone timeZone = DateTimeZone.forOffsetHours(-7);
+        session.setParticipant(new StudyParticipant.Builder().withHealthCode(HEALTH_CODE)
+                .withTimeZone(timeZone).build());
+        
+        service.updateTimeZone(session, timeZone);
+        
+        // Nothing changed, so the session is not written to the cache.
+        verify(mockCacheProvider, never()).setUserSession(any());
+    }
+    
+    @Test
+    public void updateParticipantWithSameCriteria() {
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID)
+                .withLanguages(ImmutableList.of("en")).build();
+        
+        UserSession session = new UserSession();
+        session.setParticipant(EMPTY_PARTICIPANT);
+        session.setConsentStatuses(CONSENT_STATUS_MAP);
+        session.setConsentCriteriaKey(context.getCriteriaKey());
+        
+        StudyParticipant participant = new StudyParticipant.Builder().copyOf(EMPTY_PARTICIPANT)
+                .withFirstName("Test").build();
+        
+        service.updateParticipant(session, context, participant);
+        
+        // The session changed, but the criteria it was calculated for did not, so consents and 
+        // subscriptions are not recalculated.
+        verify(mockCacheProvider).setUserSession(session);
+        assertEquals(session.getParticipant().getFirstName(), "Test");
+        assertEquals(session.getConsentStatuses(), CONSENT_STATUS_MAP);
+        verify(mockConsentService, never()).getConsentStatuses(any());
+        verify(mockNotificationTopicService, never()).manageCriteriaBasedSubscriptions(any(), any(), any());
+    }
+    
+    @Test
+    public void updateDataGroupsUnchanged() {
+        Set<String> dataGroups = Sets.newHashSet("data1");
+        CriteriaContext context = new CriteriaContext.Builder()
+                .withUserDataGroups(dataGroups)
+                .withAppId(TEST_APP_ID).build();
+        
+        UserSession session = new UserSession();
+        session.setParticipant(new StudyParticipant.Builder().copyOf(EMPTY_PARTICIPANT)
+                .withDataGroups(dataGroups).build());
+        session.setConsentStatuses(CONSENT_STATUS_MAP);
+        session.setConsentCriteriaKey(context.getCriteriaKey());
+        
+        service.updateDataGroups(session, context);
+        
+        verify(mockConsentService, never()).getConsentStatuses(any());
+        verify(mockCacheProvider, never()).setUserSession(any());
+        verify(mockNotificationTopicService, never()).manageCriteriaBasedSubscriptions(any(), any(), any());
+    }
+    
+    @Test
+    public void updateDataGroupsWithOtherClient() {
+        when(mockConsentService.getConsentStatuses(any())).thenReturn(CONSENT_STATUS_MAP);
+        
+        CriteriaContext context = new CriteriaContext.Builder().withAppId(TEST_APP_ID).build();
+        
+        UserSession session = new UserSession();
+        session.setParticipant(EMPTY_PARTICIPANT);
+        session.setConsentStatuses(CONSENT_STATUS_MAP);
+        session.setConsentCriteriaKey("api:10:Android:[]:[]:[]");
+        
+        service.updateDataGroups(session, context);
+        
+        // The client has changed since consents were calculated, so they are recalculated, even though the 
+        // recalculated statuses are the same.
+        verify(mockConsentService).getConsentStatuses(context);
+        verify(mockCacheProvider).setUserSession(session);
+        assertEquals(session.getConsentCriteriaKey(), context.getCriteriaKey());
+        verify(mockNotificationTopicService).manageCriteriaBasedSubscriptions(TEST_APP_ID, context, HEALTH_CODE);
+    }
+
     @Test
     public void updateExternalId() {
         UserSession session = new UserSession();
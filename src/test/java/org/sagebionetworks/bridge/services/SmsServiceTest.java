@@ -2,6 +2,7 @@ package org.sagebionetworks.bridge.services;
 
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
@@ -23,6 +24,7 @@ import com.amazonaws.services.sns.model.OptInPhoneNumberRequest;
 import com.amazonaws.services.sns.model.PublishRequest;
 import com.amazonaws.services.sns.model.PublishResult;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableMap;
 
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeUtils;
@@ -43,6 +45,8 @@ import org.sagebionetworks.bridge.models.accounts.Phone;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataSubmission;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessage;
+import org.sagebionetworks.bridge.models.outbox.OutboxMessageType;
 import org.sagebionetworks.bridge.models.sms.SmsMessage;
 import org.sagebionetworks.bridge.models.sms.SmsType;
 import org.sagebionetworks.bridge.models.templates.TemplateRevision;
@@ -78,6 +82,7 @@ public class SmsServiceTest {
     private ParticipantService mockParticipantService;
     private UploadSchemaService mockSchemaService;
     private AmazonSNS mockSnsClient;
+    private OutboxService mockOutboxService;
     private App app;
     private SmsService svc;
 
@@ -107,6 +112,7 @@ public class SmsServiceTest {
         mockHealthDataService = mock(HealthDataService.class);
         mockMessageDao = mock(SmsMessageDao.class);
         mockParticipantService = mock(ParticipantService.class);
+        mockOutboxService = mock(OutboxService.class);
 
         // Set up service.
         svc = new SmsService();
@@ -115,6 +121,7 @@ public class SmsServiceTest {
         svc.setParticipantService(mockParticipantService);
         svc.setSchemaService(mockSchemaService);
         svc.setSnsClient(mockSnsClient);
+        svc.setOutboxService(mockOutboxService);
     }
 
     @AfterClass
@@ -282,6 +289,75 @@ public class SmsServiceTest {
         assertTrue(fieldDefList.get(2).isUnboundedText());
     }
 
+    @Test
+    public void sendSmsMessage_QueuedInOutbox() {
+        when(mockOutboxService.isEnabled()).thenReturn(true);
+        when(mockParticipantService.getParticipant(any(), anyString(), eq(false))).thenReturn(
+                PARTICIPANT_WITH_TIME_ZONE);
+
+        SmsMessageProvider provider = new SmsMessageProvider.Builder()
+                .withApp(app)
+                .withTemplateRevision(REVISION)
+                .withTransactionType()
+                .withPhone(TestConstants.PHONE).build();
+        svc.sendSmsMessage(USER_ID, provider);
+
+        ArgumentCaptor<OutboxMessage> messageCaptor = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(mockOutboxService).enqueue(messageCaptor.capture());
+
+        OutboxMessage message = messageCaptor.getValue();
+        assertEquals(message.getType(), OutboxMessageType.SMS);
+        assertEquals(message.getAppId(), TEST_APP_ID);
+        assertEquals(message.getUserId(), USER_ID);
+        assertEquals(message.getHealthCode(), HEALTH_CODE);
+        assertEquals(message.getTimeZone(), TIME_ZONE.getID());
+        assertEquals(message.getPhoneNumber(), TestConstants.PHONE.getNumber());
+        assertEquals(message.getMessage(), MESSAGE_BODY);
+        assertEquals(message.getSmsType(), SmsType.TRANSACTIONAL);
+        assertEquals(message.getMessageAttributes().get(BridgeConstants.AWS_SMS_TYPE), "Transactional");
+        assertEquals(message.getMessageAttributes().get(BridgeConstants.AWS_SMS_SENDER_ID), APP_SHORT_NAME);
+
+        // Nothing is sent or logged until the outbox delivers the message.
+        verify(mockSnsClient, never()).publish(any());
+        verify(mockMessageDao, never()).logMessage(any());
+    }
+
+    @Test
+    public void deliverSmsMessage() throws Exception {
+        svc.deliverSmsMessage(createOutboxMessage());
+
+        ArgumentCaptor<PublishRequest> requestCaptor = ArgumentCaptor.forClass(PublishRequest.class);
+        verify(mockSnsClient).publish(requestCaptor.capture());
+
+        PublishRequest request = requestCaptor.getValue();
+        assertEquals(request.getPhoneNumber(), TestConstants.PHONE.getNumber());
+        assertEquals(request.getMessage(), MESSAGE_BODY);
+        assertEquals(request.getMessageAttributes().get(BridgeConstants.AWS_SMS_TYPE).getStringValue(),
+                "Transactional");
+        assertEquals(request.getMessageAttributes().get(BridgeConstants.AWS_SMS_SENDER_ID).getStringValue(),
+                APP_SHORT_NAME);
+
+        verifyLoggedSmsMessage(HEALTH_CODE, MESSAGE_BODY, SmsType.TRANSACTIONAL);
+
+        // The participant is reconstructed from the queued message.
+        ArgumentCaptor<StudyParticipant> participantCaptor = ArgumentCaptor.forClass(StudyParticipant.class);
+        ArgumentCaptor<HealthDataSubmission> healthDataCaptor = ArgumentCaptor.forClass(HealthDataSubmission.class);
+        verify(mockHealthDataService).submitHealthData(eq(TEST_APP_ID), participantCaptor.capture(),
+                healthDataCaptor.capture());
+        assertEquals(participantCaptor.getValue().getHealthCode(), HEALTH_CODE);
+        DateTime createdOn = healthDataCaptor.getValue().getCreatedOn();
+        assertEquals(createdOn.getZone().getOffset(createdOn), TIME_ZONE.getOffset(createdOn));
+    }
+
+    @Test
+    public void deliverSmsMessage_LoggingErrorNotThrown() {
+        doThrow(new RuntimeException()).when(mockMessageDao).logMessage(any());
+
+        // The message was sent, so the error is not thrown back to the outbox (which would send it again).
+        svc.deliverSmsMessage(createOutboxMessage());
+        verify(mockSnsClient).publish(any());
+    }
+
     @Test(expectedExceptions = BridgeServiceException.class)
     public void sendSMSMessageTooLongInvalid() {
         TemplateRevision revision = TemplateRevision.create();
@@ -296,6 +372,20 @@ public class SmsServiceTest {
         svc.sendSmsMessage(HEALTH_CODE, provider);
     }
 
+    private static OutboxMessage createOutboxMessage() {
+        OutboxMessage message = new OutboxMessage();
+        message.setType(OutboxMessageType.SMS);
+        message.setAppId(TEST_APP_ID);
+        message.setHealthCode(HEALTH_CODE);
+        message.setTimeZone(TIME_ZONE.getID());
+        message.setPhoneNumber(TestConstants.PHONE.getNumber());
+        message.setMessage(MESSAGE_BODY);
+        message.setSmsType(SmsType.TRANSACTIONAL);
+        message.setMessageAttributes(ImmutableMap.of(BridgeConstants.AWS_SMS_TYPE, "Transactional",
+                BridgeConstants.AWS_SMS_SENDER_ID, APP_SHORT_NAME));
+        return message;
+    }
+
     private void verifyLoggedSmsMessage(String expectedHealthCode, String expectedMessage, SmsType expectedSmsType) {
         ArgumentCaptor<SmsMessage> loggedMessageCaptor = ArgumentCaptor.forClass(SmsMessage.class);
         verify(mockMessageDao).logMessage(loggedMessageCaptor.capture());
@@ -61,6 +61,8 @@ public class SponsorServiceTest extends Mockito {
     
     @BeforeMethod
     public void beforeMethods() {
+        // The service holds a node-local cache, so don't share instances between tests.
+        service = new SponsorService();
         MockitoAnnotations.initMocks(this);
     }
     
@@ -338,4 +340,60 @@ public class SponsorServiceTest extends Mockito {
 
         verify(mockSponsorDao, never()).getSponsoredStudies(any(), any(), any(), any());
     }
+
+    @Test
+    public void getSponsoredStudyIdsServedFromLocalCache() {
+        when(mockOrgService.getOrganizationOpt(TEST_APP_ID, TEST_ORG_ID))
+            .thenReturn(Optional.of(Organization.create()));
+        mockGetSponsoredStudies();
+        
+        Set<String> first = service.getSponsoredStudyIds(TEST_APP_ID, TEST_ORG_ID);
+        Set<String> second = service.getSponsoredStudyIds(TEST_APP_ID, TEST_ORG_ID);
+        
+        // The same immutable set is shared between calls.
+        assertSame(second, first);
+        verify(mockCacheProvider, times(1)).getObject(CACHE_KEY, STRING_SET_TYPE_REF);
+        verify(mockSponsorDao, times(1)).getSponsoredStudies(TEST_APP_ID, TEST_ORG_ID, null, null);
+    }
+
+    @Test
+    public void invalidateSponsoredStudyIds() {
+        when(mockOrgService.getOrganizationOpt(TEST_APP_ID, TEST_ORG_ID))
+            .thenReturn(Optional.of(Organization.create()));
+        mockGetSponsoredStudies();
+        service.getSponsoredStudyIds(TEST_APP_ID, TEST_ORG_ID);
+        
+        service.invalidateSponsoredStudyIds(TEST_APP_ID, TEST_ORG_ID);
+        
+        // Both the shared and the local caches are cleared, so the next call goes back to Redis.
+        verify(mockCacheProvider).removeObject(CACHE_KEY);
+        service.getSponsoredStudyIds(TEST_APP_ID, TEST_ORG_ID);
+        verify(mockCacheProvider, times(2)).getObject(CACHE_KEY, STRING_SET_TYPE_REF);
+    }
+
+    @Test
+    public void getSponsoredStudyIdsFromRedisIsCachedLocally() {
+        Set<String> set = ImmutableSet.of("study1", "study2");
+        when(mockCacheProvider.getObject(CACHE_KEY, STRING_SET_TYPE_REF)).thenReturn(set);
+
+        service.getSponsoredStudyIds(TEST_APP_ID, TEST_ORG_ID);
+        Set<String> retValue = service.getSponsoredStudyIds(TEST_APP_ID, TEST_ORG_ID);
+        assertEquals(retValue, set);
+        
+        verify(mockCacheProvider, times(1)).getObject(CACHE_KEY, STRING_SET_TYPE_REF);
+    }
+    
+    @Test
+    public void localCacheInvalidatedWhenSponsorshipChanges() {
+        when(mockOrgService.getOrganizationOpt(TEST_APP_ID, TEST_ORG_ID))
+            .thenReturn(Optional.of(Organization.create()));
+        mockGetSponsoredStudies();
+        
+        service.getSponsoredStudyIds(TEST_APP_ID, TEST_ORG_ID);
+        service.createStudyWithSponsorship(TEST_APP_ID, TEST_STUDY_ID, TEST_ORG_ID);
+        service.getSponsoredStudyIds(TEST_APP_ID, TEST_ORG_ID);
+        
+        verify(mockCacheProvider).removeObject(CACHE_KEY);
+        verify(mockSponsorDao, times(2)).getSponsoredStudies(TEST_APP_ID, TEST_ORG_ID, null, null);
+    }
 }
@@ -15,7 +15,6 @@ import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectTy
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.CUSTOM;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.ENROLLMENT;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.INSTALL_LINK_SENT;
-import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.STUDY_BURST;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventObjectType.TIMELINE_RETRIEVED;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventType.FINISHED;
 import static org.sagebionetworks.bridge.models.activities.ActivityEventUpdateType.IMMUTABLE;
@@ -111,6 +110,9 @@ public class StudyActivityEventServiceTest extends Mockito {
     @Captor
     ArgumentCaptor<StudyActivityEvent> eventCaptor;
 
+    @Captor
+    ArgumentCaptor<List<StudyActivityEvent>> eventListCaptor;
+
     @Captor
     ArgumentCaptor<Alert> alertCaptor;
     
@@ -136,6 +138,25 @@ public class StudyActivityEventServiceTest extends Mockito {
                 .withUserId(TEST_USER_ID);
     }
     
+    private void mockRecentEvents(StudyActivityEvent... events) {
+        when(mockDao.getRecentStudyActivityEvents(TEST_USER_ID, TEST_STUDY_ID))
+            .thenReturn(ImmutableList.copyOf(events));
+    }
+    
+    private StudyActivityEvent persistedEvent(String eventId) {
+        return makeBuilder().withEventId(eventId).withTimestamp(ENROLLMENT_TS)
+                .withUpdateType(IMMUTABLE).build();
+    }
+    
+    // Events published one at a time, followed by events published in batches.
+    private List<StudyActivityEvent> getPublishedEvents() {
+        verify(mockDao, atLeast(0)).publishEvent(eventCaptor.capture());
+        verify(mockDao, atLeast(0)).publishEvents(eventListCaptor.capture());
+        List<StudyActivityEvent> events = new ArrayList<>(eventCaptor.getAllValues());
+        eventListCaptor.getAllValues().forEach(events::addAll);
+        return events;
+    }
+    
     @Test
     public void deleteEvent() {
         StudyActivityEvent originEvent = makeBuilder().withObjectType(CUSTOM).withObjectId("event1")
@@ -350,8 +371,7 @@ public class StudyActivityEventServiceTest extends Mockito {
                 .withTimestamp(ENROLLMENT_TS).withObjectType(ENROLLMENT).build();
 
         when(mockDao.getRecentStudyActivityEvent(TEST_USER_ID, TEST_STUDY_ID, "enrollment")).thenReturn(null);
-        when(mockDao.getRecentStudyActivityEvent(TEST_USER_ID, TEST_STUDY_ID, "study_burst:foo:01")).thenReturn(PERSISTED_EVENT);
-        when(mockDao.getRecentStudyActivityEvent(TEST_USER_ID, TEST_STUDY_ID, "study_burst:foo:02")).thenReturn(PERSISTED_EVENT);
+        mockRecentEvents(persistedEvent("study_burst:foo:01"), persistedEvent("study_burst:foo:02"));
         
         StudyBurst burst = new StudyBurst();
         burst.setOriginEventId(ENROLLMENT_FIELD);
@@ -398,7 +418,7 @@ public class StudyActivityEventServiceTest extends Mockito {
                 .thenReturn(Optional.of(schedule));
         
         // The existence of the first event will be enough to throw an error
-        when(mockDao.getRecentStudyActivityEvent(any(), any(), eq("study_burst:foo:01"))).thenReturn(PERSISTED_EVENT);
+        mockRecentEvents(persistedEvent("study_burst:foo:01"));
         
         try {
             service.publishEvent(event, true, true);
@@ -436,12 +456,14 @@ public class StudyActivityEventServiceTest extends Mockito {
         
         service.publishEvent(event, false, true);
         
-        verify(mockDao, times(4)).publishEvent(eventCaptor.capture());
+        verify(mockDao).publishEvents(any());
+        List<StudyActivityEvent> published = getPublishedEvents();
+        assertEquals(published.size(), 4);
         
-        StudyActivityEvent origin = eventCaptor.getAllValues().get(0);
+        StudyActivityEvent origin = published.get(0);
         assertEquals(origin.getEventId(), "enrollment");
         
-        StudyActivityEvent sb1 = eventCaptor.getAllValues().get(1);
+        StudyActivityEvent sb1 = published.get(1);
         assertEquals(sb1.getEventId(), "study_burst:foo:01");
         assertEquals(sb1.getAppId(), TEST_APP_ID);
         assertEquals(sb1.getStudyId(), TEST_STUDY_ID);
@@ -453,12 +475,12 @@ public class StudyActivityEventServiceTest extends Mockito {
         assertEquals(sb1.getOriginEventId(), "enrollment");
         assertEquals(sb1.getPeriodFromOrigin(), Period.parse("P1W"));
         
-        StudyActivityEvent sb2 = eventCaptor.getAllValues().get(2);
+        StudyActivityEvent sb2 = published.get(2);
         assertEquals(sb2.getEventId(), "study_burst:foo:02");
         assertEquals(sb2.getTimestamp(), ENROLLMENT_TS.plusWeeks(2));
         assertEquals(sb2.getPeriodFromOrigin(), Period.parse("P2W"));
         
-        StudyActivityEvent sb3 = eventCaptor.getAllValues().get(3);
+        StudyActivityEvent sb3 = published.get(3);
         assertEquals(sb3.getEventId(), "study_burst:foo:03");
         assertEquals(sb3.getTimestamp(), ENROLLMENT_TS.plusWeeks(3));
         assertEquals(sb3.getPeriodFromOrigin(), Period.parse("P3W"));
@@ -493,22 +515,24 @@ public class StudyActivityEventServiceTest extends Mockito {
         
         service.publishEvent(event, false, true);
         
-        verify(mockDao, times(4)).publishEvent(eventCaptor.capture());
+        verify(mockDao).publishEvents(any());
+        List<StudyActivityEvent> published = getPublishedEvents();
+        assertEquals(published.size(), 4);
         
-        StudyActivityEvent origin = eventCaptor.getAllValues().get(0);
+        StudyActivityEvent origin = published.get(0);
         assertEquals(origin.getEventId(), "enrollment");
         
-        StudyActivityEvent sb1 = eventCaptor.getAllValues().get(1);
+        StudyActivityEvent sb1 = published.get(1);
         assertEquals(sb1.getEventId(), "study_burst:foo:01");
         assertEquals(sb1.getTimestamp(), ENROLLMENT_TS);
         assertNull(sb1.getPeriodFromOrigin());
         
-        StudyActivityEvent sb2 = eventCaptor.getAllValues().get(2);
+        StudyActivityEvent sb2 = published.get(2);
         assertEquals(sb2.getEventId(), "study_burst:foo:02");
         assertEquals(sb2.getTimestamp(), ENROLLMENT_TS.plusWeeks(1));
         assertEquals(sb2.getPeriodFromOrigin(), Period.parse("P1W"));
         
-        StudyActivityEvent sb3 = eventCaptor.getAllValues().get(3);
+        StudyActivityEvent sb3 = published.get(3);
         assertEquals(sb3.getEventId(), "study_burst:foo:03");
         assertEquals(sb3.getTimestamp(), ENROLLMENT_TS.plusWeeks(2));
         assertEquals(sb3.getPeriodFromOrigin(), Period.parse("P2W"));
@@ -570,7 +594,7 @@ public class StudyActivityEventServiceTest extends Mockito {
         
         service.publishEvent(event, false, false);
         
-        verify(mockDao, times(4)).publishEvent(eventCaptor.capture());
+        assertEquals(getPublishedEvents().size(), 4);
 
         // verify study burst alert created
         verify(alertService).createAlert(alertCaptor.capture());
@@ -659,6 +683,7 @@ public class StudyActivityEventServiceTest extends Mockito {
         service.publishEvent(event, false, true);
         
         verify(mockDao, never()).publishEvent(eventCaptor.capture());
+        verify(mockDao, never()).publishEvents(any());
     }
     
     @Test
@@ -685,16 +710,14 @@ public class StudyActivityEventServiceTest extends Mockito {
         when(mockScheduleService.getScheduleForStudy(TEST_APP_ID, TEST_STUDY_ID))
                 .thenReturn(Optional.of(schedule));
         
-        when(mockDao.getRecentStudyActivityEvent(any(), any(), eq("study_burst:foo:01")))
-            .thenReturn(PERSISTED_EVENT);
-        when(mockDao.getRecentStudyActivityEvent(any(), any(), eq("study_burst:foo:03")))
-            .thenReturn(PERSISTED_EVENT);
+        mockRecentEvents(persistedEvent("study_burst:foo:01"), persistedEvent("study_burst:foo:03"));
         
         service.publishEvent(event, false, true);
         
         // As per BRIDGE-3120 and MTB-496, nothing is updated, not even the missing study burst.
         // The intention (we believe) was to remove the study burst, so it will stay removed.
         verify(mockDao, never()).publishEvent(eventCaptor.capture());
+        verify(mockDao, never()).publishEvents(any());
     }
     
     @DataProvider(name = "eventUpdates")
@@ -748,18 +771,14 @@ public class StudyActivityEventServiceTest extends Mockito {
         when(mockScheduleService.getScheduleForStudy(TEST_APP_ID, TEST_STUDY_ID))
             .thenReturn(Optional.of(schedule));
 
-        StudyActivityEvent persistedBurst = null;
         if (burstPersisted) {
-            persistedBurst = makeBuilder().withObjectId("study_burst:foo:01")
-                    .withTimestamp(ENROLLMENT_TS).withObjectType(STUDY_BURST)
-                    .withUpdateType(burstType).build();
+            mockRecentEvents(makeBuilder().withEventId("study_burst:foo:01")
+                    .withTimestamp(ENROLLMENT_TS).withUpdateType(burstType).build());
         }
-        when(mockDao.getRecentStudyActivityEvent(TEST_USER_ID, TEST_STUDY_ID, 
-                "study_burst:foo:01")).thenReturn(persistedBurst);
         
         service.publishEvent(event, false, true);
         
-        verify(mockDao, times(count)).publishEvent(eventCaptor.capture());
+        assertEquals(getPublishedEvents().size(), count);
     }
     
     @Test
@@ -41,6 +41,7 @@ import com.google.common.collect.Sets;
 import org.joda.time.DateTime;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -62,12 +63,14 @@ import org.sagebionetworks.bridge.exceptions.EntityAlreadyExistsException;
 import org.sagebionetworks.bridge.exceptions.EntityNotFoundException;
 import org.sagebionetworks.bridge.exceptions.InvalidEntityException;
 import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
+import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.PagedResourceList;
 import org.sagebionetworks.bridge.models.VersionHolder;
 import org.sagebionetworks.bridge.models.schedules2.Schedule2;
 import org.sagebionetworks.bridge.models.studies.Study;
 import org.sagebionetworks.bridge.models.studies.StudyCustomEvent;
 
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
@@ -141,8 +144,64 @@ public class StudyServiceTest extends Mockito {
         
         verify(mockStudyDao).getStudy(TEST_APP_ID, TEST_STUDY_ID);
         
-        CacheKey cacheKey = CacheKey.etag(Study.class, TEST_APP_ID, TEST_STUDY_ID);
-        verify(mockCacheProvider).setObject(cacheKey, MODIFIED_ON);
+        verify(mockCacheProvider).setObjectIfVersion(eq(CacheKey.study(TEST_APP_ID, TEST_STUDY_ID)),
+                any(ObjectNode.class), eq(StudyService.STUDY_CACHE_EXPIRE_IN_SECONDS),
+                eq(CacheKey.studyVersion(TEST_APP_ID, TEST_STUDY_ID)), eq(0L));
+        // The etag is only set when the study is changed.
+        verify(mockCacheProvider, never()).setObject(any(), any());
+    }
+    
+    @Test
+    public void getStudyRacingUpdateIsNotCached() {
+        CacheKey versionKey = CacheKey.studyVersion(TEST_APP_ID, TEST_STUDY_ID);
+        when(mockCacheProvider.getVersion(versionKey)).thenReturn(3L);
+        
+        // The study is updated (and the version incremented) after it is read, but before it is cached.
+        Study study = Study.create();
+        study.setModifiedOn(MODIFIED_ON);
+        when(mockStudyDao.getStudy(TEST_APP_ID, TEST_STUDY_ID)).thenReturn(study);
+        when(mockCacheProvider.setObjectIfVersion(any(), any(), anyInt(), eq(versionKey), eq(3L))).thenReturn(false);
+        
+        Study returnedValue = service.getStudy(TEST_APP_ID, TEST_STUDY_ID, true);
+        assertEquals(returnedValue, study);
+        
+        // The version is read before the study, and the study is only cached under that version.
+        InOrder inOrder = inOrder(mockCacheProvider, mockStudyDao);
+        inOrder.verify(mockCacheProvider).getVersion(versionKey);
+        inOrder.verify(mockStudyDao).getStudy(TEST_APP_ID, TEST_STUDY_ID);
+        inOrder.verify(mockCacheProvider).setObjectIfVersion(eq(CacheKey.study(TEST_APP_ID, TEST_STUDY_ID)),
+                any(ObjectNode.class), eq(StudyService.STUDY_CACHE_EXPIRE_IN_SECONDS), eq(versionKey), eq(3L));
+        
+        // Neither the stale study nor its timestamp is written unconditionally.
+        verify(mockCacheProvider, never()).setObject(any(), any());
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
+    }
+    
+    @Test
+    public void getStudyCached() {
+        Study study = Study.create();
+        study.setAppId(TEST_APP_ID);
+        study.setIdentifier(TEST_STUDY_ID);
+        study.setName("name");
+        study.setLogoGuid("logoGuid");
+        study.setModifiedOn(MODIFIED_ON);
+        ObjectNode node = BridgeObjectMapper.get().valueToTree(study);
+        node.put(StudyService.APP_ID_FIELD, TEST_APP_ID);
+        node.put(StudyService.LOGO_GUID_FIELD, "logoGuid");
+        when(mockCacheProvider.getObject(CacheKey.study(TEST_APP_ID, TEST_STUDY_ID), ObjectNode.class))
+                .thenReturn(node);
+        
+        Study returnedValue = service.getStudy(TEST_APP_ID, TEST_STUDY_ID, true);
+        assertEquals(returnedValue.getAppId(), TEST_APP_ID);
+        assertEquals(returnedValue.getIdentifier(), TEST_STUDY_ID);
+        assertEquals(returnedValue.getName(), "name");
+        assertEquals(returnedValue.getLogoGuid(), "logoGuid");
+        assertEquals(returnedValue.getModifiedOn(), MODIFIED_ON);
+        
+        verify(mockStudyDao, never()).getStudy(any(), any());
+        verify(mockCacheProvider, never()).setObject(any(), any());
+        verify(mockCacheProvider, never()).setObject(any(), any(), anyInt());
+        verify(mockCacheProvider, never()).setObjectIfVersion(any(), any(), anyInt(), any(), anyLong());
     }
     
     @Test
@@ -188,6 +247,20 @@ public class StudyServiceTest extends Mockito {
         assertEquals(studyIds, ImmutableSet.of("studyA","studyB"));
         
         verify(mockStudyDao).getStudies(TEST_APP_ID, null, null, null, false);
+        verify(mockCacheProvider).setObjectIfVersion(CacheKey.studyIds(TEST_APP_ID), 
+                ImmutableSet.of("studyA","studyB"), StudyService.STUDY_CACHE_EXPIRE_IN_SECONDS, 
+                CacheKey.studyIdsVersion(TEST_APP_ID), 0L);
+    }
+    
+    @Test
+    public void getStudyIdsCached() {
+        when(mockCacheProvider.getObject(CacheKey.studyIds(TEST_APP_ID), StudyService.STRING_SET_TYPE_REF))
+                .thenReturn(ImmutableSet.of("studyA","studyB"));
+        
+        Set<String> studyIds = service.getStudyIds(TEST_APP_ID);
+        assertEquals(studyIds, ImmutableSet.of("studyA","studyB"));
+        
+        verify(mockStudyDao, never()).getStudies(any(), any(), any(), any(), anyBoolean());
     }
     
     @Test(expectedExceptions = EntityNotFoundException.class)
@@ -430,6 +503,13 @@ public class StudyServiceTest extends Mockito {
         
         verify(mockCacheProvider).removeObject(CACHE_KEY);
         
+        // The version changes before the cached copy is removed, so a concurrent read cannot cache it again.
+        InOrder inOrder = inOrder(mockCacheProvider);
+        inOrder.verify(mockCacheProvider).incrementVersion(CacheKey.studyVersion(TEST_APP_ID, TEST_STUDY_ID));
+        inOrder.verify(mockCacheProvider).removeObject(CacheKey.study(TEST_APP_ID, TEST_STUDY_ID));
+        inOrder.verify(mockCacheProvider).incrementVersion(CacheKey.studyIdsVersion(TEST_APP_ID));
+        inOrder.verify(mockCacheProvider).removeObject(CacheKey.studyIds(TEST_APP_ID));
+        
         CacheKey cacheKey = CacheKey.etag(Study.class, TEST_APP_ID, TEST_STUDY_ID);
         verify(mockCacheProvider).setObject(cacheKey, MODIFIED_ON);
     }
@@ -632,6 +712,8 @@ public class StudyServiceTest extends Mockito {
         assertNotNull(persisted.getModifiedOn());
         
         verify(mockCacheProvider).removeObject(CACHE_KEY);
+        verify(mockCacheProvider).removeObject(CacheKey.study(TEST_APP_ID, TEST_STUDY_ID));
+        verify(mockCacheProvider).removeObject(CacheKey.studyIds(TEST_APP_ID));
         
         CacheKey cacheKey = CacheKey.etag(Study.class, TEST_APP_ID, TEST_STUDY_ID);
         verify(mockCacheProvider).removeObject(cacheKey);
@@ -736,8 +818,19 @@ public class StudyServiceTest extends Mockito {
     
     @Test
     public void deleteAllStudies() {
+        Study studyA = Study.create();
+        studyA.setIdentifier("studyA");
+        Study studyB = Study.create();
+        studyB.setIdentifier("studyB");
+        when(mockStudyDao.getStudies(TEST_APP_ID, null, null, null, true))
+                .thenReturn(new PagedResourceList<>(ImmutableList.of(studyA, studyB), 2));
+        
         service.deleteAllStudies(TEST_APP_ID);
         verify(mockStudyDao).deleteAllStudies(TEST_APP_ID);
+        
+        verify(mockCacheProvider).removeObject(CacheKey.study(TEST_APP_ID, "studyA"));
+        verify(mockCacheProvider).removeObject(CacheKey.study(TEST_APP_ID, "studyB"));
+        verify(mockCacheProvider).removeObject(CacheKey.studyIds(TEST_APP_ID));
     }
     
     @Test
@@ -1029,6 +1122,8 @@ public class StudyServiceTest extends Mockito {
         
         verify(mockCacheProvider).removeObject(CacheKey.etag(Schedule2.class, TEST_APP_ID, "studyA"));
         verify(mockCacheProvider).removeObject(CacheKey.etag(Schedule2.class, TEST_APP_ID, "studyB"));
+        verify(mockCacheProvider).removeObject(CacheKey.study(TEST_APP_ID, "studyA"));
+        verify(mockCacheProvider).removeObject(CacheKey.study(TEST_APP_ID, "studyB"));
     }
     
     @Test
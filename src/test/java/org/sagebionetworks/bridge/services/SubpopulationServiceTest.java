@@ -8,6 +8,8 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -404,6 +406,62 @@ public class SubpopulationServiceTest extends Mockito {
         assertTrue(results.isEmpty());
     }    
     
+    @Test
+    public void getSubpopulationsForUserReusesMatches() {
+        Subpopulation subpop1 = createSubpop(SUBPOP_1, null, null, "group1");
+        Subpopulation subpop2 = createSubpop(SUBPOP_2, null, null, null);
+        subpop1.setVersion(1L);
+        subpop2.setVersion(1L);
+        List<Subpopulation> subpops = ImmutableList.of(subpop1, subpop2);
+        when(subpopDao.getSubpopulations(TEST_APP_ID, false)).thenReturn(subpops);
+        
+        List<Subpopulation> results = service.getSubpopulationsForUser(criteriaContext(4, "group1"));
+        assertEquals(results, ImmutableList.of(subpop1, subpop2));
+        
+        // The same subpopulations, loaded again (e.g. from the cache). The index is reused, and the matches for 
+        // the same criteria are taken from the newly loaded list.
+        Subpopulation reloaded1 = createSubpop(SUBPOP_1, null, null, "group1");
+        reloaded1.setGuidString(subpop1.getGuidString());
+        reloaded1.setVersion(1L);
+        Subpopulation reloaded2 = createSubpop(SUBPOP_2, null, null, null);
+        reloaded2.setGuidString(subpop2.getGuidString());
+        reloaded2.setVersion(1L);
+        List<Subpopulation> reloaded = ImmutableList.of(reloaded1, reloaded2);
+        when(subpopDao.getSubpopulations(TEST_APP_ID, false)).thenReturn(reloaded);
+        
+        SubpopulationService.SubpopulationMatcher matcher = service.getSubpopulationMatcher(TEST_APP_ID, subpops);
+        results = service.getSubpopulationsForUser(criteriaContext(4, "group1"));
+        assertSame(results.get(0), reloaded1);
+        assertSame(results.get(1), reloaded2);
+        assertSame(service.getSubpopulationMatcher(TEST_APP_ID, reloaded), matcher);
+        
+        // Another user with different criteria.
+        results = service.getSubpopulationsForUser(criteriaContext(4, null));
+        assertEquals(results, ImmutableList.of(reloaded2));
+        
+        // An updated subpopulation (from another node) is detected, and the index is rebuilt.
+        Subpopulation updated1 = createSubpop(SUBPOP_1, null, null, null);
+        updated1.setGuidString(subpop1.getGuidString());
+        updated1.setVersion(2L);
+        List<Subpopulation> updated = ImmutableList.of(updated1, reloaded2);
+        when(subpopDao.getSubpopulations(TEST_APP_ID, false)).thenReturn(updated);
+        
+        results = service.getSubpopulationsForUser(criteriaContext(4, null));
+        assertEquals(results, ImmutableList.of(updated1, reloaded2));
+        assertNotSame(service.getSubpopulationMatcher(TEST_APP_ID, updated), matcher);
+    }
+    
+    @Test
+    public void deleteSubpopulationRemovesMatcher() {
+        List<Subpopulation> subpops = ImmutableList.of(createSubpop(SUBPOP_1, null, null, null));
+        SubpopulationService.SubpopulationMatcher matcher = service.getSubpopulationMatcher(TEST_APP_ID, subpops);
+        assertSame(service.getSubpopulationMatcher(TEST_APP_ID, subpops), matcher);
+        
+        service.deleteSubpopulation(TEST_APP_ID, SubpopulationGuid.create("guid"));
+        
+        assertNotSame(service.getSubpopulationMatcher(TEST_APP_ID, subpops), matcher);
+    }
+    
     @Test
     public void deleteAllSubpopulationsDeletesConsents() {
         Subpopulation subpop1 = createSubpop(SUBPOP_1, null, null, null);
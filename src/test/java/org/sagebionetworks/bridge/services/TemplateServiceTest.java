@@ -199,6 +199,28 @@ public class TemplateServiceTest extends Mockito {
         assertEquals(template, t2);
     }
     
+    @Test
+    public void getTemplateForUserReusesCriteriaIndex() {
+        Template t1 = makeTemplate(GUID1, "en");
+        Template t2 = makeTemplate(GUID2, "fr");
+        mockGetTemplates(ImmutableList.of(t1, t2));
+        
+        assertEquals(service.getTemplateForUser(app, makeContext("fr"), EMAIL_RESET_PASSWORD).get(), t2);
+        assertEquals(service.getTemplateForUser(app, makeContext("en"), EMAIL_RESET_PASSWORD).get(), t1);
+        
+        // Criteria are only loaded to compile the index.
+        verify(mockCriteriaDao, times(1)).getCriteria("template:" + GUID1);
+        verify(mockCriteriaDao, times(1)).getCriteria("template:" + GUID2);
+        
+        // Updating a template changes its modifiedOn timestamp, so the index is compiled again.
+        t2.setModifiedOn(TIMESTAMP);
+        makeCriteria(GUID2, "de");
+        
+        assertEquals(service.getTemplateForUser(app, makeContext("de"), EMAIL_RESET_PASSWORD).get(), t2);
+        verify(mockCriteriaDao, times(2)).getCriteria("template:" + GUID1);
+        verify(mockCriteriaDao, times(2)).getCriteria("template:" + GUID2);
+    }
+    
     // More than one template matches, so the app default is used instead
     @Test
     public void getTemplateForUserMatchesManyUsesDefault() {
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -40,21 +41,29 @@ import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import org.joda.time.DateTime;
@@ -62,6 +71,7 @@ import org.joda.time.DateTimeUtils;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
@@ -103,6 +113,7 @@ import org.sagebionetworks.bridge.models.upload.UploadStatus;
 import org.sagebionetworks.bridge.models.upload.UploadValidationStatus;
 import org.sagebionetworks.bridge.models.upload.UploadView;
 import org.sagebionetworks.bridge.models.upload.UploadViewEx3;
+import org.sagebionetworks.bridge.upload.UploadCompletionRegistry;
 import org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator;
 
 @SuppressWarnings("ConstantConditions")
@@ -117,6 +128,9 @@ public class UploadServiceTest {
     final static DateTime TIMESTAMP = DateTime.now();
     final static String ORIGINAL_UPLOAD_ID = "anOriginalUploadId";
     final static String NEW_UPLOAD_ID = "aNewUploadId";
+    final static String MD5_1 = "AQAAAAAAAAAAAAAAAAAAAA==";
+    final static String MD5_2 = "AgAAAAAAAAAAAAAAAAAAAA==";
+    final static String MD5_3 = "AwAAAAAAAAAAAAAAAAAAAA==";
     private static final String UPLOAD_ID_1 = "upload1";
     private static final String UPLOAD_ID_2 = "upload2";
     final static String RECORD_ID = "aRecordId";
@@ -170,6 +184,9 @@ public class UploadServiceTest {
     @Mock
     BridgeConfig mockConfig;
     
+    @Mock
+    UploadCompletionRegistry mockUploadCompletionRegistry;
+    
     @Captor
     ArgumentCaptor<AdherenceRecordList> adherenceRecordListCaptor;
     
@@ -192,6 +209,8 @@ public class UploadServiceTest {
         
         when(mockConfig.getProperty(UploadService.CONFIG_KEY_UPLOAD_BUCKET)).thenReturn(UPLOAD_BUCKET_NAME);
         svc.setConfig(mockConfig);
+        
+        when(mockUploadCompletionRegistry.register(any())).thenReturn(new CompletableFuture<>());
     }
     
     @AfterMethod
@@ -471,16 +490,68 @@ public class UploadServiceTest {
     @Test
     public void deleteUploadsByHealthCodeWorks() {
         // Mock DAO.
-        when(mockUploadDao.deleteUploadsForHealthCode(HEALTH_CODE)).thenReturn(ImmutableList.of(UPLOAD_ID_1,
+        when(mockUploadDao.getUploadIdsForHealthCode(HEALTH_CODE)).thenReturn(ImmutableList.of(UPLOAD_ID_1,
                 UPLOAD_ID_2));
 
         // Execute.
         svc.deleteUploadsForHealthCode(HEALTH_CODE);
 
-        // Verify dependencies.
+        // Verify dependencies. The records are deleted after the files.
+        InOrder inOrder = inOrder(mockUploadDao, mockS3Client);
+        ArgumentCaptor<DeleteObjectsRequest> deleteRequestCaptor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        inOrder.verify(mockUploadDao).getUploadIdsForHealthCode(HEALTH_CODE);
+        inOrder.verify(mockS3Client).deleteObjects(deleteRequestCaptor.capture());
+        inOrder.verify(mockUploadDao).deleteUploadsForHealthCode(HEALTH_CODE);
+        DeleteObjectsRequest deleteRequest = deleteRequestCaptor.getValue();
+        assertEquals(deleteRequest.getBucketName(), UPLOAD_BUCKET_NAME);
+        assertTrue(deleteRequest.getQuiet());
+        assertEquals(deleteRequest.getKeys().stream().map(KeyVersion::getKey).collect(Collectors.toList()),
+                ImmutableList.of(UPLOAD_ID_1, UPLOAD_ID_2));
+        verify(mockS3Client, never()).deleteObject(any(), any());
+    }
+    
+    @Test
+    public void deleteUploadsByHealthCodeBatchesS3Deletes() {
+        List<String> uploadIds = new ArrayList<>();
+        for (int i = 0; i < UploadService.S3_DELETE_OBJECTS_MAX_KEYS + 1; i++) {
+            uploadIds.add("upload-" + i);
+        }
+        when(mockUploadDao.getUploadIdsForHealthCode(HEALTH_CODE)).thenReturn(uploadIds);
+
+        svc.deleteUploadsForHealthCode(HEALTH_CODE);
+
+        ArgumentCaptor<DeleteObjectsRequest> deleteRequestCaptor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(mockS3Client, times(2)).deleteObjects(deleteRequestCaptor.capture());
+        List<DeleteObjectsRequest> deleteRequests = deleteRequestCaptor.getAllValues();
+        assertEquals(deleteRequests.get(0).getKeys().size(), UploadService.S3_DELETE_OBJECTS_MAX_KEYS);
+        assertEquals(deleteRequests.get(1).getKeys().size(), 1);
+        assertEquals(deleteRequests.get(1).getKeys().get(0).getKey(),
+                "upload-" + UploadService.S3_DELETE_OBJECTS_MAX_KEYS);
+    }
+    
+    @Test
+    public void deleteUploadsByHealthCodeNoUploads() {
+        when(mockUploadDao.getUploadIdsForHealthCode(HEALTH_CODE)).thenReturn(ImmutableList.of());
+
+        svc.deleteUploadsForHealthCode(HEALTH_CODE);
+
+        verify(mockS3Client, never()).deleteObjects(any());
         verify(mockUploadDao).deleteUploadsForHealthCode(HEALTH_CODE);
-        verify(mockS3Client).deleteObject(UPLOAD_BUCKET_NAME, UPLOAD_ID_1);
-        verify(mockS3Client).deleteObject(UPLOAD_BUCKET_NAME, UPLOAD_ID_2);
+    }
+    
+    @Test
+    public void deleteUploadsByHealthCodeKeepsRecordsIfS3Fails() {
+        when(mockUploadDao.getUploadIdsForHealthCode(HEALTH_CODE)).thenReturn(ImmutableList.of(UPLOAD_ID_1));
+        when(mockS3Client.deleteObjects(any())).thenThrow(new AmazonS3Exception("S3 unavailable"));
+        
+        try {
+            svc.deleteUploadsForHealthCode(HEALTH_CODE);
+            fail("Should have thrown exception");
+        } catch (AmazonS3Exception e) {
+            // expected
+        }
+        // The records are kept, so the files can be found when the deletion is retried.
+        verify(mockUploadDao, never()).deleteUploadsForHealthCode(any());
     }
     
     @Test
@@ -579,6 +650,101 @@ public class UploadServiceTest {
         assertEquals(request.getRequestParameters().get(SERVER_SIDE_ENCRYPTION), AES_256_SERVER_SIDE_ENCRYPTION);
     }
 
+    @Test
+    public void createUploads() throws Exception {
+        RequestContext.set(new RequestContext.Builder().withUserAgent(TestConstants.UA).build());
+        
+        // Request 1 is a dupe of an incomplete upload, request 2 is a dupe of a completed upload, request 3 is 
+        // new, and request 4 is the same file as request 3.
+        UploadRequest request1 = constructUploadRequest(MD5_1);
+        UploadRequest request2 = constructUploadRequest(MD5_2);
+        UploadRequest request3 = constructUploadRequest(MD5_3);
+        UploadRequest request4 = constructUploadRequest(MD5_3);
+        
+        DynamoUpload2 incompleteUpload = new DynamoUpload2(request1, HEALTH_CODE);
+        incompleteUpload.setUploadId("original-1");
+        incompleteUpload.setStatus(UploadStatus.REQUESTED);
+        DynamoUpload2 completedUpload = new DynamoUpload2(request2, HEALTH_CODE);
+        completedUpload.setUploadId("original-2");
+        completedUpload.setStatus(SUCCEEDED);
+        
+        when(mockUploadDedupeDao.getDuplicates(eq(HEALTH_CODE), eq(ImmutableSet.of(MD5_1, MD5_2, MD5_3)), 
+                any())).thenReturn(ImmutableMap.of(MD5_1, "original-1", MD5_2, "original-2"));
+        when(mockUploadDao.getUploadsById(ImmutableSet.of("original-1", "original-2"))).thenReturn(
+                ImmutableMap.of("original-1", incompleteUpload, "original-2", completedUpload));
+        
+        Upload newUpload2 = new DynamoUpload2(request2, HEALTH_CODE);
+        newUpload2.setUploadId("new-2");
+        Upload newUpload3 = new DynamoUpload2(request3, HEALTH_CODE);
+        newUpload3.setUploadId("new-3");
+        when(mockUploadDao.createUploads(eq(TEST_APP_ID), eq(HEALTH_CODE), eq(ImmutableList.of(request2, request3)),
+                eq(Arrays.asList("original-2", null)), any(), eq(TestConstants.UA)))
+                .thenReturn(ImmutableList.of(newUpload2, newUpload3));
+        when(mockS3UploadClient.generatePresignedUrl(any())).thenReturn(new URL("https://ws.com/some-link"));
+        
+        List<UploadSession> sessions = svc.createUploads(TEST_APP_ID, PARTICIPANT,
+                ImmutableList.of(request1, request2, request3, request4));
+        assertEquals(sessions.size(), 4);
+        assertEquals(sessions.get(0).getId(), "original-1");
+        assertEquals(sessions.get(1).getId(), "new-2");
+        assertEquals(sessions.get(2).getId(), "new-3");
+        assertEquals(sessions.get(3).getId(), "new-3");
+        for (UploadSession session : sessions) {
+            assertEquals(session.getUrl(), "https://ws.com/some-link");
+            assertEquals(session.getExpires(), TIMESTAMP.getMillis() + UploadService.EXPIRATION);
+        }
+        
+        // Client info is written with the uploads, rather than in a second write.
+        ArgumentCaptor<String> clientInfoCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mockUploadDao).createUploads(any(), any(), any(), any(), clientInfoCaptor.capture(), any());
+        ClientInfo deser = BridgeObjectMapper.get().readValue(clientInfoCaptor.getValue(), ClientInfo.class);
+        assertEquals(deser, CLIENT_INFO);
+        verify(mockUploadDao, never()).updateUpload(any());
+        
+        // Only the new, non-dupe upload is registered.
+        verify(mockUploadDedupeDao).registerUploads(eq(HEALTH_CODE), eq(ImmutableMap.of(MD5_3, "new-3")), any());
+        
+        verify(mockS3UploadClient, times(4)).generatePresignedUrl(requestCaptor.capture());
+        List<GeneratePresignedUrlRequest> requests = requestCaptor.getAllValues();
+        assertEquals(requests.get(0).getKey(), "original-1");
+        assertEquals(requests.get(0).getContentMd5(), MD5_1);
+        assertEquals(requests.get(3).getKey(), "new-3");
+        assertEquals(requests.get(3).getContentMd5(), MD5_3);
+    }
+    
+    @Test
+    public void createUploadsNoDedupingAPIApp() throws Exception {
+        UploadRequest request = constructUploadRequest();
+        Upload upload = new DynamoUpload2(request, HEALTH_CODE);
+        upload.setUploadId(NEW_UPLOAD_ID);
+        
+        when(mockUploadDao.createUploads(eq(API_APP_ID), eq(HEALTH_CODE), eq(ImmutableList.of(request)),
+                eq(Arrays.asList((String)null)), any(), any())).thenReturn(ImmutableList.of(upload));
+        when(mockS3UploadClient.generatePresignedUrl(any())).thenReturn(new URL("https://ws.com/some-link"));
+        
+        List<UploadSession> sessions = svc.createUploads(API_APP_ID, PARTICIPANT, ImmutableList.of(request));
+        assertEquals(sessions.size(), 1);
+        assertEquals(sessions.get(0).getId(), NEW_UPLOAD_ID);
+        
+        verify(mockUploadDedupeDao, never()).getDuplicates(any(), any(), any());
+        verify(mockUploadDao, never()).getUploadsById(any());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class)
+    public void createUploadsEmpty() {
+        svc.createUploads(TEST_APP_ID, PARTICIPANT, ImmutableList.of());
+    }
+    
+    @Test(expectedExceptions = BadRequestException.class,
+            expectedExceptionsMessageRegExp = "Cannot request more than 100 uploads at one time")
+    public void createUploadsTooMany() {
+        List<UploadRequest> requests = new ArrayList<>();
+        for (int i = 0; i <= UploadService.MAX_UPLOAD_BATCH_SIZE; i++) {
+            requests.add(constructUploadRequest());
+        }
+        svc.createUploads(TEST_APP_ID, PARTICIPANT, requests);
+    }
+
     @Test
     public void getUploads() throws Exception {
         UploadRequest uploadRequest = constructUploadRequest();
@@ -630,6 +796,30 @@ public class UploadServiceTest {
         assertEquals(result.getMessageList().get(0), "One validation error");
     }
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void pollUploadValidationStatusWaitsForCompletionSignal() throws Exception {
+        UploadRequest uploadRequest = constructUploadRequest();
+        DynamoUpload2 inProgress = new DynamoUpload2(uploadRequest, HEALTH_CODE);
+        inProgress.setUploadId(ORIGINAL_UPLOAD_ID);
+        inProgress.setStatus(VALIDATION_IN_PROGRESS);
+        DynamoUpload2 succeeded = new DynamoUpload2(uploadRequest, HEALTH_CODE);
+        succeeded.setUploadId(ORIGINAL_UPLOAD_ID);
+        succeeded.setStatus(SUCCEEDED);
+        when(mockUploadDao.getUpload(ORIGINAL_UPLOAD_ID)).thenReturn(inProgress, succeeded);
+        
+        CompletableFuture<Void> mockCompletion = mock(CompletableFuture.class);
+        when(mockUploadCompletionRegistry.register(ORIGINAL_UPLOAD_ID)).thenReturn(mockCompletion);
+        
+        UploadValidationStatus result = svc.pollUploadValidationStatusUntilComplete(ORIGINAL_UPLOAD_ID);
+        assertEquals(result.getStatus(), SUCCEEDED);
+        
+        // We waited on the completion signal once, rather than sleeping, and then read the status again.
+        verify(mockCompletion).get(5000L, TimeUnit.MILLISECONDS);
+        verify(mockUploadDao, times(2)).getUpload(ORIGINAL_UPLOAD_ID);
+        verify(mockUploadCompletionRegistry).unregister(ORIGINAL_UPLOAD_ID, mockCompletion);
+    }
+    
     @Test(expectedExceptions = BridgeServiceException.class, 
             expectedExceptionsMessageRegExp = "Timeout polling validation status for upload anOriginalUploadId")
     public void pollUploadValidationStatusInProgress() throws Exception {
@@ -644,7 +834,11 @@ public class UploadServiceTest {
         when(mockHealthDataService.getRecordById(RECORD_ID)).thenReturn(mockRecord);
         
         svc.setPollValidationStatusSleepMillis(10); // speed this up
-        svc.pollUploadValidationStatusUntilComplete(ORIGINAL_UPLOAD_ID);
+        try {
+            svc.pollUploadValidationStatusUntilComplete(ORIGINAL_UPLOAD_ID);
+        } finally {
+            verify(mockUploadCompletionRegistry).unregister(eq(ORIGINAL_UPLOAD_ID), any());
+        }
     }
     
     @Test
@@ -1090,8 +1284,12 @@ public class UploadServiceTest {
     }
     
     UploadRequest constructUploadRequest() {
+        return constructUploadRequest("AAAAAAAAAAAAAAAAAAAAAA==");
+    }
+    
+    UploadRequest constructUploadRequest(String contentMd5) {
         return new UploadRequest.Builder().withName("oneUpload").withContentLength(1048L)
-                .withContentMd5("AAAAAAAAAAAAAAAAAAAAAA==")
+                .withContentMd5(contentMd5)
                 .withContentType("application/binary").build();
     }
     
@@ -12,6 +12,7 @@ import static org.sagebionetworks.bridge.TestConstants.SYNAPSE_USER_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_ORG_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.sagebionetworks.bridge.TestUtils.assertAccept;
 import static org.sagebionetworks.bridge.TestUtils.assertCreate;
 import static org.sagebionetworks.bridge.TestUtils.assertDelete;
 import static org.sagebionetworks.bridge.TestUtils.assertGet;
@@ -192,6 +193,7 @@ public class AccountsControllerTest extends Mockito {
         assertPost(AccountsController.class, "resendEmailVerification");
         assertPost(AccountsController.class, "resendPhoneVerification");
         assertPost(AccountsController.class, "signOut");
+        assertAccept(AccountsController.class, "backfillSearchTerms");
     }
     
     @Test
@@ -345,6 +347,16 @@ public class AccountsControllerTest extends Mockito {
                 .writeValueAsString(new RequestInfo.Builder().build()));
     }
     
+    @Test
+    public void backfillSearchTerms() throws Exception {
+        doReturn(session).when(controller).getAuthenticatedSession(SUPERADMIN);
+        
+        StatusMessage retValue = controller.backfillSearchTerms();
+        assertEquals(retValue.getMessage(), "Search term backfill started.");
+        
+        verify(mockAccountService).startSearchTermsBackfill();
+    }
+    
     @Test
     public void requestResetPassword() throws Exception {
         RequestContext.set(new RequestContext.Builder()
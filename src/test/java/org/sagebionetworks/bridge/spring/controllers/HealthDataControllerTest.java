@@ -1,5 +1,6 @@
 package org.sagebionetworks.bridge.spring.controllers;
 
+import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestUtils.assertCreate;
 import static org.sagebionetworks.bridge.TestUtils.assertCrossOrigin;
@@ -7,9 +8,13 @@ import static org.sagebionetworks.bridge.TestUtils.assertGet;
 import static org.sagebionetworks.bridge.TestUtils.assertPost;
 import static org.sagebionetworks.bridge.TestUtils.mockRequestBody;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -29,9 +34,11 @@ import org.mockito.Spy;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.testng.annotations.Test;
 
 import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.exceptions.BadRequestException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.DateTimeRangeResourceList;
 import org.sagebionetworks.bridge.models.Metrics;
@@ -148,6 +155,7 @@ public class HealthDataControllerTest extends Mockito {
     public void verifyAnnotations() throws Exception {
         assertCrossOrigin(HealthDataController.class);
         assertGet(HealthDataController.class, "getRecordsByCreatedOn");
+        assertGet(HealthDataController.class, "exportRecordsForUploadDate");
         assertCreate(HealthDataController.class, "submitHealthData");
         assertCreate(HealthDataController.class, "submitHealthDataForParticipant");
         assertPost(HealthDataController.class, "updateRecordsStatus");
@@ -186,6 +194,60 @@ public class HealthDataControllerTest extends Mockito {
         assertNull(recordList.get(1).getHealthCode());
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void exportRecordsForUploadDate() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        doReturn(response).when(controller).response();
+
+        HealthDataRecord record1 = HealthDataRecord.create();
+        record1.setId(TEST_RECORD_ID + "1");
+        record1.setHealthCode(HEALTH_CODE);
+
+        HealthDataRecord record2 = HealthDataRecord.create();
+        record2.setId(TEST_RECORD_ID + "2");
+        record2.setHealthCode(HEALTH_CODE);
+
+        doAnswer(invocation -> {
+            Consumer<HealthDataRecord> consumer = invocation.getArgument(1);
+            consumer.accept(record1);
+            consumer.accept(record2);
+            return null;
+        }).when(mockHealthDataService).streamRecordsForUploadDate(eq("2017-08-24"), any());
+
+        controller.exportRecordsForUploadDate("2017-08-24");
+
+        verify(controller).getAuthenticatedSession(WORKER);
+        assertEquals(response.getContentType(), HealthDataController.APPLICATION_NDJSON_VALUE);
+
+        // One record per line. Workers get the health code.
+        String[] lines = response.getContentAsString().split("\n");
+        assertEquals(lines.length, 2);
+        HealthDataRecord exported1 = BridgeObjectMapper.get().readValue(lines[0], HealthDataRecord.class);
+        assertEquals(exported1.getId(), TEST_RECORD_ID + "1");
+        assertEquals(exported1.getHealthCode(), HEALTH_CODE);
+        HealthDataRecord exported2 = BridgeObjectMapper.get().readValue(lines[1], HealthDataRecord.class);
+        assertEquals(exported2.getId(), TEST_RECORD_ID + "2");
+    }
+
+    @Test
+    public void exportRecordsForUploadDateInvalidDate() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        doReturn(response).when(controller).response();
+        doThrow(new BadRequestException("bad date")).when(mockHealthDataService)
+                .streamRecordsForUploadDate(eq("not a date"), any());
+
+        try {
+            controller.exportRecordsForUploadDate("not a date");
+            fail("Should have thrown exception");
+        } catch (BadRequestException e) {
+            // expected
+        }
+        // Nothing was sent, so the error can still be returned.
+        assertFalse(response.isCommitted());
+        assertTrue(response.getContentAsString().isEmpty());
+    }
+
     @Test
     public void submitHealthData() throws Exception {
         // mock request JSON
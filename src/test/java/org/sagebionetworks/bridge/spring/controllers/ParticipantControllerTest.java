@@ -49,12 +49,14 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -78,6 +80,7 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 import org.sagebionetworks.bridge.TestConstants;
 import org.sagebionetworks.bridge.models.ParticipantRosterRequest;
@@ -123,6 +126,8 @@ import org.sagebionetworks.bridge.models.activities.ActivityEvent;
 import org.sagebionetworks.bridge.models.activities.CustomActivityEventRequest;
 import org.sagebionetworks.bridge.models.apps.App;
 import org.sagebionetworks.bridge.models.apps.SmsTemplate;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutJob;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutRequest;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
 import org.sagebionetworks.bridge.models.schedules.ActivityType;
@@ -331,6 +336,7 @@ public class ParticipantControllerTest extends Mockito {
         assertPost(ParticipantController.class, "searchForAccountSummaries");
         assertGet(ParticipantController.class, "getParticipantsForWorker");
         assertPost(ParticipantController.class, "searchForAccountSummariesForWorker");
+        assertPost(ParticipantController.class, "exportAccountSummariesForWorker");
         assertCreate(ParticipantController.class, "createParticipant");
         assertGet(ParticipantController.class, "getParticipant");
         assertGet(ParticipantController.class, "getParticipantForWorker");
@@ -351,6 +357,8 @@ public class ParticipantControllerTest extends Mockito {
         assertGet(ParticipantController.class, "getUploads");
         assertGet(ParticipantController.class, "getNotificationRegistrations");
         assertAccept(ParticipantController.class, "sendNotification");
+        assertAccept(ParticipantController.class, "sendNotificationToParticipants");
+        assertGet(ParticipantController.class, "getNotificationFanOutJob");
         assertGet(ParticipantController.class, "getActivityEvents");
         assertAccept(ParticipantController.class, "sendSmsMessageForWorker");
         assertPost(ParticipantController.class, "createCustomActivityEvent");
@@ -1246,6 +1254,33 @@ public class ParticipantControllerTest extends Mockito {
         assertEquals(captured.getMessage(), "a message");
     }
 
+    @Test
+    public void sendNotificationToParticipants() throws Exception {
+        AccountSummarySearch search = new AccountSummarySearch.Builder().withLanguage("en").build();
+        mockRequestBody(mockRequest, new NotificationFanOutRequest(NOTIFICATION_MESSAGE, search));
+        NotificationFanOutJob job = new NotificationFanOutJob();
+        when(mockParticipantService.sendNotificationToParticipants(eq(app), isNull(), any(), any()))
+                .thenReturn(job);
+
+        NotificationFanOutJob result = controller.sendNotificationToParticipants();
+        assertSame(result, job);
+
+        verify(mockParticipantService).sendNotificationToParticipants(eq(app), isNull(), searchCaptor.capture(),
+                messageCaptor.capture());
+        assertEquals(searchCaptor.getValue().getLanguage(), "en");
+        assertEquals(messageCaptor.getValue().getSubject(), "a subject");
+        assertEquals(messageCaptor.getValue().getMessage(), "a message");
+    }
+
+    @Test
+    public void getNotificationFanOutJob() throws Exception {
+        NotificationFanOutJob job = new NotificationFanOutJob();
+        when(mockParticipantService.getNotificationFanOutJob(app, "jobId")).thenReturn(job);
+
+        NotificationFanOutJob result = controller.getNotificationFanOutJob("jobId");
+        assertSame(result, job);
+    }
+
     @Test
     public void sendMessageWithSomeErrors() throws Exception {
         Set<String> erroredRegistrations = ImmutableSet.of("123", "456");
@@ -1648,6 +1683,59 @@ public class ParticipantControllerTest extends Mockito {
         assertEquals(search, payload);
     }
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void exportAccountSummariesForWorker() throws Exception {
+        session.setParticipant(new StudyParticipant.Builder().copyOf(session.getParticipant())
+                .withRoles(ImmutableSet.of(Roles.WORKER)).build());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        doReturn(response).when(controller).response();
+
+        AccountSummarySearch payload = setAccountSummarySearch();
+        
+        AccountSummary summary1 = new AccountSummary.Builder().withId("user1").build();
+        AccountSummary summary2 = new AccountSummary.Builder().withId("user2").build();
+        doAnswer(invocation -> {
+            Consumer<AccountSummary> consumer = invocation.getArgument(2);
+            consumer.accept(summary1);
+            consumer.accept(summary2);
+            return null;
+        }).when(mockParticipantService).streamAccountSummaries(eq(app), any(), any());
+
+        controller.exportAccountSummariesForWorker(app.getIdentifier());
+
+        verify(mockParticipantService).streamAccountSummaries(eq(app), searchCaptor.capture(), any());
+        assertEquals(searchCaptor.getValue(), payload);
+        
+        assertEquals(response.getContentType(), ParticipantController.APPLICATION_NDJSON_VALUE);
+        String[] lines = response.getContentAsString().split("\n");
+        assertEquals(lines.length, 2);
+        assertEquals(BridgeObjectMapper.get().readValue(lines[0], AccountSummary.class).getId(), "user1");
+        assertEquals(BridgeObjectMapper.get().readValue(lines[1], AccountSummary.class).getId(), "user2");
+    }
+    
+    @Test
+    public void exportAccountSummariesForWorkerInvalidSearch() throws Exception {
+        session.setParticipant(new StudyParticipant.Builder().copyOf(session.getParticipant())
+                .withRoles(ImmutableSet.of(Roles.WORKER)).build());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        doReturn(response).when(controller).response();
+        
+        setAccountSummarySearch();
+        doThrow(new BadRequestException("bad search")).when(mockParticipantService)
+                .streamAccountSummaries(eq(app), any(), any());
+        
+        try {
+            controller.exportAccountSummariesForWorker(app.getIdentifier());
+            fail("Should have thrown exception");
+        } catch (BadRequestException e) {
+            // expected
+        }
+        // Nothing was sent, so the error can still be returned.
+        assertFalse(response.isCommitted());
+        assertTrue(response.getContentAsString().isEmpty());
+    }
+    
     @Test
     public void getEnrollments() {
         doReturn(session).when(controller).getAuthenticatedSession(false, RESEARCHER);
@@ -108,6 +108,9 @@ public class ParticipantReportControllerTest extends Mockito {
     @Captor
     ArgumentCaptor<ReportData> reportDataCaptor;
     
+    @Captor
+    ArgumentCaptor<List<ReportData>> reportDataListCaptor;
+    
     @Captor
     ArgumentCaptor<ReportIndex> reportDataIndex;
     
@@ -178,6 +181,7 @@ public class ParticipantReportControllerTest extends Mockito {
         assertGet(ParticipantReportController.class, "getParticipantReportForWorkerV4");
         assertCreate(ParticipantReportController.class, "saveParticipantReport");
         assertCreate(ParticipantReportController.class, "saveParticipantReportForWorker");
+        assertCreate(ParticipantReportController.class, "saveParticipantReports");
         assertDelete(ParticipantReportController.class, "deleteParticipantReport");
         assertDelete(ParticipantReportController.class, "deleteParticipantReportRecord");
         assertDelete(ParticipantReportController.class, "deleteParticipantReportIndex");
@@ -384,6 +388,35 @@ public class ParticipantReportControllerTest extends Mockito {
         verify(mockReportService).getParticipantReport(TEST_APP_ID, TEST_USER_ID, REPORT_ID, HEALTH_CODE, START_DATE, END_DATE);
     }
 
+    @Test
+    public void saveParticipantReports() throws Exception {
+        String json = TestUtils.createJson("[{'date':'2015-02-12','data':{'field1':'First'}},"
+                + "{'date':'2015-02-13','data':{'field1':'Second'}}]");
+        mockRequestBody(mockRequest, json);
+        when(mockAccountService.getAccount(any())).thenReturn(Optional.of(mockOtherAccount));
+
+        StatusMessage result = controller.saveParticipantReports(OTHER_PARTICIPANT_ID, REPORT_ID);
+        assertEquals(result.getMessage(), "Report data saved.");
+
+        verify(mockReportService).saveParticipantReports(eq(TEST_APP_ID), eq(TEST_USER_ID), eq(REPORT_ID),
+                eq(OTHER_PARTICIPANT_HEALTH_CODE), reportDataListCaptor.capture());
+        List<ReportData> reportDataList = reportDataListCaptor.getValue();
+        assertEquals(reportDataList.size(), 2);
+        assertEquals(reportDataList.get(0).getDate(), "2015-02-12");
+        assertEquals(reportDataList.get(0).getData().get("field1").asText(), "First");
+        assertNull(reportDataList.get(0).getKey());
+        assertEquals(reportDataList.get(1).getDate(), "2015-02-13");
+        assertEquals(reportDataList.get(1).getData().get("field1").asText(), "Second");
+        assertNull(reportDataList.get(1).getKey());
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void saveParticipantReportsAccountNotFound() throws Exception {
+        when(mockAccountService.getAccount(any())).thenReturn(Optional.empty());
+        
+        controller.saveParticipantReports(OTHER_PARTICIPANT_ID, REPORT_ID);
+    }
+    
     @Test
     public void saveParticipantReportData() throws Exception {
         String json = TestUtils.createJson("{'date':'2015-02-12','data':{'field1':'Last','field2':'Name'}}");
@@ -5,6 +5,7 @@ import static org.sagebionetworks.bridge.BridgeConstants.API_DEFAULT_PAGE_SIZE;
 import static org.sagebionetworks.bridge.BridgeConstants.TEST_USER_GROUP;
 import static org.sagebionetworks.bridge.RequestContext.NULL_INSTANCE;
 import static org.sagebionetworks.bridge.Roles.ADMIN;
+import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.STUDY_COORDINATOR;
 import static org.sagebionetworks.bridge.Roles.SUPERADMIN;
 import static org.sagebionetworks.bridge.Roles.STUDY_DESIGNER;
@@ -23,6 +24,7 @@ import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_CLIENT_TIME_ZONE;
 import static org.sagebionetworks.bridge.TestConstants.TEST_STUDY_ID;
 import static org.sagebionetworks.bridge.TestConstants.TEST_USER_ID;
+import static org.sagebionetworks.bridge.TestUtils.assertAccept;
 import static org.sagebionetworks.bridge.TestUtils.assertCreate;
 import static org.sagebionetworks.bridge.TestUtils.assertCrossOrigin;
 import static org.sagebionetworks.bridge.TestUtils.assertDelete;
@@ -100,6 +102,8 @@ import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.activities.StudyActivityEvent;
 import org.sagebionetworks.bridge.models.activities.StudyActivityEventIdsMap;
 import org.sagebionetworks.bridge.models.apps.App;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutJob;
+import org.sagebionetworks.bridge.models.notifications.NotificationFanOutRequest;
 import org.sagebionetworks.bridge.models.notifications.NotificationMessage;
 import org.sagebionetworks.bridge.models.notifications.NotificationRegistration;
 import org.sagebionetworks.bridge.models.reports.ReportData;
@@ -268,6 +272,8 @@ public class StudyParticipantControllerTest extends Mockito {
         assertGet(StudyParticipantController.class, "getUploads");
         assertGet(StudyParticipantController.class, "getNotificationRegistrations");
         assertPost(StudyParticipantController.class, "sendNotification");
+        assertAccept(StudyParticipantController.class, "sendNotificationToParticipants");
+        assertGet(StudyParticipantController.class, "getNotificationFanOutJob");
         assertDelete(StudyParticipantController.class, "deleteTestOrUnusedParticipant");
         assertGet(StudyParticipantController.class, "getRecentActivityEvents");
         assertGet(StudyParticipantController.class, "getActivityEventHistory");
@@ -598,7 +604,9 @@ public class StudyParticipantControllerTest extends Mockito {
         
         AccountSummarySearch search = new AccountSummarySearch.Builder()
                 .withAdminOnly(TRUE)
-                .withEmailFilter("emailFilter").build();
+                .withEmailFilter("emailFilter")
+                .withOffsetKey("offsetKey")
+                .withIncludeTotal(false).build();
         mockRequestBody(mockRequest, search);
         
         PagedResourceList<AccountSummary> retValue = controller.searchForAccountSummaries(TEST_STUDY_ID);
@@ -609,6 +617,8 @@ public class StudyParticipantControllerTest extends Mockito {
         AccountSummarySearch captured = searchCaptor.getValue();
         assertEquals(captured.getEnrolledInStudyId(), TEST_STUDY_ID);
         assertEquals(captured.getEmailFilter(), "emailFilter");
+        assertEquals(captured.getOffsetKey(), "offsetKey");
+        assertEquals(captured.getIncludeTotal(), Boolean.FALSE);
     }
     
     @Test
@@ -1191,6 +1201,64 @@ public class StudyParticipantControllerTest extends Mockito {
         assertEquals(NOTIFY_SUCCESS_MSG, retValue);
     }
     
+    @Test
+    public void sendNotificationToParticipants() throws Exception {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerRoles(ImmutableSet.of(ADMIN))
+                .build());
+        
+        NotificationMessage msg = new NotificationMessage.Builder().withSubject("subject")
+                .withMessage("message").build();
+        mockRequestBody(mockRequest, new NotificationFanOutRequest(msg, null));
+        NotificationFanOutJob job = new NotificationFanOutJob();
+        when(mockParticipantService.sendNotificationToParticipants(eq(app), eq(TEST_STUDY_ID), isNull(), any()))
+                .thenReturn(job);
+        
+        NotificationFanOutJob retValue = controller.sendNotificationToParticipants(TEST_STUDY_ID);
+        assertSame(retValue, job);
+        
+        verify(mockParticipantService).sendNotificationToParticipants(eq(app), eq(TEST_STUDY_ID), isNull(),
+                messageCaptor.capture());
+        assertEquals(messageCaptor.getValue().getSubject(), "subject");
+        assertEquals(messageCaptor.getValue().getMessage(), "message");
+    }
+    
+    @Test(expectedExceptions = UnauthorizedException.class)
+    public void sendNotificationToParticipantsNotAuthorized() throws Exception {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerRoles(ImmutableSet.of(DEVELOPER))
+                .build());
+        
+        controller.sendNotificationToParticipants(TEST_STUDY_ID);
+    }
+    
+    @Test
+    public void getNotificationFanOutJob() {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerRoles(ImmutableSet.of(ADMIN))
+                .build());
+        
+        NotificationFanOutJob job = new NotificationFanOutJob();
+        job.setStudyId(TEST_STUDY_ID);
+        when(mockParticipantService.getNotificationFanOutJob(app, "jobId")).thenReturn(job);
+        
+        NotificationFanOutJob retValue = controller.getNotificationFanOutJob(TEST_STUDY_ID, "jobId");
+        assertSame(retValue, job);
+    }
+    
+    @Test(expectedExceptions = EntityNotFoundException.class)
+    public void getNotificationFanOutJobWrongStudy() {
+        RequestContext.set(new RequestContext.Builder()
+                .withCallerRoles(ImmutableSet.of(ADMIN))
+                .build());
+        
+        NotificationFanOutJob job = new NotificationFanOutJob();
+        job.setStudyId("otherStudy");
+        when(mockParticipantService.getNotificationFanOutJob(app, "jobId")).thenReturn(job);
+        
+        controller.getNotificationFanOutJob(TEST_STUDY_ID, "jobId");
+    }
+    
     @Test(expectedExceptions = EntityNotFoundException.class)
     public void sendNotificationWrongStudy() throws Exception {
         RequestContext.set(new RequestContext.Builder()
@@ -3,6 +3,7 @@ package org.sagebionetworks.bridge.spring.controllers;
 import static org.sagebionetworks.bridge.RequestContext.NULL_INSTANCE;
 import static org.sagebionetworks.bridge.Roles.DEVELOPER;
 import static org.sagebionetworks.bridge.Roles.RESEARCHER;
+import static org.sagebionetworks.bridge.Roles.WORKER;
 import static org.sagebionetworks.bridge.TestConstants.CONSENTED_STATUS_MAP;
 import static org.sagebionetworks.bridge.TestConstants.HEALTH_CODE;
 import static org.sagebionetworks.bridge.TestConstants.TEST_APP_ID;
@@ -101,6 +102,9 @@ public class StudyReportControllerTest extends Mockito {
     @Captor
     ArgumentCaptor<ReportData> reportDataCaptor;
     
+    @Captor
+    ArgumentCaptor<List<ReportData>> reportDataListCaptor;
+    
     @Captor
     ArgumentCaptor<ReportIndex> reportDataIndex;
     
@@ -239,6 +243,41 @@ public class StudyReportControllerTest extends Mockito {
         assertEquals("Name", reportData.getData().get("field2").asText());
     }
 
+    @Test
+    public void saveStudyReports() throws Exception {
+        String json = TestUtils.createJson("[{'date':'2015-02-12','data':{'field1':'First'}},"
+                + "{'date':'2015-02-13','data':{'field1':'Second'}}]");
+        mockRequestBody(mockRequest, json);
+        
+        StatusMessage result = controller.saveStudyReports(REPORT_ID);
+        assertEquals(result, StudyReportController.SAVED_MSG);
+        
+        verify(mockReportService).saveStudyReports(eq(TEST_APP_ID), eq(REPORT_ID), reportDataListCaptor.capture());
+        List<ReportData> reportDataList = reportDataListCaptor.getValue();
+        assertEquals(reportDataList.size(), 2);
+        assertEquals(reportDataList.get(0).getDate(), "2015-02-12");
+        assertEquals(reportDataList.get(0).getData().get("field1").asText(), "First");
+        assertNull(reportDataList.get(0).getKey());
+        assertEquals(reportDataList.get(1).getDate(), "2015-02-13");
+        assertNull(reportDataList.get(1).getKey());
+    }
+    
+    @Test
+    public void saveStudyReportsForWorker() throws Exception {
+        session.setParticipant(new StudyParticipant.Builder().withRoles(ImmutableSet.of(WORKER)).build());
+        String json = TestUtils.createJson("[{'date':'2015-02-12','data':{'field1':'First'}}]");
+        mockRequestBody(mockRequest, json);
+        
+        StatusMessage result = controller.saveStudyReportsForWorker("other-app", REPORT_ID);
+        assertEquals(result, StudyReportController.SAVED_MSG);
+        
+        verify(mockReportService).saveStudyReports(eq("other-app"), eq(REPORT_ID), reportDataListCaptor.capture());
+        List<ReportData> reportDataList = reportDataListCaptor.getValue();
+        assertEquals(reportDataList.size(), 1);
+        assertEquals(reportDataList.get(0).getDate(), "2015-02-12");
+        assertNull(reportDataList.get(0).getKey());
+    }
+    
     @Test
     public void deleteStudyReportData() throws Exception {
         StatusMessage result = controller.deleteStudyReport(REPORT_ID);
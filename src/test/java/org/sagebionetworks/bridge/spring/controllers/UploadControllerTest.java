@@ -19,12 +19,14 @@ import static org.testng.Assert.fail;
 
 import java.net.URL;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import org.mockito.ArgumentCaptor;
@@ -46,12 +48,14 @@ import org.sagebionetworks.bridge.exceptions.UnauthorizedException;
 import org.sagebionetworks.bridge.json.BridgeObjectMapper;
 import org.sagebionetworks.bridge.models.Metrics;
 import org.sagebionetworks.bridge.models.RequestInfo;
+import org.sagebionetworks.bridge.models.ResourceList;
 import org.sagebionetworks.bridge.models.accounts.Account;
 import org.sagebionetworks.bridge.models.accounts.StudyParticipant;
 import org.sagebionetworks.bridge.models.accounts.UserSession;
 import org.sagebionetworks.bridge.models.healthdata.HealthDataRecord;
 import org.sagebionetworks.bridge.models.upload.Upload;
 import org.sagebionetworks.bridge.models.upload.UploadCompletionClient;
+import org.sagebionetworks.bridge.models.upload.UploadRequest;
 import org.sagebionetworks.bridge.models.upload.UploadSession;
 import org.sagebionetworks.bridge.models.upload.UploadStatus;
 import org.sagebionetworks.bridge.models.upload.UploadValidationStatus;
@@ -116,6 +120,9 @@ public class UploadControllerTest extends Mockito {
     @Captor
     ArgumentCaptor<RequestInfo> requestInfoCaptor;
     
+    @Captor
+    ArgumentCaptor<List<UploadRequest>> uploadRequestListCaptor;
+    
     DynamoUpload2 upload;
     
     @BeforeMethod
@@ -179,6 +186,32 @@ public class UploadControllerTest extends Mockito {
         assertEquals(info.getUserId(), "userId");
     }
     
+    @Test
+    public void uploadBatch() throws Exception {
+        doReturn(mockConsentedUserSession).when(controller).getAuthenticatedAndConsentedSession();
+        mockRequestBody(mockRequest, createJson("[" +
+            "{'name':'upload1','contentLength':100,'contentMd5':'abc','contentType':'application/zip'}," +
+            "{'name':'upload2','contentLength':50,'contentMd5':'def','contentType':'application/zip'}]"));
+        
+        UploadSession session1 = new UploadSession("id1", new URL("http://server.com/id1"), 1000);
+        UploadSession session2 = new UploadSession("id2", new URL("http://server.com/id2"), 1000);
+        doReturn(ImmutableList.of(session1, session2)).when(mockUploadService).createUploads(any(), any(), any());
+        
+        ResourceList<UploadSession> result = controller.uploadBatch();
+        assertEquals(result.getItems(), ImmutableList.of(session1, session2));
+        
+        verify(mockUploadService).createUploads(eq("consented-user-app-id"), any(),
+                uploadRequestListCaptor.capture());
+        List<UploadRequest> requests = uploadRequestListCaptor.getValue();
+        assertEquals(requests.size(), 2);
+        assertEquals(requests.get(0).getName(), "upload1");
+        assertEquals(requests.get(1).getName(), "upload2");
+        
+        verify(mockMetrics).setUploadSize(150L);
+        verify(mockRequestInfoService).updateRequestInfo(requestInfoCaptor.capture());
+        assertNotNull(requestInfoCaptor.getValue().getUploadedOn());
+    }
+    
     @Test
     public void uploadCompleteAcceptsWorker() throws Exception {
         upload.setAppId("consented-user-app-id");
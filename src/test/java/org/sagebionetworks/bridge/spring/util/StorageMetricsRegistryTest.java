@@ -0,0 +1,46 @@
+package org.sagebionetworks.bridge.spring.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.spring.util.StorageMetricsRegistry.CallStats;
+
+public class StorageMetricsRegistryTest {
+
+    @Test
+    public void recordAggregatesByOperation() {
+        StorageMetricsRegistry registry = new StorageMetricsRegistry();
+        registry.record("HibernateAccountDao.getAccount", 10L);
+        registry.record("HibernateAccountDao.getAccount", 30L);
+        registry.record("DynamoUploadDao.getUpload", 5L);
+
+        Map<String, CallStats> snapshot = registry.getSnapshot();
+        assertEquals(snapshot.size(), 2);
+
+        CallStats stats = snapshot.get("HibernateAccountDao.getAccount");
+        assertEquals(stats.getCount(), 2L);
+        assertEquals(stats.getTotalMillis(), 40L);
+        assertEquals(stats.getMaxMillis(), 30L);
+
+        stats = snapshot.get("DynamoUploadDao.getUpload");
+        assertEquals(stats.getCount(), 1L);
+        assertEquals(stats.getTotalMillis(), 5L);
+        assertEquals(stats.getMaxMillis(), 5L);
+        
+        // does not throw
+        registry.logSnapshot();
+    }
+
+    @Test
+    public void clear() {
+        StorageMetricsRegistry registry = new StorageMetricsRegistry();
+        registry.record("HibernateAccountDao.getAccount", 10L);
+        registry.clear();
+        
+        assertTrue(registry.getSnapshot().isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package org.sagebionetworks.bridge.spring.util;
+
+import static org.sagebionetworks.bridge.RequestContext.NULL_INSTANCE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import org.sagebionetworks.bridge.RequestContext;
+import org.sagebionetworks.bridge.cache.CacheProvider;
+import org.sagebionetworks.bridge.dynamodb.DynamoUploadDao;
+import org.sagebionetworks.bridge.hibernate.HibernateAccountDao;
+import org.sagebionetworks.bridge.models.Metrics;
+
+public class StorageTimingComponentTest extends Mockito {
+
+    @Mock
+    ProceedingJoinPoint mockJoinPoint;
+
+    @Mock
+    Signature mockSignature;
+
+    @Mock
+    StorageMetricsRegistry mockRegistry;
+
+    @InjectMocks
+    StorageTimingComponent component;
+
+    Metrics metrics;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        MockitoAnnotations.initMocks(this);
+        metrics = new Metrics("request-id");
+        RequestContext.set(new RequestContext.Builder().withMetrics(metrics).build());
+        when(mockJoinPoint.getSignature()).thenReturn(mockSignature);
+    }
+
+    @AfterMethod
+    public void afterMethod() {
+        RequestContext.set(NULL_INSTANCE);
+    }
+
+    @Test
+    public void timeDaoCallHibernate() throws Throwable {
+        when(mockJoinPoint.getTarget()).thenReturn(new HibernateAccountDao());
+        when(mockSignature.getName()).thenReturn("getAccount");
+        when(mockJoinPoint.proceed()).thenReturn("result");
+
+        Object retValue = component.timeDaoCall(mockJoinPoint);
+        assertEquals(retValue, "result");
+
+        assertEquals(metrics.getJson().get("dbCalls").longValue(), 1L);
+        assertFalse(metrics.getJson().has("dynamoCalls"));
+        verify(mockRegistry).record(eq("HibernateAccountDao.getAccount"), anyLong());
+    }
+
+    @Test
+    public void timeDaoCallDynamo() throws Throwable {
+        when(mockJoinPoint.getTarget()).thenReturn(new DynamoUploadDao());
+        when(mockSignature.getName()).thenReturn("getUpload");
+
+        component.timeDaoCall(mockJoinPoint);
+
+        assertEquals(metrics.getJson().get("dynamoCalls").longValue(), 1L);
+        assertFalse(metrics.getJson().has("dbCalls"));
+        verify(mockRegistry).record(eq("DynamoUploadDao.getUpload"), anyLong());
+    }
+
+    @Test
+    public void timeCacheCall() throws Throwable {
+        when(mockJoinPoint.getTarget()).thenReturn(new CacheProvider());
+        when(mockSignature.getName()).thenReturn("getUserSession");
+
+        component.timeCacheCall(mockJoinPoint);
+
+        assertEquals(metrics.getJson().get("redisCalls").longValue(), 1L);
+        verify(mockRegistry).record(eq("CacheProvider.getUserSession"), anyLong());
+    }
+
+    @Test
+    public void callIsRecordedWhenItFails() throws Throwable {
+        when(mockJoinPoint.getTarget()).thenReturn(new HibernateAccountDao());
+        when(mockSignature.getName()).thenReturn("getAccount");
+        when(mockJoinPoint.proceed()).thenThrow(new IllegalStateException());
+
+        try {
+            component.timeDaoCall(mockJoinPoint);
+            fail("Should have thrown exception");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(metrics.getJson().get("dbCalls").longValue(), 1L);
+        verify(mockRegistry).record(eq("HibernateAccountDao.getAccount"), anyLong());
+    }
+
+    @Test
+    public void noMetricsOutsideOfRequest() throws Throwable {
+        RequestContext.set(NULL_INSTANCE);
+        when(mockJoinPoint.getTarget()).thenReturn(new HibernateAccountDao());
+        when(mockSignature.getName()).thenReturn("getAccount");
+
+        component.timeDaoCall(mockJoinPoint);
+
+        verify(mockRegistry).record(eq("HibernateAccountDao.getAccount"), anyLong());
+    }
+}
@@ -0,0 +1,96 @@
+package org.sagebionetworks.bridge.upload;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+public class UploadCompletionRegistryTest extends Mockito {
+    private static final String UPLOAD_ID = "upload-id";
+    private static final String OTHER_UPLOAD_ID = "other-upload-id";
+
+    @Mock
+    JedisPool mockJedisPool;
+
+    @Mock
+    Jedis mockJedis;
+
+    @InjectMocks
+    UploadCompletionRegistry registry;
+
+    @BeforeMethod
+    public void beforeMethod() {
+        registry = new UploadCompletionRegistry();
+        MockitoAnnotations.initMocks(this);
+        when(mockJedisPool.getResource()).thenReturn(mockJedis);
+    }
+
+    @Test
+    public void signalCompletesAllWaitersForUpload() {
+        CompletableFuture<Void> future1 = registry.register(UPLOAD_ID);
+        CompletableFuture<Void> future2 = registry.register(UPLOAD_ID);
+        CompletableFuture<Void> otherFuture = registry.register(OTHER_UPLOAD_ID);
+
+        registry.signalComplete(UPLOAD_ID);
+
+        assertTrue(future1.isDone());
+        assertTrue(future2.isDone());
+        assertFalse(otherFuture.isDone());
+        assertEquals(registry.getWaitingUploadCount(), 1);
+        verify(mockJedis).publish(UploadCompletionRegistry.CHANNEL_PREFIX + UPLOAD_ID, UPLOAD_ID);
+        verify(mockJedis).close();
+    }
+
+    @Test
+    public void messageFromOtherNodeCompletesWaiters() {
+        CompletableFuture<Void> future = registry.register(UPLOAD_ID);
+
+        registry.completeLocal(UPLOAD_ID);
+
+        assertTrue(future.isDone());
+        assertEquals(registry.getWaitingUploadCount(), 0);
+    }
+
+    @Test
+    public void unregisterRemovesWaiter() {
+        CompletableFuture<Void> future1 = registry.register(UPLOAD_ID);
+        CompletableFuture<Void> future2 = registry.register(UPLOAD_ID);
+
+        registry.unregister(UPLOAD_ID, future1);
+        assertEquals(registry.getWaitingUploadCount(), 1);
+
+        registry.unregister(UPLOAD_ID, future2);
+        assertEquals(registry.getWaitingUploadCount(), 0);
+
+        // Signaling with no waiters still notifies other nodes.
+        registry.signalComplete(UPLOAD_ID);
+        assertFalse(future1.isDone());
+        verify(mockJedis).publish(UploadCompletionRegistry.CHANNEL_PREFIX + UPLOAD_ID, UPLOAD_ID);
+    }
+
+    @Test
+    public void publishFailureIsNotThrown() {
+        CompletableFuture<Void> future = registry.register(UPLOAD_ID);
+        doThrow(new JedisConnectionException("connection refused")).when(mockJedis)
+                .publish(UploadCompletionRegistry.CHANNEL_PREFIX + UPLOAD_ID, UPLOAD_ID);
+
+        registry.signalComplete(UPLOAD_ID);
+
+        // Waiters on this node are still completed.
+        assertTrue(future.isDone());
+    }
+}
@@ -327,6 +327,7 @@ public class UploadHandlersEndToEndTest {
         taskFactory.setHandlerList(handlerList);
         taskFactory.setUploadDao(mockUploadDao);
         taskFactory.setHealthDataService(mockHealthDataService);
+        taskFactory.setUploadCompletionRegistry(mock(UploadCompletionRegistry.class));
 
         // create task, execute
         UploadValidationTask task = taskFactory.newTask(TEST_APP_ID, upload);
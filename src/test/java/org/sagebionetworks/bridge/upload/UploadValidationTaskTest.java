@@ -57,6 +57,7 @@ public class UploadValidationTaskTest {
     private UploadValidationContext ctx;
     private InMemoryFileHelper inMemoryFileHelper;
     private UploadDao mockDao;
+    private UploadCompletionRegistry mockCompletionRegistry;
     private UploadValidationTask task;
     private Upload upload;
 
@@ -80,6 +81,7 @@ public class UploadValidationTaskTest {
         // Set up other pre-reqs
         inMemoryFileHelper = new InMemoryFileHelper();
         mockDao = mock(UploadDao.class);
+        mockCompletionRegistry = mock(UploadCompletionRegistry.class);
 
         // Set up task. Spy so we can verify some calls.
         task = spy(new UploadValidationTask(ctx));
@@ -87,6 +89,7 @@ public class UploadValidationTaskTest {
         task.setHandlerList(handlerList);
         task.setHealthDataService(healthDataService);
         task.setUploadDao(mockDao);
+        task.setUploadCompletionRegistry(mockCompletionRegistry);
     }
 
     @Test
@@ -162,6 +165,9 @@ public class UploadValidationTaskTest {
         // validate the upload dao write validation status call
         verify(mockDao).writeValidationStatus(upload, expectedStatus, ctx.getMessageList(), expectedRecordId);
 
+        // Validate that we signal requests waiting for validation to complete.
+        verify(mockCompletionRegistry).signalComplete("test-upload");
+
         // Validate that we clean up the temp directory.
         assertTrue(inMemoryFileHelper.isEmpty());
     }
@@ -55,6 +55,13 @@ public class AccountSummarySearchValidatorTest {
         assertValidatorMessage(validator, builder.build(), "offsetBy", "cannot be less than 0");
     }
     
+    @Test
+    public void offsetByCannotBeCombinedWithOffsetKey() {
+        builder.withOffsetBy(10).withOffsetKey("offsetKey");
+        assertValidatorMessage(validator, builder.build(), "offsetBy",
+                AccountSummarySearchValidator.OFFSET_BY_AND_OFFSET_KEY_ERROR);
+    }
+    
     @Test
     public void pageSizeTooSmall() {
         builder.withPageSize(BridgeConstants.API_MINIMUM_PAGE_SIZE-1);
@@ -28,6 +28,7 @@ import static org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValida
 import static org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator.MAX_PAGE_SIZE;
 import static org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator.MAX_SET_SIZE;
 import static org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator.MAX_SET_SIZE_ERROR;
+import static org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator.OFFSET_BY_AND_OFFSET_KEY_ERROR;
 import static org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator.OFFSET_BY_FIELD;
 import static org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator.PAGE_SIZE_ERROR;
 import static org.sagebionetworks.bridge.validators.AdherenceRecordsSearchValidator.PAGE_SIZE_FIELD;
@@ -214,6 +215,20 @@ public class AdherenceRecordsSearchValidatorTest extends Mockito {
         assertValidatorMessage(INSTANCE, search, OFFSET_BY_FIELD, CANNOT_BE_NEGATIVE);
     }
     
+    @Test
+    public void offsetByWithOffsetKey() {
+        AdherenceRecordsSearch search = search()
+                .withOffsetBy(10).withOffsetKey("offsetKey").build();
+        assertValidatorMessage(INSTANCE, search, OFFSET_BY_FIELD, OFFSET_BY_AND_OFFSET_KEY_ERROR);
+    }
+    
+    @Test
+    public void offsetKeyOk() {
+        AdherenceRecordsSearch search = search()
+                .withOffsetKey("offsetKey").withIncludeTotal(false).build();
+        Validate.entityThrowingException(INSTANCE, search);
+    }
+    
     @Test
     public void pageSizeTooSmall() {
         AdherenceRecordsSearch search = search()